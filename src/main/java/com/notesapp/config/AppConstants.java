@@ -25,10 +25,54 @@ public final class AppConstants {
   public static final int END_OF_DAY_HOUR = 23;
   public static final int END_OF_DAY_MINUTE = 59;
 
+  // Cluster Scheduling
+  public static final long LEASE_DURATION_SECONDS = 30;
+  public static final long LEASE_RENEW_INTERVAL_MS = 10000;
+  public static final long REMINDER_CLAIM_SECONDS = 120;
+  public static final int REMINDER_BUCKETS = 64;
+  public static final int REMINDER_DELIVERY_BATCH_SIZE = 200;
+  public static final long DUE_TASK_JOB_LEASE_MINUTES = 30;
+  public static final String NODE_LEASE_PREFIX = "node:";
+  public static final String JOB_LEASE_PREFIX = "job:";
+
+  // Due-Task Digest
+  public static final int DIGEST_BATCH_SIZE = 50;
+  public static final int DIGEST_SEND_THREADS = 4;
+  public static final int DIGEST_MAX_LISTED_TASKS = 10;
+
   // File Upload Limits
   public static final long MAX_IMAGE_SIZE_BYTES = 10 * 1024 * 1024; // 10MB
   public static final long MAX_AUDIO_SIZE_BYTES = 25 * 1024 * 1024; // 25MB
 
+  // Chunked Uploads
+  public static final long MAX_CHUNKED_AUDIO_SIZE_BYTES = 500L * 1024 * 1024; // 500MB
+  public static final long MAX_UPLOAD_CHUNK_BYTES = 8 * 1024 * 1024; // 8MB
+  public static final long UPLOAD_SESSION_TTL_HOURS = 24;
+  public static final long UPLOAD_SESSION_SWEEP_INTERVAL_MS = 3600000;
+
+  // Media Downloads
+  public static final int MAX_BYTE_RANGES = 16;
+  public static final int CONTENT_HASH_CACHE_MAX_ENTRIES = 10000; // digests of legacy files
+
+  // Media Memory Cache
+  public static final int MEDIA_CACHE_WINDOW_PERCENT = 1;
+  public static final int MEDIA_CACHE_PROTECTED_PERCENT = 80;
+  public static final long MEDIA_CACHE_AVERAGE_ENTRY_BYTES = 16 * 1024;
+  public static final int MEDIA_CACHE_LOAD_MIN_FREQUENCY = 2; // requests before a file is read into memory
+
+  // Image Variants
+  public static final float IMAGE_VARIANT_JPEG_QUALITY = 0.82f;
+  public static final int IMAGE_VARIANT_MAX_SOURCE_PIXELS = 50_000_000;
+
+  // Media Migration
+  public static final int MEDIA_MIGRATION_PAGE_SIZE = 200;
+  public static final long MEDIA_MIGRATION_LEASE_MINUTES = 60;
+
+  // Media Garbage Collection
+  public static final int MEDIA_GC_PAGE_SIZE = 1000;
+  public static final long MEDIA_GC_LEASE_MINUTES = 120;
+  public static final double MEDIA_GC_FALSE_POSITIVE_RATE = 0.01;
+
   // PDF Export Configuration
   public static final float PDF_MARGIN = 50f;
   public static final float PDF_TITLE_FONT_SIZE = 18f;
@@ -36,7 +80,39 @@ public final class AppConstants {
   public static final float PDF_BODY_FONT_SIZE = 12f;
   public static final float PDF_LINE_HEIGHT = 15f;
   public static final float PDF_PAGE_WIDTH = 595f; // A4 width in points
+  public static final float PDF_PAGE_HEIGHT = 842f; // A4 height in points
   public static final float PDF_WRITABLE_WIDTH = PDF_PAGE_WIDTH - (2 * PDF_MARGIN);
+  public static final float PDF_WRITABLE_HEIGHT = PDF_PAGE_HEIGHT - (2 * PDF_MARGIN);
+  public static final int PDF_IMAGE_DPI = 150; // embedded images are downscaled to this at full text width
+  public static final long PDF_EXPORT_MAIN_MEMORY_BYTES = 8 * 1024 * 1024; // 8MB per export, then a scratch file
+  public static final int PDF_EXPORT_BATCH_SIZE = 200; // notes loaded per query
+  public static final int PDF_RENDER_THREADS = Runtime.getRuntime().availableProcessors(); // shared by all exports
+  public static final int PDF_RENDER_CHUNK_SIZE = 25; // notes rendered per task
+  public static final int PDF_RENDER_CHUNKS_IN_FLIGHT = 4; // per export
+  public static final int PDF_RENDITION_LAYOUT_VERSION = 3; // bump when rendering changes, to retire cached PDFs
+
+  // Export Jobs
+  public static final int EXPORT_SYNC_MAX_NOTES = 200; // larger PDF exports run as jobs
+  public static final int EXPORT_JOB_THREADS = 2;
+  public static final int EXPORT_JOB_QUEUE_CAPACITY = 50;
+  public static final int EXPORT_JOBS_PER_USER = 2; // queued or running
+  public static final long EXPORT_JOB_TTL_MINUTES = 60; // after the job finishes
+  public static final long EXPORT_JOB_SWEEP_INTERVAL_MS = 300000;
+  public static final long EXPORT_JOB_PROGRESS_INTERVAL_MS = 1000;
+  public static final int EXPORT_JOB_MAX_ERROR_LENGTH = 1000;
+
+  // Note Transfer (NDJSON / Markdown export and NDJSON import)
+  public static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+  public static final int NOTE_TRANSFER_PAGE_SIZE = 500; // notes loaded per transaction
+  public static final int NOTE_IMPORT_BATCH_SIZE = 500; // notes inserted per JDBC batch
+  public static final int NOTE_IMPORT_MAX_REPORTED_ERRORS = 20;
+  public static final int NOTE_IMPORT_MAX_LINE_LENGTH = 1_000_000; // characters, well above a note at the column limits
+  public static final int NOTE_TITLE_MAX_LENGTH = 255;
+  public static final int NOTE_BODY_MAX_LENGTH = 10000;
+  public static final int NOTE_COLOR_MAX_LENGTH = 255;
+  public static final int NOTE_CATEGORY_MAX_LENGTH = 255;
+  public static final int CHECKLIST_TEXT_MAX_LENGTH = 255;
+  public static final int TAG_NAME_MAX_LENGTH = 255;
 
   // Tag Colors
   public static final List<String> DEFAULT_TAG_COLORS = Arrays.asList(
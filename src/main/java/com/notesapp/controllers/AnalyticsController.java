@@ -0,0 +1,40 @@
+package com.notesapp.controllers;
+
+import com.notesapp.observers.AnalyticsObserver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * REST controller exposing note activity analytics collected by {@link AnalyticsObserver}.
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "*")
+public class AnalyticsController {
+
+    @Autowired
+    private AnalyticsObserver analyticsObserver;
+
+    /**
+     * Returns per-event totals, last-minute and last-hour rates, and per-user totals.
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getAnalytics() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("events", analyticsObserver.getEventStats());
+        response.put("users", analyticsObserver.getUserTotals());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Returns the per-event breakdown for a single user.
+     */
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<Map<String, Long>> getUserAnalytics(@PathVariable String userId) {
+        return ResponseEntity.ok(analyticsObserver.getUserEventCounts(userId));
+    }
+}
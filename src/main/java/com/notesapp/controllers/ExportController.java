@@ -1,23 +1,43 @@
 package com.notesapp.controllers;
 
+import com.notesapp.config.AppConstants;
+import com.notesapp.entities.ExportJob;
+import com.notesapp.enums.ExportJobStatus;
 import com.notesapp.repositories.NoteRepository;
+import com.notesapp.repositories.UserRepository;
+import com.notesapp.services.ExportJobService;
+import com.notesapp.services.NoteTransferService;
+import com.notesapp.services.NoteTransferService.ImportResult;
 import com.notesapp.services.PDFExportService;
+import com.notesapp.services.PdfRenditionCache.Rendition;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
- * REST controller for exporting notes to various formats.
+ * REST controller for exporting notes to various formats, and importing them back.
+ * PDFs are written straight to the response as they are saved, so an export never exists
+ * as one byte array on the heap. Large exports run as background jobs that are polled and
+ * then downloaded, so they do not hold a request open for the whole render.
+ * NDJSON and Markdown exports are streamed page by page, and NDJSON imports are read from
+ * the request body as it arrives.
  */
+@Slf4j
 @RestController
 @RequestMapping("/api/notes")
 @CrossOrigin(origins = "*")
@@ -29,83 +49,271 @@ public class ExportController {
     @Autowired
     private NoteRepository noteRepository;
 
+    @Autowired
+    private ExportJobService exportJobService;
+
+    @Autowired
+    private NoteTransferService noteTransferService;
+
+    @Autowired
+    private UserRepository userRepository;
+
     /**
      * Export a single note to PDF.
+     * The PDF is rendered into the rendition cache before responding, or taken from it if the
+     * note is unchanged, and sent from the file.
      */
     @GetMapping("/{id}/export/pdf")
-    public ResponseEntity<byte[]> exportNoteToPDF(@PathVariable String id,
-                                                   @RequestParam(defaultValue = "true") boolean includeMetadata) {
+    public ResponseEntity<StreamingResponseBody> exportNoteToPDF(@PathVariable String id,
+                                                                 @RequestParam(defaultValue = "true") boolean includeMetadata) {
+        Rendition rendition;
         try {
-            byte[] pdfBytes = pdfExportService.exportNoteToPDF(id, includeMetadata);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "note-" + id + ".pdf");
-            headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
-
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+            rendition = pdfExportService.getNoteRendition(id, includeMetadata);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
         } catch (IOException e) {
+            log.error("Failed to export note {} to PDF", id, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
+
+        HttpHeaders headers = pdfHeaders("note-" + id + ".pdf");
+        headers.setContentLength(rendition.getLength());
+        return new ResponseEntity<>(rendition::transferTo, headers, HttpStatus.OK);
     }
 
     /**
      * Export multiple notes to a single PDF.
+     * More than {@link AppConstants#EXPORT_SYNC_MAX_NOTES} notes are exported by a background
+     * job instead, answered with 303 See Other to the job's status, when the request body
+     * names the {@code userId} the job belongs to; without one they are refused with 413.
      */
     @PostMapping("/export/pdf")
-    public ResponseEntity<byte[]> exportMultipleNotesToPDF(@RequestBody Map<String, Object> exportData) {
-        try {
-            @SuppressWarnings("unchecked")
-            List<String> noteIds = (List<String>) exportData.get("noteIds");
-            boolean includeMetadata = (boolean) exportData.getOrDefault("includeMetadata", true);
+    public ResponseEntity<StreamingResponseBody> exportMultipleNotesToPDF(@RequestBody Map<String, Object> exportData) {
+        @SuppressWarnings("unchecked")
+        List<String> noteIds = (List<String>) exportData.get("noteIds");
+        boolean includeMetadata = (boolean) exportData.getOrDefault("includeMetadata", true);
+        String userId = (String) exportData.get("userId");
 
-            if (noteIds == null || noteIds.isEmpty()) {
-                return ResponseEntity.badRequest().build();
+        if (noteIds == null || noteIds.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (noteIds.size() > AppConstants.EXPORT_SYNC_MAX_NOTES) {
+            if (userId == null || userId.isBlank()) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
             }
+            return redirectToJob(userId, noteIds, includeMetadata);
+        }
 
-            byte[] pdfBytes = pdfExportService.exportMultipleNotesToPDF(noteIds, includeMetadata);
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        return new ResponseEntity<>(streamNotes(noteIds, includeMetadata),
+                pdfHeaders("notes-export-" + timestamp + ".pdf"), HttpStatus.OK);
+    }
 
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "notes-export-" + timestamp + ".pdf");
-            headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
+    /**
+     * Export all notes for a user to PDF.
+     * Accounts with more than {@link AppConstants#EXPORT_SYNC_MAX_NOTES} notes are exported by
+     * a background job instead, answered with 303 See Other to the job's status; see
+     * {@link #submitExportJob} for the statuses when the job cannot be started.
+     */
+    @GetMapping("/export/all/pdf")
+    public ResponseEntity<StreamingResponseBody> exportAllNotesToPDF(@RequestParam String userId,
+                                                                     @RequestParam(defaultValue = "true") boolean includeMetadata) {
+        List<String> noteIds = noteRepository.findNoteIdsByUserIdOrderByCreatedAtDesc(userId);
 
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        if (noteIds.isEmpty()) {
+            return ResponseEntity.noContent().build();
         }
+        if (noteIds.size() > AppConstants.EXPORT_SYNC_MAX_NOTES) {
+            return redirectToJob(userId, noteIds, includeMetadata);
+        }
+
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        return new ResponseEntity<>(streamNotes(noteIds, includeMetadata),
+                pdfHeaders("all-notes-" + timestamp + ".pdf"), HttpStatus.OK);
     }
 
     /**
-     * Export all notes for a user to PDF.
+     * Start a background export of notes to one PDF.
+     * Request body: {@code userId} (required), {@code noteIds} (optional, defaults to all of the
+     * user's notes) and {@code includeMetadata} (optional, default true).
+     *
+     * @return 202 with the job status and its URL in the Location header, 204 if there are no
+     *         notes to export, 400 without a userId, 429 if the user already has the maximum
+     *         number of jobs in progress, or 503 if the export queue is full
      */
-    @GetMapping("/export/all/pdf")
-    public ResponseEntity<byte[]> exportAllNotesToPDF(@RequestParam String userId,
-                                                       @RequestParam(defaultValue = "true") boolean includeMetadata) {
-        try {
-            List<String> noteIds = noteRepository.findByUserIdOrderByCreatedAtDesc(userId)
-                .stream()
-                .map(note -> note.getNoteId())
-                .toList();
+    @PostMapping("/export/jobs")
+    public ResponseEntity<Map<String, Object>> submitExportJob(@RequestBody Map<String, Object> exportData) {
+        String userId = (String) exportData.get("userId");
+        @SuppressWarnings("unchecked")
+        List<String> noteIds = (List<String>) exportData.get("noteIds");
+        boolean includeMetadata = (boolean) exportData.getOrDefault("includeMetadata", true);
 
-            if (noteIds.isEmpty()) {
-                return ResponseEntity.noContent().build();
-            }
+        if (userId == null || userId.isBlank()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "userId is required"));
+        }
+        if (noteIds == null) {
+            noteIds = noteRepository.findNoteIdsByUserIdOrderByCreatedAtDesc(userId);
+        }
+        if (noteIds.isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
 
-            byte[] pdfBytes = pdfExportService.exportMultipleNotesToPDF(noteIds, includeMetadata);
+        return submitJob(userId, noteIds, includeMetadata);
+    }
 
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "all-notes-" + timestamp + ".pdf");
-            headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
+    /**
+     * Get the status and progress of an export job.
+     *
+     * @return the job status, or 404 if the job is unknown or has expired
+     */
+    @GetMapping("/export/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getExportJob(@PathVariable String jobId) {
+        return exportJobService.findJob(jobId)
+                .map(job -> ResponseEntity.ok(buildJobStatus(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
 
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    /**
+     * Download the PDF of a completed export job.
+     *
+     * @return the PDF, 409 if the job has not completed, or 404 if the job is unknown or has expired
+     */
+    @GetMapping("/export/jobs/{jobId}/download")
+    public ResponseEntity<StreamingResponseBody> downloadExportJob(@PathVariable String jobId) {
+        ExportJob job = exportJobService.findJob(jobId).orElse(null);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.getStatus() != ExportJobStatus.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
+
+        String timestamp = job.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        HttpHeaders headers = pdfHeaders("notes-export-" + timestamp + ".pdf");
+        headers.setContentLength(job.getLength());
+        return new ResponseEntity<>(out -> exportJobService.writeTo(job, out), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Export all notes for a user as newline-delimited JSON, one note per line, in the format
+     * accepted by {@link #importNotesFromNdjson}.
+     */
+    @GetMapping("/export/ndjson")
+    public ResponseEntity<StreamingResponseBody> exportNotesToNdjson(@RequestParam String userId) {
+        if (!userRepository.existsById(userId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(AppConstants.NDJSON_CONTENT_TYPE));
+        headers.setContentDispositionFormData("attachment", "notes-" + timestamp + ".ndjson");
+        return new ResponseEntity<>(out -> noteTransferService.exportNdjson(userId, out), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Export all notes for a user as a zip of Markdown files, one folder per category.
+     */
+    @GetMapping("/export/markdown")
+    public ResponseEntity<StreamingResponseBody> exportNotesToMarkdown(@RequestParam String userId) {
+        if (!userRepository.existsById(userId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDispositionFormData("attachment", "notes-" + timestamp + ".zip");
+        return new ResponseEntity<>(out -> noteTransferService.exportMarkdownZip(userId, out), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Import notes for a user from a newline-delimited JSON request body.
+     * Lines that are not valid notes are skipped and reported.
+     *
+     * @return the number of notes imported and skipped with the first errors, or 404 if the
+     *         user does not exist
+     */
+    @PostMapping(value = "/import/ndjson", consumes = {AppConstants.NDJSON_CONTENT_TYPE,
+            MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<Map<String, Object>> importNotesFromNdjson(@RequestParam String userId,
+                                                                     InputStream body) throws IOException {
+        if (!userRepository.existsById(userId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        ImportResult result = noteTransferService.importNdjson(userId, body);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("imported", result.getImported());
+        response.put("skipped", result.getSkipped());
+        response.put("errors", result.getErrors());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Starts a background export and redirects to it, for exports too large to render within
+     * the request.
+     *
+     * @return 303 See Other to the job status, or the status {@link #submitJob} failed with
+     */
+    private ResponseEntity<StreamingResponseBody> redirectToJob(String userId, List<String> noteIds, boolean includeMetadata) {
+        ResponseEntity<Map<String, Object>> submitted = submitJob(userId, noteIds, includeMetadata);
+        if (submitted.getStatusCode() != HttpStatus.ACCEPTED) {
+            return ResponseEntity.status(submitted.getStatusCode()).build();
+        }
+        return ResponseEntity.status(HttpStatus.SEE_OTHER).location(submitted.getHeaders().getLocation()).build();
+    }
+
+    /**
+     * Builds a response body that renders the notes into one PDF while it is being sent.
+     * The status is already committed by then, so a failure midway aborts the download.
+     */
+    private StreamingResponseBody streamNotes(List<String> noteIds, boolean includeMetadata) {
+        return out -> pdfExportService.exportMultipleNotesToPDF(noteIds, includeMetadata, out);
+    }
+
+    private ResponseEntity<Map<String, Object>> submitJob(String userId, List<String> noteIds, boolean includeMetadata) {
+        ExportJob job;
+        try {
+            job = exportJobService.submit(userId, noteIds, includeMetadata);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Export queue full, rejected job for user {}", userId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Too many exports in progress, try again later"));
+        }
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/notes/export/jobs/" + job.getJobId()))
+                .body(buildJobStatus(job));
+    }
+
+    private Map<String, Object> buildJobStatus(ExportJob job) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", job.getJobId());
+        status.put("status", job.getStatus());
+        status.put("totalNotes", job.getTotalNotes());
+        status.put("exportedNotes", job.getExportedNotes());
+        status.put("createdAt", job.getCreatedAt());
+        if (job.isFinished()) {
+            status.put("finishedAt", job.getFinishedAt());
+            status.put("expiresAt", job.getExpiresAt());
+        }
+        if (job.getStatus() == ExportJobStatus.COMPLETED) {
+            status.put("downloadUrl", "/api/notes/export/jobs/" + job.getJobId() + "/download");
+        }
+        if (job.getError() != null) {
+            status.put("error", job.getError());
+        }
+        return status;
+    }
+
+    private HttpHeaders pdfHeaders(String filename) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", filename);
+        headers.setCacheControl("must-revalidate, post-check=0, pre-check=0");
+        return headers;
     }
 }
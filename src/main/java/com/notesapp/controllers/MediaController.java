@@ -2,21 +2,44 @@ package com.notesapp.controllers;
 
 import com.notesapp.config.AppConstants;
 import com.notesapp.entities.Note;
+import com.notesapp.entities.UploadSession;
+import com.notesapp.enums.ImageVariantSize;
 import com.notesapp.repositories.NoteRepository;
+import com.notesapp.services.ChunkedUploadService;
 import com.notesapp.services.FileStorageService;
+import com.notesapp.services.ImageVariantService;
+import com.notesapp.services.ImageVariantService.ImageVariant;
+import com.notesapp.services.MediaMemoryCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.BiConsumer;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 
 /**
  * REST controller for handling media uploads and downloads.
@@ -31,6 +54,15 @@ public class MediaController {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @Autowired
+    private MediaMemoryCache mediaMemoryCache;
+
     @Autowired
     private NoteRepository noteRepository;
 
@@ -50,8 +82,12 @@ public class MediaController {
                 noteId,
                 "image/",
                 AppConstants.MAX_IMAGE_SIZE_BYTES,
-                (note, url) -> note.getImages().add(url),
-                "image"
+                (note, url) -> {
+                    note.addImage(url);
+                    return null;
+                },
+                "image",
+                "images"
         );
     }
 
@@ -71,33 +107,218 @@ public class MediaController {
                 noteId,
                 "audio/",
                 AppConstants.MAX_AUDIO_SIZE_BYTES,
-                (note, url) -> note.setVoiceRecording(url),
+                MediaController::replaceVoiceRecording,
+                "audio",
                 "audio"
         );
     }
 
+    /**
+     * Start a resumable chunked upload of an audio recording.
+     * Chunks are then sent with {@code PUT /uploads/{uploadId}?offset=N} and the upload is
+     * attached to the note with {@code POST /uploads/{uploadId}/complete}. Recordings may be
+     * larger than a single-request upload allows.
+     *
+     * @param noteId      the ID of the note to attach the audio to when complete
+     * @param filename    the client's filename, used for its extension
+     * @param contentType the audio content type (must be audio/*)
+     * @param totalSize   the total size in bytes (max 500MB)
+     * @return 201 with the upload ID, current offset and maximum chunk size, or 400 if invalid
+     */
+    @PostMapping("/uploads/audio")
+    public ResponseEntity<Map<String, Object>> createAudioUpload(@RequestParam("noteId") String noteId,
+                                                                 @RequestParam("filename") String filename,
+                                                                 @RequestParam("contentType") String contentType,
+                                                                 @RequestParam("totalSize") long totalSize) {
+        log.info("Starting chunked audio upload for note: {} ({} bytes)", noteId, totalSize);
+        if (!contentType.startsWith("audio/")) {
+            log.warn("Invalid file type for chunked audio: {}", contentType);
+            return ResponseEntity.badRequest().body(buildUploadError(
+                    String.format("File must be an audio file (received: %s)", contentType)));
+        }
+        if (totalSize <= 0 || totalSize > AppConstants.MAX_CHUNKED_AUDIO_SIZE_BYTES) {
+            log.warn("Invalid size for chunked audio: {} bytes", totalSize);
+            return ResponseEntity.badRequest().body(buildUploadError(String.format(
+                    "Audio must be between 1 byte and %dMB", AppConstants.MAX_CHUNKED_AUDIO_SIZE_BYTES / (1024 * 1024))));
+        }
+
+        try {
+            UploadSession session = chunkedUploadService.createSession(noteId, filename, contentType, totalSize);
+            Map<String, Object> response = buildUploadStatus(session, 0);
+            response.put("maxChunkSize", AppConstants.MAX_UPLOAD_CHUNK_BYTES);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (IOException e) {
+            log.error("Error starting chunked upload: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(buildUploadError("Failed to start upload: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Get the progress of a chunked upload, so an interrupted client knows where to resume.
+     *
+     * @param uploadId the upload ID
+     * @return the bytes received and total size, or 404 if the upload is unknown or finished
+     */
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<Map<String, Object>> getUploadStatus(@PathVariable String uploadId) {
+        UploadSession session = chunkedUploadService.findSession(uploadId).orElse(null);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(buildUploadStatus(session, chunkedUploadService.getReceivedBytes(session)));
+        } catch (IOException e) {
+            log.error("Upload {} has no partial file: {}", uploadId, e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Append one chunk to a chunked upload. The request body is the raw chunk (max 8MB).
+     * Resending a chunk that was already received is harmless; a chunk that fails midway is
+     * discarded entirely, so the client only retries that chunk.
+     *
+     * @param uploadId the upload ID
+     * @param offset   the position of the chunk's first byte in the upload
+     * @param chunk    the chunk content
+     * @return the new offset, 409 with the current offset if chunks are missing before this one,
+     *         400 if the chunk is too large or the upload does not start like an audio file,
+     *         or 404 if the upload is unknown
+     */
+    @PutMapping(value = "/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Map<String, Object>> uploadChunk(@PathVariable String uploadId,
+                                                           @RequestParam("offset") long offset,
+                                                           InputStream chunk) {
+        UploadSession session = chunkedUploadService.findSession(uploadId).orElse(null);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            long received = chunkedUploadService.appendChunk(session, offset, chunk);
+            return ResponseEntity.ok(buildUploadStatus(session, received));
+        } catch (IllegalStateException e) {
+            log.debug("Out-of-order chunk for upload {}: {}", uploadId, e.getMessage());
+            return uploadConflict(session, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected chunk for upload {}: {}", uploadId, e.getMessage());
+            return ResponseEntity.badRequest().body(buildUploadError(e.getMessage()));
+        } catch (IOException e) {
+            log.warn("Chunk for upload {} failed: {}", uploadId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(buildUploadError("Failed to write chunk: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Complete a chunked audio upload and attach it to the note given when it started.
+     *
+     * @param uploadId the upload ID
+     * @return response containing the audio URL and filename, 409 with the current offset if
+     *         bytes are missing, 400 if the content is not audio, or 404 if the upload is unknown
+     */
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeUpload(@PathVariable String uploadId) {
+        UploadSession session = chunkedUploadService.findSession(uploadId).orElse(null);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        try {
+            String filename = chunkedUploadService.completeUpload(session);
+            return ResponseEntity.ok(attachToNote(
+                    filename, session.getNoteId(), MediaController::replaceVoiceRecording, "audio", "audio"));
+        } catch (IllegalStateException e) {
+            return uploadConflict(session, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected chunked upload {}: {}", uploadId, e.getMessage());
+            return ResponseEntity.badRequest().body(buildErrorResponse(e.getMessage()));
+        } catch (IOException e) {
+            log.error("Error completing upload {}: {}", uploadId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(buildErrorResponse("Failed to upload audio: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Abort a chunked upload and discard the bytes received.
+     *
+     * @param uploadId the upload ID
+     * @return 204 No Content, or 404 if the upload is unknown
+     */
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<Void> abortUpload(@PathVariable String uploadId) {
+        UploadSession session = chunkedUploadService.findSession(uploadId).orElse(null);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            chunkedUploadService.abortUpload(session);
+            return ResponseEntity.noContent().build();
+        } catch (IOException e) {
+            log.error("Error aborting upload {}: {}", uploadId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     /**
      * Get an uploaded image by filename.
+     * With {@code ?size=thumb} or {@code ?size=medium} a downscaled variant is served instead,
+     * so list views do not download full-size originals.
      *
      * @param filename the name of the image file
-     * @return the image file data with appropriate content type, or 404 if not found
+     * @param size     optional variant size ("thumb" or "medium")
+     * @param range    optional Range header for partial content; ignored for variants
+     * @param request  the current request, used for conditional GET
+     * @return the image file data with appropriate content type, 206 for ranges, 304 if unchanged,
+     *         400 for an unknown size, or 404 if not found
      */
     @GetMapping("/images/{filename}")
-    public ResponseEntity<byte[]> getImage(@PathVariable String filename) {
-        log.debug("Retrieving image: {}", filename);
-        return getFile(filename);
+    public ResponseEntity<StreamingResponseBody> getImage(@PathVariable String filename,
+                                                          @RequestParam(value = "size", required = false) String size,
+                                                          @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                                                          WebRequest request) {
+        log.debug("Retrieving image: {} (size: {})", filename, size);
+        if (size == null) {
+            return getFile(filename, range, request);
+        }
+
+        ImageVariantSize variantSize;
+        try {
+            variantSize = ImageVariantSize.fromParam(size);
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown image size requested: {}", size);
+            return ResponseEntity.badRequest().build();
+        }
+        return getImageVariant(filename, variantSize, request);
     }
 
     /**
      * Get an uploaded audio file by filename.
+     * Supports Range requests so players can seek without downloading the whole file.
      *
      * @param filename the name of the audio file
-     * @return the audio file data with appropriate content type, or 404 if not found
+     * @param range    optional Range header for partial content
+     * @param request  the current request, used for conditional GET
+     * @return the audio file data with appropriate content type, 206 for ranges, 304 if unchanged, or 404 if not found
      */
     @GetMapping("/audio/{filename}")
-    public ResponseEntity<byte[]> getAudio(@PathVariable String filename) {
+    public ResponseEntity<StreamingResponseBody> getAudio(@PathVariable String filename,
+                                                          @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                                                          WebRequest request) {
         log.debug("Retrieving audio: {}", filename);
-        return getFile(filename);
+        return getFile(filename, range, request);
+    }
+
+    /**
+     * Get hit rate and memory usage of the small-media memory cache.
+     *
+     * @return cache statistics
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(mediaMemoryCache.getStats());
     }
 
     /**
@@ -105,7 +326,7 @@ public class MediaController {
      *
      * @param filename the name of the image file to delete
      * @param noteId   the ID of the note containing the image
-     * @return 200 OK if successful, or 500 if an error occurs
+     * @return 200 OK if successful, 404 if the note does not have the image, or 500 if an error occurs
      */
     @DeleteMapping("/images/{filename}")
     public ResponseEntity<Void> deleteImage(@PathVariable String filename,
@@ -114,7 +335,7 @@ public class MediaController {
         return deleteFileFromNote(
                 filename,
                 noteId,
-                (note, url) -> note.getImages().remove(url),
+                (note, url) -> note.removeImage(url),
                 "images"
         );
     }
@@ -124,7 +345,7 @@ public class MediaController {
      *
      * @param filename the name of the audio file to delete
      * @param noteId   the ID of the note containing the audio
-     * @return 200 OK if successful, or 500 if an error occurs
+     * @return 200 OK if successful, 404 if the note does not have the audio, or 500 if an error occurs
      */
     @DeleteMapping("/audio/{filename}")
     public ResponseEntity<Void> deleteAudio(@PathVariable String filename,
@@ -133,11 +354,31 @@ public class MediaController {
         return deleteFileFromNote(
                 filename,
                 noteId,
-                (note, url) -> note.setVoiceRecording(null),
+                (note, url) -> {
+                    if (!url.equals(note.getVoiceRecording())) {
+                        return false;
+                    }
+                    note.setVoiceRecording(null);
+                    return true;
+                },
                 "audio"
         );
     }
 
+    /**
+     * Rejects multipart uploads that the servlet container stopped reading because they passed
+     * the configured multipart limits, so the body is never spooled in full.
+     *
+     * @param e the exception raised while parsing the multipart request
+     * @return 413 Payload Too Large with an error message
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<Map<String, String>> handleMaxUploadSizeExceeded(MaxUploadSizeExceededException e) {
+        log.warn("Rejected oversized upload: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(buildErrorResponse(String.format(
+                "Upload must be less than %dMB", AppConstants.MAX_AUDIO_SIZE_BYTES / (1024 * 1024))));
+    }
+
     /**
      * Generic file upload handler for images and audio files.
      *
@@ -145,16 +386,18 @@ public class MediaController {
      * @param noteId            the ID of the note to attach the file to
      * @param contentTypePrefix the expected content type prefix (e.g., "image/", "audio/")
      * @param maxSize           maximum allowed file size in bytes
-     * @param noteUpdater       function to update the note with the file URL
-     * @param mediaType         the type of media for URL construction ("image" or "audio")
+     * @param noteUpdater       function to attach the file URL to the note, returning the URL it replaced, if any
+     * @param mediaType         the type of media for messages ("image" or "audio")
+     * @param urlSegment        the download path segment for URL construction ("images" or "audio")
      * @return response containing the file URL and filename, or error message
      */
     private ResponseEntity<Map<String, String>> uploadFile(MultipartFile file,
                                                             String noteId,
                                                             String contentTypePrefix,
                                                             long maxSize,
-                                                            BiConsumer<Note, String> noteUpdater,
-                                                            String mediaType) {
+                                                            BiFunction<Note, String, String> noteUpdater,
+                                                            String mediaType,
+                                                            String urlSegment) {
         try {
             String contentType = file.getContentType();
             if (contentType == null || !contentType.startsWith(contentTypePrefix)) {
@@ -173,19 +416,11 @@ public class MediaController {
                 return ResponseEntity.badRequest().body(buildErrorResponse(errorMsg));
             }
 
-            String filename = fileStorageService.storeFile(file);
-            String fileUrl = String.format("/api/media/%s/%s", mediaType, filename);
-
-            Note note = noteRepository.findById(noteId).orElse(null);
-            if (note != null) {
-                noteUpdater.accept(note, fileUrl);
-                noteRepository.save(note);
-                log.info("Successfully uploaded {} {} and attached to note {}", mediaType, filename, noteId);
-            } else {
-                log.warn("Note not found: {}. File uploaded but not attached.", noteId);
-            }
-
-            return ResponseEntity.ok(buildSuccessResponse(fileUrl, filename));
+            String filename = fileStorageService.storeFile(file, contentTypePrefix, maxSize);
+            return ResponseEntity.ok(attachToNote(filename, noteId, noteUpdater, mediaType, urlSegment));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected {} upload {}: {}", mediaType, file.getOriginalFilename(), e.getMessage());
+            return ResponseEntity.badRequest().body(buildErrorResponse(e.getMessage()));
         } catch (IOException e) {
             String errorMsg = String.format("Failed to upload %s: %s", mediaType, e.getMessage());
             log.error("Error uploading {}: {}", mediaType, e.getMessage(), e);
@@ -194,54 +429,290 @@ public class MediaController {
         }
     }
 
+    /**
+     * Attaches a stored file to a note and releases the file it replaced, if any.
+     * The file stays stored if the note does not exist, as with any unattached upload.
+     *
+     * @param filename    the stored filename
+     * @param noteId      the ID of the note to attach the file to
+     * @param noteUpdater function to attach the file URL to the note, returning the URL it replaced, if any
+     * @param mediaType   the type of media for messages ("image" or "audio")
+     * @param urlSegment  the download path segment for URL construction ("images" or "audio")
+     * @return response body containing the file URL and filename
+     */
+    private Map<String, String> attachToNote(String filename,
+                                             String noteId,
+                                             BiFunction<Note, String, String> noteUpdater,
+                                             String mediaType,
+                                             String urlSegment) {
+        String fileUrl = String.format("/api/media/%s/%s", urlSegment, filename);
+
+        Note note = noteId != null ? noteRepository.findById(noteId).orElse(null) : null;
+        if (note != null) {
+            String replacedUrl = noteUpdater.apply(note, fileUrl);
+            noteRepository.save(note);
+            fileStorageService.releaseMediaUrl(replacedUrl);
+            log.info("Successfully uploaded {} {} and attached to note {}", mediaType, filename, noteId);
+        } else {
+            log.warn("Note not found: {}. File uploaded but not attached.", noteId);
+        }
+
+        return buildSuccessResponse(fileUrl, filename);
+    }
+
     /**
      * Generic file retrieval handler for images and audio files.
+     * The file is streamed from disk with {@link FileStorageService#transferRange}, so heap use
+     * per download does not depend on the file size. Small files are served from
+     * {@link MediaMemoryCache} instead when it holds them.
+     * Responses carry a strong ETag built from the content hash plus Last-Modified; a matching
+     * If-None-Match or If-Modified-Since is answered with 304 before any file data is read.
      *
      * @param filename the name of the file to retrieve
-     * @return the file data with appropriate content type, or 404 if not found
+     * @param range    the Range header value, or null for the whole file
+     * @param request  the current request, used for conditional GET
+     * @return the file data with appropriate content type, 206 for ranges, or 404 if not found;
+     *         null when a 304 or 412 response has already been written
      */
-    private ResponseEntity<byte[]> getFile(String filename) {
+    private ResponseEntity<StreamingResponseBody> getFile(String filename, String range, WebRequest request) {
         try {
-            byte[] fileData = fileStorageService.loadFile(filename);
+            long length = fileStorageService.getFileSize(filename);
             String contentType = fileStorageService.getContentType(filename);
+            String contentHash = fileStorageService.getContentHash(filename);
+            String etag = "\"" + contentHash + "\"";
+            long lastModified = fileStorageService.getLastModified(filename);
+
+            if (request.checkNotModified(etag, lastModified)) {
+                log.debug("File not modified: {}", filename);
+                return null;
+            }
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.parseMediaType(contentType));
+            headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
             headers.setCacheControl("public, max-age=31536000");
 
-            return new ResponseEntity<>(fileData, headers, HttpStatus.OK);
+            if (range != null && isRangeCurrent(request.getHeader(HttpHeaders.IF_RANGE), etag, lastModified)) {
+                return getFileRanges(filename, range, length, contentType, headers);
+            }
+
+            headers.setContentLength(length);
+            ByteBuffer cached = length <= mediaMemoryCache.getMaxObjectBytes()
+                    ? mediaMemoryCache.get(contentHash, fileStorageService.locateFile(filename))
+                    : null;
+            StreamingResponseBody body = cached != null
+                    ? out -> writeBuffer(cached, out)
+                    : out -> fileStorageService.transferRange(filename, 0, length, out);
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
         } catch (IOException e) {
             log.error("File not found: {}", filename);
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Serves a downscaled image variant. The ETag is derived from the original's content hash
+     * and the size, so revalidation is answered before any variant is generated. If the
+     * original already fits the size, or cannot be decoded, the original is sent under the
+     * same ETag.
+     *
+     * @param filename the name of the original image
+     * @param size     the requested variant size
+     * @param request  the current request, used for conditional GET
+     * @return the variant or original image, or 404 if not found;
+     *         null when a 304 or 412 response has already been written
+     */
+    private ResponseEntity<StreamingResponseBody> getImageVariant(String filename,
+                                                                  ImageVariantSize size,
+                                                                  WebRequest request) {
+        try {
+            String etag = "\"" + imageVariantService.variantKey(fileStorageService.getContentHash(filename), size) + "\"";
+            if (request.checkNotModified(etag)) {
+                log.debug("Image variant not modified: {} ({})", filename, size);
+                return null;
+            }
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setCacheControl("public, max-age=31536000");
+            StreamingResponseBody body;
+
+            Optional<ImageVariant> variant = imageVariantService.getVariant(filename, size);
+            if (variant.isPresent()) {
+                ImageVariant image = variant.get();
+                headers.setContentType(MediaType.parseMediaType(image.getContentType()));
+                headers.setContentLength(image.getLength());
+                ByteBuffer cached = image.getLength() <= mediaMemoryCache.getMaxObjectBytes()
+                        ? mediaMemoryCache.get(image.getKey(), image.getPath())
+                        : null;
+                body = cached != null ? out -> writeBuffer(cached, out) : image::writeTo;
+            } else {
+                long length = fileStorageService.getFileSize(filename);
+                headers.setContentType(MediaType.parseMediaType(fileStorageService.getContentType(filename)));
+                headers.setContentLength(length);
+                body = out -> fileStorageService.transferRange(filename, 0, length, out);
+            }
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
+        } catch (IOException e) {
+            log.error("Image not found: {}", filename);
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Serves byte ranges of a file as 206 Partial Content.
+     * A single range is sent with a Content-Range header; several ranges are sent as
+     * multipart/byteranges. Only the requested ranges are read from disk.
+     *
+     * @param filename    the name of the file to retrieve
+     * @param range       the Range header value
+     * @param length      the file size in bytes
+     * @param contentType the file content type
+     * @param headers     the response headers built so far
+     * @return 206 with the requested ranges, or 416 if they cannot be satisfied
+     */
+    private ResponseEntity<StreamingResponseBody> getFileRanges(String filename,
+                                                                String range,
+                                                                long length,
+                                                                String contentType,
+                                                                HttpHeaders headers) {
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid range '{}' for {}: {}", range, filename, e.getMessage());
+            return rangeNotSatisfiable(length);
+        }
+
+        if (ranges.isEmpty() || ranges.size() > AppConstants.MAX_BYTE_RANGES
+                || ranges.stream().anyMatch(r -> r.getRangeStart(length) >= length)) {
+            log.warn("Unsatisfiable range '{}' for {} ({} bytes)", range, filename, length);
+            return rangeNotSatisfiable(length);
+        }
+
+        if (ranges.size() == 1) {
+            long start = ranges.get(0).getRangeStart(length);
+            long end = ranges.get(0).getRangeEnd(length);
+            headers.set(HttpHeaders.CONTENT_RANGE, contentRange(start, end, length));
+            headers.setContentLength(end - start + 1);
+            StreamingResponseBody body = out -> fileStorageService.transferRange(filename, start, end - start + 1, out);
+            return new ResponseEntity<>(body, headers, HttpStatus.PARTIAL_CONTENT);
+        }
+
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        headers.setContentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary));
+        StreamingResponseBody body = out -> writeByteRanges(out, filename, ranges, length, contentType, boundary);
+        return new ResponseEntity<>(body, headers, HttpStatus.PARTIAL_CONTENT);
+    }
+
+    /**
+     * Writes cached content to the response.
+     *
+     * @param buffer the content, read from its current position
+     * @param out    the response stream
+     * @throws IOException if writing the response fails
+     */
+    private static void writeBuffer(ByteBuffer buffer, OutputStream out) throws IOException {
+        WritableByteChannel channel = Channels.newChannel(out);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Writes several byte ranges of a file as a multipart/byteranges body.
+     *
+     * @param out         the response stream
+     * @param filename    the name of the file to read
+     * @param ranges      the requested ranges
+     * @param length      the file size in bytes
+     * @param contentType the content type of each part
+     * @param boundary    the multipart boundary
+     * @throws IOException if reading the file or writing the response fails
+     */
+    private void writeByteRanges(OutputStream out,
+                                 String filename,
+                                 List<HttpRange> ranges,
+                                 long length,
+                                 String contentType,
+                                 String boundary) throws IOException {
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            String partHeader = "\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(start, end, length) + "\r\n\r\n";
+            out.write(partHeader.getBytes(StandardCharsets.US_ASCII));
+            fileStorageService.transferRange(filename, start, end - start + 1, out);
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Evaluates an If-Range precondition. A range is only served if the client's copy is
+     * still current; otherwise the whole file is sent. ETags must match strongly and dates
+     * must equal the Last-Modified value exactly.
+     *
+     * @param ifRange      the If-Range header value, or null
+     * @param etag         the current strong ETag
+     * @param lastModified the current modification time in epoch milliseconds
+     * @return true if the Range header should be honoured
+     */
+    private boolean isRangeCurrent(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long validator = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant()
+                    .toEpochMilli();
+            return validator == lastModified / 1000 * 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> rangeNotSatisfiable(long length) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                .build();
+    }
+
+    private String contentRange(long start, long end, long length) {
+        return "bytes " + start + "-" + end + "/" + length;
+    }
+
     /**
      * Generic file deletion handler for images and audio files.
      *
      * @param filename     the name of the file to delete
      * @param noteId       the ID of the note containing the file
-     * @param noteUpdater  function to update the note to remove the file reference
+     * @param noteUpdater  function to remove the file reference from the note, returning whether it was present
      * @param mediaType    the type of media being deleted ("images" or "audio")
-     * @return 200 OK if successful, or 500 if an error occurs
+     * @return 200 OK if successful, 404 if the note does not reference the file, or 500 if an error occurs
      */
     private ResponseEntity<Void> deleteFileFromNote(String filename,
                                                      String noteId,
-                                                     BiConsumer<Note, String> noteUpdater,
+                                                     BiPredicate<Note, String> noteUpdater,
                                                      String mediaType) {
         try {
+            // Legacy filenames are resolved to the blob they were migrated to, matching the rewritten note URL
+            String storedFilename = fileStorageService.resolveFilename(filename);
             Note note = noteRepository.findById(noteId).orElse(null);
-            if (note != null) {
-                String fileUrl = String.format("/api/media/%s/%s", mediaType, filename);
-                noteUpdater.accept(note, fileUrl);
-                noteRepository.save(note);
-                log.info("Removed {} reference from note {}", mediaType, noteId);
-            } else {
-                log.warn("Note not found: {}. Proceeding with file deletion anyway.", noteId);
+            String fileUrl = String.format("/api/media/%s/%s", mediaType, storedFilename);
+            if (note == null || !noteUpdater.test(note, fileUrl)) {
+                log.warn("Note {} does not reference {} file {}; leaving stored file untouched", noteId, mediaType, filename);
+                return ResponseEntity.notFound().build();
             }
 
-            fileStorageService.deleteFile(filename);
-            log.info("Successfully deleted {} file: {}", mediaType, filename);
+            noteRepository.save(note);
+            log.info("Removed {} reference from note {}", mediaType, noteId);
+
+            // Content is shared between attachments, so this only drops this attachment's reference
+            fileStorageService.releaseFile(storedFilename);
+            log.info("Successfully released {} file: {}", mediaType, storedFilename);
             return ResponseEntity.ok().build();
         } catch (IOException e) {
             log.error("Error deleting {} file {}: {}", mediaType, filename, e.getMessage(), e);
@@ -275,6 +746,63 @@ public class MediaController {
         return response;
     }
 
+    /**
+     * Builds a chunked upload progress map.
+     *
+     * @param session  the upload session
+     * @param received the bytes received so far
+     * @return map with the upload ID, offset of the next chunk and total size
+     */
+    private Map<String, Object> buildUploadStatus(UploadSession session, long received) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("uploadId", session.getUploadId());
+        response.put("offset", received);
+        response.put("totalSize", session.getTotalSize());
+        return response;
+    }
+
+    /**
+     * Builds a chunked upload error map.
+     *
+     * @param message the error message
+     * @return map with error key
+     */
+    private Map<String, Object> buildUploadError(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", message);
+        return response;
+    }
+
+    /**
+     * Builds a 409 response telling the client where the upload actually stands.
+     *
+     * @param session the upload session
+     * @param message the conflict message
+     * @return 409 with the error and current offset, or 404 if the partial file is gone
+     */
+    private ResponseEntity<Map<String, Object>> uploadConflict(UploadSession session, String message) {
+        try {
+            Map<String, Object> response = buildUploadStatus(session, chunkedUploadService.getReceivedBytes(session));
+            response.put("error", message);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (IOException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Sets a note's voice recording, returning the recording it replaced.
+     *
+     * @param note the note
+     * @param url  the new recording URL
+     * @return the previous recording URL, or null
+     */
+    private static String replaceVoiceRecording(Note note, String url) {
+        String previous = note.getVoiceRecording();
+        note.setVoiceRecording(url);
+        return previous;
+    }
+
     /**
      * Capitalizes the first letter of a string.
      *
@@ -6,18 +6,25 @@ import com.notesapp.decorators.SentimentEnrichmentDecorator;
 import com.notesapp.decorators.TagEnrichmentDecorator;
 import com.notesapp.entities.Note;
 import com.notesapp.entities.User;
+import com.notesapp.observers.NoteEventBus;
+import com.notesapp.observers.NoteEventCoalescer;
 import com.notesapp.observers.NoteObserver;
 import com.notesapp.repositories.NoteRepository;
+import com.notesapp.repositories.NoteRepository.NoteListVersion;
 import com.notesapp.repositories.UserRepository;
 import com.notesapp.services.AIOrganizer;
+import com.notesapp.services.FileStorageService;
 import com.notesapp.services.SearchService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -46,13 +53,14 @@ public class NoteController {
     @Autowired
     private SearchService searchService;
 
-    @Autowired(required = false)
-    private List<NoteObserver> observers = new ArrayList<>();
+    @Autowired
+    private FileStorageService fileStorageService;
 
-    @PostConstruct
-    public void initializeObservers() {
-        log.info("NoteController initialized with {} observers", observers.size());
-    }
+    @Autowired
+    private NoteEventBus noteEventBus;
+
+    @Autowired
+    private NoteEventCoalescer noteEventCoalescer;
 
     /**
      * Registers an observer to be notified of note changes.
@@ -60,10 +68,7 @@ public class NoteController {
      * @param observer the observer to register
      */
     public void registerObserver(NoteObserver observer) {
-        if (!observers.contains(observer)) {
-            observers.add(observer);
-            log.debug("Registered observer: {}", observer.getClass().getSimpleName());
-        }
+        noteEventBus.register(observer);
     }
 
     /**
@@ -72,40 +77,47 @@ public class NoteController {
      * @param observer the observer to remove
      */
     public void removeObserver(NoteObserver observer) {
-        observers.remove(observer);
-        log.debug("Removed observer: {}", observer.getClass().getSimpleName());
+        noteEventBus.unregister(observer);
     }
 
     /**
      * Notifies all registered observers of a note event.
+     * Observers run asynchronously on the event bus, so the request does not wait for them.
+     * Rapid successive updates to the same note are coalesced into one UPDATE event.
      *
      * @param note the note that changed
      * @param eventType the type of event (CREATE, UPDATE, DELETE)
      */
     private void notifyObservers(Note note, String eventType) {
-        log.debug("Notifying {} observers of {} event for note {}", observers.size(), eventType, note.getId());
-        for (NoteObserver observer : observers) {
-            try {
-                observer.update(note, eventType);
-            } catch (Exception e) {
-                log.error("Observer {} failed to process {} event", observer.getClass().getSimpleName(), eventType, e);
-            }
-        }
+        log.debug("Publishing {} event for note {} to {} observers",
+                eventType, note.getNoteId(), noteEventBus.getObserverCount());
+        noteEventCoalescer.publish(note, eventType);
     }
 
     /**
      * Retrieves all notes for a user, ordered by creation date descending.
+     * The list carries a weak ETag and Last-Modified derived from the note count and the
+     * latest updatedAt. Both come from a single aggregate query, so a matching conditional
+     * request is answered with 304 without loading or serializing any notes.
      *
      * @param userId the user ID to filter notes
-     * @return list of notes for the user
+     * @param request the current request, used for conditional GET
+     * @return list of notes for the user, or null when a 304 response has already been written
      */
     @GetMapping
-    public ResponseEntity<List<Note>> getAllNotes(@RequestParam String userId) {
+    public ResponseEntity<List<Note>> getAllNotes(@RequestParam String userId, WebRequest request) {
         log.info("Fetching all notes for user: {}", userId);
         try {
+            NoteListVersion version = noteRepository.findListVersion(userId);
+            long lastModified = toEpochMillis(version.getLastUpdated());
+            if (request.checkNotModified(weakEtag(String.valueOf(version.getNoteCount()), lastModified), lastModified)) {
+                log.debug("Notes for user {} not modified", userId);
+                return null;
+            }
+
             List<Note> notes = noteRepository.findByUserIdOrderByCreatedAtDesc(userId);
             log.debug("Found {} notes for user {}", notes.size(), userId);
-            return ResponseEntity.ok(notes);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(notes);
         } catch (Exception e) {
             log.error("Failed to fetch notes for user {}", userId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -114,22 +126,30 @@ public class NoteController {
 
     /**
      * Retrieves a single note by ID.
+     * The note carries a weak ETag and Last-Modified derived from its updatedAt, and a
+     * matching conditional request is answered with 304 without serializing the note.
      *
      * @param id the note ID
-     * @return the note if found, 404 otherwise
+     * @param request the current request, used for conditional GET
+     * @return the note if found, 404 otherwise, or null when a 304 response has already been written
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Note> getNoteById(@PathVariable String id) {
+    public ResponseEntity<Note> getNoteById(@PathVariable String id, WebRequest request) {
         log.info("Fetching note by id: {}", id);
-        return noteRepository.findById(id)
-            .map(note -> {
-                log.debug("Found note: {}", id);
-                return ResponseEntity.ok(note);
-            })
-            .orElseGet(() -> {
-                log.warn("Note not found: {}", id);
-                return ResponseEntity.notFound().build();
-            });
+        Note note = noteRepository.findById(id).orElse(null);
+        if (note == null) {
+            log.warn("Note not found: {}", id);
+            return ResponseEntity.notFound().build();
+        }
+
+        long lastModified = toEpochMillis(note.getUpdatedAt());
+        if (request.checkNotModified(weakEtag(id, lastModified), lastModified)) {
+            log.debug("Note not modified: {}", id);
+            return null;
+        }
+
+        log.debug("Found note: {}", id);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(note);
     }
 
     /**
@@ -156,7 +176,7 @@ public class NoteController {
             note.create();
             Note savedNote = noteRepository.save(note);
 
-            log.info("Created note {} for user {}", savedNote.getId(), userId);
+            log.info("Created note {} for user {}", savedNote.getNoteId(), userId);
             notifyObservers(savedNote, "CREATE");
 
             return ResponseEntity.status(HttpStatus.CREATED).body(savedNote);
@@ -206,7 +226,7 @@ public class NoteController {
     }
 
     /**
-     * Deletes a note by ID.
+     * Deletes a note by ID and releases its references to stored media.
      *
      * @param id the note ID
      * @return 200 if deleted, 404 if not found
@@ -218,8 +238,11 @@ public class NoteController {
             return noteRepository.findById(id)
                 .map(note -> {
                     notifyObservers(note, "DELETE");
+                    List<String> mediaUrls = new ArrayList<>(note.getImages());
+                    mediaUrls.add(note.getVoiceRecording());
                     note.delete();
                     noteRepository.delete(note);
+                    mediaUrls.forEach(fileStorageService::releaseMediaUrl);
                     log.info("Deleted note: {}", id);
                     return ResponseEntity.ok().<Void>build();
                 })
@@ -301,7 +324,7 @@ public class NoteController {
      */
     private Note buildNoteFromData(Map<String, Object> noteData, User user) {
         Note note = new Note();
-        note.setUserId(user.getId());
+        note.setUserId(user.getUserId());
         note.setUser(user);
         note.setTitle((String) noteData.get("title"));
         note.setBody((String) noteData.getOrDefault("body", ""));
@@ -347,4 +370,25 @@ public class NoteController {
         }
         return filters;
     }
+
+    /**
+     * Builds a weak ETag from a discriminator and a modification time.
+     *
+     * @param key the note ID, or the note count for lists
+     * @param lastModified the modification time in epoch milliseconds
+     * @return the weak ETag value
+     */
+    private String weakEtag(String key, long lastModified) {
+        return "W/\"" + key + "-" + Long.toHexString(Math.max(lastModified, 0)) + "\"";
+    }
+
+    /**
+     * Converts an entity timestamp to epoch milliseconds for Last-Modified.
+     *
+     * @param dateTime the timestamp, may be null
+     * @return epoch milliseconds, or -1 if the timestamp is null
+     */
+    private long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime == null ? -1 : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
 }
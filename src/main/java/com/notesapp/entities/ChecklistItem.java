@@ -28,5 +28,8 @@ public class ChecklistItem {
 
     public void toggle() {
         this.isChecked = !this.isChecked;
+        if (this.note != null) {
+            this.note.touch();
+        }
     }
 }
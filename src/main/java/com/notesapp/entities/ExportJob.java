@@ -0,0 +1,67 @@
+package com.notesapp.entities;
+
+import com.notesapp.config.AppConstants;
+import com.notesapp.enums.ExportJobStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A background PDF export and its progress.
+ * The row is shared by all application instances, so any node can report the status of a
+ * job and serve its PDF from the shared job directory; only the node that accepted the job
+ * runs it and updates the row.
+ */
+@Entity
+@Table(name = "export_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJob {
+
+    @Id
+    private String jobId;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Column(nullable = false)
+    private String nodeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ExportJobStatus status;
+
+    @Column(nullable = false)
+    private Integer totalNotes;
+
+    /**
+     * The notes rendered so far; once completed, the notes in the PDF, which excludes notes
+     * deleted since the job was submitted.
+     */
+    @Column(nullable = false)
+    private Integer exportedNotes;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime finishedAt;
+
+    private LocalDateTime expiresAt;
+
+    @Column(length = AppConstants.EXPORT_JOB_MAX_ERROR_LENGTH)
+    private String error;
+
+    private Long length;
+
+    public boolean isFinished() {
+        return status == ExportJobStatus.COMPLETED || status == ExportJobStatus.FAILED;
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt != null && now.isAfter(expiresAt);
+    }
+}
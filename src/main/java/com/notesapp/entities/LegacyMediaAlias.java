@@ -0,0 +1,29 @@
+package com.notesapp.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Maps a flat filename from before content-addressed storage to the blob it was migrated to,
+ * so URLs cached by clients or embedded elsewhere keep resolving after migration.
+ */
+@Entity
+@Table(name = "legacy_media_aliases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LegacyMediaAlias {
+
+    @Id
+    private String legacyFilename;
+
+    @Column(nullable = false)
+    private String filename;
+
+    @Column(nullable = false)
+    private LocalDateTime migratedAt;
+}
@@ -0,0 +1,39 @@
+package com.notesapp.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored media content, keyed by the SHA-256 of its bytes.
+ * Uploads of identical content share one blob; refCount tracks how many note
+ * attachments point at it. Releasing the last reference does not unlink the blob: the
+ * media garbage collector deletes it once the count is zero and no note references it.
+ * lastReferencedAt records when a reference was last taken, so the collector never
+ * removes a blob that is being attached while it sweeps.
+ */
+@Entity
+@Table(name = "media_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaBlob {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private Long sizeBytes;
+
+    @Column(nullable = false)
+    private Integer refCount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime lastReferencedAt;
+}
@@ -9,11 +9,11 @@ import java.time.LocalDateTime;
 import java.util.*;
 
 @Entity
-@Table(name = "notes")
+@Table(name = "notes", indexes = @Index(name = "idx_notes_user_note", columnList = "user_id, noteId"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@lombok.EqualsAndHashCode(exclude = {"user", "tags"})
+@lombok.EqualsAndHashCode(exclude = {"user", "tags", "updatedAt"})
 public class Note {
 
     @Id
@@ -114,6 +114,14 @@ public class Note {
             this.isPinned = (Boolean) content.get("isPinned");
         }
 
+        touch();
+    }
+
+    /**
+     * Marks the note as changed. Called for changes to its tags, images, checklist or reminder too,
+     * so the note list's ETag, derived from the latest updatedAt, changes with them.
+     */
+    public void touch() {
         this.updatedAt = LocalDateTime.now();
     }
 
@@ -129,6 +137,7 @@ public class Note {
         }
         this.tags.add(tag);
         tag.getNotes().add(this);
+        touch();
     }
 
     public void removeTag(Tag tag) {
@@ -137,6 +146,32 @@ public class Note {
         }
         this.tags.remove(tag);
         tag.getNotes().remove(this);
+        touch();
+    }
+
+    /**
+     * Attaches an image. The images are an element collection, which Hibernate updates
+     * without running {@code @PreUpdate}, so the note is touched explicitly.
+     *
+     * @param url the image URL
+     */
+    public void addImage(String url) {
+        this.images.add(url);
+        touch();
+    }
+
+    /**
+     * Detaches an image, touching the note if it was attached.
+     *
+     * @param url the image URL
+     * @return true if the note had the image
+     */
+    public boolean removeImage(String url) {
+        if (!this.images.remove(url)) {
+            return false;
+        }
+        touch();
+        return true;
     }
 
     public void autoOrganize() {
@@ -155,5 +190,6 @@ public class Note {
         }
         this.reminder = reminder;
         reminder.setNote(this);
+        touch();
     }
 }
@@ -1,5 +1,6 @@
 package com.notesapp.entities;
 
+import com.notesapp.config.AppConstants;
 import com.notesapp.enums.NotificationChannel;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -7,9 +8,10 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Entity
-@Table(name = "reminders")
+@Table(name = "reminders", indexes = @Index(name = "idx_reminders_bucket_due", columnList = "bucket, isDelivered, scheduledTime"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -37,12 +39,31 @@ public class Reminder {
     @Column(nullable = false)
     private Boolean isDelivered = false;
 
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private String claimedBy;
+
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private LocalDateTime claimExpiresAt;
+
+    /**
+     * Partition bucket in [0, REMINDER_BUCKETS); each live node delivers the reminders in its buckets.
+     */
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private Integer bucket;
+
     @OneToOne(mappedBy = "reminder")
     private Note note;
 
     @OneToOne(mappedBy = "reminder")
     private TodoItem todoItem;
 
+    @PrePersist
+    protected void onCreate() {
+        if (bucket == null) {
+            bucket = ThreadLocalRandom.current().nextInt(AppConstants.REMINDER_BUCKETS);
+        }
+    }
+
     public void schedule() {
         if (this.scheduledTime == null || this.scheduledTime.isBefore(LocalDateTime.now())) {
             throw new IllegalArgumentException("Scheduled time must be in the future");
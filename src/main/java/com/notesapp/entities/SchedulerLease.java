@@ -0,0 +1,37 @@
+package com.notesapp.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Time-bounded lease shared by all application instances through the datasource.
+ * Node leases ("node:" prefix) advertise cluster membership; job leases ("job:" prefix)
+ * elect a single runner for cluster-wide scheduled work.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerLease {
+
+    @Id
+    private String leaseName;
+
+    @Column(nullable = false)
+    private String ownerId;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Version
+    private Long version;
+
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt == null || expiresAt.isBefore(now);
+    }
+}
@@ -0,0 +1,38 @@
+package com.notesapp.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A chunked upload in progress.
+ * Chunks are appended to a partial file named after the upload ID; the number of bytes
+ * received so far is the size of that file, so the session row only records what the
+ * client declared when the upload started.
+ */
+@Entity
+@Table(name = "upload_sessions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+
+    @Id
+    private String uploadId;
+
+    private String noteId;
+
+    private String filename;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long totalSize;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
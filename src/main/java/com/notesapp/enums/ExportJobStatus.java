@@ -0,0 +1,8 @@
+package com.notesapp.enums;
+
+public enum ExportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,35 @@
+package com.notesapp.enums;
+
+import com.notesapp.config.AppConstants;
+
+/**
+ * Downscaled renditions of uploaded images, selected with the {@code ?size=} parameter.
+ * Each size bounds the longer edge of the image in pixels.
+ */
+public enum ImageVariantSize {
+    THUMB(160),
+    MEDIUM(800),
+    // Full text width of an exported PDF page at AppConstants.PDF_IMAGE_DPI
+    PDF(Math.round(AppConstants.PDF_WRITABLE_WIDTH / 72f * AppConstants.PDF_IMAGE_DPI));
+
+    private final int maxDimension;
+
+    ImageVariantSize(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    /**
+     * Parses a {@code ?size=} parameter value.
+     *
+     * @param value the parameter value, case-insensitive
+     * @return the matching size
+     * @throws IllegalArgumentException if the value is not a known size
+     */
+    public static ImageVariantSize fromParam(String value) {
+        return valueOf(value.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,132 @@
+package com.notesapp.enums;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Media formats accepted for upload, recognized by the magic bytes at the start of the file
+ * rather than by the content type or extension the client claims.
+ * Container formats that may hold audio or video (WebM, MP4) count as audio, since that is
+ * what browsers record voice notes into.
+ */
+public enum MediaSignature {
+    JPEG("image/jpeg"),
+    PNG("image/png"),
+    GIF("image/gif"),
+    WEBP("image/webp"),
+    MP3("audio/mpeg"),
+    AAC("audio/aac"),
+    WAV("audio/wav"),
+    OGG("audio/ogg"),
+    FLAC("audio/flac"),
+    WEBM("audio/webm"),
+    MP4("audio/mp4");
+
+    /**
+     * Number of leading bytes needed to recognize every format.
+     */
+    public static final int SNIFF_LENGTH = 12;
+
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF87_MAGIC = ascii("GIF87a");
+    private static final byte[] GIF89_MAGIC = ascii("GIF89a");
+    private static final byte[] RIFF_MAGIC = ascii("RIFF");
+    private static final byte[] WEBP_FORM = ascii("WEBP");
+    private static final byte[] WAVE_FORM = ascii("WAVE");
+    private static final byte[] OGG_MAGIC = ascii("OggS");
+    private static final byte[] FLAC_MAGIC = ascii("fLaC");
+    private static final byte[] EBML_MAGIC = {0x1A, 0x45, (byte) 0xDF, (byte) 0xA3};
+    private static final byte[] FTYP_BOX = ascii("ftyp");
+    private static final byte[] ID3_MAGIC = ascii("ID3");
+
+    private final String contentType;
+
+    MediaSignature(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Recognizes a format from the first bytes of a file.
+     *
+     * @param head   buffer holding the first bytes of the file
+     * @param length number of valid bytes in the buffer; fewer than {@link #SNIFF_LENGTH} only for tiny files
+     * @return the format, or empty if the bytes match no accepted format
+     */
+    public static Optional<MediaSignature> detect(byte[] head, int length) {
+        if (startsWith(head, length, 0, JPEG_MAGIC)) {
+            return Optional.of(JPEG);
+        }
+        if (startsWith(head, length, 0, PNG_MAGIC)) {
+            return Optional.of(PNG);
+        }
+        if (startsWith(head, length, 0, GIF87_MAGIC) || startsWith(head, length, 0, GIF89_MAGIC)) {
+            return Optional.of(GIF);
+        }
+        if (startsWith(head, length, 0, RIFF_MAGIC)) {
+            if (startsWith(head, length, 8, WEBP_FORM)) {
+                return Optional.of(WEBP);
+            }
+            if (startsWith(head, length, 8, WAVE_FORM)) {
+                return Optional.of(WAV);
+            }
+            return Optional.empty();
+        }
+        if (startsWith(head, length, 0, OGG_MAGIC)) {
+            return Optional.of(OGG);
+        }
+        if (startsWith(head, length, 0, FLAC_MAGIC)) {
+            return Optional.of(FLAC);
+        }
+        if (startsWith(head, length, 0, EBML_MAGIC)) {
+            return Optional.of(WEBM);
+        }
+        if (startsWith(head, length, 4, FTYP_BOX)) {
+            return Optional.of(MP4);
+        }
+        if (startsWith(head, length, 0, ID3_MAGIC)) {
+            return Optional.of(MP3);
+        }
+        if (length >= 2 && (head[0] & 0xFF) == 0xFF) {
+            // MPEG frame sync: eleven set bits, then the version and layer fields
+            int header = head[1] & 0xFF;
+            if ((header & 0xF6) == 0xF0) {
+                return Optional.of(AAC);
+            }
+            if ((header & 0xE0) == 0xE0 && (header & 0x06) != 0) {
+                return Optional.of(MP3);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Recognizes a format and checks that it is of the expected kind.
+     *
+     * @param head              buffer holding the first bytes of the file
+     * @param length            number of valid bytes in the buffer
+     * @param contentTypePrefix the expected content type prefix (e.g., "image/", "audio/")
+     * @return the format
+     * @throws IllegalArgumentException if the bytes match no accepted format of that kind
+     */
+    public static MediaSignature verify(byte[] head, int length, String contentTypePrefix) {
+        return detect(head, length)
+                .filter(signature -> signature.contentType.startsWith(contentTypePrefix))
+                .orElseThrow(() -> new IllegalArgumentException(String.format(
+                        "File content is not a supported %s format", contentTypePrefix.replace("/", ""))));
+    }
+
+    private static boolean startsWith(byte[] head, int length, int offset, byte[] magic) {
+        return length >= offset + magic.length
+                && Arrays.equals(head, offset, offset + magic.length, magic, 0, magic.length);
+    }
+
+    private static byte[] ascii(String magic) {
+        return magic.getBytes(StandardCharsets.US_ASCII);
+    }
+}
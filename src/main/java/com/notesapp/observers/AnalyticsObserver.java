@@ -1,48 +1,122 @@
 package com.notesapp.observers;
 
 import com.notesapp.entities.Note;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Observer that tracks analytics and statistics about note activity.
  * Maintains counts of note operations for reporting and insights.
+ * Counters are striped {@link LongAdder}s in concurrent maps, so concurrent request threads
+ * record events without locking or losing updates.
  */
+@Slf4j
 @Component
 public class AnalyticsObserver implements NoteObserver {
 
-    private final Map<String, Integer> eventCounts = new HashMap<>();
-    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int WINDOW_BUCKETS = 60;
+    private static final long MINUTE_BUCKET_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    private static final long HOUR_BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final String UNKNOWN_USER = "unknown";
+
+    private final Map<String, EventStats> eventStats = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, LongAdder>> userEventCounts = new ConcurrentHashMap<>();
 
     public AnalyticsObserver() {
-        eventCounts.put("CREATE", 0);
-        eventCounts.put("UPDATE", 0);
-        eventCounts.put("DELETE", 0);
+        eventStats.put("CREATE", new EventStats());
+        eventStats.put("UPDATE", new EventStats());
+        eventStats.put("DELETE", new EventStats());
     }
 
     @Override
     public void update(Note note, String eventType) {
-        trackEvent(eventType);
-        logAnalytics(note, eventType);
+        trackEvent(note, eventType);
+        log.debug("[Analytics] {} event for note {}", eventType, note.getNoteId());
     }
 
-    private void trackEvent(String eventType) {
-        eventCounts.put(eventType, eventCounts.getOrDefault(eventType, 0) + 1);
-    }
+    private void trackEvent(Note note, String eventType) {
+        long now = System.currentTimeMillis();
+        eventStats.computeIfAbsent(eventType, type -> new EventStats()).record(now);
 
-    private void logAnalytics(Note note, String eventType) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        System.out.println("[Analytics] " + timestamp + " - " + eventType + " event for note: " + note.getTitle());
-        System.out.println("[Analytics] Total events - CREATE: " + eventCounts.get("CREATE") +
-                ", UPDATE: " + eventCounts.get("UPDATE") +
-                ", DELETE: " + eventCounts.get("DELETE"));
+        String userId = note.getUserId() != null ? note.getUserId() : UNKNOWN_USER;
+        userEventCounts
+            .computeIfAbsent(userId, id -> new ConcurrentHashMap<>())
+            .computeIfAbsent(eventType, type -> new LongAdder())
+            .increment();
     }
 
     public Map<String, Integer> getEventCounts() {
-        return new HashMap<>(eventCounts);
+        Map<String, Integer> counts = new HashMap<>();
+        eventStats.forEach((type, stats) -> counts.put(type, (int) stats.total.sum()));
+        return counts;
+    }
+
+    /**
+     * Returns per-event totals and sliding-window counts for the last minute and hour.
+     *
+     * @return map of event type to its "total", "lastMinute" and "lastHour" counts
+     */
+    public Map<String, Map<String, Long>> getEventStats() {
+        long now = System.currentTimeMillis();
+        Map<String, Map<String, Long>> snapshot = new LinkedHashMap<>();
+        eventStats.forEach((type, stats) -> snapshot.put(type, stats.snapshot(now)));
+        return snapshot;
+    }
+
+    /**
+     * Returns the event counts recorded for a single user.
+     *
+     * @param userId the user ID
+     * @return map of event type to count, empty if the user has no recorded events
+     */
+    public Map<String, Long> getUserEventCounts(String userId) {
+        Map<String, LongAdder> counts = userEventCounts.get(userId);
+        Map<String, Long> snapshot = new HashMap<>();
+        if (counts != null) {
+            counts.forEach((type, count) -> snapshot.put(type, count.sum()));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the total number of events recorded per user.
+     *
+     * @return map of user ID to total event count
+     */
+    public Map<String, Long> getUserTotals() {
+        Map<String, Long> totals = new HashMap<>();
+        userEventCounts.forEach((userId, counts) ->
+            totals.put(userId, counts.values().stream().mapToLong(LongAdder::sum).sum()));
+        return totals;
+    }
+
+    /**
+     * Lifetime total plus minute and hour sliding windows for one event type.
+     */
+    private static final class EventStats {
+        private final LongAdder total = new LongAdder();
+        private final SlidingWindowCounter lastMinute = new SlidingWindowCounter(WINDOW_BUCKETS, MINUTE_BUCKET_MILLIS);
+        private final SlidingWindowCounter lastHour = new SlidingWindowCounter(WINDOW_BUCKETS, HOUR_BUCKET_MILLIS);
+
+        private void record(long nowMillis) {
+            total.increment();
+            lastMinute.increment(nowMillis);
+            lastHour.increment(nowMillis);
+        }
+
+        private Map<String, Long> snapshot(long nowMillis) {
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("total", total.sum());
+            values.put("lastMinute", lastMinute.sum(nowMillis));
+            values.put("lastHour", lastHour.sum(nowMillis));
+            return values;
+        }
     }
 }
@@ -0,0 +1,311 @@
+package com.notesapp.observers;
+
+import com.notesapp.entities.Note;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous dispatcher of note events to {@link NoteObserver}s.
+ * Events are written into a bounded, preallocated ring buffer and each observer consumes
+ * the ring on its own thread, so request threads only pay for claiming a slot.
+ * Consumers deliver every event that is available in one pass as a batch and then call
+ * {@link NoteObserver#onEndOfBatch()}.
+ */
+@Slf4j
+@Component
+public class NoteEventBus {
+
+    /**
+     * What a producer does when the slowest observer is a full buffer behind.
+     */
+    public enum OverflowPolicy {
+        /** Wait for space up to the publish timeout, then drop the event. */
+        BLOCK,
+        /** Drop the event immediately. */
+        DROP,
+        /**
+         * Deliver the event synchronously on the publishing thread. The event may overtake
+         * queued events and run concurrently with the observer's consumer thread.
+         */
+        CALLER_RUNS
+    }
+
+    private static final long FULL_BUFFER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long SHUTDOWN_DRAIN_MILLIS = 5000;
+
+    private final NoteEvent[] ring;
+    private final AtomicIntegerArray publishedRounds;
+    private final int mask;
+    private final int indexShift;
+    private final AtomicLong claimCursor = new AtomicLong(-1);
+    private final List<Consumer> consumers = new CopyOnWriteArrayList<>();
+    private final List<NoteObserver> initialObservers;
+    private final WaitStrategy waitStrategy;
+    private final OverflowPolicy overflowPolicy;
+    private final long publishTimeoutNanos;
+    private final LongAdder droppedEvents = new LongAdder();
+
+    @Autowired
+    public NoteEventBus(List<NoteObserver> observers,
+                        @Value("${notes.events.buffer-size:1024}") int bufferSize,
+                        @Value("${notes.events.wait-strategy:blocking}") String waitStrategy,
+                        @Value("${notes.events.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                        @Value("${notes.events.publish-timeout-ms:100}") long publishTimeoutMs) {
+        this(observers, bufferSize, WaitStrategy.of(waitStrategy), overflowPolicy, publishTimeoutMs);
+    }
+
+    public NoteEventBus(List<NoteObserver> observers,
+                        int bufferSize,
+                        WaitStrategy waitStrategy,
+                        OverflowPolicy overflowPolicy,
+                        long publishTimeoutMs) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Buffer size must be a power of two: " + bufferSize);
+        }
+        this.ring = new NoteEvent[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            ring[i] = new NoteEvent();
+        }
+        this.publishedRounds = new AtomicIntegerArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            publishedRounds.set(i, -1);
+        }
+        this.mask = bufferSize - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+        this.initialObservers = List.copyOf(observers);
+        this.waitStrategy = waitStrategy;
+        this.overflowPolicy = overflowPolicy;
+        this.publishTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(publishTimeoutMs);
+    }
+
+    /**
+     * Starts one consumer thread per observer known at startup.
+     */
+    @PostConstruct
+    public void start() {
+        initialObservers.forEach(this::register);
+        log.info("NoteEventBus started with {} observers, buffer size {}, overflow policy {}",
+                consumers.size(), ring.length, overflowPolicy);
+    }
+
+    /**
+     * Waits briefly for consumers to drain published events, then stops their threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        long deadline = System.currentTimeMillis() + SHUTDOWN_DRAIN_MILLIS;
+        while (minimumConsumerSequence(Long.MAX_VALUE) < claimCursor.get()
+                && System.currentTimeMillis() < deadline) {
+            waitStrategy.signalAll();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        consumers.forEach(Consumer::halt);
+        consumers.clear();
+        log.info("NoteEventBus stopped ({} events dropped)", droppedEvents.sum());
+    }
+
+    /**
+     * Registers an observer. It receives every event published from now on.
+     *
+     * @param observer the observer to register
+     */
+    public synchronized void register(NoteObserver observer) {
+        if (consumers.stream().anyMatch(consumer -> consumer.observer == observer)) {
+            return;
+        }
+        Consumer consumer = new Consumer(observer, claimCursor.get());
+        consumers.add(consumer);
+        consumer.thread.start();
+        log.debug("Registered observer: {}", observer.getClass().getSimpleName());
+    }
+
+    /**
+     * Removes an observer and stops its consumer thread.
+     *
+     * @param observer the observer to remove
+     */
+    public synchronized void unregister(NoteObserver observer) {
+        for (Consumer consumer : consumers) {
+            if (consumer.observer == observer) {
+                consumers.remove(consumer);
+                consumer.halt();
+                log.debug("Removed observer: {}", observer.getClass().getSimpleName());
+            }
+        }
+    }
+
+    /**
+     * Publishes a note event to all observers without waiting for them to process it.
+     *
+     * @param note the note that changed
+     * @param eventType the type of event (CREATE, UPDATE, DELETE)
+     * @return true if the event was queued or delivered, false if it was dropped
+     */
+    public boolean publish(Note note, String eventType) {
+        long sequence = claim();
+        if (sequence < 0) {
+            return handleOverflow(note, eventType);
+        }
+
+        int index = (int) sequence & mask;
+        ring[index].set(note, eventType);
+        publishedRounds.lazySet(index, (int) (sequence >>> indexShift));
+        waitStrategy.signalAll();
+        return true;
+    }
+
+    public int getObserverCount() {
+        return consumers.size();
+    }
+
+    public long getDroppedEventCount() {
+        return droppedEvents.sum();
+    }
+
+    /**
+     * Claims the next sequence, waiting for space according to the overflow policy.
+     *
+     * @return the claimed sequence, or -1 if the buffer stayed full
+     */
+    private long claim() {
+        long deadline = overflowPolicy == OverflowPolicy.BLOCK ? System.nanoTime() + publishTimeoutNanos : 0;
+        while (true) {
+            long current = claimCursor.get();
+            long next = current + 1;
+            if (next - ring.length > minimumConsumerSequence(current)) {
+                if (overflowPolicy != OverflowPolicy.BLOCK || System.nanoTime() > deadline) {
+                    return -1;
+                }
+                waitStrategy.signalAll();
+                LockSupport.parkNanos(FULL_BUFFER_PARK_NANOS);
+                continue;
+            }
+            if (claimCursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private boolean handleOverflow(Note note, String eventType) {
+        if (overflowPolicy == OverflowPolicy.CALLER_RUNS) {
+            for (Consumer consumer : consumers) {
+                consumer.deliver(note, eventType);
+                consumer.endBatch();
+            }
+            return true;
+        }
+        droppedEvents.increment();
+        log.warn("Note event buffer full, dropped {} event for note {}", eventType, note.getNoteId());
+        return false;
+    }
+
+    private long minimumConsumerSequence(long defaultValue) {
+        long minimum = defaultValue;
+        for (Consumer consumer : consumers) {
+            minimum = Math.min(minimum, consumer.sequence.get());
+        }
+        return minimum;
+    }
+
+    private boolean isPublished(long sequence) {
+        return publishedRounds.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+
+    /**
+     * Preallocated ring slot. Slots are overwritten in place, never reallocated.
+     */
+    private static final class NoteEvent {
+        private Note note;
+        private String eventType;
+
+        private void set(Note note, String eventType) {
+            this.note = note;
+            this.eventType = eventType;
+        }
+    }
+
+    /**
+     * Consumes the ring for a single observer on a dedicated thread.
+     */
+    private final class Consumer implements Runnable {
+        private final NoteObserver observer;
+        private final AtomicLong sequence;
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private Consumer(NoteObserver observer, long startSequence) {
+            this.observer = observer;
+            this.sequence = new AtomicLong(startSequence);
+            this.thread = new Thread(this, "note-events-" + observer.getClass().getSimpleName());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int idleAttempts = 0;
+            while (running) {
+                long next = sequence.get() + 1;
+                long available = highestPublished(next, claimCursor.get());
+                if (available < next) {
+                    try {
+                        waitStrategy.idle(idleAttempts++);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    continue;
+                }
+
+                idleAttempts = 0;
+                for (long s = next; s <= available; s++) {
+                    NoteEvent event = ring[(int) s & mask];
+                    deliver(event.note, event.eventType);
+                }
+                endBatch();
+                sequence.set(available);
+            }
+        }
+
+        private long highestPublished(long from, long claimed) {
+            for (long s = from; s <= claimed; s++) {
+                if (!isPublished(s)) {
+                    return s - 1;
+                }
+            }
+            return claimed;
+        }
+
+        private void deliver(Note note, String eventType) {
+            try {
+                observer.update(note, eventType);
+            } catch (Exception e) {
+                log.error("Observer {} failed to process {} event", observer.getClass().getSimpleName(), eventType, e);
+            }
+        }
+
+        private void endBatch() {
+            try {
+                observer.onEndOfBatch();
+            } catch (Exception e) {
+                log.error("Observer {} failed at end of batch", observer.getClass().getSimpleName(), e);
+            }
+        }
+
+        private void halt() {
+            running = false;
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.notesapp.observers;
+
+import com.notesapp.entities.Note;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalescing stage in front of {@link NoteEventBus}.
+ * Autosave produces bursts of UPDATE events for the same note; these are held for a short
+ * window and only the latest version is published when the window closes. A DELETE cancels
+ * any pending UPDATE for the note. CREATE and DELETE events are never delayed.
+ * Pending updates are changed inside the map's per-key compute, but events are published only
+ * after it returns, so a slow or full event bus never holds the map's bin locks.
+ */
+@Slf4j
+@Component
+public class NoteEventCoalescer {
+
+    private static final int FLUSH_CHECKS_PER_WINDOW = 4;
+
+    private final NoteEventBus eventBus;
+    private final long windowMillis;
+    private final Map<String, PendingUpdate> pendingUpdates = new ConcurrentHashMap<>();
+    private final LongAdder coalescedUpdates = new LongAdder();
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public NoteEventCoalescer(NoteEventBus eventBus,
+                              @Value("${notes.events.coalesce-window-ms:2000}") long windowMillis) {
+        this.eventBus = eventBus;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Starts the background flusher when coalescing is enabled.
+     */
+    @PostConstruct
+    public void start() {
+        if (windowMillis <= 0) {
+            log.info("Note update coalescing disabled");
+            return;
+        }
+        long checkInterval = Math.max(1, windowMillis / FLUSH_CHECKS_PER_WINDOW);
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "note-events-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> flushDue(System.currentTimeMillis()),
+                checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+        log.info("Coalescing note updates over {} ms windows", windowMillis);
+    }
+
+    /**
+     * Stops the flusher and publishes every pending update.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flushDue(Long.MAX_VALUE);
+    }
+
+    /**
+     * Publishes a note event, coalescing UPDATE events per note.
+     *
+     * @param note the note that changed
+     * @param eventType the type of event (CREATE, UPDATE, DELETE)
+     */
+    public void publish(Note note, String eventType) {
+        String noteId = note.getNoteId();
+        if (windowMillis <= 0 || noteId == null) {
+            eventBus.publish(note, eventType);
+            return;
+        }
+
+        switch (eventType) {
+            case "UPDATE":
+                deferUpdate(noteId, note);
+                break;
+            case "DELETE":
+                PendingUpdate flushing = pendingUpdates.compute(noteId, (id, pending) -> {
+                    if (pending == null) {
+                        return null;
+                    }
+                    if (pending.flushing) {
+                        // The flusher publishes the DELETE after the UPDATE it is publishing
+                        if (pending.nextNote != null) {
+                            coalescedUpdates.increment();
+                        }
+                        pending.nextNote = null;
+                        pending.deletedNote = note;
+                        return pending;
+                    }
+                    coalescedUpdates.increment();
+                    return null;
+                });
+                if (flushing == null) {
+                    eventBus.publish(note, eventType);
+                }
+                break;
+            default:
+                eventBus.publish(note, eventType);
+        }
+    }
+
+    /**
+     * Publishes pending updates whose window has closed by the given time.
+     * An update is marked as flushing before it is published and removed afterwards. A DELETE
+     * for the same note that arrives meanwhile is handed to the flusher and published after
+     * the UPDATE, never before it, and an UPDATE that arrives meanwhile starts a new window.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     */
+    public synchronized void flushDue(long nowMillis) {
+        for (String noteId : pendingUpdates.keySet()) {
+            PendingUpdate pending = pendingUpdates.computeIfPresent(noteId, (id, current) -> {
+                if (current.dueAt <= nowMillis) {
+                    current.flushing = true;
+                }
+                return current;
+            });
+            if (pending == null || !pending.flushing) {
+                continue;
+            }
+
+            eventBus.publish(pending.note, "UPDATE");
+            long now = System.currentTimeMillis();
+            pendingUpdates.compute(noteId, (id, current) ->
+                    pending.nextNote != null ? new PendingUpdate(pending.nextNote, now + windowMillis) : null);
+            if (pending.deletedNote != null) {
+                eventBus.publish(pending.deletedNote, "DELETE");
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        return pendingUpdates.size();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedUpdates.sum();
+    }
+
+    private void deferUpdate(String noteId, Note note) {
+        long now = System.currentTimeMillis();
+        pendingUpdates.compute(noteId, (id, pending) -> {
+            if (pending == null) {
+                return new PendingUpdate(note, now + windowMillis);
+            }
+            if (pending.flushing) {
+                if (pending.nextNote != null) {
+                    coalescedUpdates.increment();
+                }
+                pending.nextNote = note;
+                return pending;
+            }
+            coalescedUpdates.increment();
+            pending.note = note;
+            return pending;
+        });
+    }
+
+    /**
+     * Latest version of a note awaiting its UPDATE event. The window is fixed at the first
+     * update, so continuous editing still reaches observers at least once per window.
+     * Fields are only changed inside the map's compute for the note.
+     */
+    private static final class PendingUpdate {
+        private Note note;
+        private final long dueAt;
+        /** Set once the flusher is publishing {@link #note}; the note no longer changes. */
+        private boolean flushing;
+        /** Latest update received while flushing, queued again afterwards. */
+        private Note nextNote;
+        /** DELETE received while flushing, published after the UPDATE. */
+        private Note deletedNote;
+
+        private PendingUpdate(Note note, long dueAt) {
+            this.note = note;
+            this.dueAt = dueAt;
+        }
+    }
+}
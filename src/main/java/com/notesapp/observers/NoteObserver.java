@@ -15,4 +15,11 @@ public interface NoteObserver {
      * @param eventType Type of event: "CREATE", "UPDATE", or "DELETE"
      */
     void update(Note note, String eventType);
+
+    /**
+     * Called after the last event of a batch has been delivered through {@link #update}.
+     * Observers that buffer work per event can flush it here once per batch.
+     */
+    default void onEndOfBatch() {
+    }
 }
@@ -0,0 +1,25 @@
+package com.notesapp.observers;
+
+import com.notesapp.entities.Note;
+import com.notesapp.services.PdfRenditionCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Observer that drops cached PDF renditions of notes that were updated or deleted.
+ * Renditions are keyed by content, so this only frees their disk space sooner than
+ * LRU eviction would.
+ */
+@Component
+public class PdfRenditionObserver implements NoteObserver {
+
+    @Autowired
+    private PdfRenditionCache pdfRenditionCache;
+
+    @Override
+    public void update(Note note, String eventType) {
+        if ("UPDATE".equals(eventType) || "DELETE".equals(eventType)) {
+            pdfRenditionCache.evictNote(note.getNoteId());
+        }
+    }
+}
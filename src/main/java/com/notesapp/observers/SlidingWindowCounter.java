@@ -0,0 +1,71 @@
+package com.notesapp.observers;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free event counter over a sliding time window.
+ * The window is split into a ring of buckets; a bucket whose epoch has passed is replaced
+ * with a fresh one by compare-and-set, so writers never block and reads ignore stale buckets.
+ */
+final class SlidingWindowCounter {
+
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final long bucketMillis;
+
+    /**
+     * @param bucketCount number of buckets in the window
+     * @param bucketMillis width of each bucket in milliseconds
+     */
+    SlidingWindowCounter(int bucketCount, long bucketMillis) {
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+        this.bucketMillis = bucketMillis;
+    }
+
+    void increment(long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        int index = Math.floorMod(epoch, buckets.length());
+
+        Bucket bucket = buckets.get(index);
+        while (bucket == null || bucket.epoch != epoch) {
+            if (bucket != null && bucket.epoch > epoch) {
+                return;
+            }
+            Bucket fresh = new Bucket(epoch);
+            if (buckets.compareAndSet(index, bucket, fresh)) {
+                bucket = fresh;
+                break;
+            }
+            bucket = buckets.get(index);
+        }
+        bucket.count.increment();
+    }
+
+    /**
+     * Sums the events recorded within the window ending at the given time.
+     *
+     * @param nowMillis the end of the window
+     * @return the event count in the window
+     */
+    long sum(long nowMillis) {
+        long currentEpoch = nowMillis / bucketMillis;
+        long oldestEpoch = currentEpoch - buckets.length() + 1;
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && bucket.epoch >= oldestEpoch && bucket.epoch <= currentEpoch) {
+                total += bucket.count.sum();
+            }
+        }
+        return total;
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final LongAdder count = new LongAdder();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
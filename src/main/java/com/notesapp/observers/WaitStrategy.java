@@ -0,0 +1,127 @@
+package com.notesapp.observers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Strategy used by {@link NoteEventBus} consumers while waiting for new events.
+ * Trades latency against CPU use: busy-spin is fastest and burns a core per consumer,
+ * blocking is slowest to wake but idles for free.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Called each time a consumer finds no new event.
+     *
+     * @param attempt number of consecutive empty polls, starting at 0
+     * @throws InterruptedException if the consumer thread is interrupted
+     */
+    void idle(int attempt) throws InterruptedException;
+
+    /**
+     * Called by producers after publishing, to wake consumers that are blocked.
+     */
+    default void signalAll() {
+    }
+
+    /**
+     * Creates a wait strategy by name: "busy-spin", "yielding", "sleeping" or "blocking".
+     *
+     * @param name the strategy name
+     * @return the wait strategy
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    static WaitStrategy of(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "busy-spin":
+                return attempt -> Thread.onSpinWait();
+            case "yielding":
+                return new Yielding();
+            case "sleeping":
+                return new Sleeping();
+            case "blocking":
+                return new Blocking();
+            default:
+                throw new IllegalArgumentException("Unknown wait strategy: " + name);
+        }
+    }
+
+    /**
+     * Spins briefly, then yields the CPU to other threads.
+     */
+    final class Yielding implements WaitStrategy {
+        private static final int SPIN_TRIES = 100;
+
+        @Override
+        public void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Spins, then yields, then parks for short intervals.
+     */
+    final class Sleeping implements WaitStrategy {
+        private static final int SPIN_TRIES = 100;
+        private static final int YIELD_TRIES = 200;
+        private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+        @Override
+        public void idle(int attempt) throws InterruptedException {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (attempt < YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits on a condition that producers signal after publishing.
+     * The wait is bounded so a missed signal only delays a consumer briefly.
+     */
+    final class Blocking implements WaitStrategy {
+        private static final long MAX_WAIT_MILLIS = 10;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition published = lock.newCondition();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        @Override
+        public void idle(int attempt) throws InterruptedException {
+            lock.lock();
+            waiters.incrementAndGet();
+            try {
+                published.await(MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } finally {
+                waiters.decrementAndGet();
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            if (waiters.get() == 0) {
+                return;
+            }
+            lock.lock();
+            try {
+                published.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.notesapp.repositories;
+
+import com.notesapp.entities.ExportJob;
+import com.notesapp.enums.ExportJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ExportJobRepository extends JpaRepository<ExportJob, String> {
+
+    long countByUserIdAndStatusIn(String userId, Collection<ExportJobStatus> statuses);
+
+    List<ExportJob> findByStatusIn(Collection<ExportJobStatus> statuses);
+
+    List<ExportJob> findByExpiresAtBefore(LocalDateTime cutoff);
+}
@@ -0,0 +1,9 @@
+package com.notesapp.repositories;
+
+import com.notesapp.entities.LegacyMediaAlias;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LegacyMediaAliasRepository extends JpaRepository<LegacyMediaAlias, String> {
+}
@@ -0,0 +1,37 @@
+package com.notesapp.repositories;
+
+import com.notesapp.entities.MediaBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, String> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaBlob b SET b.refCount = b.refCount + 1, b.lastReferencedAt = CURRENT_TIMESTAMP " +
+           "WHERE b.hash = :hash")
+    int incrementRefCount(@Param("hash") String hash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaBlob b SET b.refCount = b.refCount - 1 WHERE b.hash = :hash AND b.refCount > 0")
+    int decrementRefCount(@Param("hash") String hash);
+
+    /**
+     * Deletes a blob that holds no references and has not gained one since the cutoff.
+     * Only for blobs already known to be absent from every note; the reference count guards
+     * against a note the scan missed.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MediaBlob b WHERE b.hash = :hash AND b.refCount <= 0 AND b.createdAt < :cutoff " +
+           "AND (b.lastReferencedAt IS NULL OR b.lastReferencedAt < :cutoff)")
+    int deleteIfIdleSince(@Param("hash") String hash, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,12 +2,17 @@ package com.notesapp.repositories;
 
 import com.notesapp.entities.Note;
 import com.notesapp.entities.Tag;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,6 +22,37 @@ public interface NoteRepository extends JpaRepository<Note, String> {
 
     List<Note> findByUserIdOrderByCreatedAtDesc(String userId);
 
+    @Query("SELECT n.noteId FROM Note n WHERE n.userId = :userId ORDER BY n.createdAt DESC")
+    List<String> findNoteIdsByUserIdOrderByCreatedAtDesc(@Param("userId") String userId);
+
+    /**
+     * Pages through a user's note IDs in ID order, starting after a cursor, so each page is
+     * found by index seek rather than by skipping the rows of earlier pages.
+     */
+    @Query("SELECT n.noteId FROM Note n WHERE n.userId = :userId AND n.noteId > :afterNoteId ORDER BY n.noteId")
+    List<String> findNoteIdsByUserIdAfter(@Param("userId") String userId,
+                                          @Param("afterNoteId") String afterNoteId,
+                                          Pageable pageable);
+
+    /**
+     * Loads a batch of notes for export with their tags and reminder in one query.
+     * Pair with {@link #fetchChecklists} in the same transaction to initialize checklists
+     * without a query per note; fetching both collections here would multiply the rows.
+     */
+    @Query("SELECT DISTINCT n FROM Note n LEFT JOIN FETCH n.tags LEFT JOIN FETCH n.reminder " +
+           "WHERE n.noteId IN :noteIds")
+    List<Note> findAllForExport(@Param("noteIds") Collection<String> noteIds);
+
+    @Query("SELECT DISTINCT n FROM Note n LEFT JOIN FETCH n.checklist WHERE n.noteId IN :noteIds")
+    List<Note> fetchChecklists(@Param("noteIds") Collection<String> noteIds);
+
+    @Query("SELECT DISTINCT n FROM Note n LEFT JOIN FETCH n.images WHERE n.noteId IN :noteIds")
+    List<Note> fetchImages(@Param("noteIds") Collection<String> noteIds);
+
+    @Query("SELECT COUNT(n) AS noteCount, MAX(n.updatedAt) AS lastUpdated " +
+           "FROM Note n WHERE n.userId = :userId")
+    NoteListVersion findListVersion(@Param("userId") String userId);
+
     @Query("SELECT n FROM Note n JOIN n.tags t WHERE t IN :tags")
     List<Note> findByTags(@Param("tags") List<Tag> tags);
 
@@ -34,7 +70,59 @@ public interface NoteRepository extends JpaRepository<Note, String> {
                                 @Param("start") LocalDateTime start,
                                 @Param("end") LocalDateTime end);
 
+    @Query("SELECT n FROM Note n WHERE n.voiceRecording IS NOT NULL OR n.images IS NOT EMPTY " +
+           "ORDER BY n.noteId")
+    Slice<Note> findWithMedia(Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE note_images SET image_url = :newUrl WHERE note_id = :noteId AND image_url = :oldUrl",
+           nativeQuery = true)
+    int updateImageUrl(@Param("noteId") String noteId, @Param("oldUrl") String oldUrl, @Param("newUrl") String newUrl);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Note n SET n.voiceRecording = :newUrl WHERE n.noteId = :noteId AND n.voiceRecording = :oldUrl")
+    int updateVoiceRecordingUrl(@Param("noteId") String noteId, @Param("oldUrl") String oldUrl,
+                                @Param("newUrl") String newUrl);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE notes SET updated_at = :now WHERE reminder_id = :reminderId", nativeQuery = true)
+    int touchByReminderId(@Param("reminderId") String reminderId, @Param("now") LocalDateTime now);
+
+    /**
+     * Pages through the IDs of notes with media in ID order, starting after a cursor. Unlike
+     * offset paging, deleting a note or an image behind the cursor does not shift later rows
+     * past it, so no note is skipped.
+     */
+    @Query("SELECT n.noteId FROM Note n WHERE n.noteId > :afterNoteId " +
+           "AND (n.voiceRecording IS NOT NULL OR n.images IS NOT EMPTY) ORDER BY n.noteId")
+    List<String> findMediaNoteIdsAfter(@Param("afterNoteId") String afterNoteId, Pageable pageable);
+
+    @Query("SELECT i FROM Note n JOIN n.images i WHERE n.noteId IN :noteIds")
+    List<String> findImageUrlsByNoteIdIn(@Param("noteIds") Collection<String> noteIds);
+
+    @Query("SELECT n.voiceRecording FROM Note n WHERE n.noteId IN :noteIds AND n.voiceRecording IS NOT NULL")
+    List<String> findVoiceRecordingUrlsByNoteIdIn(@Param("noteIds") Collection<String> noteIds);
+
+    @Query("SELECT COUNT(i) FROM Note n JOIN n.images i")
+    long countImageUrls();
+
+    long countByVoiceRecordingIsNotNull();
+
     List<Note> findByUserIdAndIsPinned(String userId, Boolean isPinned);
 
     List<Note> findByUserIdAndCategory(String userId, String category);
+
+    /**
+     * Cheap summary of a user's notes used to validate cached note lists.
+     * Any create, update or delete changes the count or the latest update time. Changes to a
+     * note's tags, checklist or reminder touch its updatedAt, so they are covered too.
+     */
+    interface NoteListVersion {
+        long getNoteCount();
+
+        LocalDateTime getLastUpdated();
+    }
 }
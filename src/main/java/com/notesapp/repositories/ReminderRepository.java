@@ -1,19 +1,48 @@
 package com.notesapp.repositories;
 
 import com.notesapp.entities.Reminder;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ReminderRepository extends JpaRepository<Reminder, String> {
 
-    @Query("SELECT r FROM Reminder r WHERE r.scheduledTime <= :time AND r.isDelivered = false")
-    List<Reminder> findPendingReminders(@Param("time") LocalDateTime time);
+    /**
+     * Finds due, undelivered and unclaimed reminders in the given partition buckets, oldest first.
+     */
+    @Query("SELECT r FROM Reminder r WHERE r.bucket IN :buckets AND r.scheduledTime <= :time " +
+           "AND r.isDelivered = false AND (r.claimExpiresAt IS NULL OR r.claimExpiresAt < :time) " +
+           "ORDER BY r.scheduledTime")
+    List<Reminder> findPendingReminders(@Param("time") LocalDateTime time,
+                                        @Param("buckets") Collection<Integer> buckets,
+                                        Pageable pageable);
+
+    /**
+     * Puts reminders stored before partition buckets existed into bucket 0.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Reminder r SET r.bucket = 0 WHERE r.bucket IS NULL")
+    int assignMissingBuckets();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Reminder r SET r.claimedBy = :nodeId, r.claimExpiresAt = :claimUntil " +
+           "WHERE r.reminderId = :reminderId AND r.isDelivered = false AND " +
+           "(r.claimExpiresAt IS NULL OR r.claimExpiresAt < :now)")
+    int claimReminder(@Param("reminderId") String reminderId,
+                      @Param("nodeId") String nodeId,
+                      @Param("claimUntil") LocalDateTime claimUntil,
+                      @Param("now") LocalDateTime now);
 
     List<Reminder> findByIsDelivered(Boolean isDelivered);
 
@@ -0,0 +1,40 @@
+package com.notesapp.repositories;
+
+import com.notesapp.entities.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    @Query("SELECT l.ownerId FROM SchedulerLease l WHERE l.leaseName LIKE CONCAT(:prefix, '%') " +
+           "AND l.expiresAt > :now ORDER BY l.ownerId")
+    List<String> findLiveOwners(@Param("prefix") String prefix, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE SchedulerLease l SET l.ownerId = :ownerId, l.expiresAt = :expiresAt, " +
+           "l.version = l.version + 1 WHERE l.leaseName = :leaseName AND " +
+           "(l.ownerId = :ownerId OR l.expiresAt < :now)")
+    int tryRenew(@Param("leaseName") String leaseName,
+                 @Param("ownerId") String ownerId,
+                 @Param("expiresAt") LocalDateTime expiresAt,
+                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SchedulerLease l WHERE l.leaseName = :leaseName AND l.ownerId = :ownerId")
+    int release(@Param("leaseName") String leaseName, @Param("ownerId") String ownerId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SchedulerLease l WHERE l.expiresAt < :cutoff")
+    int deleteExpiredBefore(@Param("cutoff") LocalDateTime cutoff);
+}
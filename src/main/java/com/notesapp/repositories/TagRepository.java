@@ -4,6 +4,8 @@ import com.notesapp.entities.Tag;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,6 +13,8 @@ public interface TagRepository extends JpaRepository<Tag, String> {
 
     Optional<Tag> findByName(String name);
 
+    List<Tag> findByNameIn(Collection<String> names);
+
     Optional<Tag> findByNameIgnoreCase(String name);
 
     boolean existsByName(String name);
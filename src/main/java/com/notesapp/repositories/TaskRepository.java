@@ -3,19 +3,26 @@ package com.notesapp.repositories;
 import com.notesapp.entities.TodoItem;
 import com.notesapp.enums.TaskStatus;
 import com.notesapp.enums.Priority;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TaskRepository extends JpaRepository<TodoItem, String> {
 
     List<TodoItem> findByNoteId(String noteId);
 
+    @Query("SELECT t FROM TodoItem t LEFT JOIN FETCH t.reminder WHERE t.noteId IN :noteIds")
+    List<TodoItem> findByNoteIdIn(@Param("noteIds") Collection<String> noteIds);
+
     @Query("SELECT t FROM TodoItem t WHERE t.user.userId = :userId")
     List<TodoItem> findByUserId(@Param("userId") String userId);
 
@@ -37,5 +44,31 @@ public interface TaskRepository extends JpaRepository<TodoItem, String> {
            "t.dueDate IS NOT NULL AND t.dueDate <= :dueDate")
     List<TodoItem> findDueTasks(@Param("status") TaskStatus status, @Param("dueDate") LocalDateTime dueDate);
 
+    /**
+     * Streams due tasks without reminders as lightweight rows, ordered by user so callers can
+     * group them in a single pass. Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints({
+        @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t.user.userId AS userId, t.title AS title, t.dueDate AS dueDate " +
+           "FROM TodoItem t WHERE t.status = :status AND t.dueDate IS NOT NULL AND " +
+           "t.dueDate <= :dueDate AND t.reminder IS NULL " +
+           "ORDER BY t.user.userId, t.dueDate")
+    Stream<DueTaskView> streamDueTasksByUser(@Param("status") TaskStatus status,
+                                             @Param("dueDate") LocalDateTime dueDate);
+
     void deleteByNoteId(String noteId);
+
+    /**
+     * Projection of the columns needed to build a due-task digest.
+     */
+    interface DueTaskView {
+        String getUserId();
+
+        String getTitle();
+
+        LocalDateTime getDueDate();
+    }
 }
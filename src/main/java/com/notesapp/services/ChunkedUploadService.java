@@ -0,0 +1,350 @@
+package com.notesapp.services;
+
+import com.notesapp.config.AppConstants;
+import com.notesapp.entities.UploadSession;
+import com.notesapp.enums.MediaSignature;
+import com.notesapp.repositories.UploadSessionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assembles large uploads from chunks sent in separate requests, so an interrupted upload
+ * resumes from the last chunk instead of starting over.
+ * Each chunk is appended to a partial file with a {@link FileChannel} through a fixed-size
+ * buffer and fed to a running SHA-256 at the same time, so memory use does not depend on
+ * the upload size and completing the upload does not re-read the file. A chunk that fails
+ * midway is truncated off again, leaving the file at a chunk boundary. The running digest
+ * lives on the node that received the chunks; if chunks arrive elsewhere or the node
+ * restarts, the digest is computed from the file when the upload completes.
+ * The magic bytes are checked as soon as the first chunks supply them, so an upload whose
+ * content does not match its declared kind is refused before the rest is sent.
+ */
+@Slf4j
+@Service
+public class ChunkedUploadService {
+
+  private static final String CHUNK_DIR_NAME = ".chunks";
+  private static final String PART_SUFFIX = ".part";
+  private static final String CONTENT_HASH_ALGORITHM = "SHA-256";
+  private static final int CHUNK_BUFFER_SIZE = 64 * 1024;
+
+  @Autowired
+  private UploadSessionRepository uploadSessionRepository;
+
+  @Autowired
+  private FileStorageService fileStorageService;
+
+  private final Path chunkDir;
+  private final Map<String, ChunkState> chunkStates = new ConcurrentHashMap<>();
+
+  public ChunkedUploadService(@Value("${notes.media.upload-dir:uploads}") String uploadDir) {
+    this.chunkDir = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(CHUNK_DIR_NAME);
+    try {
+      Files.createDirectories(chunkDir);
+    } catch (IOException e) {
+      log.error("Failed to create chunk directory", e);
+      throw new RuntimeException("Could not create chunk directory", e);
+    }
+  }
+
+  /**
+   * Starts a chunked upload.
+   *
+   * @param noteId the note to attach the upload to once complete, may be null
+   * @param filename the client's filename, used for its extension
+   * @param contentType the declared content type
+   * @param totalSize the total size of the upload in bytes
+   * @return the new session
+   * @throws IOException if the partial file cannot be created
+   * @throws IllegalArgumentException if totalSize is not positive
+   */
+  public UploadSession createSession(String noteId, String filename, String contentType, long totalSize)
+      throws IOException {
+    if (totalSize <= 0) {
+      throw new IllegalArgumentException("Upload size must be positive");
+    }
+
+    UploadSession session = new UploadSession(
+        UUID.randomUUID().toString(), noteId, filename, contentType, totalSize, LocalDateTime.now());
+    Files.createFile(partPath(session.getUploadId()));
+    uploadSessionRepository.save(session);
+    chunkStates.put(session.getUploadId(), new ChunkState(newContentDigest()));
+
+    log.debug("Started chunked upload {} ({} bytes) for note {}", session.getUploadId(), totalSize, noteId);
+    return session;
+  }
+
+  /**
+   * Finds an upload session by ID.
+   *
+   * @param uploadId the upload ID
+   * @return the session, or empty if it is unknown, completed, aborted or expired
+   */
+  public Optional<UploadSession> findSession(String uploadId) {
+    return uploadSessionRepository.findById(uploadId);
+  }
+
+  /**
+   * Gets the number of bytes received so far, which is the offset of the next chunk.
+   *
+   * @param session the upload session
+   * @return the bytes received
+   * @throws IOException if the partial file is missing
+   */
+  public long getReceivedBytes(UploadSession session) throws IOException {
+    return Files.size(partPath(session.getUploadId()));
+  }
+
+  /**
+   * Appends a chunk at the given offset. The offset may be behind the bytes received, as when
+   * a client retries a chunk whose response was lost; the part already held is skipped and
+   * only the remainder is written, so retries are idempotent. If reading the chunk fails, the
+   * bytes written for it are truncated off so the upload stays at the previous chunk boundary.
+   *
+   * @param session the upload session
+   * @param offset the position of the chunk's first byte in the upload
+   * @param chunk the chunk content
+   * @return the bytes received after this chunk
+   * @throws IOException if the chunk cannot be read or written
+   * @throws IllegalStateException if the offset is past the bytes received
+   * @throws IllegalArgumentException if the chunk is too large, runs past the declared size, or
+   *         starts the upload with content that is not a supported format of the declared kind
+   */
+  public long appendChunk(UploadSession session, long offset, InputStream chunk) throws IOException {
+    ChunkState state = chunkStates.computeIfAbsent(session.getUploadId(), id -> new ChunkState(null));
+
+    synchronized (state) {
+      try (FileChannel channel = FileChannel.open(partPath(session.getUploadId()),
+               StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        FileLock lock = channel.lock();
+        try {
+          long received = channel.size();
+          if (offset < 0 || offset > received) {
+            throw new IllegalStateException(
+                String.format("Chunk offset %d does not match the %d bytes received", offset, received));
+          }
+
+          MessageDigest digest = state.hashedBytes == received ? state.copyDigest() : null;
+          long duplicateBytes = received - offset;
+          long chunkBytes = 0;
+          long written = 0;
+          byte[] buffer = new byte[CHUNK_BUFFER_SIZE];
+          channel.position(received);
+
+          try {
+            int read;
+            while ((read = chunk.read(buffer)) != -1) {
+              long bufferStart = chunkBytes;
+              chunkBytes += read;
+              if (chunkBytes > AppConstants.MAX_UPLOAD_CHUNK_BYTES) {
+                throw new IllegalArgumentException(
+                    String.format("Chunk exceeds %d bytes", AppConstants.MAX_UPLOAD_CHUNK_BYTES));
+              }
+
+              int from = (int) Math.min(read, Math.max(0, duplicateBytes - bufferStart));
+              int length = read - from;
+              if (length == 0) {
+                continue;
+              }
+              if (received + written + length > session.getTotalSize()) {
+                throw new IllegalArgumentException(
+                    String.format("Chunk runs past the declared size of %d bytes", session.getTotalSize()));
+              }
+
+              ByteBuffer data = ByteBuffer.wrap(buffer, from, length);
+              while (data.hasRemaining()) {
+                channel.write(data);
+              }
+              if (digest != null) {
+                digest.update(buffer, from, length);
+              }
+              written += length;
+            }
+
+            long total = received + written;
+            if (received < MediaSignature.SNIFF_LENGTH
+                && (total >= MediaSignature.SNIFF_LENGTH || total == session.getTotalSize())) {
+              verifyHead(channel, (int) Math.min(total, MediaSignature.SNIFF_LENGTH), contentTypePrefix(session));
+            }
+          } catch (IOException | RuntimeException e) {
+            channel.truncate(received);
+            throw e;
+          }
+
+          long total = received + written;
+          state.digest = digest;
+          state.hashedBytes = digest != null ? total : -1;
+          return total;
+        } finally {
+          lock.release();
+        }
+      }
+    }
+  }
+
+  /**
+   * Completes an upload once every byte has been received, moving the assembled file into
+   * the content-addressed store. The session ends whether or not storing succeeds.
+   *
+   * @param session the upload session
+   * @return the stored filename, holding one reference for the caller
+   * @throws IOException if the file cannot be stored
+   * @throws IllegalStateException if bytes are still missing
+   * @throws IllegalArgumentException if the content is not a supported format of the declared kind
+   */
+  public String completeUpload(UploadSession session) throws IOException {
+    String uploadId = session.getUploadId();
+    ChunkState state = chunkStates.computeIfAbsent(uploadId, id -> new ChunkState(null));
+
+    synchronized (state) {
+      Path part = partPath(uploadId);
+      long received = Files.size(part);
+      if (received != session.getTotalSize()) {
+        throw new IllegalStateException(
+            String.format("Upload incomplete: received %d of %d bytes", received, session.getTotalSize()));
+      }
+
+      String hash = state.digest != null && state.hashedBytes == received
+          ? HexFormat.of().formatHex(state.digest.digest())
+          : null;
+      try {
+        String filename = fileStorageService.storeStagedFile(
+            part, hash, session.getFilename(), contentTypePrefix(session));
+        log.debug("Completed chunked upload {} as {}", uploadId, filename);
+        return filename;
+      } finally {
+        endSession(session);
+      }
+    }
+  }
+
+  /**
+   * Abandons an upload and deletes the bytes received so far.
+   *
+   * @param session the upload session
+   * @throws IOException if the partial file cannot be deleted
+   */
+  public void abortUpload(UploadSession session) throws IOException {
+    ChunkState state = chunkStates.computeIfAbsent(session.getUploadId(), id -> new ChunkState(null));
+    synchronized (state) {
+      endSession(session);
+      log.debug("Aborted chunked upload {}", session.getUploadId());
+    }
+  }
+
+  /**
+   * Aborts uploads that started more than {@link AppConstants#UPLOAD_SESSION_TTL_HOURS} hours
+   * ago and have not received a chunk within that time either.
+   * Runs every hour on every node; sessions are removed idempotently.
+   */
+  @Scheduled(fixedRate = AppConstants.UPLOAD_SESSION_SWEEP_INTERVAL_MS)
+  public void expireSessions() {
+    LocalDateTime cutoff = LocalDateTime.now().minusHours(AppConstants.UPLOAD_SESSION_TTL_HOURS);
+    long cutoffMillis = cutoff.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    List<UploadSession> stale = uploadSessionRepository.findByCreatedAtBefore(cutoff);
+
+    int expired = 0;
+    for (UploadSession session : stale) {
+      try {
+        Path part = partPath(session.getUploadId());
+        if (Files.exists(part) && Files.getLastModifiedTime(part).toMillis() > cutoffMillis) {
+          continue;
+        }
+        abortUpload(session);
+        expired++;
+      } catch (IOException e) {
+        log.warn("Failed to expire upload {}: {}", session.getUploadId(), e.getMessage());
+      }
+    }
+
+    if (expired > 0) {
+      log.info("Expired {} abandoned chunked uploads", expired);
+    }
+  }
+
+  private void endSession(UploadSession session) throws IOException {
+    chunkStates.remove(session.getUploadId());
+    uploadSessionRepository.deleteById(session.getUploadId());
+    Files.deleteIfExists(partPath(session.getUploadId()));
+  }
+
+  /**
+   * Checks the magic bytes at the start of the partial file against the declared kind.
+   */
+  private void verifyHead(FileChannel channel, int length, String contentTypePrefix) throws IOException {
+    ByteBuffer head = ByteBuffer.allocate(length);
+    while (head.hasRemaining()) {
+      if (channel.read(head, head.position()) < 0) {
+        break;
+      }
+    }
+    MediaSignature.verify(head.array(), head.position(), contentTypePrefix);
+  }
+
+  /**
+   * Gets the kind of media an upload declared, e.g. "audio/" for "audio/webm".
+   */
+  private static String contentTypePrefix(UploadSession session) {
+    String contentType = session.getContentType();
+    return contentType.substring(0, contentType.indexOf('/') + 1);
+  }
+
+  private Path partPath(String uploadId) {
+    return chunkDir.resolve(uploadId + PART_SUFFIX);
+  }
+
+  private static MessageDigest newContentDigest() {
+    try {
+      return MessageDigest.getInstance(CONTENT_HASH_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(CONTENT_HASH_ALGORITHM + " not available", e);
+    }
+  }
+
+  /**
+   * Running digest of an upload on this node, valid while hashedBytes equals the bytes received.
+   */
+  private static final class ChunkState {
+    private MessageDigest digest;
+    private long hashedBytes;
+
+    private ChunkState(MessageDigest digest) {
+      this.digest = digest;
+      this.hashedBytes = digest != null ? 0 : -1;
+    }
+
+    /**
+     * Copies the digest so a failed chunk leaves the committed state untouched.
+     */
+    private MessageDigest copyDigest() {
+      try {
+        return (MessageDigest) digest.clone();
+      } catch (CloneNotSupportedException e) {
+        return null;
+      }
+    }
+  }
+}
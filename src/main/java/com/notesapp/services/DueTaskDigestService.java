@@ -0,0 +1,165 @@
+package com.notesapp.services;
+
+import com.notesapp.config.AppConstants;
+import com.notesapp.enums.NotificationChannel;
+import com.notesapp.enums.TaskStatus;
+import com.notesapp.mediator.NotificationMediator;
+import com.notesapp.repositories.TaskRepository;
+import com.notesapp.repositories.TaskRepository.DueTaskView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Builds one due-task digest per user and sends the digests through the mediator.
+ * Due tasks are read through a forward-only cursor ordered by user, so only the digest
+ * being built and one in-flight batch of digests are ever held in memory.
+ */
+@Slf4j
+@Service
+public class DueTaskDigestService {
+
+  private static final DateTimeFormatter DUE_FORMAT = DateTimeFormatter.ofPattern("MMM d, HH:mm");
+
+  @Autowired
+  private TaskRepository taskRepository;
+
+  @Autowired
+  private NotificationMediator mediator;
+
+  private final ExecutorService sendExecutor =
+      Executors.newFixedThreadPool(AppConstants.DIGEST_SEND_THREADS);
+
+  /**
+   * Streams all pending tasks due by the given time and sends a digest to each affected user.
+   * Tasks that already have their own reminder are left to the reminder scheduler.
+   *
+   * @param now the cut-off due date
+   * @return the number of digests sent
+   */
+  @Transactional(readOnly = true)
+  public int sendDueTaskDigests(LocalDateTime now) {
+    List<Digest> batch = new ArrayList<>(AppConstants.DIGEST_BATCH_SIZE);
+    int sent = 0;
+
+    try (Stream<DueTaskView> rows = taskRepository.streamDueTasksByUser(TaskStatus.PENDING, now)) {
+      Digest current = null;
+      Iterator<DueTaskView> iterator = rows.iterator();
+
+      while (iterator.hasNext()) {
+        DueTaskView row = iterator.next();
+        if (current == null || !current.userId.equals(row.getUserId())) {
+          if (current != null) {
+            sent += addToBatch(batch, current);
+          }
+          current = new Digest(row.getUserId());
+        }
+        current.add(row);
+      }
+
+      if (current != null) {
+        batch.add(current);
+      }
+    }
+
+    sent += flush(batch);
+    log.info("Sent {} due-task digests", sent);
+    return sent;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    sendExecutor.shutdown();
+  }
+
+  /**
+   * Adds a finished digest to the batch, sending the batch once it is full.
+   *
+   * @param batch the pending batch
+   * @param digest the finished digest
+   * @return the number of digests sent
+   */
+  private int addToBatch(List<Digest> batch, Digest digest) {
+    batch.add(digest);
+    return batch.size() >= AppConstants.DIGEST_BATCH_SIZE ? flush(batch) : 0;
+  }
+
+  /**
+   * Sends all digests in the batch in parallel and waits for them, which keeps
+   * the cursor from running ahead of delivery.
+   *
+   * @param batch the digests to send; cleared afterwards
+   * @return the number of digests sent successfully
+   */
+  private int flush(List<Digest> batch) {
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    List<CompletableFuture<Boolean>> sends = new ArrayList<>(batch.size());
+    for (Digest digest : batch) {
+      sends.add(CompletableFuture.supplyAsync(() -> send(digest), sendExecutor));
+    }
+    batch.clear();
+
+    return (int) sends.stream().filter(CompletableFuture::join).count();
+  }
+
+  private boolean send(Digest digest) {
+    try {
+      mediator.broadcast(digest.toMessage(), digest.userId, List.of(NotificationChannel.IN_APP));
+      return true;
+    } catch (Exception e) {
+      log.error("Failed to send due-task digest to user {}: {}", digest.userId, e.getMessage(), e);
+      return false;
+    }
+  }
+
+  /**
+   * Accumulates one user's due tasks. Only the first few titles are kept,
+   * so a user with thousands of due tasks still produces a small digest.
+   */
+  static final class Digest {
+    private final String userId;
+    private final StringBuilder listed = new StringBuilder();
+    private int taskCount;
+
+    Digest(String userId) {
+      this.userId = userId;
+    }
+
+    void add(DueTaskView task) {
+      taskCount++;
+      if (taskCount <= AppConstants.DIGEST_MAX_LISTED_TASKS) {
+        listed.append("\n• ").append(task.getTitle());
+        if (task.getDueDate() != null) {
+          listed.append(" (due ").append(task.getDueDate().format(DUE_FORMAT)).append(")");
+        }
+      }
+    }
+
+    String toMessage() {
+      StringBuilder message = new StringBuilder()
+          .append("You have ").append(taskCount)
+          .append(taskCount == 1 ? " task due:" : " tasks due:")
+          .append(listed);
+      int hidden = taskCount - AppConstants.DIGEST_MAX_LISTED_TASKS;
+      if (hidden > 0) {
+        message.append("\n…and ").append(hidden).append(" more");
+      }
+      return message.toString();
+    }
+  }
+}
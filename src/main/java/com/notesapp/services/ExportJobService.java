@@ -0,0 +1,273 @@
+package com.notesapp.services;
+
+import com.notesapp.config.AppConstants;
+import com.notesapp.entities.ExportJob;
+import com.notesapp.enums.ExportJobStatus;
+import com.notesapp.repositories.ExportJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs large PDF exports in the background, so no request waits for the whole render.
+ * A client submits a job, polls its status and progress, then downloads the PDF.
+ * Jobs run on a small pool with a bounded queue, and each user may have at most
+ * {@link AppConstants#EXPORT_JOBS_PER_USER} jobs queued or running. Finished jobs and their
+ * files expire after {@link AppConstants#EXPORT_JOB_TTL_MINUTES} minutes.
+ * Job state is kept in the export_jobs table and the PDFs in the job directory, which, like
+ * the upload directory, must be shared storage when several nodes serve the API; any node
+ * can then answer a status poll or download. A job runs on the node that accepted it, and
+ * jobs left unfinished by a node that has left the cluster are failed.
+ */
+@Slf4j
+@Service
+public class ExportJobService {
+
+  private static final String PDF = ".pdf";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final Set<ExportJobStatus> ACTIVE = Set.of(ExportJobStatus.QUEUED, ExportJobStatus.RUNNING);
+
+  @Autowired
+  private PDFExportService pdfExportService;
+
+  @Autowired
+  private ExportJobRepository exportJobRepository;
+
+  @Autowired
+  private LeaseCoordinator leaseCoordinator;
+
+  private final Path jobDir;
+
+  private final ThreadPoolExecutor jobExecutor = new ThreadPoolExecutor(
+      AppConstants.EXPORT_JOB_THREADS, AppConstants.EXPORT_JOB_THREADS, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(AppConstants.EXPORT_JOB_QUEUE_CAPACITY), runnable -> {
+        Thread thread = new Thread(runnable, "export-job");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  public ExportJobService(@Value("${notes.export.job-dir:exports/jobs}") String jobDir) {
+    this.jobDir = Paths.get(jobDir).toAbsolutePath().normalize();
+  }
+
+  /**
+   * Creates the job directory and fails jobs this node had queued or running before it
+   * restarted. Files of other jobs belong to other nodes or are still downloadable, and are
+   * only deleted when their job expires.
+   */
+  @PostConstruct
+  public void initialize() {
+    try {
+      Files.createDirectories(jobDir);
+    } catch (IOException e) {
+      log.warn("Failed to create export job directory: {}", e.getMessage());
+    }
+
+    String nodeId = leaseCoordinator.getNodeId();
+    for (ExportJob job : exportJobRepository.findByStatusIn(ACTIVE)) {
+      if (nodeId.equals(job.getNodeId())) {
+        deleteFiles(job.getJobId());
+        finish(job, ExportJobStatus.FAILED, "Export failed: the node running it restarted");
+      }
+    }
+  }
+
+  /**
+   * Queues an export of notes into one PDF on this node.
+   *
+   * @param userId the user the export is for, counted against their job limit
+   * @param noteIds the notes to export, in order
+   * @param includeMetadata whether to include metadata in the PDF
+   * @return the queued job
+   * @throws IllegalStateException if the user already has the maximum number of jobs queued or running
+   * @throws RejectedExecutionException if the export queue is full
+   */
+  public synchronized ExportJob submit(String userId, List<String> noteIds, boolean includeMetadata) {
+    if (exportJobRepository.countByUserIdAndStatusIn(userId, ACTIVE) >= AppConstants.EXPORT_JOBS_PER_USER) {
+      throw new IllegalStateException(String.format(
+          "User already has %d export jobs in progress", AppConstants.EXPORT_JOBS_PER_USER));
+    }
+
+    ExportJob job = new ExportJob();
+    job.setJobId(UUID.randomUUID().toString());
+    job.setUserId(userId);
+    job.setNodeId(leaseCoordinator.getNodeId());
+    job.setStatus(ExportJobStatus.QUEUED);
+    job.setTotalNotes(noteIds.size());
+    job.setExportedNotes(0);
+    job.setCreatedAt(LocalDateTime.now());
+    exportJobRepository.save(job);
+
+    List<String> ids = List.copyOf(noteIds);
+    try {
+      jobExecutor.execute(() -> run(job, ids, includeMetadata));
+    } catch (RejectedExecutionException e) {
+      exportJobRepository.deleteById(job.getJobId());
+      throw e;
+    }
+
+    log.info("Queued export job {} for user {} ({} notes)", job.getJobId(), userId, noteIds.size());
+    return job;
+  }
+
+  /**
+   * Finds an export job by ID.
+   *
+   * @param jobId the job ID
+   * @return the job, or empty if it is unknown or has expired
+   */
+  public Optional<ExportJob> findJob(String jobId) {
+    LocalDateTime now = LocalDateTime.now();
+    return exportJobRepository.findById(jobId).filter(job -> !job.isExpired(now));
+  }
+
+  /**
+   * Writes the PDF of a completed export job to an output stream.
+   *
+   * @param job the job
+   * @param out the destination stream
+   * @throws IOException if the file cannot be read, e.g. because the job expired meanwhile
+   * @throws IllegalStateException if the job has not completed
+   */
+  public void writeTo(ExportJob job, OutputStream out) throws IOException {
+    if (job.getStatus() != ExportJobStatus.COMPLETED) {
+      throw new IllegalStateException("Export job " + job.getJobId() + " is " + job.getStatus());
+    }
+    Files.copy(jobDir.resolve(job.getJobId() + PDF), out);
+  }
+
+  /**
+   * Removes expired jobs and their files, and fails jobs left unfinished by nodes that are
+   * no longer live, so they stop counting against their users' limits.
+   */
+  @Scheduled(fixedRate = AppConstants.EXPORT_JOB_SWEEP_INTERVAL_MS)
+  public void expireJobs() {
+    try {
+      LocalDateTime now = LocalDateTime.now();
+      List<ExportJob> expired = exportJobRepository.findByExpiresAtBefore(now);
+      for (ExportJob job : expired) {
+        // Files first, so a failure leaves the row for the next sweep
+        deleteFiles(job.getJobId());
+        exportJobRepository.deleteById(job.getJobId());
+      }
+
+      Set<String> liveNodes = new HashSet<>(leaseCoordinator.getLiveNodes());
+      liveNodes.add(leaseCoordinator.getNodeId());
+      int orphaned = 0;
+      for (ExportJob job : exportJobRepository.findByStatusIn(ACTIVE)) {
+        if (!liveNodes.contains(job.getNodeId())) {
+          deleteFiles(job.getJobId());
+          finish(job, ExportJobStatus.FAILED, "Export failed: the node running it stopped");
+          orphaned++;
+        }
+      }
+
+      if (!expired.isEmpty() || orphaned > 0) {
+        log.info("Expired {} export jobs and failed {} jobs of stopped nodes", expired.size(), orphaned);
+      }
+    } catch (DataAccessException e) {
+      log.warn("Failed to expire export jobs: {}", e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    jobExecutor.shutdownNow();
+  }
+
+  private void run(ExportJob job, List<String> noteIds, boolean includeMetadata) {
+    Path temp = jobDir.resolve(job.getJobId() + TEMP_SUFFIX);
+    Path target = jobDir.resolve(job.getJobId() + PDF);
+
+    try {
+      job.setStatus(ExportJobStatus.RUNNING);
+      exportJobRepository.save(job);
+
+      int exported;
+      ProgressRecorder progress = new ProgressRecorder(job);
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+        exported = pdfExportService.exportMultipleNotesToPDF(noteIds, includeMetadata, out, progress::record);
+      }
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+
+      job.setLength(Files.size(target));
+      job.setExportedNotes(exported);
+      finish(job, ExportJobStatus.COMPLETED, null);
+      log.info("Export job {} completed: {} notes, {} bytes", job.getJobId(), exported, job.getLength());
+    } catch (IOException | RuntimeException e) {
+      log.error("Export job {} failed", job.getJobId(), e);
+      deleteFiles(job.getJobId());
+      finish(job, ExportJobStatus.FAILED, "Export failed: " + e.getMessage());
+    }
+  }
+
+  private void finish(ExportJob job, ExportJobStatus status, String error) {
+    LocalDateTime now = LocalDateTime.now();
+    job.setStatus(status);
+    job.setError(error != null && error.length() > AppConstants.EXPORT_JOB_MAX_ERROR_LENGTH
+        ? error.substring(0, AppConstants.EXPORT_JOB_MAX_ERROR_LENGTH)
+        : error);
+    job.setFinishedAt(now);
+    job.setExpiresAt(now.plusMinutes(AppConstants.EXPORT_JOB_TTL_MINUTES));
+    try {
+      exportJobRepository.save(job);
+    } catch (DataAccessException e) {
+      log.warn("Failed to record the end of export job {}: {}", job.getJobId(), e.getMessage());
+    }
+  }
+
+  private void deleteFiles(String jobId) {
+    try {
+      Files.deleteIfExists(jobDir.resolve(jobId + TEMP_SUFFIX));
+      Files.deleteIfExists(jobDir.resolve(jobId + PDF));
+    } catch (IOException e) {
+      log.warn("Failed to delete files of export job {}: {}", jobId, e.getMessage());
+    }
+  }
+
+  /**
+   * Saves a running job's progress, at most once per
+   * {@link AppConstants#EXPORT_JOB_PROGRESS_INTERVAL_MS}, so polls see it advance without a
+   * write per rendered note.
+   */
+  private final class ProgressRecorder {
+    private final ExportJob job;
+    private long lastSaved = System.nanoTime();
+
+    private ProgressRecorder(ExportJob job) {
+      this.job = job;
+    }
+
+    private void record(int rendered) {
+      job.setExportedNotes(rendered);
+      long now = System.nanoTime();
+      if (now - lastSaved >= TimeUnit.MILLISECONDS.toNanos(AppConstants.EXPORT_JOB_PROGRESS_INTERVAL_MS)) {
+        lastSaved = now;
+        exportJobRepository.save(job);
+      }
+    }
+  }
+}
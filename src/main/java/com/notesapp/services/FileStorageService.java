@@ -1,46 +1,107 @@
 package com.notesapp.services;
 
+import com.notesapp.config.AppConstants;
+import com.notesapp.entities.LegacyMediaAlias;
+import com.notesapp.entities.MediaBlob;
+import com.notesapp.enums.MediaSignature;
+import com.notesapp.repositories.LegacyMediaAliasRepository;
+import com.notesapp.repositories.MediaBlobRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * Service for storing and retrieving uploaded media files.
  * Implements security measures to prevent path traversal attacks.
+ * Uploads are content-addressed: each distinct content is stored once under its SHA-256,
+ * fanned out into prefix directories, and shared by every attachment with the same bytes.
+ * Files uploaded before content addressing keep their flat UUID names and are still served,
+ * both before and after {@link MediaMigrationService} moves them into the store.
  */
 @Slf4j
 @Service
 public class FileStorageService {
 
-  private static final Map<String, String> CONTENT_TYPE_MAP = Map.of(
-      "jpg", "image/jpeg",
-      "jpeg", "image/jpeg",
-      "png", "image/png",
-      "gif", "image/gif",
-      "webp", "image/webp",
-      "mp3", "audio/mpeg",
-      "wav", "audio/wav",
-      "ogg", "audio/ogg",
-      "mp4", "video/mp4",
-      "webm", "video/webm"
+  private static final Map<String, String> CONTENT_TYPE_MAP = Map.ofEntries(
+      Map.entry("jpg", "image/jpeg"),
+      Map.entry("jpeg", "image/jpeg"),
+      Map.entry("png", "image/png"),
+      Map.entry("gif", "image/gif"),
+      Map.entry("webp", "image/webp"),
+      Map.entry("mp3", "audio/mpeg"),
+      Map.entry("aac", "audio/aac"),
+      Map.entry("m4a", "audio/mp4"),
+      Map.entry("wav", "audio/wav"),
+      Map.entry("ogg", "audio/ogg"),
+      Map.entry("flac", "audio/flac"),
+      Map.entry("mp4", "video/mp4"),
+      Map.entry("webm", "video/webm")
   );
 
   private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+  private static final String CONTENT_HASH_ALGORITHM = "SHA-256";
+  private static final int HASH_BUFFER_SIZE = 64 * 1024;
+  private static final Pattern BLOB_FILENAME = Pattern.compile("([0-9a-f]{64})(\\.[A-Za-z0-9]{1,10})?");
+  private static final Pattern SAFE_EXTENSION = Pattern.compile("[A-Za-z0-9]{1,10}");
+  private static final int SHARD_LEVELS = 2;
+  private static final int SHARD_WIDTH = 2;
+  private static final int LOCK_STRIPES = 64;
+  private static final String STAGING_DIR_NAME = ".incoming";
 
-  private final Path uploadDir = Paths.get("uploads").toAbsolutePath().normalize();
+  @Autowired
+  private MediaBlobRepository mediaBlobRepository;
 
-  public FileStorageService() {
+  @Autowired
+  private LegacyMediaAliasRepository legacyMediaAliasRepository;
+
+  private final Path uploadDir;
+  private final Path stagingDir;
+  private final Object[] blobLocks = new Object[LOCK_STRIPES];
+  private final Map<String, ContentHash> contentHashes = Collections.synchronizedMap(
+      new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ContentHash> eldest) {
+          return size() > AppConstants.CONTENT_HASH_CACHE_MAX_ENTRIES;
+        }
+      });
+
+  public FileStorageService(@Value("${notes.media.upload-dir:uploads}") String uploadDir) {
+    this.uploadDir = Paths.get(uploadDir).toAbsolutePath().normalize();
+    this.stagingDir = this.uploadDir.resolve(STAGING_DIR_NAME);
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      blobLocks[i] = new Object();
+    }
     try {
-      Files.createDirectories(uploadDir);
-      log.info("Upload directory initialized: {}", uploadDir);
+      Files.createDirectories(stagingDir);
+      log.info("Upload directory initialized: {}", this.uploadDir);
     } catch (IOException e) {
       log.error("Failed to create upload directory", e);
       throw new RuntimeException("Could not create upload directory", e);
@@ -48,29 +109,342 @@ public class FileStorageService {
   }
 
   /**
-   * Stores an uploaded file with a unique filename.
+   * Stores an uploaded file in the content-addressed store and takes one reference to it.
+   * The upload is read once: its first bytes are checked against the magic bytes of the
+   * accepted formats, then it is streamed to a staging file while its SHA-256 and size are
+   * computed, stopping as soon as it passes the size limit. A spoofed or oversized upload is
+   * rejected without being copied in full, and the staged bytes are discarded. If the same
+   * content is already stored, the staged copy is discarded and only the reference count
+   * changes. The caller owns the returned reference and gives it up with {@link #releaseFile}.
    *
    * @param file the file to store
-   * @return the generated filename
+   * @param contentTypePrefix the kind of media the content must be (e.g., "image/", "audio/")
+   * @param maxSize the maximum size in bytes
+   * @return the stored filename: the content hash plus the original extension
    * @throws IOException if file storage fails
-   * @throws IllegalArgumentException if file is empty
+   * @throws IllegalArgumentException if file is empty, too large, or not a supported format of that kind
    */
-  public String storeFile(MultipartFile file) throws IOException {
+  public String storeFile(MultipartFile file, String contentTypePrefix, long maxSize) throws IOException {
     if (file.isEmpty()) {
       throw new IllegalArgumentException("Cannot store empty file");
     }
 
-    String originalFilename = file.getOriginalFilename();
-    String extension = extractFileExtension(originalFilename);
-    String filename = generateUniqueFilename(extension);
+    String extension = extractFileExtension(file.getOriginalFilename());
+    MessageDigest digest = newContentDigest();
+    Path staged = Files.createTempFile(stagingDir, "upload-", ".tmp");
+
+    try {
+      long size = 0;
+      try (InputStream in = file.getInputStream(); OutputStream out = Files.newOutputStream(staged)) {
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        int read = in.readNBytes(buffer, 0, MediaSignature.SNIFF_LENGTH);
+        MediaSignature.verify(buffer, read, contentTypePrefix);
+
+        while (read > 0) {
+          size += read;
+          if (size > maxSize) {
+            throw new IllegalArgumentException(String.format("File exceeds %d bytes", maxSize));
+          }
+          digest.update(buffer, 0, read);
+          out.write(buffer, 0, read);
+          read = in.read(buffer);
+        }
+      }
+
+      String hash = HexFormat.of().formatHex(digest.digest());
+      boolean deduplicated = acquireBlob(hash, size, staged);
+      String filename = blobFilename(hash, extension);
+
+      if (deduplicated) {
+        log.debug("Deduplicated upload {} ({} bytes)", filename, size);
+      } else {
+        log.debug("Stored file: {} ({} bytes)", filename, size);
+      }
+      return filename;
+    } finally {
+      Files.deleteIfExists(staged);
+    }
+  }
+
+  /**
+   * Stores a file that was assembled on disk, such as a completed chunked upload, and takes
+   * one reference to it like {@link #storeFile(MultipartFile, String, long)}. Only the first
+   * bytes are read to check the format. The file is moved into the store rather than copied,
+   * and is gone afterwards either way.
+   *
+   * @param staged the assembled file, which must be inside the upload directory
+   * @param contentHash the SHA-256 of the file as lowercase hex if already known, or null to compute it
+   * @param originalFilename the client's filename, used only for its extension
+   * @param contentTypePrefix the kind of media the content must be (e.g., "audio/")
+   * @return the stored filename: the content hash plus the original extension
+   * @throws IOException if the file cannot be read or moved
+   * @throws IllegalArgumentException if the file is empty or not a supported format of that kind
+   * @throws SecurityException if the file is outside the upload directory
+   */
+  public String storeStagedFile(Path staged, String contentHash, String originalFilename,
+                                String contentTypePrefix) throws IOException {
+    Path stagedPath = staged.toAbsolutePath().normalize();
+    if (!stagedPath.startsWith(uploadDir)) {
+      throw new SecurityException("Access denied: staged file outside upload directory");
+    }
+
+    try {
+      long size = Files.size(stagedPath);
+      if (size == 0) {
+        throw new IllegalArgumentException("Cannot store empty file");
+      }
+      try (InputStream in = Files.newInputStream(stagedPath)) {
+        byte[] head = in.readNBytes(MediaSignature.SNIFF_LENGTH);
+        MediaSignature.verify(head, head.length, contentTypePrefix);
+      }
+
+      String hash = contentHash != null ? contentHash : computeContentHash(stagedPath);
+      boolean deduplicated = acquireBlob(hash, size, stagedPath);
+      String filename = blobFilename(hash, extractFileExtension(originalFilename));
+
+      log.debug("{} assembled upload {} ({} bytes)", deduplicated ? "Deduplicated" : "Stored", filename, size);
+      return filename;
+    } finally {
+      Files.deleteIfExists(stagedPath);
+    }
+  }
+
+  /**
+   * Releases one reference to a stored file. A content-addressed blob is never unlinked here:
+   * the blob locks only order operations within this process, so another node could be
+   * storing the same content at that moment. A blob whose count reaches zero is collected by
+   * {@link MediaGarbageCollector} once its grace period has passed. Files stored before
+   * content addressing are deleted directly.
+   * Validates filename to prevent path traversal attacks.
+   *
+   * @param filename the filename to release
+   * @throws IOException if a file stored before content addressing cannot be deleted
+   * @throws SecurityException if filename is invalid or attempts path traversal
+   */
+  public void releaseFile(String filename) throws IOException {
+    String resolved = resolveFilename(filename);
+
+    String hash = blobHash(resolved);
+    if (hash == null) {
+      deleteLegacyFile(resolved);
+      return;
+    }
+
+    synchronized (lockFor(hash)) {
+      mediaBlobRepository.decrementRefCount(hash);
+    }
+    log.debug("Released reference to blob {}", hash);
+  }
+
+  /**
+   * Releases the reference held by a media URL stored on a note, such as
+   * "/api/media/images/{filename}". Failures are logged rather than thrown so that cleaning
+   * up a note is never blocked by storage errors; an unreleased blob simply stays on disk.
+   *
+   * @param mediaUrl the media URL, may be null
+   */
+  public void releaseMediaUrl(String mediaUrl) {
+    if (mediaUrl == null || mediaUrl.isBlank()) {
+      return;
+    }
+    String filename = mediaUrl.substring(mediaUrl.lastIndexOf('/') + 1);
+    try {
+      releaseFile(filename);
+    } catch (IOException | SecurityException e) {
+      log.warn("Failed to release media {}: {}", mediaUrl, e.getMessage());
+    }
+  }
 
-    Path targetLocation = uploadDir.resolve(filename);
-    Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+  /**
+   * Adds one reference to a content-addressed file, e.g. when a migrated URL is attached to a note.
+   *
+   * @param filename the content-addressed filename
+   * @throws IllegalArgumentException if the filename is not content-addressed
+   */
+  public void addReference(String filename) {
+    String hash = blobHash(filename);
+    if (hash == null) {
+      throw new IllegalArgumentException("Not a content-addressed file: " + filename);
+    }
+    synchronized (lockFor(hash)) {
+      mediaBlobRepository.incrementRefCount(hash);
+    }
+  }
+
+  /**
+   * Resolves a requested filename to the name it is currently stored under.
+   * Content-addressed names and legacy files still on disk resolve to themselves; legacy
+   * names that have been migrated resolve through the alias index to their blob.
+   *
+   * @param filename the requested filename
+   * @return the current filename
+   * @throws SecurityException if filename is invalid
+   */
+  public String resolveFilename(String filename) {
+    validateFilename(filename);
+    if (blobHash(filename) != null || Files.isRegularFile(uploadDir.resolve(filename).normalize())) {
+      return filename;
+    }
+    return legacyMediaAliasRepository.findById(filename)
+        .map(LegacyMediaAlias::getFilename)
+        .orElse(filename);
+  }
 
-    log.debug("Stored file: {}", filename);
+  /**
+   * Lists the legacy flat files that still sit directly in the upload directory.
+   * The caller must close the returned stream.
+   *
+   * @return stream of legacy filenames
+   * @throws IOException if the upload directory cannot be read
+   */
+  public Stream<String> streamLegacyFilenames() throws IOException {
+    return Files.list(uploadDir)
+        .filter(Files::isRegularFile)
+        .map(path -> path.getFileName().toString())
+        .filter(name -> !name.startsWith(".") && blobHash(name) == null);
+  }
+
+  /**
+   * Moves a legacy flat file into the content-addressed store and records an alias for its
+   * old name. The alias is written before the file moves, so the old name resolves at every
+   * point. The blob gains one migration hold that the caller gives back with
+   * {@link #releaseMigrationHold(String)} once note references have been counted, so the
+   * blob cannot be unlinked while notes still point at the old name.
+   *
+   * @param legacyFilename the flat filename
+   * @return the content-addressed filename
+   * @throws IOException if the file cannot be read or moved
+   * @throws SecurityException if filename is invalid or attempts path traversal
+   */
+  public String adoptLegacyFile(String legacyFilename) throws IOException {
+    Path legacyPath = resolveExistingFile(legacyFilename);
+    long size = Files.size(legacyPath);
+    String hash = computeContentHash(legacyPath);
+    String filename = blobFilename(hash, extractFileExtension(legacyFilename));
+
+    legacyMediaAliasRepository.save(new LegacyMediaAlias(legacyFilename, filename, LocalDateTime.now()));
+    acquireBlob(hash, size, legacyPath);
+    Files.deleteIfExists(legacyPath);
+    contentHashes.remove(legacyFilename);
+
+    log.debug("Migrated legacy file {} to {}", legacyFilename, filename);
     return filename;
   }
 
+  /**
+   * Drops the hold taken by {@link #adoptLegacyFile(String)}. The blob is not unlinked even
+   * if nothing references it, because clients may still hold URLs to unattached uploads.
+   *
+   * @param filename the content-addressed filename
+   */
+  public void releaseMigrationHold(String filename) {
+    String hash = blobHash(filename);
+    if (hash != null) {
+      synchronized (lockFor(hash)) {
+        mediaBlobRepository.decrementRefCount(hash);
+      }
+    }
+  }
+
+  /**
+   * Gets the key under which a referenced file is stored: the content hash for blobs,
+   * including migrated legacy names, or the flat filename for legacy files.
+   *
+   * @param filename the filename from a media URL
+   * @return the storage key
+   * @throws SecurityException if filename is invalid
+   */
+  public String storageKey(String filename) {
+    String resolved = resolveFilename(filename);
+    String hash = blobHash(resolved);
+    return hash != null ? hash : resolved;
+  }
+
+  /**
+   * Lists the content hashes of all blobs on disk, whether or not they have a blob record.
+   * The caller must close the returned stream.
+   *
+   * @return stream of blob hashes
+   * @throws IOException if the upload directory cannot be read
+   */
+  public Stream<String> streamBlobHashes() throws IOException {
+    return Files.find(uploadDir, SHARD_LEVELS + 1, (path, attributes) -> attributes.isRegularFile()
+            && uploadDir.relativize(path).getNameCount() == SHARD_LEVELS + 1
+            && !uploadDir.relativize(path).getName(0).toString().startsWith("."))
+        .map(path -> path.getFileName().toString())
+        .filter(name -> BLOB_FILENAME.matcher(name).matches() && name.length() == 64);
+  }
+
+  /**
+   * Deletes a blob that no note references, provided its reference count has dropped to
+   * zero and it has not been created or referenced since the cutoff. Blob files without a record, left by a crash between moving the file
+   * and saving the record, are judged by their modification time. Uploads record a blob
+   * before moving its file into place, so the record is checked again just before unlinking;
+   * if one has appeared, another node is storing the same content and the file is left to it.
+   *
+   * @param hash the content hash, known to be absent from every note
+   * @param cutoff blobs active at or after this time are kept
+   * @return true if the blob was deleted
+   * @throws IOException if the blob file cannot be deleted
+   */
+  public boolean collectBlob(String hash, LocalDateTime cutoff) throws IOException {
+    Path blobPath = blobPath(hash);
+
+    synchronized (lockFor(hash)) {
+      if (mediaBlobRepository.existsById(hash)) {
+        if (mediaBlobRepository.deleteIfIdleSince(hash, cutoff) == 0) {
+          return false;
+        }
+      } else if (!isOlderThan(blobPath, cutoff)) {
+        return false;
+      }
+      if (mediaBlobRepository.existsById(hash)) {
+        log.debug("Blob {} was stored again while being collected; keeping it", hash);
+        return false;
+      }
+      Files.deleteIfExists(blobPath);
+      log.debug("Collected unreferenced blob {}", hash);
+      return true;
+    }
+  }
+
+  /**
+   * Deletes a legacy flat file that no note references, if it was last modified before the cutoff.
+   *
+   * @param filename the legacy filename, known to be absent from every note
+   * @param cutoff files modified at or after this time are kept
+   * @return true if the file was deleted
+   * @throws IOException if the file cannot be deleted
+   * @throws SecurityException if filename is invalid or attempts path traversal
+   */
+  public boolean collectLegacyFile(String filename, LocalDateTime cutoff) throws IOException {
+    validateFilename(filename);
+    if (!isOlderThan(uploadDir.resolve(filename).normalize(), cutoff)) {
+      return false;
+    }
+    deleteLegacyFile(filename);
+    return true;
+  }
+
+  /**
+   * Deletes staging files left behind by uploads that were interrupted before the cutoff.
+   *
+   * @param cutoff staging files modified at or after this time are kept
+   * @return the number of files deleted
+   * @throws IOException if the staging directory cannot be read
+   */
+  public int purgeStagingFiles(LocalDateTime cutoff) throws IOException {
+    int purged = 0;
+    try (Stream<Path> staged = Files.list(stagingDir)) {
+      for (Path path : (Iterable<Path>) staged::iterator) {
+        if (isOlderThan(path, cutoff) && Files.deleteIfExists(path)) {
+          purged++;
+        }
+      }
+    }
+    return purged;
+  }
+
   /**
    * Loads a file's content by filename.
    * Validates filename to prevent path traversal attacks.
@@ -81,33 +455,173 @@ public class FileStorageService {
    * @throws SecurityException if filename is invalid or attempts path traversal
    */
   public byte[] loadFile(String filename) throws IOException {
-    validateFilename(filename);
+    return Files.readAllBytes(resolveExistingFile(filename));
+  }
 
-    Path filePath = uploadDir.resolve(filename).normalize();
+  /**
+   * Locates a stored file on disk, for readers that need random access such as image decoders.
+   *
+   * @param filename the filename
+   * @return the path of the stored file
+   * @throws IOException if file is not found
+   * @throws SecurityException if filename is invalid or attempts path traversal
+   */
+  public Path locateFile(String filename) throws IOException {
+    return resolveExistingFile(filename);
+  }
+
+  /**
+   * Gets the size of a stored file.
+   *
+   * @param filename the filename
+   * @return the file size in bytes
+   * @throws IOException if file is not found
+   * @throws SecurityException if filename is invalid or attempts path traversal
+   */
+  public long getFileSize(String filename) throws IOException {
+    return Files.size(resolveExistingFile(filename));
+  }
+
+  /**
+   * Gets the last modification time of a stored file.
+   *
+   * @param filename the filename
+   * @return the modification time in epoch milliseconds
+   * @throws IOException if file is not found
+   * @throws SecurityException if filename is invalid or attempts path traversal
+   */
+  public long getLastModified(String filename) throws IOException {
+    return Files.getLastModifiedTime(resolveExistingFile(filename)).toMillis();
+  }
+
+  /**
+   * Gets the SHA-256 digest of a stored file's content as lowercase hex.
+   * For content-addressed files this is the filename itself. For legacy files the digest
+   * is computed once and cached; it is recomputed only if the file's size or
+   * modification time changes, so repeated downloads do not re-read the file. The cache keeps
+   * the {@link AppConstants#CONTENT_HASH_CACHE_MAX_ENTRIES} most recently used digests.
+   *
+   * @param filename the filename
+   * @return the hex-encoded content digest
+   * @throws IOException if file is not found or cannot be read
+   * @throws SecurityException if filename is invalid or attempts path traversal
+   */
+  public String getContentHash(String filename) throws IOException {
+    String resolved = resolveFilename(filename);
+    Path filePath = resolveExistingFile(resolved);
+    String hash = blobHash(resolved);
+    if (hash != null) {
+      return hash;
+    }
+
+    BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+    long size = attributes.size();
+    long modified = attributes.lastModifiedTime().toMillis();
+
+    ContentHash cached = contentHashes.get(resolved);
+    if (cached != null && cached.size == size && cached.modified == modified) {
+      return cached.hex;
+    }
+
+    String hex = computeContentHash(filePath);
+    contentHashes.put(resolved, new ContentHash(size, modified, hex));
+    return hex;
+  }
+
+  /**
+   * Writes a byte range of a file to an output stream using {@link FileChannel#transferTo}.
+   * Only the requested bytes are read, and they move in bounded chunks rather than
+   * through a buffer sized to the file, so heap use does not depend on the file size.
+   *
+   * @param filename the filename to read
+   * @param start the first byte to write
+   * @param count the number of bytes to write
+   * @param out the destination stream
+   * @throws IOException if file is not found or the transfer fails
+   * @throws SecurityException if filename is invalid or attempts path traversal
+   */
+  public void transferRange(String filename, long start, long count, OutputStream out) throws IOException {
+    try (FileChannel channel = FileChannel.open(resolveExistingFile(filename), StandardOpenOption.READ)) {
+      WritableByteChannel target = Channels.newChannel(out);
+      long position = start;
+      long remaining = Math.min(count, channel.size() - start);
+
+      while (remaining > 0) {
+        long transferred = channel.transferTo(position, remaining, target);
+        if (transferred <= 0) {
+          break;
+        }
+        position += transferred;
+        remaining -= transferred;
+      }
+    }
+  }
+
+  /**
+   * Gets the content type for a filename based on extension.
+   *
+   * @param filename the filename
+   * @return the MIME content type
+   */
+  public String getContentType(String filename) {
+    String extension = extractFileExtension(filename);
+    return CONTENT_TYPE_MAP.getOrDefault(extension.toLowerCase(), DEFAULT_CONTENT_TYPE);
+  }
+
+  /**
+   * Resolves a filename to an existing file inside the upload directory,
+   * following the alias index for migrated legacy names.
+   *
+   * @param filename the filename to resolve
+   * @return the absolute path of the file
+   * @throws IOException if the file does not exist
+   * @throws SecurityException if filename is invalid or attempts path traversal
+   */
+  private Path resolveExistingFile(String filename) throws IOException {
+    String resolved = resolveFilename(filename);
+
+    String hash = blobHash(resolved);
+    Path filePath = hash != null ? blobPath(hash) : uploadDir.resolve(resolved).normalize();
 
     if (!filePath.startsWith(uploadDir)) {
       log.warn("Path traversal attempt detected: {}", filename);
       throw new SecurityException("Access denied: invalid file path");
     }
 
-    if (!Files.exists(filePath)) {
+    if (!Files.isRegularFile(filePath)) {
       throw new IOException("File not found: " + filename);
     }
 
-    return Files.readAllBytes(filePath);
+    return filePath;
   }
 
   /**
-   * Deletes a file by filename.
-   * Validates filename to prevent path traversal attacks.
+   * Computes the SHA-256 digest of a file by streaming it through a fixed-size buffer.
    *
-   * @param filename the filename to delete
-   * @throws IOException if deletion fails
-   * @throws SecurityException if filename is invalid
+   * @param filePath the file to digest
+   * @return the hex-encoded digest
+   * @throws IOException if the file cannot be read
    */
-  public void deleteFile(String filename) throws IOException {
-    validateFilename(filename);
+  private String computeContentHash(Path filePath) throws IOException {
+    MessageDigest digest = newContentDigest();
+    byte[] buffer = new byte[HASH_BUFFER_SIZE];
+    try (InputStream in = Files.newInputStream(filePath)) {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
 
+  /**
+   * Deletes a file stored under a flat legacy filename.
+   *
+   * @param filename the validated filename to delete
+   * @throws IOException if deletion fails
+   * @throws SecurityException if filename attempts path traversal
+   */
+  private void deleteLegacyFile(String filename) throws IOException {
     Path filePath = uploadDir.resolve(filename).normalize();
 
     if (!filePath.startsWith(uploadDir)) {
@@ -116,18 +630,111 @@ public class FileStorageService {
     }
 
     Files.deleteIfExists(filePath);
+    contentHashes.remove(filename);
     log.debug("Deleted file: {}", filename);
   }
 
   /**
-   * Gets the content type for a filename based on extension.
+   * Takes a reference to the blob with the given hash, moving the staged upload into place
+   * if the content is not stored yet. The record is saved before the file is moved, so a
+   * collector on another node that rechecks the record never unlinks the new file.
+   *
+   * @param hash the content hash
+   * @param size the content size in bytes
+   * @param staged the staged upload
+   * @return true if the content was already stored and the upload was deduplicated
+   * @throws IOException if the staged file cannot be moved into place
+   */
+  private boolean acquireBlob(String hash, long size, Path staged) throws IOException {
+    Path blobPath = blobPath(hash);
+
+    synchronized (lockFor(hash)) {
+      boolean known = mediaBlobRepository.incrementRefCount(hash) == 1;
+      if (known && Files.isRegularFile(blobPath)) {
+        return true;
+      }
+
+      if (!known) {
+        try {
+          LocalDateTime now = LocalDateTime.now();
+          mediaBlobRepository.save(new MediaBlob(hash, size, 1, now, now));
+        } catch (DataIntegrityViolationException e) {
+          mediaBlobRepository.incrementRefCount(hash);
+        }
+      }
+      try {
+        Files.createDirectories(blobPath.getParent());
+        Files.move(staged, blobPath, StandardCopyOption.REPLACE_EXISTING);
+      } catch (IOException e) {
+        mediaBlobRepository.decrementRefCount(hash);
+        throw e;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Builds the public filename of a blob, keeping the original extension when it is safe.
+   *
+   * @param hash the content hash
+   * @param extension the original extension (without dot), may be empty
+   * @return the content-addressed filename
+   */
+  private String blobFilename(String hash, String extension) {
+    return SAFE_EXTENSION.matcher(extension).matches() ? hash + "." + extension : hash;
+  }
+
+  /**
+   * Resolves the sharded location of a blob, e.g. "ab/cd/abcd...".
+   *
+   * @param hash the content hash
+   * @return the blob path inside the upload directory
+   */
+  private Path blobPath(String hash) {
+    Path dir = uploadDir;
+    for (int level = 0; level < SHARD_LEVELS; level++) {
+      dir = dir.resolve(hash.substring(level * SHARD_WIDTH, (level + 1) * SHARD_WIDTH));
+    }
+    return dir.resolve(hash);
+  }
+
+  /**
+   * Extracts the content hash from a content-addressed filename.
    *
    * @param filename the filename
-   * @return the MIME content type
+   * @return the hash, or null if the filename is a legacy flat name
    */
-  public String getContentType(String filename) {
-    String extension = extractFileExtension(filename);
-    return CONTENT_TYPE_MAP.getOrDefault(extension.toLowerCase(), DEFAULT_CONTENT_TYPE);
+  private String blobHash(String filename) {
+    Matcher matcher = BLOB_FILENAME.matcher(filename);
+    return matcher.matches() ? matcher.group(1) : null;
+  }
+
+  /**
+   * Checks whether a file exists and was last modified before the cutoff.
+   *
+   * @param path the file
+   * @param cutoff the cutoff time
+   * @return true if the file is older than the cutoff
+   * @throws IOException if the modification time cannot be read
+   */
+  private boolean isOlderThan(Path path, LocalDateTime cutoff) throws IOException {
+    if (!Files.isRegularFile(path)) {
+      return false;
+    }
+    Instant modified = Files.getLastModifiedTime(path).toInstant();
+    return modified.isBefore(cutoff.atZone(ZoneId.systemDefault()).toInstant());
+  }
+
+  private Object lockFor(String hash) {
+    return blobLocks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+  }
+
+  private MessageDigest newContentDigest() {
+    try {
+      return MessageDigest.getInstance(CONTENT_HASH_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(CONTENT_HASH_ALGORITHM + " not available", e);
+    }
   }
 
   /**
@@ -164,13 +771,17 @@ public class FileStorageService {
   }
 
   /**
-   * Generates a unique filename with the given extension.
-   *
-   * @param extension the file extension (without dot)
-   * @return a unique filename
+   * Cached content digest, valid while the file's size and modification time match.
    */
-  private String generateUniqueFilename(String extension) {
-    String uuid = UUID.randomUUID().toString();
-    return extension.isEmpty() ? uuid : uuid + "." + extension;
+  private static final class ContentHash {
+    private final long size;
+    private final long modified;
+    private final String hex;
+
+    private ContentHash(long size, long modified, String hex) {
+      this.size = size;
+      this.modified = modified;
+      this.hex = hex;
+    }
   }
 }
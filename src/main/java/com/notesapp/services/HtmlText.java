@@ -0,0 +1,392 @@
+package com.notesapp.services;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Converts note bodies, which are HTML from the rich text editor, to plain text in one pass.
+ * Tags are removed, block elements such as paragraphs and list items start new lines, and
+ * character references such as {@code &amp;} and {@code &#233;} are decoded. Script and style
+ * contents and comments are dropped. Whitespace in the text is kept as it is, except at the
+ * start of a line made by a block element, so plain-text bodies come through unchanged.
+ * The text is written to one builder sized for the input, and tag and entity names are matched
+ * without creating strings. A body without markup is returned as it is, without copying.
+ */
+final class HtmlText {
+
+    static final String LIST_BULLET = "• ";
+
+    private static final int MAX_TAG_NAME_LENGTH = 12; // longest name that packs into a long
+    private static final int MAX_ENTITY_LENGTH = 32;
+    private static final int MAX_ENTITY_NAME_LENGTH = 10; // longest name that packs into a long
+
+    private static final long[] BLOCK_TAGS = packAll(
+        "address", "article", "aside", "blockquote", "dd", "div", "dl", "dt", "fieldset", "figcaption",
+        "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header", "hr", "main", "nav",
+        "ol", "p", "pre", "section", "table", "tbody", "tfoot", "thead", "tr", "ul");
+    private static final long BR = pack("br");
+    private static final long LI = pack("li");
+    private static final long TD = pack("td");
+    private static final long TH = pack("th");
+    private static final long SCRIPT = pack("script");
+    private static final long STYLE = pack("style");
+
+    // Entity names, packed like tag names but case-sensitive, sorted, with their characters
+    private static final long[] ENTITY_NAMES;
+    private static final char[] ENTITY_CHARS;
+
+    static {
+        Map<String, Character> entities = new HashMap<>();
+
+        String latin1 = "nbsp iexcl cent pound curren yen brvbar sect uml copy ordf laquo not shy reg macr "
+            + "deg plusmn sup2 sup3 acute micro para middot cedil sup1 ordm raquo frac14 frac12 frac34 iquest "
+            + "Agrave Aacute Acirc Atilde Auml Aring AElig Ccedil Egrave Eacute Ecirc Euml Igrave Iacute Icirc Iuml "
+            + "ETH Ntilde Ograve Oacute Ocirc Otilde Ouml times Oslash Ugrave Uacute Ucirc Uuml Yacute THORN szlig "
+            + "agrave aacute acirc atilde auml aring aelig ccedil egrave eacute ecirc euml igrave iacute icirc iuml "
+            + "eth ntilde ograve oacute ocirc otilde ouml divide oslash ugrave uacute ucirc uuml yacute thorn yuml";
+        String[] names = latin1.split(" ");
+        if (names.length != 0x100 - 0xA0) {
+            throw new IllegalStateException("Expected a name for each of U+00A0 to U+00FF, got " + names.length);
+        }
+        for (int i = 0; i < names.length; i++) {
+            entities.put(names[i], (char) (0xA0 + i));
+        }
+        // Decoded to a plain space, as the editor uses it to keep runs of spaces
+        entities.put("nbsp", ' ');
+
+        Object[] others = {
+            "quot", '"', "amp", '&', "apos", '\'', "lt", '<', "gt", '>',
+            "OElig", 'Œ', "oelig", 'œ', "Scaron", 'Š', "scaron", 'š', "Yuml", 'Ÿ', "fnof", 'ƒ',
+            "circ", 'ˆ', "tilde", '˜', "ensp", '\u2002', "emsp", '\u2003', "thinsp", '\u2009',
+            "zwnj", '\u200C', "zwj", '\u200D', "lrm", '\u200E', "rlm", '\u200F',
+            "ndash", '–', "mdash", '—', "lsquo", '‘', "rsquo", '’', "sbquo", '‚',
+            "ldquo", '“', "rdquo", '”', "bdquo", '„', "dagger", '†', "Dagger", '‡', "bull", '•',
+            "hellip", '…', "permil", '‰', "prime", '′', "Prime", '″', "lsaquo", '‹', "rsaquo", '›',
+            "euro", '€', "trade", '™', "larr", '←', "uarr", '↑', "rarr", '→', "darr", '↓', "harr", '↔',
+            "minus", '−', "ne", '≠', "le", '≤', "ge", '≥'
+        };
+        for (int i = 0; i < others.length; i += 2) {
+            entities.put((String) others[i], (Character) others[i + 1]);
+        }
+
+        ENTITY_NAMES = entities.keySet().stream().mapToLong(HtmlText::packEntityName).sorted().toArray();
+        ENTITY_CHARS = new char[ENTITY_NAMES.length];
+        entities.forEach((name, c) -> ENTITY_CHARS[Arrays.binarySearch(ENTITY_NAMES, packEntityName(name))] = c);
+    }
+
+    private HtmlText() {
+    }
+
+    /**
+     * Converts HTML to plain text.
+     *
+     * @param html The HTML, may be null
+     * @return The text, without trailing line breaks; empty for null
+     */
+    static String toPlainText(String html) {
+        if (html == null) {
+            return "";
+        }
+        if (html.indexOf('<') < 0 && html.indexOf('&') < 0) {
+            return html;
+        }
+
+        StringBuilder out = new StringBuilder(html.length());
+        int length = html.length();
+        boolean lineStart = true;
+        int i = 0;
+
+        while (i < length) {
+            char c = html.charAt(i);
+
+            if (c == '<') {
+                int end = tagEnd(html, i);
+                if (end < 0) {
+                    out.append(c);
+                    lineStart = false;
+                    i++;
+                    continue;
+                }
+
+                if (html.charAt(i + 1) == '!' && html.startsWith("<!--", i)) {
+                    int close = html.indexOf("-->", i + 4);
+                    i = close < 0 ? length : close + 3;
+                    continue;
+                }
+
+                int nameStart = html.charAt(i + 1) == '/' ? i + 2 : i + 1;
+                boolean closing = nameStart == i + 2;
+                long name = packName(html, nameStart);
+                i = end + 1;
+
+                if (name == BR) {
+                    trimTrailingSpaces(out);
+                    out.append('\n');
+                    lineStart = true;
+                } else if (name == LI && !closing) {
+                    lineBreak(out);
+                    out.append(LIST_BULLET);
+                    lineStart = true;
+                } else if (name == LI || Arrays.binarySearch(BLOCK_TAGS, name) >= 0) {
+                    lineBreak(out);
+                    lineStart = true;
+                } else if ((name == TD || name == TH) && closing) {
+                    out.append(' ');
+                } else if ((name == SCRIPT || name == STYLE) && !closing) {
+                    i = skipElementContent(html, i, name == SCRIPT ? "script" : "style");
+                }
+                continue;
+            }
+
+            if (c == '&') {
+                int next = appendEntity(html, i, out);
+                if (next > i) {
+                    i = next;
+                    lineStart = false;
+                    continue;
+                }
+            }
+
+            if (lineStart && Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            // Copy the run of text up to the next tag or reference at once
+            int runEnd = i + 1;
+            while (runEnd < length && html.charAt(runEnd) != '<' && html.charAt(runEnd) != '&') {
+                runEnd++;
+            }
+            out.append(html, i, runEnd);
+            lineStart = false;
+            i = runEnd;
+        }
+
+        int end = out.length();
+        while (end > 0 && Character.isWhitespace(out.charAt(end - 1))) {
+            end--;
+        }
+        out.setLength(end);
+        return out.toString();
+    }
+
+    /**
+     * Finds the {@code >} that ends a tag, comment or declaration starting at {@code <},
+     * skipping quoted attribute values.
+     *
+     * @return The index of the {@code >}, or -1 if the {@code <} does not start markup, as in
+     *         "a < b", and is text
+     */
+    private static int tagEnd(String html, int start) {
+        if (start + 1 >= html.length()) {
+            return -1;
+        }
+        char first = html.charAt(start + 1);
+        if (first == '/' && start + 2 < html.length()) {
+            first = html.charAt(start + 2);
+        }
+        if (!isAsciiLetter(first) && first != '!' && first != '?') {
+            return -1;
+        }
+
+        char quote = 0;
+        for (int i = start + 1; i < html.length(); i++) {
+            char c = html.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Skips to the end of a script or style element, whose content is not text.
+     *
+     * @return The index after its closing tag, or the end of the input if it is not closed
+     */
+    private static int skipElementContent(String html, int from, String tagName) {
+        int i = from;
+        while ((i = html.indexOf("</", i)) >= 0) {
+            if (html.regionMatches(true, i + 2, tagName, 0, tagName.length())) {
+                int end = html.indexOf('>', i);
+                return end < 0 ? html.length() : end + 1;
+            }
+            i += 2;
+        }
+        return html.length();
+    }
+
+    /**
+     * Decodes a character reference such as {@code &eacute;}, {@code &#233;} or {@code &#xE9;}.
+     *
+     * @return The index after the reference, or {@code start} if there is none to decode there,
+     *         in which case the {@code &} is text
+     */
+    private static int appendEntity(String html, int start, StringBuilder out) {
+        int limit = Math.min(html.length(), start + MAX_ENTITY_LENGTH);
+        int semicolon = -1;
+        for (int i = start + 1; i < limit; i++) {
+            char c = html.charAt(i);
+            if (c == ';') {
+                semicolon = i;
+                break;
+            }
+            if (!isAsciiLetter(c) && !(c >= '0' && c <= '9') && c != '#') {
+                return start;
+            }
+        }
+        if (semicolon <= start + 1) {
+            return start;
+        }
+
+        if (html.charAt(start + 1) == '#') {
+            int codePoint = parseCodePoint(html, start + 2, semicolon);
+            if (codePoint <= 0) {
+                return start;
+            }
+            out.appendCodePoint(codePoint);
+            return semicolon + 1;
+        }
+
+        int index = Arrays.binarySearch(ENTITY_NAMES, packEntityName(html, start + 1, semicolon));
+        if (index < 0) {
+            return start;
+        }
+        out.append(ENTITY_CHARS[index]);
+        return semicolon + 1;
+    }
+
+    /**
+     * Parses the digits of a numeric character reference, decimal or hex after an "x".
+     *
+     * @return The code point, or -1 if it is malformed or not a valid character
+     */
+    private static int parseCodePoint(String html, int from, int to) {
+        int radix = 10;
+        if (from < to && (html.charAt(from) == 'x' || html.charAt(from) == 'X')) {
+            radix = 16;
+            from++;
+        }
+        if (from == to) {
+            return -1;
+        }
+
+        int codePoint = 0;
+        for (int i = from; i < to; i++) {
+            int digit = Character.digit(html.charAt(i), radix);
+            if (digit < 0) {
+                return -1;
+            }
+            codePoint = codePoint * radix + digit;
+            if (codePoint > Character.MAX_CODE_POINT) {
+                return -1;
+            }
+        }
+        if (Character.isSurrogate((char) codePoint) && codePoint <= Character.MAX_VALUE) {
+            return -1;
+        }
+        return codePoint;
+    }
+
+    /**
+     * Ends the current line unless the output is empty or already at the start of a line.
+     */
+    private static void lineBreak(StringBuilder out) {
+        trimTrailingSpaces(out);
+        if (out.length() > 0 && out.charAt(out.length() - 1) != '\n') {
+            out.append('\n');
+        }
+    }
+
+    private static void trimTrailingSpaces(StringBuilder out) {
+        int end = out.length();
+        while (end > 0 && (out.charAt(end - 1) == ' ' || out.charAt(end - 1) == '\t')) {
+            end--;
+        }
+        if (end < out.length()) {
+            out.setLength(end);
+        }
+    }
+
+    /**
+     * Packs a tag name into a long as a base-37 number of its letters and digits, so it can be
+     * compared with the known tag names without creating a string. The name ends at the first
+     * character that is not a letter or digit.
+     *
+     * @return The packed name, or -1 if the name is too long to be a known tag
+     */
+    private static long packName(CharSequence text, int from) {
+        long packed = 0;
+        int i = from;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int value;
+            if (isAsciiLetter(c)) {
+                value = Character.toLowerCase(c) - 'a' + 1;
+            } else if (c >= '0' && c <= '9') {
+                value = c - '0' + 27;
+            } else {
+                break;
+            }
+            if (i - from == MAX_TAG_NAME_LENGTH) {
+                return -1;
+            }
+            packed = packed * 37 + value;
+            i++;
+        }
+        return packed;
+    }
+
+    /**
+     * Packs an entity name into a long as a base-63 number of its letters and digits, keeping
+     * case, since "Eacute" and "eacute" are different characters.
+     *
+     * @return The packed name, or -1 if it is too long or has other characters
+     */
+    private static long packEntityName(CharSequence text, int from, int to) {
+        if (to - from > MAX_ENTITY_NAME_LENGTH) {
+            return -1;
+        }
+        long packed = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            int value;
+            if (c >= 'a' && c <= 'z') {
+                value = c - 'a' + 1;
+            } else if (c >= 'A' && c <= 'Z') {
+                value = c - 'A' + 27;
+            } else if (c >= '0' && c <= '9') {
+                value = c - '0' + 53;
+            } else {
+                return -1;
+            }
+            packed = packed * 63 + value;
+        }
+        return packed;
+    }
+
+    private static long packEntityName(String name) {
+        return packEntityName(name, 0, name.length());
+    }
+
+    private static long pack(String name) {
+        return packName(name, 0);
+    }
+
+    private static long[] packAll(String... names) {
+        long[] packed = Arrays.stream(names).mapToLong(HtmlText::pack).toArray();
+        Arrays.sort(packed);
+        return packed;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -0,0 +1,383 @@
+package com.notesapp.services;
+
+import com.notesapp.config.AppConstants;
+import com.notesapp.enums.ImageVariantSize;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Generates downscaled variants of uploaded images and caches them on disk.
+ * Variants are keyed by content hash and size, so a cached variant never goes stale.
+ * The cache is bounded by total bytes and evicts least recently used variants first.
+ * Images are decoded with source subsampling, so building a thumbnail of a large photo
+ * never materialises the full-resolution bitmap.
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+  private static final String VARIANT_DIR_NAME = ".variants";
+  private static final String JPEG = "jpg";
+  private static final String PNG = "png";
+
+  @Autowired
+  private FileStorageService fileStorageService;
+
+  private final Path variantDir;
+  private final long maxCacheBytes;
+  private final Map<String, CompletableFuture<Optional<ImageVariant>>> inFlight = new ConcurrentHashMap<>();
+
+  // Access-ordered, guarded by this
+  private final LinkedHashMap<String, ImageVariant> cache = new LinkedHashMap<>(64, 0.75f, true);
+  private long cachedBytes;
+
+  public ImageVariantService(@Value("${notes.media.upload-dir:uploads}") String uploadDir,
+                             @Value("${notes.media.variant-cache-max-mb:256}") long maxCacheMb) {
+    this.variantDir = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(VARIANT_DIR_NAME);
+    this.maxCacheBytes = maxCacheMb * 1024 * 1024;
+  }
+
+  /**
+   * Rebuilds the cache index from variants left on disk, oldest first, so that
+   * recently written variants survive the first evictions after a restart.
+   */
+  @PostConstruct
+  public void loadCacheIndex() {
+    try {
+      Files.createDirectories(variantDir);
+      List<Path> existing;
+      try (Stream<Path> files = Files.walk(variantDir)) {
+        existing = files.filter(Files::isRegularFile)
+            .filter(path -> !path.getFileName().toString().endsWith(".tmp"))
+            .sorted(Comparator.comparingLong(this::lastModified))
+            .toList();
+      }
+      for (Path path : existing) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+          admit(new ImageVariant(name.substring(0, dot), path, contentTypeOf(name.substring(dot + 1)), Files.size(path)));
+        }
+      }
+      log.info("Image variant cache initialized with {} variants ({} bytes)", cache.size(), cachedBytes);
+    } catch (IOException e) {
+      log.warn("Failed to load image variant cache index: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Returns a downscaled variant of an image, generating and caching it on first use.
+   * Concurrent requests for the same missing variant share one generation.
+   *
+   * @param filename the stored image filename
+   * @param size the requested size
+   * @return the variant, or empty if the original already fits the size or cannot be decoded,
+   *         in which case the original should be served
+   * @throws IOException if the original is missing or the variant cannot be written
+   */
+  public Optional<ImageVariant> getVariant(String filename, ImageVariantSize size) throws IOException {
+    String key = variantKey(fileStorageService.getContentHash(filename), size);
+
+    ImageVariant cached = lookup(key);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+
+    CompletableFuture<Optional<ImageVariant>> generation = new CompletableFuture<>();
+    CompletableFuture<Optional<ImageVariant>> existing = inFlight.putIfAbsent(key, generation);
+    if (existing != null) {
+      return await(existing);
+    }
+
+    try {
+      Optional<ImageVariant> variant = Optional.ofNullable(generate(filename, key, size));
+      variant.ifPresent(this::admit);
+      generation.complete(variant);
+      return variant;
+    } catch (IOException | RuntimeException e) {
+      generation.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key);
+    }
+  }
+
+  /**
+   * Builds the cache key of a variant.
+   *
+   * @param contentHash the content hash of the original
+   * @param size the variant size
+   * @return the key, also used as the variant's ETag
+   */
+  public String variantKey(String contentHash, ImageVariantSize size) {
+    return contentHash + "-" + size.name().toLowerCase();
+  }
+
+  public synchronized long getCachedBytes() {
+    return cachedBytes;
+  }
+
+  /**
+   * Drops every cached variant of an original, e.g. once its blob has been deleted.
+   *
+   * @param contentHash the content hash of the original
+   */
+  public synchronized void evictVariants(String contentHash) {
+    for (ImageVariantSize size : ImageVariantSize.values()) {
+      ImageVariant variant = cache.remove(variantKey(contentHash, size));
+      if (variant == null) {
+        continue;
+      }
+      cachedBytes -= variant.getLength();
+      try {
+        Files.deleteIfExists(variant.getPath());
+      } catch (IOException e) {
+        log.warn("Failed to delete variant {}: {}", variant.getPath(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Decodes the original at reduced resolution, scales it to the requested bound and writes
+   * it to the cache directory. Images with transparency are written as PNG, others as JPEG.
+   *
+   * @param filename the stored image filename
+   * @param key the variant key
+   * @param size the requested size
+   * @return the new variant, or null if no variant is needed or the format is unsupported
+   * @throws IOException if the original cannot be read or the variant cannot be written
+   */
+  private ImageVariant generate(String filename, String key, ImageVariantSize size) throws IOException {
+    Path source = fileStorageService.locateFile(filename);
+    BufferedImage decoded;
+
+    try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+      Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+      if (readers == null || !readers.hasNext()) {
+        log.debug("No image decoder for {}, serving original", filename);
+        return null;
+      }
+
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        int width = reader.getWidth(0);
+        int height = reader.getHeight(0);
+        int longestEdge = Math.max(width, height);
+        if (longestEdge <= size.getMaxDimension()) {
+          return null;
+        }
+        if ((long) width * height > AppConstants.IMAGE_VARIANT_MAX_SOURCE_PIXELS) {
+          log.warn("Image {} is {}x{}, too large to build variants from", filename, width, height);
+          return null;
+        }
+
+        // Decode at no less than twice the target size so the final scale step stays smooth
+        ImageReadParam param = reader.getDefaultReadParam();
+        int subsampling = Math.max(1, longestEdge / (size.getMaxDimension() * 2));
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        decoded = reader.read(0, param);
+      } catch (IIOException e) {
+        log.warn("Failed to decode image {}, serving original: {}", filename, e.getMessage());
+        return null;
+      } finally {
+        reader.dispose();
+      }
+    }
+
+    boolean alpha = decoded.getColorModel().hasAlpha();
+    BufferedImage scaled = scale(decoded, size.getMaxDimension(), alpha);
+    String format = alpha ? PNG : JPEG;
+
+    Path target = variantDir.resolve(key.substring(0, 2)).resolve(key + "." + format);
+    Files.createDirectories(target.getParent());
+    Path temp = Files.createTempFile(target.getParent(), key, ".tmp");
+    try {
+      write(scaled, format, temp);
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+
+    long length = Files.size(target);
+    log.debug("Generated {} variant of {} ({} bytes)", size, filename, length);
+    return new ImageVariant(key, target, contentTypeOf(format), length);
+  }
+
+  private BufferedImage scale(BufferedImage source, int maxDimension, boolean alpha) {
+    double ratio = (double) maxDimension / Math.max(source.getWidth(), source.getHeight());
+    int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+    int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+    BufferedImage scaled = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = scaled.createGraphics();
+    try {
+      graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      graphics.drawImage(source, 0, 0, width, height, null);
+    } finally {
+      graphics.dispose();
+    }
+    return scaled;
+  }
+
+  private void write(BufferedImage image, String format, Path target) throws IOException {
+    if (PNG.equals(format)) {
+      ImageIO.write(image, PNG, target.toFile());
+      return;
+    }
+
+    ImageWriter writer = ImageIO.getImageWritersByFormatName(JPEG).next();
+    try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      param.setCompressionQuality(AppConstants.IMAGE_VARIANT_JPEG_QUALITY);
+      writer.setOutput(out);
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+  }
+
+  /**
+   * Looks up a cached variant and marks it as recently used.
+   *
+   * @param key the variant key
+   * @return the variant, or null if it is not cached
+   */
+  private synchronized ImageVariant lookup(String key) {
+    ImageVariant variant = cache.get(key);
+    if (variant != null && !Files.isRegularFile(variant.getPath())) {
+      cache.remove(key);
+      cachedBytes -= variant.getLength();
+      return null;
+    }
+    return variant;
+  }
+
+  /**
+   * Adds a variant to the cache and evicts least recently used variants beyond the size bound.
+   *
+   * @param variant the variant to add
+   */
+  private synchronized void admit(ImageVariant variant) {
+    ImageVariant previous = cache.put(variant.getKey(), variant);
+    if (previous != null) {
+      cachedBytes -= previous.getLength();
+    }
+    cachedBytes += variant.getLength();
+
+    Iterator<ImageVariant> eldest = cache.values().iterator();
+    while (cachedBytes > maxCacheBytes && eldest.hasNext()) {
+      ImageVariant evicted = eldest.next();
+      if (evicted == variant) {
+        break;
+      }
+      eldest.remove();
+      cachedBytes -= evicted.getLength();
+      try {
+        Files.deleteIfExists(evicted.getPath());
+      } catch (IOException e) {
+        log.warn("Failed to delete evicted variant {}: {}", evicted.getPath(), e.getMessage());
+      }
+    }
+  }
+
+  private Optional<ImageVariant> await(CompletableFuture<Optional<ImageVariant>> generation) throws IOException {
+    try {
+      return generation.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof IOException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private long lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path).toMillis();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static String contentTypeOf(String format) {
+    return PNG.equals(format) ? "image/png" : "image/jpeg";
+  }
+
+  /**
+   * A cached image variant on disk.
+   */
+  public static final class ImageVariant {
+    private final String key;
+    private final Path path;
+    private final String contentType;
+    private final long length;
+
+    private ImageVariant(String key, Path path, String contentType, long length) {
+      this.key = key;
+      this.path = path;
+      this.contentType = contentType;
+      this.length = length;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public String getContentType() {
+      return contentType;
+    }
+
+    public long getLength() {
+      return length;
+    }
+
+    public Path getPath() {
+      return path;
+    }
+
+    /**
+     * Writes the variant's bytes to an output stream.
+     *
+     * @param out the destination stream
+     * @throws IOException if the variant cannot be read, e.g. because it was evicted meanwhile
+     */
+    public void writeTo(OutputStream out) throws IOException {
+      Files.copy(path, out);
+    }
+  }
+}
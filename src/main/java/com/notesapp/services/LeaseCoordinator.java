@@ -0,0 +1,212 @@
+package com.notesapp.services;
+
+import com.notesapp.config.AppConstants;
+import com.notesapp.entities.SchedulerLease;
+import com.notesapp.repositories.ReminderRepository;
+import com.notesapp.repositories.SchedulerLeaseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Coordinates scheduled work across application instances sharing one datasource.
+ * Each node renews a lease row to advertise itself as live; work keys are hash-partitioned
+ * across the sorted set of live nodes, so a dead node's partitions are taken over as soon
+ * as its lease expires. Individual items are additionally claimed with a conditional update
+ * so that nodes with momentarily different membership views never deliver the same item twice.
+ */
+@Slf4j
+@Service
+public class LeaseCoordinator {
+
+  @Autowired
+  private SchedulerLeaseRepository leaseRepository;
+
+  @Autowired
+  private ReminderRepository reminderRepository;
+
+  @Value("${notes.cluster.node-id:}")
+  private String configuredNodeId;
+
+  private String nodeId;
+
+  /**
+   * Resolves this node's identity and registers its membership lease.
+   */
+  @PostConstruct
+  public void initialize() {
+    nodeId = configuredNodeId == null || configuredNodeId.isBlank()
+        ? generateNodeId()
+        : configuredNodeId;
+    heartbeat();
+    log.info("LeaseCoordinator initialized for node {}", nodeId);
+  }
+
+  /**
+   * Renews this node's membership lease and purges leases left behind by dead nodes.
+   */
+  @Scheduled(fixedRate = AppConstants.LEASE_RENEW_INTERVAL_MS)
+  public void heartbeat() {
+    Duration leaseDuration = Duration.ofSeconds(AppConstants.LEASE_DURATION_SECONDS);
+    if (!tryAcquire(nodeLeaseName(), leaseDuration)) {
+      log.warn("Failed to renew membership lease for node {}", nodeId);
+    }
+    purgeStaleLeases();
+  }
+
+  /**
+   * Releases this node's membership lease so peers take over its partitions immediately.
+   */
+  @PreDestroy
+  public void shutdown() {
+    try {
+      leaseRepository.release(nodeLeaseName(), nodeId);
+      log.info("Released membership lease for node {}", nodeId);
+    } catch (DataAccessException e) {
+      log.warn("Failed to release membership lease for node {}: {}", nodeId, e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the ids of all nodes holding an unexpired membership lease, sorted.
+   *
+   * @return the live node ids
+   */
+  public List<String> getLiveNodes() {
+    return leaseRepository.findLiveOwners(AppConstants.NODE_LEASE_PREFIX, LocalDateTime.now());
+  }
+
+  /**
+   * Returns the reminder partition buckets this node is responsible for.
+   * Bucket {@code b} belongs to the live node at index {@code b % liveNodes.size()}.
+   *
+   * @param liveNodes the sorted live node ids from {@link #getLiveNodes()}
+   * @return this node's buckets, empty if it is not a live member
+   */
+  public List<Integer> getAssignedBuckets(List<String> liveNodes) {
+    int index = liveNodes.indexOf(nodeId);
+    if (index < 0) {
+      return List.of();
+    }
+    List<Integer> buckets = new ArrayList<>();
+    for (int bucket = index; bucket < AppConstants.REMINDER_BUCKETS; bucket += liveNodes.size()) {
+      buckets.add(bucket);
+    }
+    return buckets;
+  }
+
+  /**
+   * Claims a pending reminder for delivery by this node.
+   * A claim expires on its own, so reminders held by a node that dies mid-delivery are retried.
+   *
+   * @param reminderId the reminder to claim
+   * @return true if this node now holds the claim
+   */
+  public boolean tryClaimReminder(String reminderId) {
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime claimUntil = now.plusSeconds(AppConstants.REMINDER_CLAIM_SECONDS);
+    return reminderRepository.claimReminder(reminderId, nodeId, claimUntil, now) == 1;
+  }
+
+  /**
+   * Acquires a cluster-wide job lease so only one node runs the job.
+   * The lease is deliberately not released when the job finishes, so nodes whose trigger
+   * fires slightly later within the lease window skip the run instead of repeating it.
+   *
+   * @param jobName the job name
+   * @param duration how long the lease is held
+   * @return true if this node acquired the lease
+   */
+  public boolean tryAcquireJob(String jobName, Duration duration) {
+    return tryAcquire(AppConstants.JOB_LEASE_PREFIX + jobName, duration);
+  }
+
+  /**
+   * Releases a job lease held by this node, for jobs that are safe to re-run and should not
+   * block later runs for the rest of the lease window.
+   *
+   * @param jobName the job name
+   */
+  public void releaseJob(String jobName) {
+    try {
+      leaseRepository.release(AppConstants.JOB_LEASE_PREFIX + jobName, nodeId);
+    } catch (DataAccessException e) {
+      log.warn("Failed to release job lease {}: {}", jobName, e.getMessage());
+    }
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  /**
+   * Acquires or renews a lease, inserting the row when it does not exist yet.
+   *
+   * @param leaseName the lease name
+   * @param duration how long the lease is held
+   * @return true if this node holds the lease afterwards
+   */
+  private boolean tryAcquire(String leaseName, Duration duration) {
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime expiresAt = now.plus(duration);
+    try {
+      if (leaseRepository.tryRenew(leaseName, nodeId, expiresAt, now) == 1) {
+        return true;
+      }
+      if (leaseRepository.existsById(leaseName)) {
+        return false;
+      }
+      leaseRepository.save(new SchedulerLease(leaseName, nodeId, expiresAt, null));
+      return true;
+    } catch (DataAccessException e) {
+      log.debug("Lease {} acquired concurrently by another node: {}", leaseName, e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Deletes leases that expired more than one lease period ago.
+   */
+  private void purgeStaleLeases() {
+    try {
+      LocalDateTime cutoff = LocalDateTime.now().minusSeconds(AppConstants.LEASE_DURATION_SECONDS);
+      int purged = leaseRepository.deleteExpiredBefore(cutoff);
+      if (purged > 0) {
+        log.info("Purged {} stale scheduler leases", purged);
+      }
+    } catch (DataAccessException e) {
+      log.warn("Failed to purge stale scheduler leases: {}", e.getMessage());
+    }
+  }
+
+  private String nodeLeaseName() {
+    return AppConstants.NODE_LEASE_PREFIX + nodeId;
+  }
+
+  /**
+   * Builds a node id from the host name plus a random suffix, so restarts get fresh ids.
+   *
+   * @return a unique node id
+   */
+  private String generateNodeId() {
+    String host;
+    try {
+      host = InetAddress.getLocalHost().getHostName();
+    } catch (Exception e) {
+      host = "node";
+    }
+    return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+  }
+}
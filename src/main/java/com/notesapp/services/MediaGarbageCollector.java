@@ -0,0 +1,244 @@
+package com.notesapp.services;
+
+import com.notesapp.config.AppConstants;
+import com.notesapp.repositories.NoteRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Deletes stored media that no note references, such as uploads whose note never existed
+ * or blobs whose last reference was released. A blob is only deleted once its reference count
+ * is zero as well, so a note the scan misses cannot lose its media.
+ * Note references are first folded into a Bloom filter, paging through notes by ID cursor so
+ * the set never has to fit in memory; then the store is streamed and every file the filter
+ * rules out is collected, unless it was created or referenced within the grace period.
+ * A false positive only keeps an orphan until a later sweep. File visits are paced so the
+ * sweep does not saturate disk I/O, which makes it long-running, so it runs on its own thread
+ * rather than holding the shared scheduler thread that lease heartbeats and reminders need.
+ */
+@Slf4j
+@Service
+public class MediaGarbageCollector {
+
+  private static final String GC_JOB = "media-gc";
+  private static final String MEDIA_URL_PREFIX = "/api/media/";
+
+  @Autowired
+  private FileStorageService fileStorageService;
+
+  @Autowired
+  private ImageVariantService imageVariantService;
+
+  @Autowired
+  private NoteRepository noteRepository;
+
+  @Autowired
+  private LeaseCoordinator leaseCoordinator;
+
+  @Value("${notes.media.gc.enabled:true}")
+  private boolean enabled;
+
+  @Value("${notes.media.gc.grace-hours:24}")
+  private long graceHours;
+
+  @Value("${notes.media.gc.max-files-per-second:500}")
+  private int maxFilesPerSecond;
+
+  @Value("${notes.media.migrate-on-startup:true}")
+  private boolean migrateOnStartup;
+
+  private final ExecutorService sweepExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "media-gc");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private Future<?> currentSweep;
+
+  /**
+   * Hands the sweep to the collector's own thread and returns at once. A night whose sweep
+   * is still running from the previous one is skipped.
+   * Scheduled nightly (cron: notes.media.gc.cron, default "0 30 3 * * *").
+   */
+  @Scheduled(cron = "${notes.media.gc.cron:0 30 3 * * *}")
+  public synchronized void scheduledSweep() {
+    if (!enabled) {
+      return;
+    }
+    if (currentSweep != null && !currentSweep.isDone()) {
+      log.warn("Skipping media garbage collection, the previous sweep is still running");
+      return;
+    }
+    currentSweep = sweepExecutor.submit(this::runSweep);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    sweepExecutor.shutdownNow();
+  }
+
+  /**
+   * Runs the sweep on whichever node acquires the job lease.
+   */
+  public void runSweep() {
+    if (!leaseCoordinator.tryAcquireJob(GC_JOB, Duration.ofMinutes(AppConstants.MEDIA_GC_LEASE_MINUTES))) {
+      log.debug("Media garbage collection is running on another node");
+      return;
+    }
+    try {
+      sweep(LocalDateTime.now().minusHours(graceHours));
+    } catch (Exception e) {
+      log.error("Media garbage collection failed: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Deletes every stored file that no note references and that has not been created or
+   * referenced since the cutoff. Legacy flat files are left to the migration when it is
+   * enabled, since it moves them into the store where they are swept as blobs.
+   *
+   * @param cutoff files active at or after this time are kept
+   * @return the number of files deleted
+   * @throws IOException if the upload directory cannot be read
+   */
+  public int sweep(LocalDateTime cutoff) throws IOException {
+    ReferenceFilter references = collectReferences();
+    Throttle throttle = new Throttle(maxFilesPerSecond);
+    int examined = 0;
+    int collected = 0;
+
+    try (Stream<String> hashes = fileStorageService.streamBlobHashes()) {
+      Iterator<String> iterator = hashes.iterator();
+      while (iterator.hasNext()) {
+        String hash = iterator.next();
+        throttle.acquire();
+        examined++;
+        if (!references.mightContain(hash) && collect(hash, cutoff, fileStorageService::collectBlob)) {
+          imageVariantService.evictVariants(hash);
+          collected++;
+        }
+      }
+    }
+
+    if (!migrateOnStartup) {
+      try (Stream<String> legacyFiles = fileStorageService.streamLegacyFilenames()) {
+        Iterator<String> iterator = legacyFiles.iterator();
+        while (iterator.hasNext()) {
+          String filename = iterator.next();
+          throttle.acquire();
+          examined++;
+          if (!references.mightContain(filename)
+              && collect(filename, cutoff, fileStorageService::collectLegacyFile)) {
+            collected++;
+          }
+        }
+      }
+    }
+
+    int staged = fileStorageService.purgeStagingFiles(cutoff);
+    log.info("Media garbage collection examined {} files, deleted {} unreferenced files and {} stale staging files",
+        examined, collected, staged);
+    return collected + staged;
+  }
+
+  /**
+   * Folds the storage key of every media URL on every note into a Bloom filter. Notes are
+   * paged by ID cursor, so notes or images deleted during the scan never shift a later note
+   * out of it. A note created behind the cursor is missed, but its media was referenced
+   * within the grace period and is kept anyway.
+   *
+   * @return the filter of referenced storage keys
+   */
+  private ReferenceFilter collectReferences() {
+    long expected = noteRepository.countImageUrls() + noteRepository.countByVoiceRecordingIsNotNull();
+    ReferenceFilter references = new ReferenceFilter(expected, AppConstants.MEDIA_GC_FALSE_POSITIVE_RATE);
+
+    String afterNoteId = "";
+    while (true) {
+      List<String> noteIds = noteRepository.findMediaNoteIdsAfter(
+          afterNoteId, PageRequest.of(0, AppConstants.MEDIA_GC_PAGE_SIZE));
+      if (noteIds.isEmpty()) {
+        break;
+      }
+      addReferences(references, noteRepository.findImageUrlsByNoteIdIn(noteIds));
+      addReferences(references, noteRepository.findVoiceRecordingUrlsByNoteIdIn(noteIds));
+      if (noteIds.size() < AppConstants.MEDIA_GC_PAGE_SIZE) {
+        break;
+      }
+      afterNoteId = noteIds.get(noteIds.size() - 1);
+    }
+
+    log.debug("Collected {} media references into a {} byte filter", expected, references.sizeInBytes());
+    return references;
+  }
+
+  private void addReferences(ReferenceFilter references, List<String> urls) {
+    for (String url : urls) {
+      if (url == null || !url.startsWith(MEDIA_URL_PREFIX)) {
+        continue;
+      }
+      String filename = url.substring(url.lastIndexOf('/') + 1);
+      try {
+        references.add(fileStorageService.storageKey(filename));
+      } catch (SecurityException e) {
+        log.warn("Skipping invalid media URL {}", url);
+      }
+    }
+  }
+
+  private boolean collect(String key, LocalDateTime cutoff, Collector collector) {
+    try {
+      return collector.collect(key, cutoff);
+    } catch (IOException | SecurityException e) {
+      log.warn("Failed to collect {}: {}", key, e.getMessage());
+      return false;
+    }
+  }
+
+  @FunctionalInterface
+  private interface Collector {
+    boolean collect(String key, LocalDateTime cutoff) throws IOException;
+  }
+
+  /**
+   * Spaces calls evenly at a fixed rate, sleeping the caller when it runs ahead.
+   */
+  private static final class Throttle {
+    private final long intervalNanos;
+    private long next;
+
+    private Throttle(int permitsPerSecond) {
+      this.intervalNanos = permitsPerSecond > 0 ? 1_000_000_000L / permitsPerSecond : 0;
+      this.next = System.nanoTime();
+    }
+
+    private void acquire() {
+      if (intervalNanos == 0) {
+        return;
+      }
+      long wait = next - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      } else {
+        next = System.nanoTime();
+      }
+      next += intervalNanos;
+    }
+  }
+}
@@ -0,0 +1,291 @@
+package com.notesapp.services;
+
+import com.notesapp.config.AppConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Size-bounded memory cache for small, frequently downloaded media such as avatars and
+ * thumbnails, so hot files are served without touching the disk.
+ * Content is held in direct (off-heap) buffers keyed by content hash or variant key, so
+ * entries never go stale and the cache adds no garbage-collection pressure.
+ * Admission follows W-TinyLFU: new entries enter a small LRU window; when the window
+ * overflows, its eldest entry is admitted to the main space only if a frequency sketch says
+ * it is requested more often than the entries it would displace. The main space is a
+ * segmented LRU, where entries hit while on probation are promoted to a protected segment.
+ * One-off downloads therefore cannot flush out the files that are requested constantly.
+ * A file is only read into memory once the sketch has seen it requested before, and by one
+ * request at a time; other misses are streamed from disk by the caller, so one-off downloads
+ * never allocate direct memory.
+ */
+@Slf4j
+@Service
+public class MediaMemoryCache {
+
+  private enum Region { WINDOW, PROBATION, PROTECTED }
+
+  private final long capacityBytes;
+  private final long maxObjectBytes;
+  private final long windowCapacity;
+  private final long mainCapacity;
+  private final long protectedCapacity;
+
+  // All state below is guarded by this
+  private final FrequencySketch sketch;
+  private final Map<String, Entry> entries = new HashMap<>();
+  private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<String, Entry> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Set<String> loading = new HashSet<>();
+  private long windowBytes;
+  private long mainBytes;
+  private long protectedBytes;
+
+  private long hits;
+  private long misses;
+  private long admissions;
+  private long rejections;
+  private long evictions;
+
+  public MediaMemoryCache(@Value("${notes.media.memory-cache-max-mb:64}") long maxCacheMb,
+                          @Value("${notes.media.memory-cache-max-object-kb:256}") long maxObjectKb) {
+    this.capacityBytes = Math.max(0, maxCacheMb) * 1024 * 1024;
+    this.maxObjectBytes = capacityBytes > 0 ? maxObjectKb * 1024 : 0;
+    this.windowCapacity = capacityBytes * AppConstants.MEDIA_CACHE_WINDOW_PERCENT / 100;
+    this.mainCapacity = capacityBytes - windowCapacity;
+    this.protectedCapacity = mainCapacity * AppConstants.MEDIA_CACHE_PROTECTED_PERCENT / 100;
+    this.sketch = new FrequencySketch(capacityBytes / AppConstants.MEDIA_CACHE_AVERAGE_ENTRY_BYTES);
+    log.info("Media memory cache initialized with {} bytes for objects up to {} bytes", capacityBytes, maxObjectBytes);
+  }
+
+  /**
+   * Gets the largest file the cache will hold. Larger files should be streamed from disk.
+   *
+   * @return the size limit in bytes, 0 if the cache is disabled
+   */
+  public long getMaxObjectBytes() {
+    return maxObjectBytes;
+  }
+
+  /**
+   * Returns the cached content for a key. On a miss the file is read into the cache only if
+   * it has been requested before and no other request is already reading it; otherwise null
+   * is returned and the caller streams the file from disk.
+   *
+   * @param key the content hash or variant key, identifying immutable content
+   * @param path the file to read on a miss
+   * @return a read-only buffer over the content, or null if the caller should stream the file
+   * @throws IOException if the file cannot be read
+   */
+  public ByteBuffer get(String key, Path path) throws IOException {
+    if (capacityBytes == 0) {
+      return null;
+    }
+    ByteBuffer cached = lookup(key);
+    if (cached != null || !startLoad(key)) {
+      return cached;
+    }
+
+    try {
+      ByteBuffer loaded = read(path);
+      if (loaded == null) {
+        return null;
+      }
+      offer(key, loaded);
+      return loaded.asReadOnlyBuffer();
+    } finally {
+      finishLoad(key);
+    }
+  }
+
+  /**
+   * Snapshot of cache effectiveness and occupancy.
+   *
+   * @return hit and miss counts, hit rate, admission decisions and byte usage
+   */
+  public synchronized Map<String, Object> getStats() {
+    long requests = hits + misses;
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("hits", hits);
+    stats.put("misses", misses);
+    stats.put("hitRate", requests == 0 ? 0.0 : (double) hits / requests);
+    stats.put("admissions", admissions);
+    stats.put("rejections", rejections);
+    stats.put("evictions", evictions);
+    stats.put("entries", entries.size());
+    stats.put("bytes", windowBytes + mainBytes);
+    stats.put("capacityBytes", capacityBytes);
+    stats.put("maxObjectBytes", maxObjectBytes);
+    return stats;
+  }
+
+  /**
+   * Records an access and returns the cached content, promoting the entry within its region.
+   */
+  private synchronized ByteBuffer lookup(String key) {
+    sketch.increment(key);
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      misses++;
+      return null;
+    }
+
+    hits++;
+    switch (entry.region) {
+      case WINDOW -> window.get(key);
+      case PROTECTED -> protectedEntries.get(key);
+      case PROBATION -> promote(entry);
+    }
+    return entry.buffer.asReadOnlyBuffer();
+  }
+
+  /**
+   * Claims the load of a missed key if it has been requested before and is not being loaded.
+   */
+  private synchronized boolean startLoad(String key) {
+    if (sketch.frequency(key) < AppConstants.MEDIA_CACHE_LOAD_MIN_FREQUENCY) {
+      return false;
+    }
+    return loading.add(key);
+  }
+
+  private synchronized void finishLoad(String key) {
+    loading.remove(key);
+  }
+
+  /**
+   * Adds freshly read content to the window, then settles any window overflow.
+   */
+  private synchronized void offer(String key, ByteBuffer buffer) {
+    if (entries.containsKey(key) || buffer.capacity() > mainCapacity) {
+      return;
+    }
+
+    Entry entry = new Entry(key, buffer);
+    entries.put(key, entry);
+    window.put(key, entry);
+    windowBytes += entry.size();
+
+    while (windowBytes > windowCapacity && !window.isEmpty()) {
+      Entry candidate = window.values().iterator().next();
+      window.remove(candidate.key);
+      windowBytes -= candidate.size();
+      admitToMain(candidate);
+    }
+  }
+
+  /**
+   * Moves an entry leaving the window into probation if it is more popular than every entry
+   * that would have to be evicted to make room; otherwise the candidate is dropped.
+   */
+  private void admitToMain(Entry candidate) {
+    List<Entry> victims = new ArrayList<>();
+    long freed = 0;
+    int candidateFrequency = sketch.frequency(candidate.key);
+
+    for (Map<String, Entry> segment : List.of(probation, protectedEntries)) {
+      for (Entry victim : segment.values()) {
+        if (mainBytes - freed + candidate.size() <= mainCapacity) {
+          break;
+        }
+        if (sketch.frequency(victim.key) >= candidateFrequency) {
+          entries.remove(candidate.key);
+          rejections++;
+          return;
+        }
+        victims.add(victim);
+        freed += victim.size();
+      }
+    }
+
+    for (Entry victim : victims) {
+      remove(victim);
+      evictions++;
+    }
+    candidate.region = Region.PROBATION;
+    probation.put(candidate.key, candidate);
+    mainBytes += candidate.size();
+    admissions++;
+  }
+
+  /**
+   * Moves a probation entry that was hit into the protected segment, demoting the protected
+   * segment's least recently used entries back to probation when it overflows.
+   */
+  private void promote(Entry entry) {
+    probation.remove(entry.key);
+    entry.region = Region.PROTECTED;
+    protectedEntries.put(entry.key, entry);
+    protectedBytes += entry.size();
+
+    while (protectedBytes > protectedCapacity && protectedEntries.size() > 1) {
+      Entry demoted = protectedEntries.values().iterator().next();
+      protectedEntries.remove(demoted.key);
+      protectedBytes -= demoted.size();
+      demoted.region = Region.PROBATION;
+      probation.put(demoted.key, demoted);
+    }
+  }
+
+  private void remove(Entry entry) {
+    entries.remove(entry.key);
+    if (entry.region == Region.PROTECTED) {
+      protectedEntries.remove(entry.key);
+      protectedBytes -= entry.size();
+    } else {
+      probation.remove(entry.key);
+    }
+    mainBytes -= entry.size();
+  }
+
+  /**
+   * Reads a small file into a direct buffer.
+   *
+   * @return the content, or null if the file exceeds the object size limit
+   */
+  private ByteBuffer read(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > maxObjectBytes) {
+        return null;
+      }
+      ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          throw new EOFException("File truncated while reading: " + path);
+        }
+      }
+      return buffer.flip();
+    }
+  }
+
+  private static final class Entry {
+    private final String key;
+    private final ByteBuffer buffer;
+    private Region region = Region.WINDOW;
+
+    private Entry(String key, ByteBuffer buffer) {
+      this.key = key;
+      this.buffer = buffer;
+    }
+
+    private long size() {
+      return buffer.capacity();
+    }
+  }
+}
@@ -0,0 +1,212 @@
+package com.notesapp.services;
+
+import com.notesapp.config.AppConstants;
+import com.notesapp.entities.Note;
+import com.notesapp.repositories.NoteRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Migrates uploads stored flat under UUID names into the sharded, content-addressed store.
+ * Files are moved first, each leaving an alias so old URLs keep resolving; then notes are
+ * paged through and their media URLs rewritten to the new filenames, adding one blob
+ * reference per rewritten URL. Re-running is safe: moved files are no longer listed and
+ * rewritten URLs no longer resolve through an alias.
+ */
+@Slf4j
+@Service
+public class MediaMigrationService {
+
+  private static final String MIGRATION_JOB = "media-migration";
+  private static final String MEDIA_URL_PREFIX = "/api/media/";
+
+  @Autowired
+  private FileStorageService fileStorageService;
+
+  @Autowired
+  private NoteRepository noteRepository;
+
+  @Autowired
+  private LeaseCoordinator leaseCoordinator;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Value("${notes.media.migrate-on-startup:true}")
+  private boolean migrateOnStartup;
+
+  /**
+   * Starts the migration in the background once the application is serving requests.
+   * Requests for legacy files are answered from the flat file or the alias index meanwhile.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void startMigration() {
+    if (!migrateOnStartup) {
+      return;
+    }
+    Thread thread = new Thread(this::runMigration, "media-migration");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Runs the migration on one node of the cluster. The job lease is released afterwards,
+   * since the migration is idempotent and must run again after files are restored or a
+   * node restarts.
+   */
+  public void runMigration() {
+    Duration leaseDuration = Duration.ofMinutes(AppConstants.MEDIA_MIGRATION_LEASE_MINUTES);
+    if (!leaseCoordinator.tryAcquireJob(MIGRATION_JOB, leaseDuration)) {
+      log.debug("Media migration is running on another node");
+      return;
+    }
+    try {
+      migrateLegacyMedia();
+    } catch (Exception e) {
+      log.error("Media migration failed: {}", e.getMessage(), e);
+    } finally {
+      leaseCoordinator.releaseJob(MIGRATION_JOB);
+    }
+  }
+
+  /**
+   * Moves every legacy flat file into the content-addressed store and rewrites note URLs.
+   *
+   * @return the number of note media URLs rewritten
+   * @throws IOException if the upload directory cannot be listed
+   */
+  public int migrateLegacyMedia() throws IOException {
+    List<String> adopted = new ArrayList<>();
+
+    try (Stream<String> legacyFiles = fileStorageService.streamLegacyFilenames()) {
+      Iterator<String> iterator = legacyFiles.iterator();
+      while (iterator.hasNext()) {
+        String legacyFilename = iterator.next();
+        try {
+          adopted.add(fileStorageService.adoptLegacyFile(legacyFilename));
+        } catch (IOException | SecurityException e) {
+          log.warn("Failed to migrate legacy file {}: {}", legacyFilename, e.getMessage());
+        }
+      }
+    }
+
+    int rewritten = rewriteNoteUrls();
+    adopted.forEach(fileStorageService::releaseMigrationHold);
+
+    if (!adopted.isEmpty() || rewritten > 0) {
+      log.info("Migrated {} legacy media files and rewrote {} note media URLs", adopted.size(), rewritten);
+    }
+    return rewritten;
+  }
+
+  /**
+   * Pages through notes with media and rewrites legacy URLs, one transaction per page.
+   *
+   * @return the number of URLs rewritten
+   */
+  private int rewriteNoteUrls() {
+    AtomicInteger rewritten = new AtomicInteger();
+    Pageable page = PageRequest.of(0, AppConstants.MEDIA_MIGRATION_PAGE_SIZE);
+
+    while (page != null) {
+      Pageable current = page;
+      page = transactionTemplate.execute(status -> {
+        Slice<Note> notes = noteRepository.findWithMedia(current);
+        for (Note note : notes) {
+          rewritten.addAndGet(rewriteNote(note));
+        }
+        return notes.hasNext() ? notes.nextPageable() : null;
+      });
+    }
+    return rewritten.get();
+  }
+
+  /**
+   * Rewrites the media URLs of one note with targeted updates, so the note's updatedAt is
+   * left alone and an edit saved meanwhile is not overwritten: each update only applies if
+   * the note still holds the old URL.
+   *
+   * @param note the note, attached to the current transaction
+   * @return the number of URLs rewritten
+   */
+  private int rewriteNote(Note note) {
+    int rewritten = 0;
+
+    for (String url : new LinkedHashSet<>(note.getImages())) {
+      String migrated = migratedUrl(url, "images");
+      if (migrated != null) {
+        int rows = noteRepository.updateImageUrl(note.getNoteId(), url, migrated);
+        addReferences(url, migrated, rows);
+        rewritten += rows;
+      }
+    }
+
+    String audio = note.getVoiceRecording();
+    String migratedAudio = migratedUrl(audio, "audio");
+    if (migratedAudio != null) {
+      int rows = noteRepository.updateVoiceRecordingUrl(note.getNoteId(), audio, migratedAudio);
+      addReferences(audio, migratedAudio, rows);
+      rewritten += rows;
+    }
+
+    return rewritten;
+  }
+
+  /**
+   * Takes a reference on the migrated blob for each rewritten URL that now points at it
+   * instead of a legacy name.
+   */
+  private void addReferences(String url, String migrated, int rows) {
+    String filename = migrated.substring(migrated.lastIndexOf('/') + 1);
+    if (filename.equals(url.substring(url.lastIndexOf('/') + 1))) {
+      return;
+    }
+    for (int i = 0; i < rows; i++) {
+      fileStorageService.addReference(filename);
+    }
+  }
+
+  /**
+   * Computes the canonical URL for a stored media URL. URLs that resolve through the alias
+   * index point at a migrated blob; URLs recorded with a wrong path segment, such as the old
+   * "/api/media/image/" prefix, are corrected.
+   *
+   * @param url the stored URL, may be null
+   * @param urlSegment the download path segment for this kind of media
+   * @return the new URL, or null if the URL is already canonical or not a media URL
+   */
+  private String migratedUrl(String url, String urlSegment) {
+    if (url == null || !url.startsWith(MEDIA_URL_PREFIX)) {
+      return null;
+    }
+
+    String filename = url.substring(url.lastIndexOf('/') + 1);
+    String resolved;
+    try {
+      resolved = fileStorageService.resolveFilename(filename);
+    } catch (SecurityException e) {
+      log.warn("Skipping invalid media URL {}", url);
+      return null;
+    }
+
+    String canonical = MEDIA_URL_PREFIX + urlSegment + "/" + resolved;
+    return canonical.equals(url) ? null : canonical;
+  }
+}
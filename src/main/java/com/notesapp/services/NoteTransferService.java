@@ -0,0 +1,683 @@
+package com.notesapp.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.notesapp.config.AppConstants;
+import com.notesapp.entities.ChecklistItem;
+import com.notesapp.entities.Note;
+import com.notesapp.entities.Tag;
+import com.notesapp.observers.NoteEventCoalescer;
+import com.notesapp.repositories.NoteRepository;
+import com.notesapp.repositories.TagRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Bulk export and import of a user's notes, for backups and moving accounts.
+ * Exports page through the user's notes by ID cursor, one transaction per page, and write
+ * each page before loading the next, so memory use does not depend on the number of notes.
+ * Notes are written as newline-delimited JSON (one object per line) or as a zip of Markdown
+ * files, one folder per category.
+ * Imports read NDJSON line by line and insert notes, checklist items and tag links with
+ * JDBC batch statements, one transaction per batch. Imported notes get new IDs, and lines
+ * that are not valid notes are skipped and reported. Each imported note is published as a
+ * CREATE event once its batch has committed, like a note created through the API.
+ * Media URLs are exported for reference but not imported, since the export does not carry
+ * the files.
+ */
+@Slf4j
+@Service
+public class NoteTransferService {
+
+  private static final String INSERT_NOTE =
+      "INSERT INTO notes (note_id, user_id, title, body, color, category, is_pinned, created_at, updated_at) "
+          + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_CHECKLIST_ITEM =
+      "INSERT INTO checklist_items (item_id, note_id, text, is_checked) VALUES (?, ?, ?, ?)";
+  private static final String INSERT_NOTE_TAG = "INSERT INTO note_tags (note_id, tag_id) VALUES (?, ?)";
+  private static final String UNCATEGORIZED = "Uncategorized";
+  private static final int MAX_SLUG_LENGTH = 60;
+
+  @Autowired
+  private NoteRepository noteRepository;
+
+  @Autowired
+  private TagRepository tagRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private NoteEventCoalescer noteEventCoalescer;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  /**
+   * Writes a user's notes as newline-delimited JSON, one object per note in note ID order.
+   *
+   * @param userId the user whose notes to export
+   * @param out the stream to write to; it is left open
+   * @return the number of notes written
+   * @throws IOException if writing fails
+   */
+  public int exportNdjson(String userId, OutputStream out) throws IOException {
+    ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(StreamUtils.nonClosing(out))) {
+      generator.setRootValueSeparator(null);
+      int count = forEachPage(userId, records -> {
+        for (Map<String, Object> record : records) {
+          writer.writeValue(generator, record);
+          generator.writeRaw('\n');
+        }
+      });
+      log.info("Exported {} notes of user {} as NDJSON", count, userId);
+      return count;
+    }
+  }
+
+  /**
+   * Writes a user's notes as a zip of Markdown files, one folder per category. Each file
+   * has the note's metadata as front matter, then the title, body and checklist.
+   *
+   * @param userId the user whose notes to export
+   * @param out the stream to write to; it is left open
+   * @return the number of notes written
+   * @throws IOException if writing fails
+   */
+  public int exportMarkdownZip(String userId, OutputStream out) throws IOException {
+    try (ZipOutputStream zip = new ZipOutputStream(StreamUtils.nonClosing(out), StandardCharsets.UTF_8)) {
+      int count = forEachPage(userId, records -> {
+        for (Map<String, Object> record : records) {
+          zip.putNextEntry(new ZipEntry(markdownPath(record)));
+          zip.write(toMarkdown(record).getBytes(StandardCharsets.UTF_8));
+          zip.closeEntry();
+        }
+      });
+      log.info("Exported {} notes of user {} as Markdown", count, userId);
+      return count;
+    }
+  }
+
+  /**
+   * Imports notes from newline-delimited JSON in the format written by {@link #exportNdjson}.
+   * Lines are parsed one at a time and inserted in batches of
+   * {@link AppConstants#NOTE_IMPORT_BATCH_SIZE}, each batch in its own transaction, so a
+   * large import neither holds every note in memory nor one long transaction. Lines longer
+   * than {@link AppConstants#NOTE_IMPORT_MAX_LINE_LENGTH} are skipped without being buffered.
+   * Tags are matched by name and created when missing. A batch the database rejects, e.g.
+   * because a concurrent import created one of its tags first, is rolled back and its lines
+   * are reported as skipped; other batches are still imported.
+   *
+   * @param userId the user to import the notes for
+   * @param in the NDJSON input
+   * @return the number of notes imported and the lines skipped
+   * @throws IOException if reading the input fails
+   */
+  public ImportResult importNdjson(String userId, InputStream in) throws IOException {
+    ObjectReader reader = objectMapper.readerFor(Map.class);
+    LineReader lines = new LineReader(new InputStreamReader(in, StandardCharsets.UTF_8),
+        AppConstants.NOTE_IMPORT_MAX_LINE_LENGTH);
+    List<ImportedNote> batch = new ArrayList<>(AppConstants.NOTE_IMPORT_BATCH_SIZE);
+    ImportResult result = new ImportResult();
+
+    String line;
+    int lineNumber = 0;
+    while ((line = lines.readLine()) != null) {
+      lineNumber++;
+      if (lines.isTooLong()) {
+        result.skip(lineNumber, String.format("Record exceeds %d characters", AppConstants.NOTE_IMPORT_MAX_LINE_LENGTH));
+        continue;
+      }
+      if (line.isBlank()) {
+        continue;
+      }
+
+      try {
+        batch.add(parseNote(reader.readValue(line), lineNumber));
+      } catch (JsonProcessingException e) {
+        result.skip(lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+        continue;
+      } catch (IllegalArgumentException e) {
+        result.skip(lineNumber, e.getMessage());
+        continue;
+      }
+
+      if (batch.size() == AppConstants.NOTE_IMPORT_BATCH_SIZE) {
+        importBatch(userId, batch, result);
+        batch.clear();
+      }
+    }
+
+    if (!batch.isEmpty()) {
+      importBatch(userId, batch, result);
+    }
+
+    log.info("Imported {} notes for user {} ({} lines skipped)", result.imported, userId, result.skipped);
+    return result;
+  }
+
+  /**
+   * Loads a user's notes page by page and passes each page to the writer, converted to plain
+   * maps inside the page's transaction so nothing lazy is touched afterwards.
+   *
+   * @return the number of notes passed to the writer
+   */
+  private int forEachPage(String userId, PageWriter writer) throws IOException {
+    String afterNoteId = "";
+    int count = 0;
+
+    while (true) {
+      String cursor = afterNoteId;
+      List<String> noteIds = noteRepository.findNoteIdsByUserIdAfter(
+          userId, cursor, PageRequest.of(0, AppConstants.NOTE_TRANSFER_PAGE_SIZE));
+      if (noteIds.isEmpty()) {
+        return count;
+      }
+
+      List<Map<String, Object>> records = transactionTemplate.execute(status -> loadRecords(noteIds));
+      writer.write(records);
+      count += records.size();
+
+      if (noteIds.size() < AppConstants.NOTE_TRANSFER_PAGE_SIZE) {
+        return count;
+      }
+      afterNoteId = noteIds.get(noteIds.size() - 1);
+    }
+  }
+
+  /**
+   * Loads a page of notes with their tags, checklists and images in three queries and
+   * converts them to export records in ID order. Notes deleted since the IDs were read are
+   * left out. The persistence context is cleared afterwards, so pages do not accumulate in
+   * it when it outlives the transaction.
+   */
+  private List<Map<String, Object>> loadRecords(List<String> noteIds) {
+    Map<String, Note> notes = new HashMap<>();
+    for (Note note : noteRepository.findAllForExport(noteIds)) {
+      notes.put(note.getNoteId(), note);
+    }
+    noteRepository.fetchChecklists(noteIds);
+    noteRepository.fetchImages(noteIds);
+
+    List<Map<String, Object>> records = noteIds.stream()
+        .map(notes::get)
+        .filter(Objects::nonNull)
+        .map(this::toRecord)
+        .toList();
+    entityManager.clear();
+    return records;
+  }
+
+  private Map<String, Object> toRecord(Note note) {
+    Map<String, Object> record = new LinkedHashMap<>();
+    record.put("noteId", note.getNoteId());
+    record.put("title", note.getTitle());
+    record.put("body", note.getBody());
+    record.put("color", note.getColor());
+    record.put("category", note.getCategory());
+    record.put("isPinned", note.getIsPinned());
+    record.put("createdAt", note.getCreatedAt());
+    record.put("updatedAt", note.getUpdatedAt());
+    record.put("tags", note.getTags().stream().map(Tag::getName).sorted().toList());
+
+    List<Map<String, Object>> checklist = new ArrayList<>();
+    for (ChecklistItem item : note.getChecklist()) {
+      Map<String, Object> entry = new LinkedHashMap<>();
+      entry.put("text", item.getText());
+      entry.put("isChecked", item.getIsChecked());
+      checklist.add(entry);
+    }
+    record.put("checklist", checklist);
+    record.put("images", List.copyOf(note.getImages()));
+    record.put("voiceRecording", note.getVoiceRecording());
+    return record;
+  }
+
+  private String markdownPath(Map<String, Object> record) {
+    String category = (String) record.get("category");
+    String folder = category == null || category.isBlank()
+        ? UNCATEGORIZED
+        : category.trim().replaceAll("[^\\p{L}\\p{N} _-]", "_");
+    String slug = ((String) record.get("title")).toLowerCase(Locale.ROOT)
+        .replaceAll("[^\\p{L}\\p{N}]+", "-")
+        .replaceAll("^-|-$", "");
+    if (slug.length() > MAX_SLUG_LENGTH) {
+      slug = slug.substring(0, MAX_SLUG_LENGTH);
+    }
+    return folder + "/" + (slug.isEmpty() ? "note" : slug) + "-" + record.get("noteId") + ".md";
+  }
+
+  @SuppressWarnings("unchecked")
+  private String toMarkdown(Map<String, Object> record) throws JsonProcessingException {
+    StringBuilder markdown = new StringBuilder();
+    markdown.append("---\n");
+    markdown.append("title: ").append(objectMapper.writeValueAsString(record.get("title"))).append('\n');
+    markdown.append("created: ").append(formatTimestamp(record.get("createdAt"))).append('\n');
+    markdown.append("updated: ").append(formatTimestamp(record.get("updatedAt"))).append('\n');
+    if (record.get("category") != null) {
+      markdown.append("category: ").append(objectMapper.writeValueAsString(record.get("category"))).append('\n');
+    }
+    markdown.append("tags: ").append(objectMapper.writeValueAsString(record.get("tags"))).append('\n');
+    markdown.append("pinned: ").append(Boolean.TRUE.equals(record.get("isPinned"))).append('\n');
+    if (record.get("color") != null) {
+      markdown.append("color: ").append(objectMapper.writeValueAsString(record.get("color"))).append('\n');
+    }
+    markdown.append("---\n\n");
+
+    markdown.append("# ").append(record.get("title")).append("\n\n");
+    String body = (String) record.get("body");
+    if (body != null && !body.isBlank()) {
+      markdown.append(body.strip()).append("\n\n");
+    }
+
+    List<Map<String, Object>> checklist = (List<Map<String, Object>>) record.get("checklist");
+    if (!checklist.isEmpty()) {
+      markdown.append("## Checklist\n\n");
+      for (Map<String, Object> item : checklist) {
+        markdown.append(Boolean.TRUE.equals(item.get("isChecked")) ? "- [x] " : "- [ ] ")
+            .append(item.get("text")).append('\n');
+      }
+      markdown.append('\n');
+    }
+
+    List<String> images = (List<String>) record.get("images");
+    for (String image : images) {
+      markdown.append("![](").append(image).append(")\n");
+    }
+    if (record.get("voiceRecording") != null) {
+      markdown.append("[Voice recording](").append(record.get("voiceRecording")).append(")\n");
+    }
+    return markdown.toString();
+  }
+
+  private static String formatTimestamp(Object timestamp) {
+    return timestamp == null ? "" : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format((LocalDateTime) timestamp);
+  }
+
+  /**
+   * Validates one imported record against the column limits, so a bad line is skipped
+   * instead of failing the whole batch in the database.
+   *
+   * @throws IllegalArgumentException if the record is not a valid note
+   */
+  private ImportedNote parseNote(Map<String, Object> record, int lineNumber) {
+    String title = stringField(record, "title");
+    if (title == null || title.isBlank()) {
+      throw new IllegalArgumentException("Title cannot be null or empty");
+    }
+    checkLength("title", title, AppConstants.NOTE_TITLE_MAX_LENGTH);
+    String body = stringField(record, "body");
+    checkLength("body", body, AppConstants.NOTE_BODY_MAX_LENGTH);
+    String color = stringField(record, "color");
+    checkLength("color", color, AppConstants.NOTE_COLOR_MAX_LENGTH);
+    String category = stringField(record, "category");
+    checkLength("category", category, AppConstants.NOTE_CATEGORY_MAX_LENGTH);
+
+    Object pinned = record.get("isPinned");
+    if (pinned != null && !(pinned instanceof Boolean)) {
+      throw new IllegalArgumentException("Field isPinned must be a boolean");
+    }
+
+    LocalDateTime createdAt = timestampField(record, "createdAt");
+    LocalDateTime updatedAt = timestampField(record, "updatedAt");
+    LocalDateTime now = LocalDateTime.now();
+
+    Set<String> tags = new LinkedHashSet<>();
+    for (Object tag : listField(record, "tags")) {
+      if (!(tag instanceof String name)) {
+        throw new IllegalArgumentException("Tags must be strings");
+      }
+      if (!name.isBlank()) {
+        checkLength("tag", name.trim(), AppConstants.TAG_NAME_MAX_LENGTH);
+        tags.add(name.trim());
+      }
+    }
+
+    List<Object[]> checklist = new ArrayList<>();
+    for (Object entry : listField(record, "checklist")) {
+      if (!(entry instanceof Map<?, ?> item) || !(item.get("text") instanceof String text)) {
+        throw new IllegalArgumentException("Checklist items must have a text");
+      }
+      checkLength("checklist item", text, AppConstants.CHECKLIST_TEXT_MAX_LENGTH);
+      checklist.add(new Object[] {text, Boolean.TRUE.equals(item.get("isChecked"))});
+    }
+
+    return new ImportedNote(lineNumber, UUID.randomUUID().toString(), title, body, color, category,
+        Boolean.TRUE.equals(pinned),
+        createdAt != null ? createdAt : now,
+        updatedAt != null ? updatedAt : now,
+        tags, checklist);
+  }
+
+  private static String stringField(Map<String, Object> record, String name) {
+    Object value = record.get(name);
+    if (value != null && !(value instanceof String)) {
+      throw new IllegalArgumentException("Field " + name + " must be a string");
+    }
+    return (String) value;
+  }
+
+  private static LocalDateTime timestampField(Map<String, Object> record, String name) {
+    String value = stringField(record, name);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return LocalDateTime.parse(value);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Field " + name + " is not an ISO date-time: " + value);
+    }
+  }
+
+  private static List<?> listField(Map<String, Object> record, String name) {
+    Object value = record.get(name);
+    if (value == null) {
+      return List.of();
+    }
+    if (!(value instanceof List<?> list)) {
+      throw new IllegalArgumentException("Field " + name + " must be an array");
+    }
+    return list;
+  }
+
+  private static void checkLength(String name, String value, int maxLength) {
+    if (value != null && value.length() > maxLength) {
+      throw new IllegalArgumentException(String.format("%s exceeds %d characters", name, maxLength));
+    }
+  }
+
+  /**
+   * Inserts a batch and, once it has committed, publishes a CREATE event for each of its notes.
+   * If the database rejects the batch, its lines are recorded as skipped instead.
+   */
+  private void importBatch(String userId, List<ImportedNote> batch, ImportResult result) {
+    try {
+      insertBatch(userId, batch);
+    } catch (DataAccessException e) {
+      int firstLine = batch.get(0).lineNumber;
+      int lastLine = batch.get(batch.size() - 1).lineNumber;
+      log.warn("Import batch at lines {}-{} for user {} failed: {}", firstLine, lastLine, userId, e.getMessage());
+      result.skipBatch(firstLine, lastLine, batch.size(), "Batch rejected by the database: "
+          + e.getMostSpecificCause().getMessage());
+      return;
+    }
+    result.imported += batch.size();
+
+    for (ImportedNote imported : batch) {
+      Note note = new Note();
+      note.setNoteId(imported.noteId);
+      note.setUserId(userId);
+      note.setTitle(imported.title);
+      note.setBody(imported.body);
+      note.setColor(imported.color);
+      note.setCategory(imported.category);
+      note.setIsPinned(imported.pinned);
+      note.setCreatedAt(imported.createdAt);
+      note.setUpdatedAt(imported.updatedAt);
+      noteEventCoalescer.publish(note, "CREATE");
+    }
+  }
+
+  /**
+   * Inserts a batch of notes with their checklist items and tag links in one transaction,
+   * one JDBC batch statement per table.
+   */
+  private void insertBatch(String userId, List<ImportedNote> batch) {
+    transactionTemplate.execute(status -> {
+      Map<String, String> tagIds = resolveTags(batch);
+
+      List<Object[]> notes = new ArrayList<>(batch.size());
+      List<Object[]> checklistItems = new ArrayList<>();
+      List<Object[]> noteTags = new ArrayList<>();
+      for (ImportedNote note : batch) {
+        notes.add(new Object[] {note.noteId, userId, note.title, note.body, note.color, note.category,
+            note.pinned, note.createdAt, note.updatedAt});
+        for (Object[] item : note.checklist) {
+          checklistItems.add(new Object[] {UUID.randomUUID().toString(), note.noteId, item[0], item[1]});
+        }
+        for (String tag : note.tags) {
+          noteTags.add(new Object[] {note.noteId, tagIds.get(tag)});
+        }
+      }
+
+      jdbcTemplate.batchUpdate(INSERT_NOTE, notes);
+      if (!checklistItems.isEmpty()) {
+        jdbcTemplate.batchUpdate(INSERT_CHECKLIST_ITEM, checklistItems);
+      }
+      if (!noteTags.isEmpty()) {
+        jdbcTemplate.batchUpdate(INSERT_NOTE_TAG, noteTags);
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Finds the IDs of the tags a batch uses, creating the tags that do not exist yet.
+   *
+   * @return tag IDs by name
+   */
+  private Map<String, String> resolveTags(List<ImportedNote> batch) {
+    Set<String> names = new LinkedHashSet<>();
+    batch.forEach(note -> names.addAll(note.tags));
+    if (names.isEmpty()) {
+      return Map.of();
+    }
+
+    Map<String, String> tagIds = new HashMap<>();
+    for (Tag tag : tagRepository.findByNameIn(names)) {
+      tagIds.put(tag.getName(), tag.getTagId());
+    }
+
+    List<Tag> created = new ArrayList<>();
+    for (String name : names) {
+      if (!tagIds.containsKey(name)) {
+        Tag tag = new Tag();
+        tag.setName(name);
+        tag.setColor(AppConstants.DEFAULT_TAG_COLOR);
+        created.add(tag);
+      }
+    }
+    if (!created.isEmpty()) {
+      for (Tag tag : tagRepository.saveAll(created)) {
+        tagIds.put(tag.getName(), tag.getTagId());
+      }
+      tagRepository.flush();
+    }
+    return tagIds;
+  }
+
+  /**
+   * Receives the export records of one page.
+   */
+  @FunctionalInterface
+  private interface PageWriter {
+    void write(List<Map<String, Object>> records) throws IOException;
+  }
+
+  /**
+   * Reads lines of at most a given length. The rest of a longer line is read and discarded
+   * rather than buffered, so one oversized line cannot exhaust memory.
+   */
+  private static final class LineReader {
+    private final Reader reader;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder line = new StringBuilder();
+    private int position;
+    private int limit;
+    private boolean tooLong;
+
+    private LineReader(Reader reader, int maxLength) {
+      this.reader = reader;
+      this.maxLength = maxLength;
+    }
+
+    /**
+     * @return the next line without its terminator, or null at the end of the input; when
+     *         the line was too long, an empty string, and {@link #isTooLong()} returns true
+     */
+    private String readLine() throws IOException {
+      line.setLength(0);
+      tooLong = false;
+      boolean read = false;
+      while (true) {
+        if (position == limit) {
+          limit = Math.max(reader.read(buffer), 0);
+          position = 0;
+          if (limit == 0) {
+            return read ? endLine() : null;
+          }
+        }
+        read = true;
+
+        int start = position;
+        while (position < limit && buffer[position] != '\n') {
+          position++;
+        }
+        append(start, position - start);
+        if (position < limit) {
+          position++;
+          return endLine();
+        }
+      }
+    }
+
+    private boolean isTooLong() {
+      return tooLong;
+    }
+
+    private void append(int start, int length) {
+      if (tooLong) {
+        return;
+      }
+      if (line.length() + length > maxLength) {
+        tooLong = true;
+        line.setLength(0);
+        return;
+      }
+      line.append(buffer, start, length);
+    }
+
+    private String endLine() {
+      int length = line.length();
+      if (length > 0 && line.charAt(length - 1) == '\r') {
+        line.setLength(length - 1);
+      }
+      return line.toString();
+    }
+  }
+
+  /**
+   * A validated note waiting to be inserted.
+   */
+  private static final class ImportedNote {
+    private final int lineNumber;
+    private final String noteId;
+    private final String title;
+    private final String body;
+    private final String color;
+    private final String category;
+    private final boolean pinned;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final Set<String> tags;
+    private final List<Object[]> checklist;
+
+    private ImportedNote(int lineNumber, String noteId, String title, String body, String color, String category,
+                         boolean pinned, LocalDateTime createdAt, LocalDateTime updatedAt, Set<String> tags,
+                         List<Object[]> checklist) {
+      this.lineNumber = lineNumber;
+      this.noteId = noteId;
+      this.title = title;
+      this.body = body;
+      this.color = color;
+      this.category = category;
+      this.pinned = pinned;
+      this.createdAt = createdAt;
+      this.updatedAt = updatedAt;
+      this.tags = tags;
+      this.checklist = checklist;
+    }
+  }
+
+  /**
+   * Outcome of an import.
+   */
+  public static final class ImportResult {
+    private int imported;
+    private int skipped;
+    private final List<String> errors = new ArrayList<>();
+
+    public int getImported() {
+      return imported;
+    }
+
+    public int getSkipped() {
+      return skipped;
+    }
+
+    /**
+     * @return the reasons for the first {@link AppConstants#NOTE_IMPORT_MAX_REPORTED_ERRORS}
+     *         skipped lines
+     */
+    public List<String> getErrors() {
+      return Collections.unmodifiableList(errors);
+    }
+
+    private void skip(int lineNumber, String reason) {
+      skipped++;
+      if (errors.size() < AppConstants.NOTE_IMPORT_MAX_REPORTED_ERRORS) {
+        errors.add("Line " + lineNumber + ": " + reason);
+      }
+    }
+
+    private void skipBatch(int firstLine, int lastLine, int notes, String reason) {
+      skipped += notes;
+      if (errors.size() < AppConstants.NOTE_IMPORT_MAX_REPORTED_ERRORS) {
+        errors.add("Lines " + firstLine + "-" + lastLine + ": " + reason);
+      }
+    }
+  }
+}
@@ -1,17 +1,22 @@
 package com.notesapp.services;
 
+import com.notesapp.config.AppConstants;
 import com.notesapp.entities.Reminder;
 import com.notesapp.entities.TodoItem;
 import com.notesapp.enums.TaskStatus;
 import com.notesapp.mediator.*;
+import com.notesapp.repositories.NoteRepository;
 import com.notesapp.repositories.ReminderRepository;
 import com.notesapp.repositories.TaskRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -19,20 +24,32 @@ import java.util.List;
  * Singleton service for notification scheduling.
  * Spring's @Service annotation ensures only one instance exists (Singleton pattern).
  * Manages all reminders and scheduled tasks using the Mediator pattern for notification delivery.
+ * When several instances share the datasource, work is coordinated through {@link LeaseCoordinator}.
  */
 @Slf4j
 @Service
 public class NotificationScheduler {
 
+  private static final String DUE_TASK_JOB = "due-task-notifications";
+
   @Autowired
   private ReminderRepository reminderRepository;
 
   @Autowired
   private TaskRepository taskRepository;
 
+  @Autowired
+  private NoteRepository noteRepository;
+
   @Autowired
   private NotificationMediator mediator;
 
+  @Autowired
+  private LeaseCoordinator leaseCoordinator;
+
+  @Autowired
+  private DueTaskDigestService dueTaskDigestService;
+
   @Autowired
   private EmailNotificationChannel emailChannel;
 
@@ -58,6 +75,11 @@ public class NotificationScheduler {
 
     int channelCount = mediator.getChannelCount();
     log.info("NotificationScheduler initialized with {} notification channels", channelCount);
+
+    int assigned = reminderRepository.assignMissingBuckets();
+    if (assigned > 0) {
+      log.info("Assigned a partition bucket to {} existing reminders", assigned);
+    }
   }
 
   /**
@@ -108,6 +130,8 @@ public class NotificationScheduler {
 
   /**
    * Delivers a notification for the given reminder using the mediator.
+   * A note the reminder is attached to is marked as changed, since its reminder now shows
+   * as delivered.
    *
    * @param reminder the reminder to deliver
    * @throws IllegalArgumentException if reminder is null
@@ -128,6 +152,7 @@ public class NotificationScheduler {
     mediator.sendNotification(reminder);
     reminder.setIsDelivered(true);
     reminderRepository.save(reminder);
+    noteRepository.touchByReminderId(reminder.getReminderId(), LocalDateTime.now());
 
     log.info("Delivered reminder {} via {} channel",
              reminder.getReminderId(),
@@ -135,28 +160,41 @@ public class NotificationScheduler {
   }
 
   /**
-   * Checks for pending reminders and delivers them.
+   * Checks for pending reminders and delivers the ones in this node's partition buckets.
+   * Only this node's buckets are queried, in bounded batches; each reminder is still claimed
+   * before delivery so no two nodes send it twice while membership changes.
    * Runs every 60 seconds (60000ms).
    */
   @Scheduled(fixedRate = 60000)
   public void checkAndDeliverReminders() {
-    LocalDateTime now = LocalDateTime.now();
-    List<Reminder> pendingReminders = reminderRepository.findPendingReminders(now);
-
-    if (!pendingReminders.isEmpty()) {
-      log.debug("Found {} pending reminders to deliver", pendingReminders.size());
+    List<Integer> buckets = leaseCoordinator.getAssignedBuckets(leaseCoordinator.getLiveNodes());
+    if (buckets.isEmpty()) {
+      return;
     }
 
-    for (Reminder reminder : pendingReminders) {
-      try {
-        deliverNotification(reminder);
-      } catch (Exception e) {
-        log.error("Failed to deliver reminder {}: {}",
-                  reminder.getReminderId(),
-                  e.getMessage(),
-                  e);
+    Pageable batch = PageRequest.of(0, AppConstants.REMINDER_DELIVERY_BATCH_SIZE);
+    List<Reminder> pendingReminders;
+    int claimed;
+    do {
+      // Claimed and delivered reminders drop out of the query, so the first page is always the next batch
+      pendingReminders = reminderRepository.findPendingReminders(LocalDateTime.now(), buckets, batch);
+      claimed = 0;
+      for (Reminder reminder : pendingReminders) {
+        try {
+          if (!leaseCoordinator.tryClaimReminder(reminder.getReminderId())) {
+            log.debug("Reminder {} already claimed by another node", reminder.getReminderId());
+            continue;
+          }
+          claimed++;
+          deliverNotification(reminder);
+        } catch (Exception e) {
+          log.error("Failed to deliver reminder {}: {}",
+                    reminder.getReminderId(),
+                    e.getMessage(),
+                    e);
+        }
       }
-    }
+    } while (pendingReminders.size() == batch.getPageSize() && claimed > 0);
   }
 
   /**
@@ -176,25 +214,20 @@ public class NotificationScheduler {
   }
 
   /**
-   * Checks for due tasks and sends notifications.
-   * Runs daily at 9:00 AM (cron: "0 0 9 * * *").
+   * Sends each user one digest of their due tasks.
+   * Runs daily at 9:00 AM (cron: "0 0 9 * * *") on whichever node acquires the job lease.
    */
   @Scheduled(cron = "0 0 9 * * *")
   public void checkAndNotifyDueTasks() {
-    List<TodoItem> dueTasks = checkDueTasks();
-
-    if (dueTasks.isEmpty()) {
-      log.debug("No due tasks found for daily notification");
+    Duration jobLease = Duration.ofMinutes(AppConstants.DUE_TASK_JOB_LEASE_MINUTES);
+    if (!leaseCoordinator.tryAcquireJob(DUE_TASK_JOB, jobLease)) {
+      log.debug("Due-task notifications are being handled by another node");
       return;
     }
 
-    log.info("Sending notifications for {} due tasks", dueTasks.size());
-
-    for (TodoItem task : dueTasks) {
-      if (task.getReminder() == null) {
-        String message = "Task due: " + task.getTitle();
-        log.info("IN_APP notification: {}", message);
-      }
+    int digestCount = dueTaskDigestService.sendDueTaskDigests(LocalDateTime.now());
+    if (digestCount == 0) {
+      log.debug("No due tasks found for daily notification");
     }
   }
 }
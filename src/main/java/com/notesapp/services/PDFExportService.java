@@ -8,19 +8,41 @@ import com.notesapp.entities.TodoItem;
 import com.notesapp.repositories.NoteRepository;
 import com.notesapp.repositories.TaskRepository;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
 
 /**
  * Service for exporting notes to PDF format.
@@ -35,405 +57,580 @@ public class PDFExportService {
     @Autowired
     private TaskRepository taskRepository;
 
+    @Autowired
+    private PdfRenditionCache renditionCache;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     private static final float FONT_SIZE_SMALL = 10f;
     private static final float TITLE_VERTICAL_SPACING = 5f;
     private static final float CONTENT_INDENT = 10f;
+    private static final String RENDITION_HASH_ALGORITHM = "SHA-256";
+
+    private final ExecutorService renderExecutor =
+        Executors.newFixedThreadPool(AppConstants.PDF_RENDER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "pdf-render");
+            thread.setDaemon(true);
+            return thread;
+        });
 
     /**
-     * Export a single note to PDF.
+     * Export a single note to PDF, writing the document to the given stream.
+     * Runs in its own read-only transaction, since streamed responses are written outside
+     * the request thread and its persistence context.
      *
      * @param noteId The ID of the note to export
      * @param includeMetadata Whether to include metadata (created date, category) in the PDF
-     * @return PDF file as byte array
-     * @throws IOException If PDF generation fails
+     * @param out The stream to write the PDF to; it is left open
+     * @throws IOException If PDF generation or writing fails
      * @throws IllegalArgumentException If note is not found
      */
-    public byte[] exportNoteToPDF(String noteId, boolean includeMetadata) throws IOException {
+    @Transactional(readOnly = true)
+    public void exportNoteToPDF(String noteId, boolean includeMetadata, OutputStream out) throws IOException {
         log.info("Starting PDF export for note: {}", noteId);
 
         Note note = noteRepository.findById(noteId)
             .orElseThrow(() -> new IllegalArgumentException("Note not found: " + noteId));
 
-        try (PDDocument document = new PDDocument()) {
-            addNoteToDocument(document, note, includeMetadata);
-            byte[] pdfBytes = convertDocumentToBytes(document);
-
-            log.info("Successfully exported note {} to PDF ({} bytes)", noteId, pdfBytes.length);
-            return pdfBytes;
+        try (PDDocument document = newDocument()) {
+            addNoteToDocument(document, new PdfFonts(), newImages(document), note, taskRepository.findByNoteId(noteId),
+                includeMetadata);
+            document.save(StreamUtils.nonClosing(out));
         }
+
+        log.info("Successfully exported note {} to PDF", noteId);
     }
 
     /**
-     * Export multiple notes to a single PDF document.
+     * Get a single note rendered to PDF, reusing the cached rendition while nothing the PDF
+     * shows has changed since it was rendered.
+     *
+     * @param noteId The ID of the note to export
+     * @param includeMetadata Whether to include metadata (created date, category) in the PDF
+     * @return The rendition, to be sent from disk
+     * @throws IOException If PDF generation or writing fails
+     * @throws IllegalArgumentException If note is not found
+     */
+    @Transactional(readOnly = true)
+    public PdfRenditionCache.Rendition getNoteRendition(String noteId, boolean includeMetadata) throws IOException {
+        Note note = noteRepository.findById(noteId)
+            .orElseThrow(() -> new IllegalArgumentException("Note not found: " + noteId));
+        List<TodoItem> todos = taskRepository.findByNoteId(noteId);
+
+        return renditionCache.getOrRender(noteId, renditionVersion(note, todos, includeMetadata), out -> {
+            log.info("Rendering PDF for note: {}", noteId);
+            try (PDDocument document = newDocument()) {
+                addNoteToDocument(document, new PdfFonts(), newImages(document), note, todos, includeMetadata);
+                document.save(out);
+            }
+        });
+    }
+
+    /**
+     * Export multiple notes to a single PDF document, writing it to the given stream.
+     * Notes are loaded in batches of {@link AppConstants#PDF_EXPORT_BATCH_SIZE}, each with a
+     * fixed number of queries for the notes, their tags, checklists and to-do items. Each batch
+     * is split into chunks of {@link AppConstants#PDF_RENDER_CHUNK_SIZE} notes that are rendered
+     * into separate documents on the shared render pool and merged in order as they finish.
+     * At most {@link AppConstants#PDF_RENDER_CHUNKS_IN_FLIGHT} chunks of one export are queued
+     * or rendering at a time, so a large export neither monopolizes the pool nor holds many
+     * rendered chunks in memory. Each batch is loaded in a transaction of its own, so no
+     * connection is held while rendering and a batch's entities are released with the chunks
+     * that render them. Notes that no longer exist are skipped.
      *
      * @param noteIds List of note IDs to export
      * @param includeMetadata Whether to include metadata in the PDF
-     * @return PDF file as byte array containing all notes
-     * @throws IOException If PDF generation fails
+     * @param out The stream to write the PDF to; it is left open
+     * @return the number of notes exported
+     * @throws IOException If PDF generation or writing fails
      */
-    public byte[] exportMultipleNotesToPDF(List<String> noteIds, boolean includeMetadata) throws IOException {
-        log.info("Starting PDF export for {} notes", noteIds.size());
+    public int exportMultipleNotesToPDF(List<String> noteIds, boolean includeMetadata, OutputStream out) throws IOException {
+        return exportMultipleNotesToPDF(noteIds, includeMetadata, out, rendered -> { });
+    }
 
-        try (PDDocument document = new PDDocument()) {
-            int exportedCount = 0;
+    /**
+     * Export multiple notes to a single PDF document, reporting progress as chunks are merged.
+     *
+     * @param noteIds List of note IDs to export
+     * @param includeMetadata Whether to include metadata in the PDF
+     * @param out The stream to write the PDF to; it is left open
+     * @param progress Called on the calling thread with the number of notes rendered so far
+     * @return the number of notes exported
+     * @throws IOException If PDF generation or writing fails
+     * @see #exportMultipleNotesToPDF(List, boolean, OutputStream)
+     */
+    public int exportMultipleNotesToPDF(List<String> noteIds, boolean includeMetadata, OutputStream out,
+                                        IntConsumer progress) throws IOException {
+        log.info("Starting PDF export for {} notes", noteIds.size());
 
-            for (String noteId : noteIds) {
-                Note note = noteRepository.findById(noteId).orElse(null);
-                if (note != null) {
-                    addNoteToDocument(document, note, includeMetadata);
-                    exportedCount++;
+        Deque<CompletableFuture<PDDocument>> rendering = new ArrayDeque<>();
+        Deque<Integer> chunkSizes = new ArrayDeque<>();
+        PDFMergerUtility merger = new PDFMergerUtility();
+        PDDocument document = null;
+        int exportedCount = 0;
+        int renderedCount = 0;
+
+        try {
+            for (int from = 0; from < noteIds.size(); from += AppConstants.PDF_EXPORT_BATCH_SIZE) {
+                int to = Math.min(from + AppConstants.PDF_EXPORT_BATCH_SIZE, noteIds.size());
+                List<String> batchIds = noteIds.subList(from, to);
+                Batch batch = transactionTemplate.execute(status -> loadBatch(batchIds));
+                Map<String, List<TodoItem>> todos = batch.todos;
+                List<Note> ordered = batch.notes;
+                exportedCount += ordered.size();
+
+                for (int start = 0; start < ordered.size(); start += AppConstants.PDF_RENDER_CHUNK_SIZE) {
+                    int end = Math.min(start + AppConstants.PDF_RENDER_CHUNK_SIZE, ordered.size());
+                    List<Note> chunk = ordered.subList(start, end);
+                    if (rendering.size() >= AppConstants.PDF_RENDER_CHUNKS_IN_FLIGHT) {
+                        document = append(merger, document, rendering.poll());
+                        renderedCount += chunkSizes.poll();
+                        progress.accept(renderedCount);
+                    }
+                    rendering.add(CompletableFuture.supplyAsync(
+                        () -> renderChunk(chunk, todos, includeMetadata), renderExecutor));
+                    chunkSizes.add(chunk.size());
                 }
             }
+            while (!rendering.isEmpty()) {
+                document = append(merger, document, rendering.poll());
+                renderedCount += chunkSizes.poll();
+                progress.accept(renderedCount);
+            }
+            if (document == null) {
+                document = newDocument();
+            }
 
-            byte[] pdfBytes = convertDocumentToBytes(document);
-            log.info("Successfully exported {} notes to PDF ({} bytes)", exportedCount, pdfBytes.length);
-            return pdfBytes;
+            document.save(StreamUtils.nonClosing(out));
+            log.info("Successfully exported {} notes to PDF", exportedCount);
+            return exportedCount;
+        } finally {
+            rendering.forEach(future -> future.thenAccept(IOUtils::closeQuietly));
+            IOUtils.closeQuietly(document);
         }
     }
 
+    @PreDestroy
+    public void shutdown() {
+        renderExecutor.shutdown();
+    }
+
     /**
-     * Adds a note to the PDF document on a new page.
+     * Creates an empty document whose streams are buffered in memory up to
+     * {@link AppConstants#PDF_EXPORT_MAIN_MEMORY_BYTES} and spill to a temporary scratch file
+     * beyond that, so large exports do not hold every page's content on the heap.
      *
-     * @param document The PDF document
-     * @param note The note to add
-     * @param includeMetadata Whether to include metadata
-     * @throws IOException If writing to PDF fails
+     * @return the new document
      */
-    private void addNoteToDocument(PDDocument document, Note note, boolean includeMetadata) throws IOException {
-        PDPage page = new PDPage(PDRectangle.A4);
-        document.addPage(page);
+    private PDDocument newDocument() {
+        return new PDDocument(MemoryUsageSetting.setupMixed(AppConstants.PDF_EXPORT_MAIN_MEMORY_BYTES));
+    }
 
-        try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
-            float yPosition = page.getMediaBox().getHeight() - AppConstants.PDF_MARGIN;
+    private PdfImages newImages(PDDocument document) {
+        return new PdfImages(document, fileStorageService, imageVariantService);
+    }
 
-            yPosition = addNoteTitle(contentStream, note.getTitle(), yPosition);
-            yPosition -= AppConstants.PDF_LINE_HEIGHT;
+    /**
+     * Renders a chunk of notes into a document of its own, each note starting on a new page.
+     * Runs on the render pool; the notes must be fully loaded beforehand.
+     *
+     * @param notes The notes to render, in order
+     * @param todos The to-do items of the notes, by note ID
+     * @param includeMetadata Whether to include metadata
+     * @return the rendered document, owned by the caller
+     * @throws UncheckedIOException If rendering fails
+     */
+    private PDDocument renderChunk(List<Note> notes, Map<String, List<TodoItem>> todos, boolean includeMetadata) {
+        PDDocument document = newDocument();
+        try {
+            PdfFonts fonts = new PdfFonts();
+            PdfImages images = newImages(document);
+            for (Note note : notes) {
+                addNoteToDocument(document, fonts, images, note, todos.getOrDefault(note.getNoteId(), List.of()),
+                    includeMetadata);
+            }
+            return document;
+        } catch (IOException e) {
+            IOUtils.closeQuietly(document);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            IOUtils.closeQuietly(document);
+            throw e;
+        }
+    }
 
-            if (includeMetadata) {
-                yPosition = addNoteMetadata(contentStream, note, yPosition);
-                yPosition -= AppConstants.PDF_LINE_HEIGHT;
+    /**
+     * Waits for the next chunk in order and appends its pages to the export. The first chunk
+     * becomes the export document itself; later ones are merged into it and closed.
+     *
+     * @param merger The merger for this export
+     * @param document The export so far, or null before the first chunk
+     * @param chunk The next chunk
+     * @return the export document
+     * @throws IOException If rendering the chunk or merging it fails
+     */
+    private PDDocument append(PDFMergerUtility merger, PDDocument document, CompletableFuture<PDDocument> chunk) throws IOException {
+        PDDocument rendered;
+        try {
+            rendered = chunk.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
+            throw e;
+        }
+
+        if (document == null) {
+            return rendered;
+        }
+        try (rendered) {
+            merger.appendDocument(document, rendered);
+        }
+        return document;
+    }
+
+    /**
+     * Loads a batch of notes in order, fully initialized for rendering after the transaction
+     * ends, with their to-do items.
+     *
+     * @param noteIds The IDs of the notes to load
+     * @return the notes found, in the order of the IDs, and their to-do items
+     */
+    private Batch loadBatch(List<String> noteIds) {
+        Map<String, Note> notes = loadNotes(noteIds);
+        List<Note> ordered = noteIds.stream().map(notes::get).filter(Objects::nonNull).toList();
+        return new Batch(ordered, loadTodos(notes.keySet()));
+    }
+
+    /**
+     * Loads a batch of notes with their tags, checklists and images initialized.
+     *
+     * @param noteIds The IDs of the notes to load
+     * @return the notes found, by ID
+     */
+    private Map<String, Note> loadNotes(List<String> noteIds) {
+        Map<String, Note> notes = new HashMap<>();
+        for (Note note : noteRepository.findAllForExport(noteIds)) {
+            notes.put(note.getNoteId(), note);
+        }
+        if (!notes.isEmpty()) {
+            noteRepository.fetchChecklists(notes.keySet());
+            noteRepository.fetchImages(notes.keySet());
+        }
+        return notes;
+    }
 
-            yPosition = addNoteBody(contentStream, note.getBody(), yPosition, page);
-            yPosition = addNoteTags(contentStream, note, yPosition);
-            yPosition = addNoteTodos(contentStream, note, yPosition);
-            yPosition = addNoteChecklists(contentStream, note, yPosition);
+    /**
+     * Loads the to-do items of a batch of notes in one query.
+     *
+     * @param noteIds The IDs of the notes
+     * @return the to-do items, grouped by note ID
+     */
+    private Map<String, List<TodoItem>> loadTodos(Collection<String> noteIds) {
+        if (noteIds.isEmpty()) {
+            return Map.of();
         }
+        return taskRepository.findByNoteIdIn(noteIds).stream()
+            .collect(Collectors.groupingBy(TodoItem::getNoteId));
     }
 
     /**
-     * Converts the PDF document to a byte array.
+     * Adds a note to the PDF document, starting on a new page and continuing onto as many
+     * further pages as its content needs.
      *
      * @param document The PDF document
-     * @return PDF as byte array
-     * @throws IOException If conversion fails
+     * @param fonts The document's fonts
+     * @param images The document's images
+     * @param note The note to add
+     * @param todos The note's to-do items
+     * @param includeMetadata Whether to include metadata
+     * @throws IOException If writing to PDF fails
      */
-    private byte[] convertDocumentToBytes(PDDocument document) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        document.save(baos);
-        return baos.toByteArray();
+    private void addNoteToDocument(PDDocument document, PdfFonts fonts, PdfImages images, Note note, List<TodoItem> todos,
+                                   boolean includeMetadata) throws IOException {
+        try (PdfPageFlow flow = new PdfPageFlow(document)) {
+            addNoteTitle(flow, fonts, note.getTitle());
+            flow.skip(AppConstants.PDF_LINE_HEIGHT);
+
+            if (includeMetadata) {
+                addNoteMetadata(flow, fonts, note);
+                flow.skip(AppConstants.PDF_LINE_HEIGHT);
+            }
+
+            addNoteBody(flow, fonts, note.getBody());
+            addNoteImages(flow, fonts, images, note);
+            addNoteTags(flow, fonts, note);
+            addNoteTodos(flow, fonts, todos);
+            addNoteChecklists(flow, fonts, note);
+        }
     }
 
     /**
-     * Adds the note title to the PDF.
+     * Adds the note title to the PDF, wrapping long titles.
      *
-     * @param contentStream The PDF content stream
+     * @param flow The page flow
+     * @param fonts The document's fonts
      * @param title The note title
-     * @param yPosition Current vertical position
-     * @return New vertical position after adding title
      * @throws IOException If writing fails
      */
-    private float addNoteTitle(PDPageContentStream contentStream, String title, float yPosition) throws IOException {
-        contentStream.beginText();
-        contentStream.setFont(PDType1Font.HELVETICA_BOLD, AppConstants.PDF_TITLE_FONT_SIZE);
-        contentStream.newLineAtOffset(AppConstants.PDF_MARGIN, yPosition);
-        contentStream.showText(title != null ? title : "Untitled");
-        contentStream.endText();
-        return yPosition - AppConstants.PDF_TITLE_FONT_SIZE - TITLE_VERTICAL_SPACING;
+    private void addNoteTitle(PdfPageFlow flow, PdfFonts fonts, String title) throws IOException {
+        List<String> lines = PdfTextWrapper.wrap(title != null ? title : "Untitled", AppConstants.PDF_WRITABLE_WIDTH,
+            fonts.bold, AppConstants.PDF_TITLE_FONT_SIZE);
+        for (String line : lines) {
+            flow.drawLine(fonts.bold, AppConstants.PDF_TITLE_FONT_SIZE, AppConstants.PDF_MARGIN, line,
+                AppConstants.PDF_TITLE_FONT_SIZE + TITLE_VERTICAL_SPACING);
+        }
     }
 
     /**
      * Adds note metadata (created date, category) to the PDF.
      *
-     * @param contentStream The PDF content stream
+     * @param flow The page flow
+     * @param fonts The document's fonts
      * @param note The note
-     * @param yPosition Current vertical position
-     * @return New vertical position after adding metadata
      * @throws IOException If writing fails
      */
-    private float addNoteMetadata(PDPageContentStream contentStream, Note note, float yPosition) throws IOException {
+    private void addNoteMetadata(PdfPageFlow flow, PdfFonts fonts, Note note) throws IOException {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         String createdAt = note.getCreatedAt() != null ? note.getCreatedAt().format(formatter) : "";
         String category = note.getCategory() != null ? note.getCategory() : "";
 
-        contentStream.setFont(PDType1Font.HELVETICA, FONT_SIZE_SMALL);
-
-        yPosition = drawTextLine(contentStream, "Created: " + createdAt, yPosition);
+        drawParagraph(flow, fonts.regular, FONT_SIZE_SMALL, AppConstants.PDF_MARGIN, "", "Created: " + createdAt);
 
         if (!category.isEmpty()) {
-            yPosition = drawTextLine(contentStream, "Category: " + category, yPosition);
+            drawParagraph(flow, fonts.regular, FONT_SIZE_SMALL, AppConstants.PDF_MARGIN, "", "Category: " + category);
         }
-
-        return yPosition;
     }
 
     /**
      * Adds the note body content to the PDF.
      *
-     * @param contentStream The PDF content stream
+     * @param flow The page flow
+     * @param fonts The document's fonts
      * @param body The note body
-     * @param yPosition Current vertical position
-     * @param page The PDF page (for width calculation)
-     * @return New vertical position after adding body
      * @throws IOException If writing fails
      */
-    private float addNoteBody(PDPageContentStream contentStream, String body, float yPosition, PDPage page) throws IOException {
+    private void addNoteBody(PdfPageFlow flow, PdfFonts fonts, String body) throws IOException {
         if (body == null || body.isEmpty()) {
-            return yPosition;
+            return;
+        }
+
+        String cleanBody = HtmlText.toPlainText(body);
+        drawParagraph(flow, fonts.regular, AppConstants.PDF_BODY_FONT_SIZE, AppConstants.PDF_MARGIN, "", cleanBody);
+    }
+
+    /**
+     * Adds the note's images to the PDF below the body, each at {@link AppConstants#PDF_IMAGE_DPI}
+     * and no wider than the text. Images that cannot be embedded are noted by name instead.
+     *
+     * @param flow The page flow
+     * @param fonts The document's fonts
+     * @param images The document's images
+     * @param note The note
+     * @throws IOException If writing fails
+     */
+    private void addNoteImages(PdfPageFlow flow, PdfFonts fonts, PdfImages images, Note note) throws IOException {
+        if (note.getImages() == null || note.getImages().isEmpty()) {
+            return;
         }
 
-        String cleanBody = stripHtmlTags(body);
-        List<String> wrappedLines = wrapText(cleanBody, AppConstants.PDF_WRITABLE_WIDTH, PDType1Font.HELVETICA, AppConstants.PDF_BODY_FONT_SIZE);
-        return drawWrappedText(contentStream, wrappedLines, yPosition, AppConstants.PDF_BODY_FONT_SIZE);
+        for (String url : note.getImages()) {
+            flow.skip(AppConstants.PDF_LINE_HEIGHT);
+            Optional<PDImageXObject> image = images.get(url);
+            if (image.isEmpty()) {
+                drawParagraph(flow, fonts.regular, FONT_SIZE_SMALL, AppConstants.PDF_MARGIN, "",
+                    "[Image unavailable: " + url.substring(url.lastIndexOf('/') + 1) + "]");
+                continue;
+            }
+
+            PDImageXObject xObject = image.get();
+            float scale = Math.min(72f / AppConstants.PDF_IMAGE_DPI, Math.min(
+                AppConstants.PDF_WRITABLE_WIDTH / xObject.getWidth(), AppConstants.PDF_WRITABLE_HEIGHT / xObject.getHeight()));
+            flow.drawImage(xObject, AppConstants.PDF_MARGIN, xObject.getWidth() * scale, xObject.getHeight() * scale);
+        }
     }
 
     /**
      * Adds note tags to the PDF.
      *
-     * @param contentStream The PDF content stream
+     * @param flow The page flow
+     * @param fonts The document's fonts
      * @param note The note
-     * @param yPosition Current vertical position
-     * @return New vertical position after adding tags
      * @throws IOException If writing fails
      */
-    private float addNoteTags(PDPageContentStream contentStream, Note note, float yPosition) throws IOException {
+    private void addNoteTags(PdfPageFlow flow, PdfFonts fonts, Note note) throws IOException {
         if (note.getTags() == null || note.getTags().isEmpty()) {
-            return yPosition;
+            return;
         }
 
-        yPosition -= AppConstants.PDF_LINE_HEIGHT;
-        yPosition = addSectionHeader(contentStream, "Tags:", yPosition);
+        addSectionHeader(flow, fonts, "Tags:");
 
         String tagNames = note.getTags().stream()
             .map(Tag::getName)
-            .reduce((a, b) -> a + ", " + b)
-            .orElse("");
-
-        contentStream.setFont(PDType1Font.HELVETICA, AppConstants.PDF_BODY_FONT_SIZE);
-        contentStream.beginText();
-        contentStream.newLineAtOffset(AppConstants.PDF_MARGIN + CONTENT_INDENT, yPosition);
-        contentStream.showText(tagNames);
-        contentStream.endText();
+            .collect(Collectors.joining(", "));
 
-        return yPosition - AppConstants.PDF_LINE_HEIGHT;
+        drawParagraph(flow, fonts.regular, AppConstants.PDF_BODY_FONT_SIZE, AppConstants.PDF_MARGIN + CONTENT_INDENT, "", tagNames);
     }
 
     /**
      * Adds note todos to the PDF.
      *
-     * @param contentStream The PDF content stream
-     * @param note The note
-     * @param yPosition Current vertical position
-     * @return New vertical position after adding todos
+     * @param flow The page flow
+     * @param fonts The document's fonts
+     * @param todos The note's to-do items
      * @throws IOException If writing fails
      */
-    private float addNoteTodos(PDPageContentStream contentStream, Note note, float yPosition) throws IOException {
-        List<TodoItem> todos = taskRepository.findByNoteId(note.getNoteId());
+    private void addNoteTodos(PdfPageFlow flow, PdfFonts fonts, List<TodoItem> todos) throws IOException {
         if (todos == null || todos.isEmpty()) {
-            return yPosition;
+            return;
         }
 
-        yPosition -= AppConstants.PDF_LINE_HEIGHT;
-        yPosition = addSectionHeader(contentStream, "To-Do Items:", yPosition);
+        addSectionHeader(flow, fonts, "To-Do Items:");
 
-        contentStream.setFont(PDType1Font.HELVETICA, AppConstants.PDF_BODY_FONT_SIZE);
         for (TodoItem todo : todos) {
             String status = todo.getStatus() != null ? "[" + todo.getStatus() + "] " : "";
-            yPosition = drawIndentedBulletPoint(contentStream, status + todo.getTitle(), yPosition);
-
-            if (yPosition < AppConstants.PDF_MARGIN) {
-                break;
-            }
+            drawParagraph(flow, fonts.regular, AppConstants.PDF_BODY_FONT_SIZE, AppConstants.PDF_MARGIN + CONTENT_INDENT,
+                "• ", status + todo.getTitle());
         }
-
-        return yPosition;
     }
 
     /**
      * Adds note checklists to the PDF.
      *
-     * @param contentStream The PDF content stream
+     * @param flow The page flow
+     * @param fonts The document's fonts
      * @param note The note
-     * @param yPosition Current vertical position
-     * @return New vertical position after adding checklists
      * @throws IOException If writing fails
      */
-    private float addNoteChecklists(PDPageContentStream contentStream, Note note, float yPosition) throws IOException {
+    private void addNoteChecklists(PdfPageFlow flow, PdfFonts fonts, Note note) throws IOException {
         if (note.getChecklist() == null || note.getChecklist().isEmpty()) {
-            return yPosition;
+            return;
         }
 
-        yPosition -= AppConstants.PDF_LINE_HEIGHT;
-        yPosition = addSectionHeader(contentStream, "Checklist:", yPosition);
+        addSectionHeader(flow, fonts, "Checklist:");
 
-        contentStream.setFont(PDType1Font.HELVETICA, AppConstants.PDF_BODY_FONT_SIZE);
         for (ChecklistItem item : note.getChecklist()) {
             String checkbox = item.getIsChecked() ? "[X] " : "[ ] ";
-            yPosition = drawIndentedText(contentStream, checkbox + item.getText(), yPosition);
-
-            if (yPosition < AppConstants.PDF_MARGIN) {
-                break;
-            }
+            drawParagraph(flow, fonts.regular, AppConstants.PDF_BODY_FONT_SIZE, AppConstants.PDF_MARGIN + CONTENT_INDENT,
+                checkbox, item.getText());
         }
-
-        return yPosition;
     }
 
     /**
-     * Adds a section header to the PDF.
+     * Adds a section header to the PDF, after a blank line and on the same page as the
+     * first line of its section.
      *
-     * @param contentStream The PDF content stream
+     * @param flow The page flow
+     * @param fonts The document's fonts
      * @param headerText The header text
-     * @param yPosition Current vertical position
-     * @return New vertical position after adding header
-     * @throws IOException If writing fails
-     */
-    private float addSectionHeader(PDPageContentStream contentStream, String headerText, float yPosition) throws IOException {
-        contentStream.setFont(PDType1Font.HELVETICA_BOLD, AppConstants.PDF_SUBTITLE_FONT_SIZE);
-        contentStream.beginText();
-        contentStream.newLineAtOffset(AppConstants.PDF_MARGIN, yPosition);
-        contentStream.showText(headerText);
-        contentStream.endText();
-        return yPosition - AppConstants.PDF_LINE_HEIGHT;
-    }
-
-    /**
-     * Draws a single line of text at the current margin.
-     *
-     * @param contentStream The PDF content stream
-     * @param text The text to draw
-     * @param yPosition Current vertical position
-     * @return New vertical position after drawing
-     * @throws IOException If writing fails
-     */
-    private float drawTextLine(PDPageContentStream contentStream, String text, float yPosition) throws IOException {
-        contentStream.beginText();
-        contentStream.newLineAtOffset(AppConstants.PDF_MARGIN, yPosition);
-        contentStream.showText(text);
-        contentStream.endText();
-        return yPosition - AppConstants.PDF_LINE_HEIGHT;
-    }
-
-    /**
-     * Draws indented text with a bullet point.
-     *
-     * @param contentStream The PDF content stream
-     * @param text The text to draw
-     * @param yPosition Current vertical position
-     * @return New vertical position after drawing
      * @throws IOException If writing fails
      */
-    private float drawIndentedBulletPoint(PDPageContentStream contentStream, String text, float yPosition) throws IOException {
-        contentStream.beginText();
-        contentStream.newLineAtOffset(AppConstants.PDF_MARGIN + CONTENT_INDENT, yPosition);
-        contentStream.showText("• " + text);
-        contentStream.endText();
-        return yPosition - AppConstants.PDF_LINE_HEIGHT;
+    private void addSectionHeader(PdfPageFlow flow, PdfFonts fonts, String headerText) throws IOException {
+        flow.skip(AppConstants.PDF_LINE_HEIGHT);
+        flow.keepWithNext(AppConstants.PDF_LINE_HEIGHT);
+        flow.drawLine(fonts.bold, AppConstants.PDF_SUBTITLE_FONT_SIZE, AppConstants.PDF_MARGIN, headerText,
+            AppConstants.PDF_LINE_HEIGHT);
     }
 
     /**
-     * Draws indented text without a bullet point.
+     * Wraps text to the width left of the given left edge and draws it line by line.
+     * A prefix such as a bullet is drawn on the first line only, and continuation lines are
+     * indented to align with the text after it.
      *
-     * @param contentStream The PDF content stream
+     * @param flow The page flow
+     * @param font The font to use
+     * @param fontSize The font size
+     * @param x The left edge of the text
+     * @param prefix Text to put before the first line, may be empty
      * @param text The text to draw
-     * @param yPosition Current vertical position
-     * @return New vertical position after drawing
      * @throws IOException If writing fails
      */
-    private float drawIndentedText(PDPageContentStream contentStream, String text, float yPosition) throws IOException {
-        contentStream.beginText();
-        contentStream.newLineAtOffset(AppConstants.PDF_MARGIN + CONTENT_INDENT, yPosition);
-        contentStream.showText(text);
-        contentStream.endText();
-        return yPosition - AppConstants.PDF_LINE_HEIGHT;
+    private void drawParagraph(PdfPageFlow flow, PDType1Font font, float fontSize, float x, String prefix, String text) throws IOException {
+        float prefixWidth = PdfTextWrapper.width(prefix, font, fontSize);
+        float maxWidth = AppConstants.PDF_PAGE_WIDTH - AppConstants.PDF_MARGIN - x - prefixWidth;
+        List<String> lines = PdfTextWrapper.wrap(text != null ? text : "", maxWidth, font, fontSize);
+
+        for (int i = 0; i < lines.size(); i++) {
+            if (i == 0) {
+                flow.drawLine(font, fontSize, x, prefix + lines.get(i), AppConstants.PDF_LINE_HEIGHT);
+            } else {
+                flow.drawLine(font, fontSize, x + prefixWidth, lines.get(i), AppConstants.PDF_LINE_HEIGHT);
+            }
+        }
     }
 
     /**
-     * Draws multiple lines of wrapped text.
+     * Identifies everything a single-note PDF shows, so a cached rendition is only reused
+     * while none of it has changed. To-do items are hashed too, since editing them does not
+     * update the note.
      *
-     * @param contentStream The PDF content stream
-     * @param lines The lines to draw
-     * @param yPosition Current vertical position
-     * @param fontSize The font size to use
-     * @return New vertical position after drawing all lines
-     * @throws IOException If writing fails
+     * @param note The note
+     * @param todos The note's to-do items
+     * @param includeMetadata Whether the PDF includes metadata
+     * @return A hex digest, with a suffix when metadata is included
      */
-    private float drawWrappedText(PDPageContentStream contentStream, List<String> lines, float yPosition, float fontSize) throws IOException {
-        contentStream.setFont(PDType1Font.HELVETICA, fontSize);
+    private String renditionVersion(Note note, List<TodoItem> todos, boolean includeMetadata) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(RENDITION_HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(RENDITION_HASH_ALGORITHM + " not available", e);
+        }
 
-        for (String line : lines) {
-            contentStream.beginText();
-            contentStream.newLineAtOffset(AppConstants.PDF_MARGIN, yPosition);
-            contentStream.showText(line);
-            contentStream.endText();
-            yPosition -= AppConstants.PDF_LINE_HEIGHT;
-
-            if (yPosition < AppConstants.PDF_MARGIN) {
-                break;
+        update(digest, String.valueOf(AppConstants.PDF_RENDITION_LAYOUT_VERSION));
+        update(digest, note.getTitle());
+        update(digest, note.getBody());
+        if (includeMetadata) {
+            update(digest, String.valueOf(note.getCreatedAt()));
+            update(digest, note.getCategory());
+        }
+        if (note.getTags() != null) {
+            note.getTags().stream().map(Tag::getName).sorted().forEach(name -> update(digest, name));
+        }
+        update(digest, "");
+        if (note.getChecklist() != null) {
+            for (ChecklistItem item : note.getChecklist()) {
+                update(digest, item.getIsChecked() + ":" + item.getText());
             }
         }
+        update(digest, "");
+        if (note.getImages() != null) {
+            note.getImages().forEach(url -> update(digest, url));
+        }
+        update(digest, "");
+        for (TodoItem todo : todos) {
+            update(digest, todo.getStatus() + ":" + todo.getTitle());
+        }
 
-        return yPosition;
+        String version = HexFormat.of().formatHex(digest.digest(), 0, 16);
+        return includeMetadata ? version + "-meta" : version;
     }
 
-    /**
-     * Removes HTML tags from text.
-     *
-     * @param html The HTML text
-     * @return Plain text without HTML tags
-     */
-    private String stripHtmlTags(String html) {
-        if (html == null) {
-            return "";
-        }
-        return html.replaceAll("<[^>]*>", "").replaceAll("&nbsp;", " ");
+    private static void update(MessageDigest digest, String value) {
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
     }
 
     /**
-     * Wraps text to fit within a specified width.
-     *
-     * @param text The text to wrap
-     * @param maxWidth Maximum width in points
-     * @param font The font to use
-     * @param fontSize The font size
-     * @return List of wrapped text lines
-     * @throws IOException If font width calculation fails
+     * A batch of notes loaded for rendering, with their to-do items by note ID.
      */
-    private List<String> wrapText(String text, float maxWidth, PDType1Font font, float fontSize) throws IOException {
-        List<String> lines = new ArrayList<>();
-        String[] words = text.split(" ");
-        StringBuilder currentLine = new StringBuilder();
-
-        for (String word : words) {
-            String testLine = currentLine.length() == 0 ? word : currentLine + " " + word;
-            float textWidth = font.getStringWidth(testLine) / 1000 * fontSize;
-
-            if (textWidth > maxWidth) {
-                if (currentLine.length() > 0) {
-                    lines.add(currentLine.toString());
-                    currentLine = new StringBuilder(word);
-                } else {
-                    lines.add(word);
-                }
-            } else {
-                currentLine = new StringBuilder(testLine);
-            }
-        }
+    private static final class Batch {
+        private final List<Note> notes;
+        private final Map<String, List<TodoItem>> todos;
 
-        if (currentLine.length() > 0) {
-            lines.add(currentLine.toString());
+        private Batch(List<Note> notes, Map<String, List<TodoItem>> todos) {
+            this.notes = notes;
+            this.todos = todos;
         }
-
-        return lines;
     }
 }
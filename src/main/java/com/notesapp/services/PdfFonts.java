@@ -0,0 +1,34 @@
+package com.notesapp.services;
+
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.IOException;
+
+/**
+ * The fonts used to render one PDF document.
+ * PDFBox fonts cache encodings and glyph widths in unsynchronized maps, so the shared
+ * {@link PDType1Font#HELVETICA} constants must not be used by documents rendered on different
+ * threads. Each document gets its own instances of the standard 14 fonts instead; they are
+ * backed by the same read-only font metrics, so creating them is cheap.
+ */
+final class PdfFonts {
+
+    final PDType1Font regular;
+    final PDType1Font bold;
+
+    PdfFonts() throws IOException {
+        this.regular = standard14("Helvetica");
+        this.bold = standard14("Helvetica-Bold");
+    }
+
+    private static PDType1Font standard14(String baseFont) throws IOException {
+        COSDictionary dictionary = new COSDictionary();
+        dictionary.setItem(COSName.TYPE, COSName.FONT);
+        dictionary.setItem(COSName.SUBTYPE, COSName.TYPE1);
+        dictionary.setName(COSName.BASE_FONT, baseFont);
+        dictionary.setItem(COSName.ENCODING, COSName.WIN_ANSI_ENCODING);
+        return new PDType1Font(dictionary);
+    }
+}
@@ -0,0 +1,134 @@
+package com.notesapp.services;
+
+import com.notesapp.enums.ImageVariantSize;
+import com.notesapp.services.ImageVariantService.ImageVariant;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The images embedded in one PDF document.
+ * Each stored file is embedded once, as one image XObject that every occurrence draws, so
+ * an image repeated across the document's notes adds its bytes only once.
+ * Images are embedded from their {@link ImageVariantSize#PDF} variant, which is decoded with
+ * source subsampling and cached on disk by {@link ImageVariantService}, so an export never
+ * decodes a full-resolution original and repeated exports do not decode at all. JPEGs are
+ * embedded as they are stored, without decoding and re-encoding them.
+ */
+@Slf4j
+final class PdfImages {
+
+    private static final String JPEG_CONTENT_TYPE = "image/jpeg";
+
+    private final PDDocument document;
+    private final FileStorageService fileStorageService;
+    private final ImageVariantService imageVariantService;
+    private final Map<String, Optional<PDImageXObject>> byStorageKey = new HashMap<>();
+
+    PdfImages(PDDocument document, FileStorageService fileStorageService, ImageVariantService imageVariantService) {
+        this.document = document;
+        this.fileStorageService = fileStorageService;
+        this.imageVariantService = imageVariantService;
+    }
+
+    /**
+     * Gets the image a media URL points to, embedding it on first use.
+     *
+     * @param mediaUrl The media URL from the note, such as "/api/media/images/{filename}"
+     * @return The embedded image, or empty if the file is missing or not a supported image
+     */
+    Optional<PDImageXObject> get(String mediaUrl) {
+        String filename = mediaUrl.substring(mediaUrl.lastIndexOf('/') + 1);
+        String key;
+        try {
+            key = fileStorageService.storageKey(filename);
+        } catch (SecurityException e) {
+            log.warn("Skipping image with invalid filename {} in PDF export", mediaUrl);
+            return Optional.empty();
+        }
+
+        Optional<PDImageXObject> image = byStorageKey.get(key);
+        if (image == null) {
+            image = embed(filename);
+            byStorageKey.put(key, image);
+        }
+        return image;
+    }
+
+    private Optional<PDImageXObject> embed(String filename) {
+        try {
+            Optional<ImageVariant> variant = imageVariantService.getVariant(filename, ImageVariantSize.PDF);
+            if (variant.isPresent()) {
+                return Optional.of(create(variant.get().getPath(), variant.get().getContentType()));
+            }
+            return embedOriginal(filename);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to embed image {} in PDF export: {}", filename, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Embeds an original that has no PDF variant, provided it is a decodable image that
+     * already fits the PDF size; originals too large to downscale are left out.
+     */
+    private Optional<PDImageXObject> embedOriginal(String filename) throws IOException {
+        Path source = fileStorageService.locateFile(filename);
+        String contentType;
+
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                log.debug("No image decoder for {}, leaving it out of the PDF", filename);
+                return Optional.empty();
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if (Math.max(reader.getWidth(0), reader.getHeight(0)) > ImageVariantSize.PDF.getMaxDimension()) {
+                    log.warn("Image {} is too large to downscale, leaving it out of the PDF", filename);
+                    return Optional.empty();
+                }
+                contentType = "jpeg".equalsIgnoreCase(reader.getFormatName()) ? JPEG_CONTENT_TYPE : null;
+            } catch (IIOException e) {
+                log.warn("Failed to read image {}, leaving it out of the PDF: {}", filename, e.getMessage());
+                return Optional.empty();
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        return Optional.of(create(source, contentType));
+    }
+
+    private PDImageXObject create(Path path, String contentType) throws IOException {
+        if (JPEG_CONTENT_TYPE.equals(contentType)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                return JPEGFactory.createFromStream(document, in);
+            }
+        }
+
+        BufferedImage image = ImageIO.read(path.toFile());
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + path.getFileName());
+        }
+        return LosslessFactory.createFromImage(document, image);
+    }
+}
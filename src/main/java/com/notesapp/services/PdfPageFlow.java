@@ -0,0 +1,123 @@
+package com.notesapp.services;
+
+import com.notesapp.config.AppConstants;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Flows lines of text and images down A4 pages, adding a page whenever the next line would
+ * fall below the bottom margin, so content of any length is laid out in full.
+ * Lines are placed by baseline from the top margin; each line moves the cursor down by its
+ * own advance. Callers pass lines that are already wrapped and measured, so the flow itself
+ * never measures text and its cost is linear in the number of lines.
+ */
+final class PdfPageFlow implements Closeable {
+
+    private final PDDocument document;
+    private PDPageContentStream contentStream;
+    private PDFont currentFont;
+    private float currentFontSize;
+    private float y;
+    private boolean pageEmpty;
+
+    PdfPageFlow(PDDocument document) throws IOException {
+        this.document = document;
+        newPage();
+    }
+
+    /**
+     * Draws one line at the cursor, on a new page if the cursor is below the bottom margin.
+     *
+     * @param font The font
+     * @param fontSize The font size
+     * @param x The left edge of the line
+     * @param text The line, which must fit the page width
+     * @param advance How far to move the cursor down afterwards
+     * @throws IOException If writing fails
+     */
+    void drawLine(PDFont font, float fontSize, float x, String text, float advance) throws IOException {
+        if (y < AppConstants.PDF_MARGIN) {
+            newPage();
+        }
+        if (font != currentFont || fontSize != currentFontSize) {
+            contentStream.setFont(font, fontSize);
+            currentFont = font;
+            currentFontSize = fontSize;
+        }
+        contentStream.beginText();
+        contentStream.newLineAtOffset(x, y);
+        contentStream.showText(text);
+        contentStream.endText();
+        y -= advance;
+        pageEmpty = false;
+    }
+
+    /**
+     * Draws an image with its top edge at the cursor, on a new page if it does not fit above
+     * the bottom margin, and moves the cursor to the first line below it.
+     *
+     * @param image The image
+     * @param x The left edge of the image
+     * @param width The width to draw the image at
+     * @param height The height to draw the image at, at most {@link AppConstants#PDF_WRITABLE_HEIGHT}
+     * @throws IOException If writing fails
+     */
+    void drawImage(PDImageXObject image, float x, float width, float height) throws IOException {
+        if (!pageEmpty && y - height < AppConstants.PDF_MARGIN) {
+            newPage();
+        }
+        contentStream.drawImage(image, x, y - height, width, height);
+        y -= height + AppConstants.PDF_LINE_HEIGHT;
+        pageEmpty = false;
+    }
+
+    /**
+     * Moves the cursor down, e.g. between sections. Ignored at the top of a page, so a page
+     * never starts with a gap.
+     *
+     * @param height The space to leave
+     */
+    void skip(float height) {
+        if (!pageEmpty) {
+            y -= height;
+        }
+    }
+
+    /**
+     * Starts a new page unless a line fits at the cursor with another {@code height} points
+     * below it, so a heading is not left alone at the bottom of a page.
+     *
+     * @param height The space needed below the next line
+     * @throws IOException If writing fails
+     */
+    void keepWithNext(float height) throws IOException {
+        if (!pageEmpty && y - height < AppConstants.PDF_MARGIN) {
+            newPage();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (contentStream != null) {
+            contentStream.close();
+            contentStream = null;
+        }
+    }
+
+    private void newPage() throws IOException {
+        close();
+        PDPage page = new PDPage(PDRectangle.A4);
+        document.addPage(page);
+        contentStream = new PDPageContentStream(document, page);
+        currentFont = null;
+        y = page.getMediaBox().getHeight() - AppConstants.PDF_MARGIN;
+        pageEmpty = true;
+    }
+}
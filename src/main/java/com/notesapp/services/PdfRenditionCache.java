@@ -0,0 +1,304 @@
+package com.notesapp.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Caches rendered single-note PDFs on disk, so exporting an unchanged note again sends a
+ * file instead of rendering it again.
+ * Renditions are keyed by note ID and a version string that identifies everything drawn,
+ * so a stale rendition is never served. Note UPDATE and DELETE events only drop a note's
+ * renditions early to reclaim space. The cache is bounded by total bytes and evicts least
+ * recently used renditions first.
+ */
+@Slf4j
+@Service
+public class PdfRenditionCache {
+
+  private static final String PDF = ".pdf";
+  private static final Pattern SAFE_SEGMENT = Pattern.compile("[A-Za-z0-9_-]+");
+
+  private final Path cacheDir;
+  private final long maxCacheBytes;
+  private final Map<String, CompletableFuture<Rendition>> inFlight = new ConcurrentHashMap<>();
+
+  // Access-ordered, guarded by this
+  private final LinkedHashMap<String, Rendition> cache = new LinkedHashMap<>(64, 0.75f, true);
+  private long cachedBytes;
+
+  public PdfRenditionCache(@Value("${notes.export.pdf-cache-dir:exports/pdf-cache}") String cacheDir,
+                           @Value("${notes.export.pdf-cache-max-mb:128}") long maxCacheMb) {
+    this.cacheDir = Paths.get(cacheDir).toAbsolutePath().normalize();
+    this.maxCacheBytes = maxCacheMb * 1024 * 1024;
+  }
+
+  /**
+   * Rebuilds the cache index from renditions left on disk, oldest first, so that
+   * recently written renditions survive the first evictions after a restart.
+   */
+  @PostConstruct
+  public void loadCacheIndex() {
+    try {
+      Files.createDirectories(cacheDir);
+      List<Path> existing;
+      try (Stream<Path> files = Files.walk(cacheDir, 2)) {
+        existing = files.filter(Files::isRegularFile)
+            .filter(path -> path.getFileName().toString().endsWith(PDF))
+            .filter(path -> !cacheDir.equals(path.getParent()))
+            .sorted(Comparator.comparingLong(this::lastModified))
+            .toList();
+      }
+      for (Path path : existing) {
+        String noteId = path.getParent().getFileName().toString();
+        String name = path.getFileName().toString();
+        String version = name.substring(0, name.length() - PDF.length());
+        admit(new Rendition(noteId, key(noteId, version), path, Files.size(path)));
+      }
+      log.info("PDF rendition cache initialized with {} renditions ({} bytes)", cache.size(), cachedBytes);
+    } catch (IOException e) {
+      log.warn("Failed to load PDF rendition cache index: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the cached rendition of a note version, rendering and caching it on first use.
+   * Concurrent requests for the same missing rendition share one rendering.
+   *
+   * @param noteId the note ID
+   * @param version identifies the rendered content; letters, digits, '-' and '_' only
+   * @param writer writes the PDF if it is not cached
+   * @return the rendition
+   * @throws IOException if rendering or writing the file fails
+   */
+  public Rendition getOrRender(String noteId, String version, RenditionWriter writer) throws IOException {
+    if (!SAFE_SEGMENT.matcher(noteId).matches() || !SAFE_SEGMENT.matcher(version).matches()) {
+      throw new IllegalArgumentException("Invalid rendition key: " + noteId + "/" + version);
+    }
+    String key = key(noteId, version);
+
+    Rendition cached = lookup(key);
+    if (cached != null) {
+      log.debug("PDF rendition cache hit: {}", key);
+      return cached;
+    }
+
+    CompletableFuture<Rendition> rendering = new CompletableFuture<>();
+    CompletableFuture<Rendition> existing = inFlight.putIfAbsent(key, rendering);
+    if (existing != null) {
+      return await(existing);
+    }
+
+    try {
+      Rendition rendition = render(noteId, version, writer);
+      admit(rendition);
+      rendering.complete(rendition);
+      return rendition;
+    } catch (IOException | RuntimeException e) {
+      rendering.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key);
+    }
+  }
+
+  /**
+   * Drops every cached rendition of a note, e.g. once it has been changed or deleted.
+   *
+   * @param noteId the note ID
+   */
+  public synchronized void evictNote(String noteId) {
+    Iterator<Rendition> renditions = cache.values().iterator();
+    while (renditions.hasNext()) {
+      Rendition rendition = renditions.next();
+      if (rendition.noteId.equals(noteId)) {
+        renditions.remove();
+        cachedBytes -= rendition.getLength();
+        delete(rendition);
+      }
+    }
+  }
+
+  public synchronized long getCachedBytes() {
+    return cachedBytes;
+  }
+
+  public synchronized int getCachedCount() {
+    return cache.size();
+  }
+
+  private Rendition render(String noteId, String version, RenditionWriter writer) throws IOException {
+    Path target = cacheDir.resolve(noteId).resolve(version + PDF);
+    Files.createDirectories(target.getParent());
+    Path temp = Files.createTempFile(target.getParent(), version, ".tmp");
+    try {
+      try (OutputStream out = Files.newOutputStream(temp)) {
+        writer.writeTo(out);
+      }
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+
+    long length = Files.size(target);
+    log.debug("Cached PDF rendition {} ({} bytes)", key(noteId, version), length);
+    return new Rendition(noteId, key(noteId, version), target, length);
+  }
+
+  /**
+   * Looks up a cached rendition and marks it as recently used.
+   *
+   * @param key the rendition key
+   * @return the rendition, or null if it is not cached
+   */
+  private synchronized Rendition lookup(String key) {
+    Rendition rendition = cache.get(key);
+    if (rendition != null && !Files.isRegularFile(rendition.getPath())) {
+      cache.remove(key);
+      cachedBytes -= rendition.getLength();
+      return null;
+    }
+    return rendition;
+  }
+
+  /**
+   * Adds a rendition to the cache and evicts least recently used renditions beyond the size bound.
+   *
+   * @param rendition the rendition to add
+   */
+  private synchronized void admit(Rendition rendition) {
+    Rendition previous = cache.put(rendition.key, rendition);
+    if (previous != null) {
+      cachedBytes -= previous.getLength();
+    }
+    cachedBytes += rendition.getLength();
+
+    Iterator<Rendition> eldest = cache.values().iterator();
+    while (cachedBytes > maxCacheBytes && eldest.hasNext()) {
+      Rendition evicted = eldest.next();
+      if (evicted == rendition) {
+        break;
+      }
+      eldest.remove();
+      cachedBytes -= evicted.getLength();
+      delete(evicted);
+    }
+  }
+
+  private void delete(Rendition rendition) {
+    try {
+      Files.deleteIfExists(rendition.getPath());
+    } catch (IOException e) {
+      log.warn("Failed to delete PDF rendition {}: {}", rendition.getPath(), e.getMessage());
+    }
+  }
+
+  private Rendition await(CompletableFuture<Rendition> rendering) throws IOException {
+    try {
+      return rendering.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof IOException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private long lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path).toMillis();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static String key(String noteId, String version) {
+    return noteId + "/" + version;
+  }
+
+  /**
+   * Writes a PDF into the cache.
+   */
+  @FunctionalInterface
+  public interface RenditionWriter {
+    void writeTo(OutputStream out) throws IOException;
+  }
+
+  /**
+   * A cached PDF on disk.
+   */
+  public static final class Rendition {
+    private final String noteId;
+    private final String key;
+    private final Path path;
+    private final long length;
+
+    private Rendition(String noteId, String key, Path path, long length) {
+      this.noteId = noteId;
+      this.key = key;
+      this.path = path;
+      this.length = length;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public long getLength() {
+      return length;
+    }
+
+    public Path getPath() {
+      return path;
+    }
+
+    /**
+     * Writes the PDF to an output stream with {@link FileChannel#transferTo}, so the bytes
+     * are not copied through a heap buffer where the platform supports it.
+     *
+     * @param out the destination stream
+     * @throws IOException if the file cannot be read, e.g. because it was evicted meanwhile
+     */
+    public void transferTo(OutputStream out) throws IOException {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        WritableByteChannel target = Channels.newChannel(out);
+        long position = 0;
+        long remaining = channel.size();
+
+        while (remaining > 0) {
+          long transferred = channel.transferTo(position, remaining, target);
+          if (transferred <= 0) {
+            break;
+          }
+          position += transferred;
+          remaining -= transferred;
+        }
+      }
+    }
+  }
+}
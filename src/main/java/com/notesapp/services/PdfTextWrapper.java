@@ -0,0 +1,199 @@
+package com.notesapp.services;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps text into lines that fit a given width in one of the standard 14 PDF fonts.
+ * Glyph advance widths are measured once per font and character and cached for the life of
+ * the application. They are kept in glyph space (1/1000 em), so one table serves every font
+ * size. Wrapping adds up cached widths as it scans the text instead of measuring each
+ * candidate line again, so its cost is linear in the length of the text.
+ * Characters the font cannot encode, such as emoji, are replaced with {@link #REPLACEMENT}
+ * so that every line returned can be drawn.
+ */
+final class PdfTextWrapper {
+
+    static final char REPLACEMENT = '?';
+
+    private static final Map<String, GlyphWidths> WIDTHS = new ConcurrentHashMap<>();
+
+    private PdfTextWrapper() {
+    }
+
+    /**
+     * Wraps text at spaces to fit within a width. Line breaks in the text start a new line,
+     * and a word wider than the whole line is broken between characters.
+     *
+     * @param text The text to wrap
+     * @param maxWidth Maximum width in points
+     * @param font The font the lines will be drawn in
+     * @param fontSize The font size
+     * @return The lines, at least one; empty paragraphs become empty lines
+     */
+    static List<String> wrap(String text, float maxWidth, PDFont font, float fontSize) {
+        LineBreaker breaker = new LineBreaker(font, maxWidth * 1000 / fontSize);
+        StringBuilder word = new StringBuilder();
+        float wordWidth = 0;
+
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            if (codePoint == ' ' || codePoint == '\t' || codePoint == '\n' || codePoint == '\r') {
+                if (word.length() > 0) {
+                    breaker.addWord(word, wordWidth);
+                    word.setLength(0);
+                    wordWidth = 0;
+                }
+                if (codePoint == '\r' && i < text.length() && text.charAt(i) == '\n') {
+                    i++;
+                }
+                if (codePoint == '\n' || codePoint == '\r') {
+                    breaker.endLine();
+                }
+            } else {
+                char c = breaker.encodable(codePoint);
+                word.append(c);
+                wordWidth += breaker.width(c);
+            }
+        }
+
+        if (word.length() > 0) {
+            breaker.addWord(word, wordWidth);
+        }
+        breaker.endLine();
+        return breaker.lines;
+    }
+
+    /**
+     * Measures a single line of text, such as a bullet drawn before wrapped text.
+     *
+     * @param text The text, without line breaks
+     * @param font The font
+     * @param fontSize The font size
+     * @return The width in points, counting unencodable characters as {@link #REPLACEMENT}
+     */
+    static float width(String text, PDFont font, float fontSize) {
+        LineBreaker breaker = new LineBreaker(font, 0);
+        float width = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            width += breaker.width(breaker.encodable(codePoint));
+        }
+        return width * fontSize / 1000;
+    }
+
+    /**
+     * Builds the lines for one call to {@link #wrap}. Widths are in glyph space.
+     */
+    private static final class LineBreaker {
+
+        private final PDFont font;
+        private final GlyphWidths widths;
+        private final float maxWidth;
+        private final List<String> lines = new ArrayList<>();
+        private final StringBuilder line = new StringBuilder();
+        private float lineWidth;
+
+        LineBreaker(PDFont font, float maxWidth) {
+            this.font = font;
+            this.widths = WIDTHS.computeIfAbsent(font.getName(), name -> new GlyphWidths(font));
+            this.maxWidth = maxWidth;
+        }
+
+        char encodable(int codePoint) {
+            if (Character.isBmpCodePoint(codePoint) && !Float.isNaN(widths.of(codePoint, font))) {
+                return (char) codePoint;
+            }
+            return REPLACEMENT;
+        }
+
+        float width(char c) {
+            return widths.of(c, font);
+        }
+
+        void addWord(CharSequence word, float wordWidth) {
+            if (line.length() > 0) {
+                float widthWithWord = lineWidth + widths.space + wordWidth;
+                if (widthWithWord <= maxWidth) {
+                    line.append(' ').append(word);
+                    lineWidth = widthWithWord;
+                    return;
+                }
+                endLine();
+            }
+
+            if (wordWidth <= maxWidth) {
+                line.append(word);
+                lineWidth = wordWidth;
+                return;
+            }
+
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                float charWidth = width(c);
+                if (line.length() > 0 && lineWidth + charWidth > maxWidth) {
+                    endLine();
+                }
+                line.append(c);
+                lineWidth += charWidth;
+            }
+        }
+
+        void endLine() {
+            lines.add(line.toString());
+            line.setLength(0);
+            lineWidth = 0;
+        }
+    }
+
+    /**
+     * Advance widths of one font, with {@link Float#NaN} for characters it cannot encode.
+     * Latin-1 is measured up front; the few other characters WinAnsi covers (curly quotes,
+     * dashes, the euro sign) are measured on first use.
+     */
+    private static final class GlyphWidths {
+
+        private final float[] latin1 = new float[256];
+        private final Map<Integer, Float> others = new ConcurrentHashMap<>();
+        private final float space;
+
+        GlyphWidths(PDFont font) {
+            for (int c = 0; c < latin1.length; c++) {
+                latin1[c] = measure(font, c);
+            }
+            this.space = latin1[' '];
+        }
+
+        /**
+         * @param codePoint The character
+         * @param font The caller's instance of this font, used to measure uncached characters
+         * @return The advance width in glyph space, or NaN if the font cannot encode it
+         */
+        float of(int codePoint, PDFont font) {
+            if (codePoint < latin1.length) {
+                return latin1[codePoint];
+            }
+            return others.computeIfAbsent(codePoint, c -> measure(font, c));
+        }
+
+        private static float measure(PDFont font, int codePoint) {
+            try {
+                return font.getStringWidth(new String(Character.toChars(codePoint)));
+            } catch (IllegalArgumentException e) {
+                return Float.NaN;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
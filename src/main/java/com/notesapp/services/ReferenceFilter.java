@@ -0,0 +1,78 @@
+package com.notesapp.services;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bloom filter over storage keys, used to test media files against note references
+ * without holding every reference in memory.
+ * A key that was added is always reported as present; a key that was not is reported
+ * as present with roughly the configured false-positive rate, so callers may only rely
+ * on a negative answer.
+ */
+final class ReferenceFilter {
+
+  private static final double LN2 = Math.log(2);
+
+  private final long[] bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  /**
+   * @param expectedKeys the number of keys expected to be added
+   * @param falsePositiveRate the acceptable false-positive rate, between 0 and 1
+   */
+  ReferenceFilter(long expectedKeys, double falsePositiveRate) {
+    long keys = Math.max(1, expectedKeys);
+    long optimalBits = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (LN2 * LN2));
+    this.bitCount = Math.max(Long.SIZE, (optimalBits + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+    this.bits = new long[Math.toIntExact(bitCount / Long.SIZE)];
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / keys * LN2));
+  }
+
+  void add(String key) {
+    long hash1 = hash(key);
+    long hash2 = mix(hash1) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+      bits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  boolean mightContain(String key) {
+    long hash1 = hash(key);
+    long hash2 = mix(hash1) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+      if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  long sizeInBytes() {
+    return (long) bits.length * Long.BYTES;
+  }
+
+  /**
+   * 64-bit FNV-1a over the key's UTF-8 bytes, finished with a mixing step.
+   */
+  private static long hash(String key) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  /**
+   * SplitMix64 finalizer.
+   */
+  private static long mix(long value) {
+    long z = value + 0x9e3779b97f4a7c15L;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -41,7 +41,24 @@ public class SearchService {
             throw new IllegalArgumentException("Query cannot be null");
         }
 
-        return noteRepository.searchByText(userId, query);
+        String needle = query.toLowerCase();
+        return noteRepository.searchByText(userId, query).stream()
+            .filter(note -> matchesText(note, needle))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Checks a note the repository matched against its text rather than its HTML, so a query
+     * that only matched markup, such as a tag name or attribute, does not find the note.
+     * Bodies without markup were matched as text already.
+     */
+    private boolean matchesText(Note note, String needle) {
+        String body = note.getBody();
+        if (body == null || (body.indexOf('<') < 0 && body.indexOf('&') < 0)) {
+            return true;
+        }
+        return (note.getTitle() != null && note.getTitle().toLowerCase().contains(needle))
+            || HtmlText.toPlainText(body).toLowerCase().contains(needle);
     }
 
     public List<Note> filterByTags(String userId, List<Tag> tags) {
@@ -216,7 +216,7 @@ function createNoteCard(note) {
         ` : ''}
         ${note.images && note.images.length > 0 ? `
             <div class="flex gap-1 mb-2 overflow-x-auto">
-                ${note.images.slice(0, 3).map(img => `<img src="${img}" class="w-16 h-16 object-cover rounded border border-gray-200 dark:border-gray-600">`).join('')}
+                ${note.images.slice(0, 3).map(img => `<img src="${img}?size=thumb" loading="lazy" class="w-16 h-16 object-cover rounded border border-gray-200 dark:border-gray-600">`).join('')}
                 ${note.images.length > 3 ? `<div class="w-16 h-16 flex items-center justify-center bg-gray-100 dark:bg-gray-700 rounded text-xs text-gray-600 dark:text-gray-400">+${note.images.length - 3}</div>` : ''}
             </div>
         ` : ''}
@@ -1126,7 +1126,7 @@ function displayImages() {
 
     container.innerHTML = currentNoteImages.map((url, index) => `
         <div class="relative group">
-            <img src="${url}" alt="Note image" class="w-full h-32 object-cover rounded-lg border-2 border-gray-200 dark:border-gray-600">
+            <img src="${url}?size=medium" alt="Note image" class="w-full h-32 object-cover rounded-lg border-2 border-gray-200 dark:border-gray-600">
             <button onclick="removeImage(${index})" class="absolute top-1 right-1 bg-red-500 text-white rounded-full p-1 opacity-0 group-hover:opacity-100 transition-opacity">
                 <svg class="w-4 h-4" fill="none" stroke="currentColor" viewBox="0 0 24 24">
                     <path stroke-linecap="round" stroke-linejoin="round" stroke-width="2" d="M6 18L18 6M6 6l12 12"/>
@@ -1202,17 +1202,48 @@ async function toggleAudioRecording() {
     }
 }
 
-async function uploadAudio(audioBlob) {
-    const formData = new FormData();
-    formData.append('file', audioBlob, 'recording.webm');
-    formData.append('noteId', editingNoteId);
+const CHUNK_RETRIES = 3;
 
+async function uploadAudio(audioBlob) {
     try {
-        const response = await fetch(`${API_BASE}/media/upload/audio`, {
-            method: 'POST',
-            body: formData
+        const params = new URLSearchParams({
+            noteId: editingNoteId,
+            filename: 'recording.webm',
+            contentType: audioBlob.type || 'audio/webm',
+            totalSize: audioBlob.size
         });
+        const createResponse = await fetch(`${API_BASE}/media/uploads/audio?${params}`, { method: 'POST' });
+        if (!createResponse.ok) {
+            throw new Error('Failed to start audio upload');
+        }
+        const session = await createResponse.json();
+
+        let offset = session.offset;
+        let failures = 0;
+        while (offset < audioBlob.size) {
+            const chunk = audioBlob.slice(offset, offset + session.maxChunkSize);
+            try {
+                const response = await fetch(`${API_BASE}/media/uploads/${session.uploadId}?offset=${offset}`, {
+                    method: 'PUT',
+                    headers: { 'Content-Type': 'application/octet-stream' },
+                    body: chunk
+                });
+                if (response.ok || response.status === 409) {
+                    // 409 carries the server's offset; resume from there
+                    offset = (await response.json()).offset;
+                    failures = 0;
+                    continue;
+                }
+                throw new Error(`Chunk upload failed with status ${response.status}`);
+            } catch (error) {
+                if (++failures > CHUNK_RETRIES) {
+                    throw error;
+                }
+                console.warn(`Retrying audio chunk at offset ${offset}:`, error);
+            }
+        }
 
+        const response = await fetch(`${API_BASE}/media/uploads/${session.uploadId}/complete`, { method: 'POST' });
         if (!response.ok) {
             throw new Error('Failed to upload audio');
         }
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
+import java.time.LocalDateTime;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @DisplayName("ChecklistItem Entity Tests")
@@ -35,6 +37,17 @@ class ChecklistItemTest {
         assertTrue(item.getIsChecked());
     }
 
+    @Test
+    @DisplayName("toggle() - Updates the note's timestamp")
+    void test_toggle_setsNoteUpdatedAt() {
+        LocalDateTime stale = LocalDateTime.now().minusDays(1);
+        testNote.setUpdatedAt(stale);
+
+        item.toggle();
+
+        assertTrue(testNote.getUpdatedAt().isAfter(stale));
+    }
+
     @Test
     @DisplayName("toggle() - Checked item becomes unchecked")
     void test_toggle_checkedItem_becomesUnchecked() {
@@ -149,6 +149,64 @@ class NoteTest {
         assertEquals("Tag cannot be null", exception.getMessage());
     }
 
+    @Test
+    @DisplayName("addTag() - Updates timestamp")
+    void test_addTag_setsUpdatedAt_timestamp() {
+        LocalDateTime stale = LocalDateTime.now().minusDays(1);
+        note.setUpdatedAt(stale);
+
+        note.addTag(testTag);
+
+        assertTrue(note.getUpdatedAt().isAfter(stale));
+        assertTrue(testTag.getNotes().contains(note));
+    }
+
+    @Test
+    @DisplayName("removeTag() - Updates timestamp")
+    void test_removeTag_setsUpdatedAt_timestamp() {
+        LocalDateTime stale = LocalDateTime.now().minusDays(1);
+        note.addTag(testTag);
+        note.setUpdatedAt(stale);
+
+        note.removeTag(testTag);
+
+        assertTrue(note.getUpdatedAt().isAfter(stale));
+        assertFalse(note.getTags().contains(testTag));
+        assertFalse(testTag.getNotes().contains(note));
+    }
+
+    @Test
+    @DisplayName("addTag() - Keeps the note findable in its other tags' sets")
+    void test_addTag_otherTagsStillContainNote() {
+        Tag other = new Tag();
+        other.setTagId("tag-2");
+        other.setName("Other");
+        note.addTag(other);
+
+        note.addTag(testTag);
+        note.removeTag(testTag);
+
+        assertTrue(other.getNotes().contains(note));
+    }
+
+    @Test
+    @DisplayName("addImage() / removeImage() - Update timestamp")
+    void test_addImage_removeImage_setsUpdatedAt_timestamp() {
+        LocalDateTime stale = LocalDateTime.now().minusDays(1);
+        note.setUpdatedAt(stale);
+
+        note.addImage("/api/media/images/a.png");
+
+        assertTrue(note.getImages().contains("/api/media/images/a.png"));
+        assertTrue(note.getUpdatedAt().isAfter(stale));
+
+        note.setUpdatedAt(stale);
+        assertFalse(note.removeImage("/api/media/images/missing.png"));
+        assertEquals(stale, note.getUpdatedAt());
+        assertTrue(note.removeImage("/api/media/images/a.png"));
+        assertTrue(note.getUpdatedAt().isAfter(stale));
+    }
+
     @Test
     @DisplayName("removeTag() - Null tag throws IllegalArgumentException")
     void test_removeTag_nullTag_throwsException() {
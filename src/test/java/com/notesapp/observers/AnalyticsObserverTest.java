@@ -0,0 +1,94 @@
+package com.notesapp.observers;
+
+import com.notesapp.entities.Note;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AnalyticsObserver Tests")
+class AnalyticsObserverTest {
+
+    private AnalyticsObserver observer;
+    private Note note;
+
+    @BeforeEach
+    void setUp() {
+        observer = new AnalyticsObserver();
+        note = new Note();
+        note.setNoteId("note-1");
+        note.setUserId("user-1");
+        note.setTitle("Test Note");
+    }
+
+    @Test
+    @DisplayName("getEventCounts() - Starts at zero for all event types")
+    void test_getEventCounts_initiallyZero() {
+        Map<String, Integer> counts = observer.getEventCounts();
+
+        assertEquals(0, counts.get("CREATE"));
+        assertEquals(0, counts.get("UPDATE"));
+        assertEquals(0, counts.get("DELETE"));
+    }
+
+    @Test
+    @DisplayName("update() - Counts events in totals and sliding windows")
+    void test_update_countsInWindows() {
+        observer.update(note, "CREATE");
+        observer.update(note, "UPDATE");
+        observer.update(note, "UPDATE");
+
+        Map<String, Long> updateStats = observer.getEventStats().get("UPDATE");
+        assertEquals(2L, updateStats.get("total"));
+        assertEquals(2L, updateStats.get("lastMinute"));
+        assertEquals(2L, updateStats.get("lastHour"));
+        assertEquals(1, observer.getEventCounts().get("CREATE"));
+    }
+
+    @Test
+    @DisplayName("update() - Tracks per-user breakdowns")
+    void test_update_tracksPerUser() {
+        Note other = new Note();
+        other.setUserId("user-2");
+
+        observer.update(note, "CREATE");
+        observer.update(note, "DELETE");
+        observer.update(other, "CREATE");
+
+        assertEquals(1L, observer.getUserEventCounts("user-1").get("CREATE"));
+        assertEquals(1L, observer.getUserEventCounts("user-1").get("DELETE"));
+        assertEquals(2L, observer.getUserTotals().get("user-1"));
+        assertEquals(1L, observer.getUserTotals().get("user-2"));
+        assertTrue(observer.getUserEventCounts("missing").isEmpty());
+    }
+
+    @Test
+    @DisplayName("update() - Concurrent updates lose no counts")
+    void test_update_concurrent_noLostCounts() throws InterruptedException {
+        int threads = 8;
+        int perThread = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    observer.update(note, "UPDATE");
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(threads * perThread, observer.getEventCounts().get("UPDATE"));
+        assertEquals((long) threads * perThread, observer.getUserEventCounts("user-1").get("UPDATE"));
+    }
+}
@@ -0,0 +1,184 @@
+package com.notesapp.observers;
+
+import com.notesapp.entities.Note;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("NoteEventBus Tests")
+class NoteEventBusTest {
+
+    private NoteEventBus bus;
+
+    @AfterEach
+    void tearDown() {
+        if (bus != null) {
+            bus.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Constructor - Rejects buffer sizes that are not powers of two")
+    void test_constructor_nonPowerOfTwo_throwsException() {
+        assertThrows(IllegalArgumentException.class, () ->
+            new NoteEventBus(List.of(), 1000, WaitStrategy.of("blocking"), NoteEventBus.OverflowPolicy.BLOCK, 10));
+    }
+
+    @Test
+    @DisplayName("WaitStrategy.of() - Rejects unknown strategy names")
+    void test_waitStrategyOf_unknownName_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> WaitStrategy.of("lazy"));
+    }
+
+    @Test
+    @DisplayName("publish() - Every observer receives all events in order")
+    void test_publish_deliversInOrderToEachObserver() throws InterruptedException {
+        RecordingObserver first = new RecordingObserver(200);
+        RecordingObserver second = new RecordingObserver(200);
+        bus = new NoteEventBus(List.of(first, second), 64, WaitStrategy.of("sleeping"),
+            NoteEventBus.OverflowPolicy.BLOCK, 5000);
+        bus.start();
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(bus.publish(note("note-" + i), "UPDATE"));
+        }
+
+        assertTrue(first.done.await(10, TimeUnit.SECONDS));
+        assertTrue(second.done.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 200; i++) {
+            assertEquals("note-" + i, first.noteIds.get(i));
+            assertEquals("note-" + i, second.noteIds.get(i));
+        }
+        assertTrue(first.batches.get() >= 1);
+        assertEquals(0, bus.getDroppedEventCount());
+    }
+
+    @Test
+    @DisplayName("publish() - Returns before a slow observer finishes")
+    void test_publish_doesNotWaitForObserver() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(1);
+        NoteObserver slow = (note, eventType) -> {
+            received.countDown();
+            awaitQuietly(release);
+        };
+        bus = new NoteEventBus(List.of(slow), 8, WaitStrategy.of("blocking"),
+            NoteEventBus.OverflowPolicy.BLOCK, 1000);
+        bus.start();
+
+        assertTrue(bus.publish(note("note-1"), "CREATE"));
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("publish() - DROP policy drops events once the buffer is full")
+    void test_publish_dropPolicy_dropsWhenFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(1);
+        NoteObserver stuck = (note, eventType) -> {
+            received.countDown();
+            awaitQuietly(release);
+        };
+        bus = new NoteEventBus(List.of(stuck), 4, WaitStrategy.of("yielding"),
+            NoteEventBus.OverflowPolicy.DROP, 0);
+        bus.start();
+
+        bus.publish(note("note-0"), "UPDATE");
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < 4; i++) {
+            assertTrue(bus.publish(note("note-" + i), "UPDATE"));
+        }
+
+        assertFalse(bus.publish(note("note-4"), "UPDATE"));
+        assertEquals(1, bus.getDroppedEventCount());
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("publish() - CALLER_RUNS policy delivers on the caller thread when full")
+    void test_publish_callerRunsPolicy_deliversSynchronously() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(1);
+        List<String> callerThreadEvents = Collections.synchronizedList(new ArrayList<>());
+        Thread caller = Thread.currentThread();
+        NoteObserver stuck = (note, eventType) -> {
+            if (Thread.currentThread() == caller) {
+                callerThreadEvents.add(note.getNoteId());
+                return;
+            }
+            received.countDown();
+            awaitQuietly(release);
+        };
+        bus = new NoteEventBus(List.of(stuck), 2, WaitStrategy.of("busy-spin"),
+            NoteEventBus.OverflowPolicy.CALLER_RUNS, 0);
+        bus.start();
+
+        bus.publish(note("note-0"), "UPDATE");
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        bus.publish(note("note-1"), "UPDATE");
+        assertTrue(bus.publish(note("note-2"), "UPDATE"));
+
+        assertEquals(List.of("note-2"), callerThreadEvents);
+        assertEquals(0, bus.getDroppedEventCount());
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("unregister() - Removed observer stops receiving events")
+    void test_unregister_stopsDelivery() {
+        RecordingObserver observer = new RecordingObserver(1);
+        bus = new NoteEventBus(List.of(observer), 8, WaitStrategy.of("blocking"),
+            NoteEventBus.OverflowPolicy.BLOCK, 100);
+        bus.start();
+
+        bus.unregister(observer);
+
+        assertEquals(0, bus.getObserverCount());
+        assertTrue(bus.publish(note("note-1"), "UPDATE"));
+    }
+
+    private static Note note(String id) {
+        Note note = new Note();
+        note.setNoteId(id);
+        return note;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class RecordingObserver implements NoteObserver {
+        private final List<String> noteIds = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger batches = new AtomicInteger();
+        private final CountDownLatch done;
+
+        private RecordingObserver(int expected) {
+            this.done = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void update(Note note, String eventType) {
+            noteIds.add(note.getNoteId());
+            done.countDown();
+        }
+
+        @Override
+        public void onEndOfBatch() {
+            batches.incrementAndGet();
+        }
+    }
+}
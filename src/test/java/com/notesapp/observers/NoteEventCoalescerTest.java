@@ -0,0 +1,165 @@
+package com.notesapp.observers;
+
+import com.notesapp.entities.Note;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NoteEventCoalescer Tests")
+class NoteEventCoalescerTest {
+
+    @Mock
+    private NoteEventBus eventBus;
+
+    private NoteEventCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new NoteEventCoalescer(eventBus, 60000);
+    }
+
+    @Test
+    @DisplayName("publish() - CREATE is published immediately")
+    void test_publish_create_passesThrough() {
+        Note note = note("note-1", "v1");
+
+        coalescer.publish(note, "CREATE");
+
+        verify(eventBus).publish(note, "CREATE");
+        assertEquals(0, coalescer.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("publish() - Updates are held until the window closes")
+    void test_publish_update_deferred() {
+        coalescer.publish(note("note-1", "v1"), "UPDATE");
+
+        verify(eventBus, never()).publish(any(Note.class), anyString());
+        assertEquals(1, coalescer.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("flushDue() - Successive updates collapse into the latest version")
+    void test_flushDue_collapsesToLatest() {
+        Note latest = note("note-1", "v3");
+        coalescer.publish(note("note-1", "v1"), "UPDATE");
+        coalescer.publish(note("note-1", "v2"), "UPDATE");
+        coalescer.publish(latest, "UPDATE");
+
+        coalescer.flushDue(Long.MAX_VALUE);
+
+        verify(eventBus, times(1)).publish(any(Note.class), eq("UPDATE"));
+        verify(eventBus).publish(latest, "UPDATE");
+        assertEquals(2, coalescer.getCoalescedCount());
+        assertEquals(0, coalescer.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("flushDue() - Updates inside the window are kept")
+    void test_flushDue_beforeWindow_keepsPending() {
+        coalescer.publish(note("note-1", "v1"), "UPDATE");
+
+        coalescer.flushDue(System.currentTimeMillis());
+
+        verify(eventBus, never()).publish(any(Note.class), anyString());
+        assertEquals(1, coalescer.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("flushDue() - Updates to different notes are kept separate")
+    void test_flushDue_differentNotes_publishesEach() {
+        coalescer.publish(note("note-1", "a"), "UPDATE");
+        coalescer.publish(note("note-2", "b"), "UPDATE");
+
+        coalescer.flushDue(Long.MAX_VALUE);
+
+        verify(eventBus, times(2)).publish(any(Note.class), eq("UPDATE"));
+    }
+
+    @Test
+    @DisplayName("publish() - DELETE cancels the pending update")
+    void test_publish_delete_cancelsPendingUpdate() {
+        Note deleted = note("note-1", "v2");
+        coalescer.publish(note("note-1", "v1"), "UPDATE");
+
+        coalescer.publish(deleted, "DELETE");
+        coalescer.flushDue(Long.MAX_VALUE);
+
+        verify(eventBus).publish(deleted, "DELETE");
+        verify(eventBus, never()).publish(any(Note.class), eq("UPDATE"));
+    }
+
+    @Test
+    @DisplayName("flushDue() - Publishes outside the map, after the pending update is marked")
+    void test_flushDue_publishesOutsideCompute() {
+        Note first = note("note-1", "v1");
+        Note second = note("note-1", "v2");
+        coalescer.publish(first, "UPDATE");
+        when(eventBus.publish(first, "UPDATE")).thenAnswer(invocation -> {
+            // Would deadlock or throw if the flusher still held the entry's bin lock
+            coalescer.publish(second, "UPDATE");
+            return true;
+        });
+
+        coalescer.flushDue(Long.MAX_VALUE);
+
+        verify(eventBus).publish(first, "UPDATE");
+        verify(eventBus, never()).publish(second, "UPDATE");
+        assertEquals(1, coalescer.getPendingCount());
+        coalescer.flushDue(Long.MAX_VALUE);
+        verify(eventBus).publish(second, "UPDATE");
+    }
+
+    @Test
+    @DisplayName("publish() - DELETE during a flush is published after the flushed update")
+    void test_publish_deleteWhileFlushing_orderedAfterUpdate() {
+        Note updated = note("note-1", "v1");
+        Note deleted = note("note-1", "v2");
+        coalescer.publish(updated, "UPDATE");
+        when(eventBus.publish(updated, "UPDATE")).thenAnswer(invocation -> {
+            coalescer.publish(deleted, "DELETE");
+            verify(eventBus, never()).publish(deleted, "DELETE");
+            return true;
+        });
+
+        coalescer.flushDue(Long.MAX_VALUE);
+
+        InOrder order = inOrder(eventBus);
+        order.verify(eventBus).publish(updated, "UPDATE");
+        order.verify(eventBus).publish(deleted, "DELETE");
+        assertEquals(0, coalescer.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("publish() - Zero window disables coalescing")
+    void test_publish_zeroWindow_passesThrough() {
+        NoteEventCoalescer passThrough = new NoteEventCoalescer(eventBus, 0);
+        Note first = note("note-1", "v1");
+        Note second = note("note-1", "v2");
+
+        passThrough.publish(first, "UPDATE");
+        passThrough.publish(second, "UPDATE");
+
+        InOrder order = inOrder(eventBus);
+        order.verify(eventBus).publish(first, "UPDATE");
+        order.verify(eventBus).publish(second, "UPDATE");
+    }
+
+    private static Note note(String id, String title) {
+        Note note = new Note();
+        note.setNoteId(id);
+        note.setTitle(title);
+        return note;
+    }
+}
@@ -0,0 +1,202 @@
+package com.notesapp.services;
+
+import com.notesapp.entities.UploadSession;
+import com.notesapp.repositories.UploadSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ChunkedUploadService Tests")
+class ChunkedUploadServiceTest {
+
+    // WebM (EBML) magic bytes followed by filler, 20 bytes in all
+    private static final byte[] CONTENT = {
+            0x1A, 0x45, (byte) 0xDF, (byte) 0xA3, '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+    };
+
+    @TempDir
+    Path uploadDir;
+
+    @Mock
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    private ChunkedUploadService chunkedUploadService;
+    private UploadSession session;
+    private Path part;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        chunkedUploadService = newService();
+        session = chunkedUploadService.createSession("note-1", "recording.webm", "audio/webm", CONTENT.length);
+        part = uploadDir.resolve(".chunks").resolve(session.getUploadId() + ".part");
+    }
+
+    @Test
+    @DisplayName("completeUpload() - Stores chunks sent in order with the running digest")
+    void test_completeUpload_inOrder() throws Exception {
+        assertEquals(8, chunkedUploadService.appendChunk(session, 0, chunk(0, 8)));
+        assertEquals(20, chunkedUploadService.appendChunk(session, 8, chunk(8, 20)));
+        assertArrayEquals(CONTENT, Files.readAllBytes(part));
+        when(fileStorageService.storeStagedFile(any(Path.class), any(), eq("recording.webm"), eq("audio/"))).thenReturn("stored.webm");
+
+        assertEquals("stored.webm", chunkedUploadService.completeUpload(session));
+
+        verify(fileStorageService).storeStagedFile(part, sha256(CONTENT), "recording.webm", "audio/");
+        verify(uploadSessionRepository).deleteById(session.getUploadId());
+        assertFalse(Files.exists(part));
+    }
+
+    @Test
+    @DisplayName("appendChunk() - Skips the already received part of a resent chunk")
+    void test_appendChunk_retryIsIdempotent() throws Exception {
+        chunkedUploadService.appendChunk(session, 0, chunk(0, 8));
+
+        assertEquals(8, chunkedUploadService.appendChunk(session, 0, chunk(0, 8)));
+        assertEquals(20, chunkedUploadService.appendChunk(session, 4, chunk(4, 20)));
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(part));
+        chunkedUploadService.completeUpload(session);
+        verify(fileStorageService).storeStagedFile(part, sha256(CONTENT), "recording.webm", "audio/");
+    }
+
+    @Test
+    @DisplayName("appendChunk() - Rejects a chunk past the bytes received")
+    void test_appendChunk_gap() throws Exception {
+        chunkedUploadService.appendChunk(session, 0, chunk(0, 8));
+
+        assertThrows(IllegalStateException.class, () -> chunkedUploadService.appendChunk(session, 12, chunk(12, 20)));
+        assertEquals(8, chunkedUploadService.getReceivedBytes(session));
+    }
+
+    @Test
+    @DisplayName("appendChunk() - Truncates a chunk that fails midway so it can be resent")
+    void test_appendChunk_failedChunk() throws Exception {
+        chunkedUploadService.appendChunk(session, 0, chunk(0, 8));
+        InputStream broken = new SequenceInputStream(chunk(8, 14), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        });
+
+        assertThrows(IOException.class, () -> chunkedUploadService.appendChunk(session, 8, broken));
+        assertEquals(8, chunkedUploadService.getReceivedBytes(session));
+
+        chunkedUploadService.appendChunk(session, 8, chunk(8, 20));
+        chunkedUploadService.completeUpload(session);
+        verify(fileStorageService).storeStagedFile(part, sha256(CONTENT), "recording.webm", "audio/");
+    }
+
+    @Test
+    @DisplayName("appendChunk() - Rejects data past the declared size")
+    void test_appendChunk_pastTotalSize() throws Exception {
+        InputStream oversized = new SequenceInputStream(chunk(0, 20), chunk(0, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> chunkedUploadService.appendChunk(session, 0, oversized));
+        assertEquals(0, chunkedUploadService.getReceivedBytes(session));
+    }
+
+    @Test
+    @DisplayName("appendChunk() - Rejects an upload whose first bytes are not audio")
+    void test_appendChunk_spoofedContent() throws Exception {
+        byte[] html = "<html><body>not audio</body></html>".getBytes(StandardCharsets.UTF_8);
+        UploadSession spoofed = chunkedUploadService.createSession("note-1", "voice.webm", "audio/webm", html.length);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> chunkedUploadService.appendChunk(spoofed, 0, new ByteArrayInputStream(html, 0, 16)));
+        assertEquals(0, chunkedUploadService.getReceivedBytes(spoofed));
+    }
+
+    @Test
+    @DisplayName("appendChunk() - Checks the magic bytes once chunks supply enough of them")
+    void test_appendChunk_shortFirstChunk() throws Exception {
+        byte[] text = "plain text, not audio".getBytes(StandardCharsets.UTF_8);
+        UploadSession spoofed = chunkedUploadService.createSession("note-1", "voice.webm", "audio/webm", text.length);
+
+        assertEquals(4, chunkedUploadService.appendChunk(spoofed, 0, new ByteArrayInputStream(text, 0, 4)));
+        assertThrows(IllegalArgumentException.class,
+                () -> chunkedUploadService.appendChunk(spoofed, 4, new ByteArrayInputStream(text, 4, 12)));
+        assertEquals(4, chunkedUploadService.getReceivedBytes(spoofed));
+    }
+
+    @Test
+    @DisplayName("completeUpload() - Refuses to complete while bytes are missing")
+    void test_completeUpload_incomplete() throws Exception {
+        chunkedUploadService.appendChunk(session, 0, chunk(0, 8));
+
+        assertThrows(IllegalStateException.class, () -> chunkedUploadService.completeUpload(session));
+        verify(fileStorageService, never()).storeStagedFile(any(), any(), any(), any());
+        assertTrue(Files.exists(part));
+    }
+
+    @Test
+    @DisplayName("completeUpload() - Leaves hashing to storage when chunks arrived on another node")
+    void test_completeUpload_digestUnavailable() throws Exception {
+        chunkedUploadService.appendChunk(session, 0, chunk(0, 8));
+        ChunkedUploadService otherNode = newService();
+        otherNode.appendChunk(session, 8, chunk(8, 20));
+
+        otherNode.completeUpload(session);
+
+        verify(fileStorageService).storeStagedFile(eq(part), isNull(), eq("recording.webm"), eq("audio/"));
+    }
+
+    @Test
+    @DisplayName("expireSessions() - Aborts stale uploads and keeps active ones")
+    void test_expireSessions() throws Exception {
+        UploadSession active = chunkedUploadService.createSession("note-1", "b.webm", "audio/webm", 10);
+        session.setCreatedAt(LocalDateTime.now().minusDays(2));
+        active.setCreatedAt(LocalDateTime.now().minusDays(2));
+        Files.setLastModifiedTime(part, FileTime.fromMillis(0));
+        when(uploadSessionRepository.findByCreatedAtBefore(any(LocalDateTime.class))).thenReturn(List.of(session, active));
+
+        chunkedUploadService.expireSessions();
+
+        assertFalse(Files.exists(part));
+        verify(uploadSessionRepository).deleteById(session.getUploadId());
+        verify(uploadSessionRepository, never()).deleteById(active.getUploadId());
+    }
+
+    private ChunkedUploadService newService() {
+        ChunkedUploadService service = new ChunkedUploadService(uploadDir.toString());
+        ReflectionTestUtils.setField(service, "uploadSessionRepository", uploadSessionRepository);
+        ReflectionTestUtils.setField(service, "fileStorageService", fileStorageService);
+        return service;
+    }
+
+    private InputStream chunk(int from, int to) {
+        return new ByteArrayInputStream(CONTENT, from, to - from);
+    }
+
+    private String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
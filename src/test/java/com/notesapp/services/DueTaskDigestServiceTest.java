@@ -0,0 +1,126 @@
+package com.notesapp.services;
+
+import com.notesapp.enums.NotificationChannel;
+import com.notesapp.enums.TaskStatus;
+import com.notesapp.mediator.NotificationMediator;
+import com.notesapp.repositories.TaskRepository;
+import com.notesapp.repositories.TaskRepository.DueTaskView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DueTaskDigestService Tests")
+class DueTaskDigestServiceTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private NotificationMediator mediator;
+
+    @InjectMocks
+    private DueTaskDigestService digestService;
+
+    @AfterEach
+    void tearDown() {
+        digestService.shutdown();
+    }
+
+    @Test
+    @DisplayName("sendDueTaskDigests() - No due tasks sends nothing")
+    void test_sendDueTaskDigests_noTasks_sendsNothing() {
+        when(taskRepository.streamDueTasksByUser(eq(TaskStatus.PENDING), any(LocalDateTime.class)))
+            .thenReturn(Stream.empty());
+
+        assertEquals(0, digestService.sendDueTaskDigests(LocalDateTime.now()));
+        verify(mediator, never()).broadcast(anyString(), anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("sendDueTaskDigests() - Sends one digest per user")
+    void test_sendDueTaskDigests_groupsByUser() {
+        LocalDateTime due = LocalDateTime.now();
+        when(taskRepository.streamDueTasksByUser(eq(TaskStatus.PENDING), any(LocalDateTime.class)))
+            .thenReturn(Stream.of(
+                row("user-1", "Pay rent", due),
+                row("user-1", "Call bank", due),
+                row("user-2", "Submit report", due)));
+
+        int sent = digestService.sendDueTaskDigests(due);
+
+        assertEquals(2, sent);
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(mediator).broadcast(message.capture(), eq("user-1"), eq(List.of(NotificationChannel.IN_APP)));
+        assertTrue(message.getValue().startsWith("You have 2 tasks due:"));
+        assertTrue(message.getValue().contains("Pay rent"));
+        assertTrue(message.getValue().contains("Call bank"));
+        verify(mediator).broadcast(contains("Submit report"), eq("user-2"), anyList());
+    }
+
+    @Test
+    @DisplayName("sendDueTaskDigests() - Long digests list a bounded number of titles")
+    void test_sendDueTaskDigests_manyTasks_truncatesListing() {
+        LocalDateTime due = LocalDateTime.now();
+        when(taskRepository.streamDueTasksByUser(eq(TaskStatus.PENDING), any(LocalDateTime.class)))
+            .thenReturn(IntStream.range(0, 25).mapToObj(i -> row("user-1", "Task " + i, due)));
+
+        digestService.sendDueTaskDigests(due);
+
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(mediator).broadcast(message.capture(), eq("user-1"), anyList());
+        assertTrue(message.getValue().startsWith("You have 25 tasks due:"));
+        assertTrue(message.getValue().contains("…and 15 more"));
+        assertFalse(message.getValue().contains("Task 10"));
+    }
+
+    @Test
+    @DisplayName("sendDueTaskDigests() - A failing send does not stop other digests")
+    void test_sendDueTaskDigests_sendFailure_continues() {
+        LocalDateTime due = LocalDateTime.now();
+        when(taskRepository.streamDueTasksByUser(eq(TaskStatus.PENDING), any(LocalDateTime.class)))
+            .thenReturn(Stream.of(row("user-1", "A", due), row("user-2", "B", due)));
+        doThrow(new RuntimeException("channel down"))
+            .when(mediator).broadcast(anyString(), eq("user-1"), anyList());
+
+        assertEquals(1, digestService.sendDueTaskDigests(due));
+        verify(mediator).broadcast(anyString(), eq("user-2"), anyList());
+    }
+
+    private DueTaskView row(String userId, String title, LocalDateTime dueDate) {
+        return new DueTaskView() {
+            @Override
+            public String getUserId() {
+                return userId;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+
+            @Override
+            public LocalDateTime getDueDate() {
+                return dueDate;
+            }
+        };
+    }
+}
@@ -0,0 +1,238 @@
+package com.notesapp.services;
+
+import com.notesapp.config.AppConstants;
+import com.notesapp.entities.ExportJob;
+import com.notesapp.enums.ExportJobStatus;
+import com.notesapp.repositories.ExportJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ExportJobService Tests")
+class ExportJobServiceTest {
+
+    private static final List<String> NOTE_IDS = List.of("note-1", "note-2");
+
+    @TempDir
+    Path jobDir;
+
+    @Mock
+    private PDFExportService pdfExportService;
+
+    @Mock
+    private ExportJobRepository exportJobRepository;
+
+    @Mock
+    private LeaseCoordinator leaseCoordinator;
+
+    private final Map<String, ExportJob> rows = new ConcurrentHashMap<>();
+
+    private ExportJobService exportJobService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(leaseCoordinator.getNodeId()).thenReturn("node-a");
+        lenient().when(leaseCoordinator.getLiveNodes()).thenReturn(List.of("node-a"));
+        lenient().when(exportJobRepository.save(any(ExportJob.class))).thenAnswer(invocation -> {
+            ExportJob job = invocation.getArgument(0);
+            rows.put(job.getJobId(), copy(job));
+            return job;
+        });
+        lenient().when(exportJobRepository.findById(anyString()))
+            .thenAnswer(invocation -> Optional.ofNullable(rows.get(invocation.<String>getArgument(0))).map(ExportJobServiceTest::copy));
+        lenient().doAnswer(invocation -> rows.remove(invocation.<String>getArgument(0)))
+            .when(exportJobRepository).deleteById(anyString());
+        lenient().when(exportJobRepository.countByUserIdAndStatusIn(anyString(), any()))
+            .thenAnswer(invocation -> rows.values().stream()
+                .filter(job -> job.getUserId().equals(invocation.getArgument(0))
+                    && invocation.<Collection<?>>getArgument(1).contains(job.getStatus()))
+                .count());
+        lenient().when(exportJobRepository.findByStatusIn(any()))
+            .thenAnswer(invocation -> rows.values().stream()
+                .filter(job -> invocation.<Collection<?>>getArgument(0).contains(job.getStatus()))
+                .map(ExportJobServiceTest::copy)
+                .toList());
+        lenient().when(exportJobRepository.findByExpiresAtBefore(any(LocalDateTime.class)))
+            .thenAnswer(invocation -> rows.values().stream()
+                .filter(job -> job.isExpired(invocation.getArgument(0)))
+                .map(ExportJobServiceTest::copy)
+                .toList());
+
+        exportJobService = new ExportJobService(jobDir.toString());
+        ReflectionTestUtils.setField(exportJobService, "pdfExportService", pdfExportService);
+        ReflectionTestUtils.setField(exportJobService, "exportJobRepository", exportJobRepository);
+        ReflectionTestUtils.setField(exportJobService, "leaseCoordinator", leaseCoordinator);
+        exportJobService.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        exportJobService.shutdown();
+    }
+
+    @Test
+    @DisplayName("submit() - Runs the export in the background and keeps the PDF for download")
+    void test_submit_completes() throws Exception {
+        when(pdfExportService.exportMultipleNotesToPDF(eq(NOTE_IDS), eq(true), any(OutputStream.class), any(IntConsumer.class)))
+            .thenAnswer(invocation -> {
+                invocation.<IntConsumer>getArgument(3).accept(1);
+                invocation.<OutputStream>getArgument(2).write("%PDF-1.4".getBytes(StandardCharsets.US_ASCII));
+                return 2;
+            });
+
+        ExportJob job = awaitFinished(exportJobService.submit("user-1", NOTE_IDS, true));
+
+        assertEquals(ExportJobStatus.COMPLETED, job.getStatus());
+        assertEquals("node-a", job.getNodeId());
+        assertEquals(2, job.getTotalNotes());
+        assertEquals(2, job.getExportedNotes());
+        assertEquals(8, job.getLength());
+        assertNotNull(job.getExpiresAt());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportJobService.writeTo(job, out);
+        assertEquals("%PDF-1.4", out.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    @DisplayName("submit() - Records the error and deletes the partial file when the export fails")
+    void test_submit_fails() throws Exception {
+        when(pdfExportService.exportMultipleNotesToPDF(anyList(), anyBoolean(), any(OutputStream.class), any(IntConsumer.class)))
+            .thenAnswer(invocation -> {
+                invocation.<OutputStream>getArgument(2).write(1);
+                throw new IOException("disk full");
+            });
+
+        ExportJob job = awaitFinished(exportJobService.submit("user-1", NOTE_IDS, false));
+
+        assertEquals(ExportJobStatus.FAILED, job.getStatus());
+        assertTrue(job.getError().contains("disk full"));
+        assertThrows(IllegalStateException.class, () -> exportJobService.writeTo(job, new ByteArrayOutputStream()));
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    @DisplayName("submit() - Limits the jobs a user may have in progress")
+    void test_submit_perUserLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(pdfExportService.exportMultipleNotesToPDF(anyList(), anyBoolean(), any(OutputStream.class), any(IntConsumer.class)))
+            .thenAnswer(invocation -> {
+                release.await(5, TimeUnit.SECONDS);
+                return 2;
+            });
+
+        for (int i = 0; i < AppConstants.EXPORT_JOBS_PER_USER; i++) {
+            exportJobService.submit("user-1", NOTE_IDS, true);
+        }
+
+        assertThrows(IllegalStateException.class, () -> exportJobService.submit("user-1", NOTE_IDS, true));
+        ExportJob other = exportJobService.submit("user-2", NOTE_IDS, true);
+
+        release.countDown();
+        assertEquals(ExportJobStatus.COMPLETED, awaitFinished(other).getStatus());
+    }
+
+    @Test
+    @DisplayName("expireJobs() - Removes expired jobs and their files")
+    void test_expireJobs() throws Exception {
+        when(pdfExportService.exportMultipleNotesToPDF(anyList(), anyBoolean(), any(OutputStream.class), any(IntConsumer.class)))
+            .thenReturn(2);
+        ExportJob expired = awaitFinished(exportJobService.submit("user-1", NOTE_IDS, true));
+        ExportJob current = awaitFinished(exportJobService.submit("user-1", NOTE_IDS, true));
+        rows.get(expired.getJobId()).setExpiresAt(LocalDateTime.now().minusMinutes(1));
+
+        assertTrue(exportJobService.findJob(expired.getJobId()).isEmpty());
+        exportJobService.expireJobs();
+
+        assertFalse(Files.exists(jobDir.resolve(expired.getJobId() + ".pdf")));
+        assertTrue(Files.exists(jobDir.resolve(current.getJobId() + ".pdf")));
+        assertTrue(exportJobService.findJob(current.getJobId()).isPresent());
+    }
+
+    @Test
+    @DisplayName("initialize() - Fails jobs this node left unfinished and keeps other nodes' files")
+    void test_initialize_interruptedJobs() throws Exception {
+        rows.put("mine", job("mine", "node-a", ExportJobStatus.RUNNING));
+        rows.put("theirs", job("theirs", "node-b", ExportJobStatus.RUNNING));
+        Files.write(jobDir.resolve("mine.tmp"), new byte[] {1});
+        Files.write(jobDir.resolve("theirs.tmp"), new byte[] {1});
+        Files.write(jobDir.resolve("done.pdf"), new byte[] {1});
+
+        exportJobService.initialize();
+
+        assertEquals(ExportJobStatus.FAILED, rows.get("mine").getStatus());
+        assertEquals(ExportJobStatus.RUNNING, rows.get("theirs").getStatus());
+        assertFalse(Files.exists(jobDir.resolve("mine.tmp")));
+        assertTrue(Files.exists(jobDir.resolve("theirs.tmp")));
+        assertTrue(Files.exists(jobDir.resolve("done.pdf")));
+    }
+
+    @Test
+    @DisplayName("expireJobs() - Fails unfinished jobs of nodes that left the cluster")
+    void test_expireJobs_stoppedNode() {
+        rows.put("orphan", job("orphan", "node-b", ExportJobStatus.QUEUED));
+
+        exportJobService.expireJobs();
+
+        ExportJob orphan = exportJobService.findJob("orphan").orElseThrow();
+        assertEquals(ExportJobStatus.FAILED, orphan.getStatus());
+        assertNotNull(orphan.getExpiresAt());
+    }
+
+    private long countFiles() throws IOException {
+        try (var files = Files.list(jobDir)) {
+            return files.count();
+        }
+    }
+
+    private ExportJob awaitFinished(ExportJob submitted) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        ExportJob job = exportJobService.findJob(submitted.getJobId()).orElseThrow();
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            job = exportJobService.findJob(submitted.getJobId()).orElseThrow();
+        }
+        assertTrue(job.isFinished(), "job did not finish");
+        return job;
+    }
+
+    private static ExportJob job(String jobId, String nodeId, ExportJobStatus status) {
+        return new ExportJob(jobId, "user-1", nodeId, status, 2, 0, LocalDateTime.now(), null, null, null, null);
+    }
+
+    private static ExportJob copy(ExportJob job) {
+        return new ExportJob(job.getJobId(), job.getUserId(), job.getNodeId(), job.getStatus(), job.getTotalNotes(),
+            job.getExportedNotes(), job.getCreatedAt(), job.getFinishedAt(), job.getExpiresAt(), job.getError(),
+            job.getLength());
+    }
+}
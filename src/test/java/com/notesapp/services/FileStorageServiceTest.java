@@ -0,0 +1,372 @@
+package com.notesapp.services;
+
+import com.notesapp.config.AppConstants;
+import com.notesapp.entities.LegacyMediaAlias;
+import com.notesapp.entities.MediaBlob;
+import com.notesapp.repositories.LegacyMediaAliasRepository;
+import com.notesapp.repositories.MediaBlobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FileStorageService Tests")
+class FileStorageServiceTest {
+
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] CONTENT = withPngMagic("fake image bytes");
+
+    @TempDir
+    Path uploadDir;
+
+    @Mock
+    private MediaBlobRepository mediaBlobRepository;
+
+    @Mock
+    private LegacyMediaAliasRepository legacyMediaAliasRepository;
+
+    private FileStorageService fileStorageService;
+    private String hash;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fileStorageService = new FileStorageService(uploadDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "mediaBlobRepository", mediaBlobRepository);
+        ReflectionTestUtils.setField(fileStorageService, "legacyMediaAliasRepository", legacyMediaAliasRepository);
+        hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENT));
+    }
+
+    @Test
+    @DisplayName("storeFile() - Stores new content under its hash in prefix directories")
+    void test_storeFile_newContent() throws Exception {
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+
+        String filename = storeImage("photo.png");
+
+        assertEquals(hash + ".png", filename);
+        Path blob = uploadDir.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+        assertArrayEquals(CONTENT, Files.readAllBytes(blob));
+
+        ArgumentCaptor<MediaBlob> saved = ArgumentCaptor.forClass(MediaBlob.class);
+        verify(mediaBlobRepository).save(saved.capture());
+        assertEquals(hash, saved.getValue().getHash());
+        assertEquals(CONTENT.length, saved.getValue().getSizeBytes());
+        assertEquals(1, saved.getValue().getRefCount());
+    }
+
+    @Test
+    @DisplayName("storeFile() - Duplicate content only increments the reference count")
+    void test_storeFile_deduplicates() throws Exception {
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0, 1);
+
+        String first = storeImage("a.jpg");
+        String second = storeImage("b.jpg");
+
+        assertEquals(first, second);
+        verify(mediaBlobRepository, times(1)).save(any(MediaBlob.class));
+        verify(mediaBlobRepository, times(2)).incrementRefCount(hash);
+        try (var staged = Files.list(uploadDir.resolve(".incoming"))) {
+            assertEquals(0, staged.count());
+        }
+    }
+
+    @Test
+    @DisplayName("storeFile() - Records new content before moving its file into place")
+    void test_storeFile_recordsBeforeMove() throws Exception {
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+        Path blob = uploadDir.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+        when(mediaBlobRepository.save(any(MediaBlob.class))).thenAnswer(invocation -> {
+            assertFalse(Files.exists(blob));
+            return invocation.getArgument(0);
+        });
+
+        storeImage("photo.png");
+
+        assertTrue(Files.exists(blob));
+    }
+
+    @Test
+    @DisplayName("storeFile() - Drops extensions that are not plain alphanumerics")
+    void test_storeFile_unsafeExtension() throws Exception {
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+
+        assertEquals(hash, storeImage("clip.m p3"));
+    }
+
+    @Test
+    @DisplayName("storeFile() - Rejects content that does not match the expected kind")
+    void test_storeFile_spoofedContent() throws Exception {
+        MockMultipartFile spoofed = new MockMultipartFile(
+                "file", "photo.png", "image/png", "<html>not an image</html>".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> fileStorageService.storeFile(spoofed, "image/", AppConstants.MAX_IMAGE_SIZE_BYTES));
+        assertThrows(IllegalArgumentException.class,
+                () -> fileStorageService.storeFile(upload("photo.png"), "audio/", AppConstants.MAX_AUDIO_SIZE_BYTES));
+        verify(mediaBlobRepository, never()).incrementRefCount(anyString());
+        assertStagingEmpty();
+    }
+
+    @Test
+    @DisplayName("storeFile() - Stops copying once the upload passes the size limit")
+    void test_storeFile_oversized() throws Exception {
+        assertThrows(IllegalArgumentException.class,
+                () -> fileStorageService.storeFile(upload("photo.png"), "image/", CONTENT.length - 1));
+
+        verify(mediaBlobRepository, never()).incrementRefCount(anyString());
+        assertStagingEmpty();
+    }
+
+    @Test
+    @DisplayName("storeStagedFile() - Moves an assembled file into the store, hashing it when needed")
+    void test_storeStagedFile() throws Exception {
+        Path staged = Files.createDirectories(uploadDir.resolve(".chunks")).resolve("upload.part");
+        Files.write(staged, CONTENT);
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+
+        String filename = fileStorageService.storeStagedFile(staged, null, "scan.png", "image/");
+
+        assertEquals(hash + ".png", filename);
+        assertFalse(Files.exists(staged));
+        assertEquals(CONTENT.length, fileStorageService.getFileSize(filename));
+    }
+
+    @Test
+    @DisplayName("storeStagedFile() - Rejects files outside the upload directory")
+    void test_storeStagedFile_outsideUploadDir(@TempDir Path elsewhere) throws Exception {
+        Path staged = Files.write(elsewhere.resolve("upload.part"), CONTENT);
+
+        assertThrows(SecurityException.class, () -> fileStorageService.storeStagedFile(staged, hash, "a.png", "image/"));
+        assertTrue(Files.exists(staged));
+    }
+
+    @Test
+    @DisplayName("storeStagedFile() - Rejects an assembled file that is not the expected kind")
+    void test_storeStagedFile_spoofedContent() throws Exception {
+        Path staged = Files.createDirectories(uploadDir.resolve(".chunks")).resolve("upload.part");
+        Files.write(staged, CONTENT);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> fileStorageService.storeStagedFile(staged, hash, "recording.webm", "audio/"));
+        verify(mediaBlobRepository, never()).incrementRefCount(anyString());
+        assertFalse(Files.exists(staged));
+    }
+
+    @Test
+    @DisplayName("releaseFile() - Keeps the blob while other references remain")
+    void test_releaseFile_sharedBlob() throws Exception {
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+        String filename = storeImage("photo.png");
+
+        fileStorageService.releaseFile(filename);
+
+        verify(mediaBlobRepository).decrementRefCount(hash);
+        assertEquals(CONTENT.length, fileStorageService.getFileSize(filename));
+    }
+
+    @Test
+    @DisplayName("releaseFile() - Leaves a blob without references to the garbage collector")
+    void test_releaseFile_lastReference() throws Exception {
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+        String filename = storeImage("photo.png");
+
+        fileStorageService.releaseFile(filename);
+
+        verify(mediaBlobRepository).decrementRefCount(hash);
+        verify(mediaBlobRepository, never()).delete(any(MediaBlob.class));
+        verify(mediaBlobRepository, never()).deleteById(anyString());
+        assertEquals(CONTENT.length, fileStorageService.getFileSize(filename));
+    }
+
+    @Test
+    @DisplayName("releaseFile() - Deletes legacy flat files directly")
+    void test_releaseFile_legacyFile() throws Exception {
+        String legacy = "0b6f1c9e-3d2a-4c1e-9a55-6f1d2c3b4a5e.mp3";
+        Files.write(uploadDir.resolve(legacy), CONTENT);
+
+        fileStorageService.releaseFile(legacy);
+
+        assertFalse(Files.exists(uploadDir.resolve(legacy)));
+        verify(mediaBlobRepository, never()).decrementRefCount(anyString());
+    }
+
+    @Test
+    @DisplayName("adoptLegacyFile() - Moves a flat file into the sharded store and records an alias")
+    void test_adoptLegacyFile() throws Exception {
+        String legacy = "0b6f1c9e-3d2a-4c1e-9a55-6f1d2c3b4a5e.png";
+        Files.write(uploadDir.resolve(legacy), CONTENT);
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+
+        String filename = fileStorageService.adoptLegacyFile(legacy);
+
+        assertEquals(hash + ".png", filename);
+        assertFalse(Files.exists(uploadDir.resolve(legacy)));
+        ArgumentCaptor<LegacyMediaAlias> alias = ArgumentCaptor.forClass(LegacyMediaAlias.class);
+        verify(legacyMediaAliasRepository).save(alias.capture());
+        assertEquals(legacy, alias.getValue().getLegacyFilename());
+        assertEquals(filename, alias.getValue().getFilename());
+
+        when(legacyMediaAliasRepository.findById(legacy)).thenReturn(Optional.of(alias.getValue()));
+        assertEquals(filename, fileStorageService.resolveFilename(legacy));
+        assertEquals(CONTENT.length, fileStorageService.getFileSize(legacy));
+    }
+
+    @Test
+    @DisplayName("streamLegacyFilenames() - Lists only flat files")
+    void test_streamLegacyFilenames() throws Exception {
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+        storeImage("photo.png");
+        Files.write(uploadDir.resolve("legacy.mp3"), CONTENT);
+
+        try (var names = fileStorageService.streamLegacyFilenames()) {
+            assertEquals(List.of("legacy.mp3"), names.toList());
+        }
+    }
+
+    @Test
+    @DisplayName("getContentHash() - Uses the filename for blobs and digests legacy files")
+    void test_getContentHash() throws Exception {
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+        String filename = storeImage("photo.png");
+        String legacy = "legacy.png";
+        Files.write(uploadDir.resolve(legacy), CONTENT);
+
+        assertEquals(hash, fileStorageService.getContentHash(filename));
+        assertEquals(hash, fileStorageService.getContentHash(legacy));
+    }
+
+    @Test
+    @DisplayName("collectBlob() - Deletes an idle blob and its record")
+    void test_collectBlob_idle() throws Exception {
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+        String filename = storeImage("photo.png");
+        LocalDateTime cutoff = LocalDateTime.now();
+        when(mediaBlobRepository.existsById(hash)).thenReturn(true, false);
+        when(mediaBlobRepository.deleteIfIdleSince(hash, cutoff)).thenReturn(1);
+
+        assertTrue(fileStorageService.collectBlob(hash, cutoff));
+        assertThrows(java.io.IOException.class, () -> fileStorageService.getFileSize(filename));
+    }
+
+    @Test
+    @DisplayName("collectBlob() - Keeps the file when the content is stored again meanwhile")
+    void test_collectBlob_storedAgain() throws Exception {
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+        String filename = storeImage("photo.png");
+        LocalDateTime cutoff = LocalDateTime.now();
+        when(mediaBlobRepository.existsById(hash)).thenReturn(true);
+        when(mediaBlobRepository.deleteIfIdleSince(hash, cutoff)).thenReturn(1);
+
+        assertFalse(fileStorageService.collectBlob(hash, cutoff));
+        assertEquals(CONTENT.length, fileStorageService.getFileSize(filename));
+    }
+
+    @Test
+    @DisplayName("collectBlob() - Keeps a blob referenced since the cutoff")
+    void test_collectBlob_recentlyReferenced() throws Exception {
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+        String filename = storeImage("photo.png");
+        LocalDateTime cutoff = LocalDateTime.now();
+        when(mediaBlobRepository.existsById(hash)).thenReturn(true);
+        when(mediaBlobRepository.deleteIfIdleSince(hash, cutoff)).thenReturn(0);
+
+        assertFalse(fileStorageService.collectBlob(hash, cutoff));
+        assertEquals(CONTENT.length, fileStorageService.getFileSize(filename));
+    }
+
+    @Test
+    @DisplayName("collectBlob() - Judges blob files without a record by modification time")
+    void test_collectBlob_withoutRecord() throws Exception {
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+        storeImage("photo.png");
+
+        assertFalse(fileStorageService.collectBlob(hash, LocalDateTime.now().minusHours(1)));
+        assertTrue(fileStorageService.collectBlob(hash, LocalDateTime.now().plusHours(1)));
+        verify(mediaBlobRepository, never()).deleteIfIdleSince(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("streamBlobHashes() - Lists blobs but not variants or staging files")
+    void test_streamBlobHashes() throws Exception {
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+        storeImage("photo.png");
+        Path variant = Files.createDirectories(uploadDir.resolve(".variants").resolve(hash.substring(0, 2)));
+        Files.write(variant.resolve(hash), CONTENT);
+        Files.write(uploadDir.resolve(".incoming").resolve("upload-1.tmp"), CONTENT);
+
+        try (var hashes = fileStorageService.streamBlobHashes()) {
+            assertEquals(List.of(hash), hashes.toList());
+        }
+    }
+
+    @Test
+    @DisplayName("purgeStagingFiles() - Deletes staging files older than the cutoff")
+    void test_purgeStagingFiles() throws Exception {
+        Files.write(uploadDir.resolve(".incoming").resolve("upload-1.tmp"), CONTENT);
+
+        assertEquals(0, fileStorageService.purgeStagingFiles(LocalDateTime.now().minusHours(1)));
+        assertEquals(1, fileStorageService.purgeStagingFiles(LocalDateTime.now().plusHours(1)));
+    }
+
+    @Test
+    @DisplayName("transferRange() - Writes only the requested slice")
+    void test_transferRange() throws Exception {
+        when(mediaBlobRepository.incrementRefCount(hash)).thenReturn(0);
+        String filename = storeImage("photo.png");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        fileStorageService.transferRange(filename, PNG_MAGIC.length + 5, 5, out);
+
+        assertEquals("image", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("getFileSize() - Rejects path traversal")
+    void test_getFileSize_pathTraversal() {
+        assertThrows(SecurityException.class, () -> fileStorageService.getFileSize("../secret.txt"));
+    }
+
+    private MockMultipartFile upload(String originalFilename) {
+        return new MockMultipartFile("file", originalFilename, "image/png", CONTENT);
+    }
+
+    private String storeImage(String originalFilename) throws Exception {
+        return fileStorageService.storeFile(upload(originalFilename), "image/", AppConstants.MAX_IMAGE_SIZE_BYTES);
+    }
+
+    private void assertStagingEmpty() throws Exception {
+        try (var staged = Files.list(uploadDir.resolve(".incoming"))) {
+            assertEquals(0, staged.count());
+        }
+    }
+
+    private static byte[] withPngMagic(String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        byte[] content = Arrays.copyOf(PNG_MAGIC, PNG_MAGIC.length + bytes.length);
+        System.arraycopy(bytes, 0, content, PNG_MAGIC.length, bytes.length);
+        return content;
+    }
+}
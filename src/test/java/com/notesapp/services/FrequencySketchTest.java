@@ -0,0 +1,43 @@
+package com.notesapp.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("FrequencySketch Tests")
+class FrequencySketchTest {
+
+    @Test
+    @DisplayName("frequency() - Counts increments up to the 4-bit maximum")
+    void test_frequency_saturates() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+        assertEquals(0, sketch.frequency("a"));
+
+        for (int i = 0; i < 5; i++) {
+            sketch.increment("a");
+        }
+        assertEquals(5, sketch.frequency("a"));
+
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("a");
+        }
+        assertEquals(15, sketch.frequency("a"));
+    }
+
+    @Test
+    @DisplayName("increment() - Halves counts once the sample is full")
+    void test_increment_ages() {
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment("hot");
+        }
+        assertEquals(15, sketch.frequency("hot"));
+
+        for (int i = 0; i < 160; i++) {
+            sketch.increment("other-" + i);
+        }
+
+        assertTrue(sketch.frequency("hot") <= 8, "frequency: " + sketch.frequency("hot"));
+    }
+}
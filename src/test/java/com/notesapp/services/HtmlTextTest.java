@@ -0,0 +1,77 @@
+package com.notesapp.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HtmlText Tests")
+class HtmlTextTest {
+
+    @Test
+    @DisplayName("toPlainText() - Returns text without markup unchanged")
+    void test_toPlainText_plainText() {
+        String text = "First line\nSecond line  with spaces";
+
+        assertSame(text, HtmlText.toPlainText(text));
+        assertEquals("", HtmlText.toPlainText(null));
+    }
+
+    @Test
+    @DisplayName("toPlainText() - Removes inline tags and keeps their text")
+    void test_toPlainText_inlineTags() {
+        String html = "Some <strong>bold</strong> and <a href=\"https://example.com/?a=1&b=2\" title='x > y'>linked</a> text";
+
+        assertEquals("Some bold and linked text", HtmlText.toPlainText(html));
+    }
+
+    @Test
+    @DisplayName("toPlainText() - Starts a new line for block elements and line breaks")
+    void test_toPlainText_blockElements() {
+        String html = "<h1>Title</h1>\n  <p>First paragraph </p><div>Second<br>line<BR/>third</div><p></p><p>Last</p>";
+
+        assertEquals("Title\nFirst paragraph\nSecond\nline\nthird\nLast", HtmlText.toPlainText(html));
+    }
+
+    @Test
+    @DisplayName("toPlainText() - Puts list items on bulleted lines and separates table cells")
+    void test_toPlainText_listsAndTables() {
+        String html = "<p>Groceries:</p><ul><li>Milk</li><li>Eggs</li></ul>"
+            + "<table><tr><th>Name</th><th>Qty</th></tr><tr><td>Milk</td><td>2</td></tr></table>";
+
+        assertEquals("Groceries:\n• Milk\n• Eggs\nName Qty\nMilk 2", HtmlText.toPlainText(html));
+    }
+
+    @Test
+    @DisplayName("toPlainText() - Decodes named and numeric character references")
+    void test_toPlainText_entities() {
+        String html = "Tom &amp; Jerry&nbsp;&lt;3 caf&eacute; &#233;&#xE9; &ldquo;hi&rdquo; &hellip; &euro;5 &#128512;";
+
+        assertEquals("Tom & Jerry <3 café éé “hi” … €5 😀", HtmlText.toPlainText(html));
+    }
+
+    @Test
+    @DisplayName("toPlainText() - Keeps malformed or unknown references and stray brackets as text")
+    void test_toPlainText_malformed() {
+        String html = "a < b && c &unknown; &amp &#xZZ; &#0; 5 <3 <p";
+
+        assertEquals("a < b && c &unknown; &amp &#xZZ; &#0; 5 <3 <p", HtmlText.toPlainText(html));
+    }
+
+    @Test
+    @DisplayName("toPlainText() - Drops comments, declarations, scripts and styles")
+    void test_toPlainText_nonText() {
+        String html = "<!DOCTYPE html><!-- note <b>draft</b> --><style>p { color: red; }</style>"
+            + "Visible<SCRIPT type=\"text/javascript\">if (a < b) alert('</p>');</Script> text";
+
+        assertEquals("Visible text", HtmlText.toPlainText(html));
+    }
+
+    @Test
+    @DisplayName("toPlainText() - Ignores tag names longer than any known element")
+    void test_toPlainText_longTagName() {
+        String html = "<averyveryverylongcustomelement>x</averyveryverylongcustomelement><p>y</p>";
+
+        assertEquals("x\ny", HtmlText.toPlainText(html));
+    }
+}
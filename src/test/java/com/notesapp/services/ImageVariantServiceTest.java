@@ -0,0 +1,136 @@
+package com.notesapp.services;
+
+import com.notesapp.enums.ImageVariantSize;
+import com.notesapp.services.ImageVariantService.ImageVariant;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ImageVariantService Tests")
+class ImageVariantServiceTest {
+
+    private static final String HASH_A = "a".repeat(64);
+    private static final String HASH_B = "b".repeat(64);
+
+    @TempDir
+    Path uploadDir;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Test
+    @DisplayName("getVariant() - Downscales opaque images to JPEG within the size bound")
+    void test_getVariant_downscalesJpeg() throws Exception {
+        ImageVariantService service = newService(256);
+        stubImage("photo.jpg", HASH_A, 1200, 900, BufferedImage.TYPE_INT_RGB, "jpg");
+
+        ImageVariant variant = service.getVariant("photo.jpg", ImageVariantSize.THUMB).orElseThrow();
+
+        BufferedImage thumb = read(variant);
+        assertEquals(160, thumb.getWidth());
+        assertEquals(120, thumb.getHeight());
+        assertEquals("image/jpeg", variant.getContentType());
+        assertEquals(HASH_A + "-thumb", variant.getKey());
+    }
+
+    @Test
+    @DisplayName("getVariant() - Keeps transparency by writing PNG")
+    void test_getVariant_keepsAlpha() throws Exception {
+        ImageVariantService service = newService(256);
+        stubImage("logo.png", HASH_A, 400, 1600, BufferedImage.TYPE_INT_ARGB, "png");
+
+        ImageVariant variant = service.getVariant("logo.png", ImageVariantSize.MEDIUM).orElseThrow();
+
+        BufferedImage medium = read(variant);
+        assertEquals(200, medium.getWidth());
+        assertEquals(800, medium.getHeight());
+        assertTrue(medium.getColorModel().hasAlpha());
+        assertEquals("image/png", variant.getContentType());
+    }
+
+    @Test
+    @DisplayName("getVariant() - Returns empty when the original already fits")
+    void test_getVariant_smallOriginal() throws Exception {
+        ImageVariantService service = newService(256);
+        stubImage("icon.png", HASH_A, 100, 80, BufferedImage.TYPE_INT_RGB, "png");
+
+        assertEquals(Optional.empty(), service.getVariant("icon.png", ImageVariantSize.THUMB));
+    }
+
+    @Test
+    @DisplayName("getVariant() - Serves repeated requests from the cache")
+    void test_getVariant_cached() throws Exception {
+        ImageVariantService service = newService(256);
+        stubImage("photo.jpg", HASH_A, 1200, 900, BufferedImage.TYPE_INT_RGB, "jpg");
+
+        ImageVariant first = service.getVariant("photo.jpg", ImageVariantSize.THUMB).orElseThrow();
+        ImageVariant second = service.getVariant("photo.jpg", ImageVariantSize.THUMB).orElseThrow();
+
+        assertSame(first, second);
+        verify(fileStorageService, times(1)).locateFile("photo.jpg");
+    }
+
+    @Test
+    @DisplayName("getVariant() - Evicts least recently used variants beyond the budget")
+    void test_getVariant_evictsLeastRecentlyUsed() throws Exception {
+        ImageVariantService service = newService(0);
+        stubImage("a.jpg", HASH_A, 1200, 900, BufferedImage.TYPE_INT_RGB, "jpg");
+        stubImage("b.jpg", HASH_B, 1200, 900, BufferedImage.TYPE_INT_RGB, "jpg");
+
+        ImageVariant first = service.getVariant("a.jpg", ImageVariantSize.THUMB).orElseThrow();
+        ImageVariant second = service.getVariant("b.jpg", ImageVariantSize.THUMB).orElseThrow();
+
+        assertThrows(IOException.class, () -> first.writeTo(new ByteArrayOutputStream()));
+        assertEquals(second.getLength(), service.getCachedBytes());
+    }
+
+    @Test
+    @DisplayName("loadCacheIndex() - Picks up variants written before a restart")
+    void test_loadCacheIndex_restoresVariants() throws Exception {
+        ImageVariantService service = newService(256);
+        stubImage("photo.jpg", HASH_A, 1200, 900, BufferedImage.TYPE_INT_RGB, "jpg");
+        ImageVariant variant = service.getVariant("photo.jpg", ImageVariantSize.THUMB).orElseThrow();
+
+        ImageVariantService restarted = newService(256);
+
+        assertEquals(variant.getLength(), restarted.getCachedBytes());
+        assertTrue(restarted.getVariant("photo.jpg", ImageVariantSize.THUMB).isPresent());
+        verify(fileStorageService, times(1)).locateFile("photo.jpg");
+    }
+
+    private ImageVariantService newService(long maxCacheMb) {
+        ImageVariantService service = new ImageVariantService(uploadDir.toString(), maxCacheMb);
+        ReflectionTestUtils.setField(service, "fileStorageService", fileStorageService);
+        service.loadCacheIndex();
+        return service;
+    }
+
+    private void stubImage(String filename, String hash, int width, int height, int type, String format) throws Exception {
+        Path path = uploadDir.resolve(filename);
+        ImageIO.write(new BufferedImage(width, height, type), format, path.toFile());
+        lenient().when(fileStorageService.getContentHash(filename)).thenReturn(hash);
+        lenient().when(fileStorageService.locateFile(filename)).thenReturn(path);
+    }
+
+    private BufferedImage read(ImageVariant variant) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        variant.writeTo(out);
+        return ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
@@ -0,0 +1,125 @@
+package com.notesapp.services;
+
+import com.notesapp.config.AppConstants;
+import com.notesapp.entities.SchedulerLease;
+import com.notesapp.repositories.ReminderRepository;
+import com.notesapp.repositories.SchedulerLeaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LeaseCoordinator Service Tests")
+class LeaseCoordinatorTest {
+
+    @Mock
+    private SchedulerLeaseRepository leaseRepository;
+
+    @Mock
+    private ReminderRepository reminderRepository;
+
+    @InjectMocks
+    private LeaseCoordinator leaseCoordinator;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(leaseCoordinator, "configuredNodeId", "node-b");
+        when(leaseRepository.tryRenew(eq("node:node-b"), eq("node-b"), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(1);
+        leaseCoordinator.initialize();
+    }
+
+    @Test
+    @DisplayName("initialize() - Uses configured node id and registers membership lease")
+    void test_initialize_registersNodeLease() {
+        assertEquals("node-b", leaseCoordinator.getNodeId());
+        verify(leaseRepository).tryRenew(eq("node:node-b"), eq("node-b"), any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("getAssignedBuckets() - Every bucket is owned by exactly one live node")
+    void test_getAssignedBuckets_partitionsBuckets() {
+        List<String> liveNodes = List.of("node-a", "node-b", "node-c");
+
+        List<Integer> buckets = leaseCoordinator.getAssignedBuckets(liveNodes);
+
+        assertFalse(buckets.isEmpty());
+        for (int bucket = 0; bucket < AppConstants.REMINDER_BUCKETS; bucket++) {
+            assertEquals(bucket % 3 == 1, buckets.contains(bucket));
+        }
+    }
+
+    @Test
+    @DisplayName("getAssignedBuckets() - Sole live node owns every bucket")
+    void test_getAssignedBuckets_singleNode_ownsAll() {
+        assertEquals(AppConstants.REMINDER_BUCKETS, leaseCoordinator.getAssignedBuckets(List.of("node-b")).size());
+    }
+
+    @Test
+    @DisplayName("getAssignedBuckets() - Node missing from membership owns nothing")
+    void test_getAssignedBuckets_notLive_ownsNothing() {
+        assertTrue(leaseCoordinator.getAssignedBuckets(List.of("node-a", "node-c")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("tryClaimReminder() - Succeeds only when conditional update matches")
+    void test_tryClaimReminder_conditionalUpdate() {
+        when(reminderRepository.claimReminder(eq("reminder-1"), eq("node-b"), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(1);
+        when(reminderRepository.claimReminder(eq("reminder-2"), eq("node-b"), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(0);
+
+        assertTrue(leaseCoordinator.tryClaimReminder("reminder-1"));
+        assertFalse(leaseCoordinator.tryClaimReminder("reminder-2"));
+    }
+
+    @Test
+    @DisplayName("tryAcquireJob() - Inserts lease row when none exists")
+    void test_tryAcquireJob_noRow_inserts() {
+        when(leaseRepository.tryRenew(eq("job:daily"), anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(0);
+        when(leaseRepository.existsById("job:daily")).thenReturn(false);
+
+        assertTrue(leaseCoordinator.tryAcquireJob("daily", Duration.ofMinutes(5)));
+        verify(leaseRepository).save(any(SchedulerLease.class));
+    }
+
+    @Test
+    @DisplayName("tryAcquireJob() - Fails while another node holds an unexpired lease")
+    void test_tryAcquireJob_heldElsewhere_fails() {
+        when(leaseRepository.tryRenew(eq("job:daily"), anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(0);
+        when(leaseRepository.existsById("job:daily")).thenReturn(true);
+
+        assertFalse(leaseCoordinator.tryAcquireJob("daily", Duration.ofMinutes(5)));
+        verify(leaseRepository, never()).save(any(SchedulerLease.class));
+    }
+
+    @Test
+    @DisplayName("tryAcquireJob() - Losing an insert race returns false")
+    void test_tryAcquireJob_insertRace_fails() {
+        when(leaseRepository.tryRenew(eq("job:daily"), anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(0);
+        when(leaseRepository.existsById("job:daily")).thenReturn(false);
+        when(leaseRepository.save(any(SchedulerLease.class)))
+            .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        assertFalse(leaseCoordinator.tryAcquireJob("daily", Duration.ofMinutes(5)));
+    }
+}
@@ -0,0 +1,176 @@
+package com.notesapp.services;
+
+import com.notesapp.config.AppConstants;
+import com.notesapp.repositories.NoteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MediaGarbageCollector Tests")
+class MediaGarbageCollectorTest {
+
+    private static final String REFERENCED = "a".repeat(64);
+    private static final String ORPHAN = "b".repeat(64);
+    private static final String AUDIO = "c".repeat(64);
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private ImageVariantService imageVariantService;
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @Mock
+    private LeaseCoordinator leaseCoordinator;
+
+    @InjectMocks
+    private MediaGarbageCollector mediaGarbageCollector;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(mediaGarbageCollector, "enabled", true);
+        ReflectionTestUtils.setField(mediaGarbageCollector, "graceHours", 24L);
+        ReflectionTestUtils.setField(mediaGarbageCollector, "migrateOnStartup", true);
+
+        lenient().when(noteRepository.countImageUrls()).thenReturn(1L);
+        lenient().when(noteRepository.countByVoiceRecordingIsNotNull()).thenReturn(1L);
+        lenient().when(noteRepository.findMediaNoteIdsAfter(eq(""), any(Pageable.class)))
+            .thenReturn(List.of("note-1", "note-2"));
+        lenient().when(noteRepository.findImageUrlsByNoteIdIn(List.of("note-1", "note-2")))
+            .thenReturn(List.of("/api/media/images/" + REFERENCED + ".png"));
+        lenient().when(noteRepository.findVoiceRecordingUrlsByNoteIdIn(List.of("note-1", "note-2")))
+            .thenReturn(List.of("/api/media/audio/" + AUDIO + ".webm"));
+        lenient().when(fileStorageService.storageKey(anyString()))
+            .thenAnswer(invocation -> invocation.<String>getArgument(0).substring(0, 64));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mediaGarbageCollector.shutdown();
+    }
+
+    @Test
+    @DisplayName("sweep() - Collects only blobs absent from every note")
+    void test_sweep_collectsUnreferenced() throws Exception {
+        when(fileStorageService.streamBlobHashes()).thenReturn(Stream.of(REFERENCED, ORPHAN, AUDIO));
+        when(fileStorageService.collectBlob(ORPHAN, CUTOFF)).thenReturn(true);
+
+        assertEquals(1, mediaGarbageCollector.sweep(CUTOFF));
+
+        verify(fileStorageService, never()).collectBlob(eq(REFERENCED), any());
+        verify(fileStorageService, never()).collectBlob(eq(AUDIO), any());
+        verify(imageVariantService).evictVariants(ORPHAN);
+        verify(fileStorageService, never()).streamLegacyFilenames();
+    }
+
+    @Test
+    @DisplayName("sweep() - Pages through notes with media by ID cursor")
+    void test_sweep_pagesByCursor() throws Exception {
+        List<String> firstPage = IntStream.range(0, AppConstants.MEDIA_GC_PAGE_SIZE)
+            .mapToObj(i -> String.format("note-%05d", i))
+            .toList();
+        String last = firstPage.get(firstPage.size() - 1);
+        when(noteRepository.findMediaNoteIdsAfter(eq(""), any(Pageable.class))).thenReturn(firstPage);
+        when(noteRepository.findMediaNoteIdsAfter(eq(last), any(Pageable.class))).thenReturn(List.of("note-z"));
+        when(noteRepository.findImageUrlsByNoteIdIn(firstPage)).thenReturn(List.of());
+        when(noteRepository.findImageUrlsByNoteIdIn(List.of("note-z")))
+            .thenReturn(List.of("/api/media/images/" + ORPHAN + ".png"));
+        when(fileStorageService.streamBlobHashes()).thenReturn(Stream.of(ORPHAN));
+
+        assertEquals(0, mediaGarbageCollector.sweep(CUTOFF));
+
+        verify(noteRepository).findMediaNoteIdsAfter(eq(last), any(Pageable.class));
+        verify(fileStorageService, never()).collectBlob(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("sweep() - Keeps blobs still inside the grace period")
+    void test_sweep_gracePeriod() throws Exception {
+        when(fileStorageService.streamBlobHashes()).thenReturn(Stream.of(ORPHAN));
+        when(fileStorageService.collectBlob(ORPHAN, CUTOFF)).thenReturn(false);
+
+        assertEquals(0, mediaGarbageCollector.sweep(CUTOFF));
+        verify(imageVariantService, never()).evictVariants(anyString());
+    }
+
+    @Test
+    @DisplayName("sweep() - Continues past files that fail to delete and purges staging files")
+    void test_sweep_failuresAndStaging() throws Exception {
+        String second = "d".repeat(64);
+        when(fileStorageService.streamBlobHashes()).thenReturn(Stream.of(ORPHAN, second));
+        when(fileStorageService.collectBlob(ORPHAN, CUTOFF)).thenThrow(new IOException("busy"));
+        when(fileStorageService.collectBlob(second, CUTOFF)).thenReturn(true);
+        when(fileStorageService.purgeStagingFiles(CUTOFF)).thenReturn(2);
+
+        assertEquals(3, mediaGarbageCollector.sweep(CUTOFF));
+    }
+
+    @Test
+    @DisplayName("sweep() - Sweeps legacy flat files when migration is disabled")
+    void test_sweep_legacyFiles() throws Exception {
+        ReflectionTestUtils.setField(mediaGarbageCollector, "migrateOnStartup", false);
+        String legacy = "0b6f1c9e-3d2a-4c1e-9a55-6f1d2c3b4a5e.png";
+        when(fileStorageService.streamBlobHashes()).thenReturn(Stream.empty());
+        when(fileStorageService.streamLegacyFilenames()).thenReturn(Stream.of(legacy));
+        when(fileStorageService.collectLegacyFile(legacy, CUTOFF)).thenReturn(true);
+
+        assertEquals(1, mediaGarbageCollector.sweep(CUTOFF));
+    }
+
+    @Test
+    @DisplayName("runSweep() - Skips when another node holds the lease")
+    void test_runSweep_leaseHeldElsewhere() throws Exception {
+        when(leaseCoordinator.tryAcquireJob(eq("media-gc"), any(Duration.class))).thenReturn(false);
+
+        mediaGarbageCollector.runSweep();
+
+        verify(fileStorageService, never()).streamBlobHashes();
+    }
+
+    @Test
+    @DisplayName("scheduledSweep() - Returns while the sweep runs and skips a run that would overlap it")
+    void test_scheduledSweep_runsInBackground() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(leaseCoordinator.tryAcquireJob(eq("media-gc"), any(Duration.class))).thenReturn(true);
+        when(fileStorageService.streamBlobHashes()).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Stream.empty();
+        });
+
+        mediaGarbageCollector.scheduledSweep();
+        assertTrue(started.await(5, TimeUnit.SECONDS), "sweep did not start");
+        mediaGarbageCollector.scheduledSweep();
+        release.countDown();
+
+        verify(fileStorageService, timeout(5000)).purgeStagingFiles(any(LocalDateTime.class));
+        verify(leaseCoordinator, times(1)).tryAcquireJob(eq("media-gc"), any(Duration.class));
+    }
+}
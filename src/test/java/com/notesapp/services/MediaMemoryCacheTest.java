@@ -0,0 +1,120 @@
+package com.notesapp.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MediaMemoryCache Tests")
+class MediaMemoryCacheTest {
+
+    private static final int OBJECT_SIZE = 64 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("get() - Leaves a first request to stream from disk without reading the file")
+    void test_get_firstMissNotLoaded() throws Exception {
+        MediaMemoryCache cache = new MediaMemoryCache(1, 256);
+
+        assertNull(cache.get("a", dir.resolve("missing")));
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(0, stats.get("entries"));
+        assertEquals(0L, stats.get("bytes"));
+    }
+
+    @Test
+    @DisplayName("get() - Reads a repeated miss and serves later requests from memory")
+    void test_get_hitAfterRepeatedMiss() throws Exception {
+        MediaMemoryCache cache = new MediaMemoryCache(1, 256);
+        Path file = write("a", 1000);
+
+        assertNull(cache.get("a", file));
+        ByteBuffer first = cache.get("a", file);
+        Files.delete(file);
+        ByteBuffer second = cache.get("a", file);
+
+        assertEquals(1000, first.remaining());
+        assertEquals(first, second);
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(2L, stats.get("misses"));
+        assertEquals(1000L, stats.get("bytes"));
+    }
+
+    @Test
+    @DisplayName("get() - Hands out independent read-only views")
+    void test_get_readOnlyViews() throws Exception {
+        MediaMemoryCache cache = new MediaMemoryCache(1, 256);
+        Path file = write("a", 100);
+
+        cache.get("a", file);
+        ByteBuffer first = cache.get("a", file);
+        first.get(new byte[50]);
+        ByteBuffer second = cache.get("a", file);
+
+        assertEquals(100, second.remaining());
+        assertThrows(ReadOnlyBufferException.class, () -> second.put(0, (byte) 1));
+    }
+
+    @Test
+    @DisplayName("get() - Lets files over the object limit bypass the cache")
+    void test_get_largeFileBypasses() throws Exception {
+        MediaMemoryCache cache = new MediaMemoryCache(1, 16);
+        Path file = write("big", 17 * 1024);
+
+        assertNull(cache.get("big", file));
+        assertNull(cache.get("big", file));
+        assertEquals(0, cache.getStats().get("entries"));
+    }
+
+    @Test
+    @DisplayName("get() - Does nothing when the cache is disabled")
+    void test_get_disabled() throws Exception {
+        MediaMemoryCache cache = new MediaMemoryCache(0, 256);
+
+        assertNull(cache.get("a", write("a", 100)));
+        assertEquals(0L, cache.getMaxObjectBytes());
+    }
+
+    @Test
+    @DisplayName("get() - Keeps frequently read entries through a scan of rarely read ones")
+    void test_get_scanResistant() throws Exception {
+        MediaMemoryCache cache = new MediaMemoryCache(1, 256);
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 8; i++) {
+                cache.get("hot-" + i, write("hot-" + i, OBJECT_SIZE));
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            Path file = write("scan-" + i, OBJECT_SIZE);
+            cache.get("scan-" + i, file);
+            cache.get("scan-" + i, file);
+        }
+        long hitsBefore = (long) cache.getStats().get("hits");
+
+        for (int i = 0; i < 8; i++) {
+            cache.get("hot-" + i, dir.resolve("missing"));
+        }
+
+        assertEquals(hitsBefore + 8, cache.getStats().get("hits"));
+        assertTrue((long) cache.getStats().get("rejections") > 0);
+        assertTrue((long) cache.getStats().get("bytes") <= 1024 * 1024);
+    }
+
+    private Path write(String name, int size) throws Exception {
+        byte[] content = new byte[size];
+        Arrays.fill(content, (byte) name.hashCode());
+        return Files.write(dir.resolve(name), content);
+    }
+}
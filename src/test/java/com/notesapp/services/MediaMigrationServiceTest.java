@@ -0,0 +1,136 @@
+package com.notesapp.services;
+
+import com.notesapp.entities.Note;
+import com.notesapp.repositories.NoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MediaMigrationService Tests")
+class MediaMigrationServiceTest {
+
+    private static final String LEGACY = "0b6f1c9e-3d2a-4c1e-9a55-6f1d2c3b4a5e.png";
+    private static final String MIGRATED = "ab".repeat(32) + ".png";
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @Mock
+    private LeaseCoordinator leaseCoordinator;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private MediaMigrationService mediaMigrationService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("migrateLegacyMedia() - Moves legacy files and rewrites note URLs with references")
+    void test_migrateLegacyMedia_rewritesUrls() throws Exception {
+        Note note = noteWithMedia(List.of("/api/media/image/" + LEGACY), "/api/media/audio/" + LEGACY);
+        when(fileStorageService.streamLegacyFilenames()).thenReturn(Stream.of(LEGACY));
+        when(fileStorageService.adoptLegacyFile(LEGACY)).thenReturn(MIGRATED);
+        when(fileStorageService.resolveFilename(LEGACY)).thenReturn(MIGRATED);
+        when(noteRepository.findWithMedia(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(note)));
+
+        when(noteRepository.updateImageUrl("note-1", "/api/media/image/" + LEGACY, "/api/media/images/" + MIGRATED))
+            .thenReturn(1);
+        when(noteRepository.updateVoiceRecordingUrl("note-1", "/api/media/audio/" + LEGACY, "/api/media/audio/" + MIGRATED))
+            .thenReturn(1);
+
+        int rewritten = mediaMigrationService.migrateLegacyMedia();
+
+        assertEquals(2, rewritten);
+        verify(fileStorageService, times(2)).addReference(MIGRATED);
+        verify(fileStorageService).releaseMigrationHold(MIGRATED);
+        verify(noteRepository, never()).save(any(Note.class));
+    }
+
+    @Test
+    @DisplayName("migrateLegacyMedia() - Takes no reference when the note changed before its URL was rewritten")
+    void test_migrateLegacyMedia_noteEditedMeanwhile() throws Exception {
+        Note note = noteWithMedia(List.of("/api/media/images/" + LEGACY), null);
+        when(fileStorageService.streamLegacyFilenames()).thenReturn(Stream.of(LEGACY));
+        when(fileStorageService.adoptLegacyFile(LEGACY)).thenReturn(MIGRATED);
+        when(fileStorageService.resolveFilename(LEGACY)).thenReturn(MIGRATED);
+        when(noteRepository.findWithMedia(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(note)));
+        when(noteRepository.updateImageUrl(anyString(), anyString(), anyString())).thenReturn(0);
+
+        assertEquals(0, mediaMigrationService.migrateLegacyMedia());
+        verify(fileStorageService, never()).addReference(anyString());
+        verify(fileStorageService).releaseMigrationHold(MIGRATED);
+    }
+
+    @Test
+    @DisplayName("migrateLegacyMedia() - Leaves canonical URLs untouched")
+    void test_migrateLegacyMedia_canonicalUrls() throws Exception {
+        Note note = noteWithMedia(List.of("/api/media/images/" + MIGRATED), null);
+        when(fileStorageService.streamLegacyFilenames()).thenReturn(Stream.empty());
+        when(fileStorageService.resolveFilename(MIGRATED)).thenReturn(MIGRATED);
+        when(noteRepository.findWithMedia(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(note)));
+
+        assertEquals(0, mediaMigrationService.migrateLegacyMedia());
+        verify(fileStorageService, never()).addReference(anyString());
+        verify(noteRepository, never()).updateImageUrl(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("runMigration() - Skips when another node holds the migration lease")
+    void test_runMigration_leaseHeldElsewhere() throws Exception {
+        when(leaseCoordinator.tryAcquireJob(eq("media-migration"), any(Duration.class))).thenReturn(false);
+
+        mediaMigrationService.runMigration();
+
+        verify(fileStorageService, never()).streamLegacyFilenames();
+        verify(leaseCoordinator, never()).releaseJob(anyString());
+    }
+
+    @Test
+    @DisplayName("runMigration() - Releases the migration lease when done")
+    void test_runMigration_releasesLease() throws Exception {
+        when(leaseCoordinator.tryAcquireJob(eq("media-migration"), any(Duration.class))).thenReturn(true);
+        when(fileStorageService.streamLegacyFilenames()).thenReturn(Stream.empty());
+        when(noteRepository.findWithMedia(any(Pageable.class))).thenReturn(new SliceImpl<>(List.of()));
+
+        mediaMigrationService.runMigration();
+
+        verify(leaseCoordinator).releaseJob("media-migration");
+    }
+
+    private Note noteWithMedia(List<String> images, String voiceRecording) {
+        Note note = new Note();
+        note.setNoteId("note-1");
+        note.setImages(new ArrayList<>(images));
+        note.setVoiceRecording(voiceRecording);
+        return note;
+    }
+}
@@ -0,0 +1,361 @@
+package com.notesapp.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.notesapp.config.AppConstants;
+import com.notesapp.entities.ChecklistItem;
+import com.notesapp.entities.Note;
+import com.notesapp.entities.Tag;
+import com.notesapp.observers.NoteEventCoalescer;
+import com.notesapp.repositories.NoteRepository;
+import com.notesapp.repositories.TagRepository;
+import com.notesapp.services.NoteTransferService.ImportResult;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NoteTransferService Tests")
+class NoteTransferServiceTest {
+
+    private static final String INSERT_NOTE_PREFIX = "INSERT INTO notes";
+    private static final String INSERT_CHECKLIST_PREFIX = "INSERT INTO checklist_items";
+    private static final String INSERT_TAG_PREFIX = "INSERT INTO note_tags";
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @Mock
+    private TagRepository tagRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private NoteEventCoalescer noteEventCoalescer;
+
+    @InjectMocks
+    private NoteTransferService noteTransferService;
+
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ReflectionTestUtils.setField(noteTransferService, "objectMapper", objectMapper);
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("exportNdjson() - Writes one JSON object per note, paging by note ID")
+    void test_exportNdjson_pages() throws Exception {
+        List<Note> notes = IntStream.range(0, AppConstants.NOTE_TRANSFER_PAGE_SIZE + 1)
+            .mapToObj(i -> note(String.format("note-%04d", i), "Note " + i))
+            .toList();
+        stubNotes(notes);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int exported = noteTransferService.exportNdjson("user-1", out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(notes.size(), exported);
+        assertEquals(notes.size(), lines.length);
+        Map<?, ?> last = objectMapper.readValue(lines[lines.length - 1], Map.class);
+        assertEquals(notes.get(notes.size() - 1).getNoteId(), last.get("noteId"));
+        verify(noteRepository).findNoteIdsByUserIdAfter(eq("user-1"), eq(""), any(Pageable.class));
+        verify(noteRepository).findNoteIdsByUserIdAfter(eq("user-1"),
+            eq(notes.get(AppConstants.NOTE_TRANSFER_PAGE_SIZE - 1).getNoteId()), any(Pageable.class));
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    @DisplayName("exportNdjson() - Includes tags, checklist and media of each note")
+    void test_exportNdjson_record() throws Exception {
+        Note note = note("note-1", "Groceries");
+        note.setCategory("Home");
+        note.getTags().add(tag("tag-2", "shopping"));
+        note.getTags().add(tag("tag-1", "errands"));
+        note.getChecklist().add(item("Milk", true));
+        note.getImages().add("/uploads/ab/cd/image.png");
+        stubNotes(List.of(note));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        noteTransferService.exportNdjson("user-1", out);
+
+        Map<?, ?> record = objectMapper.readValue(out.toString(StandardCharsets.UTF_8).trim(), Map.class);
+        assertEquals("Groceries", record.get("title"));
+        assertEquals("Home", record.get("category"));
+        assertEquals(List.of("errands", "shopping"), record.get("tags"));
+        assertEquals(List.of(Map.of("text", "Milk", "isChecked", true)), record.get("checklist"));
+        assertEquals(List.of("/uploads/ab/cd/image.png"), record.get("images"));
+        assertEquals("2024-01-15T10:30:00", record.get("createdAt"));
+    }
+
+    @Test
+    @DisplayName("exportMarkdownZip() - Writes one Markdown file per note in a folder per category")
+    void test_exportMarkdownZip() throws Exception {
+        Note work = note("note-1", "Sprint: Planning");
+        work.setCategory("Work");
+        work.getChecklist().add(item("Draft agenda", false));
+        Note loose = note("note-2", "Loose thought");
+        stubNotes(List.of(work, loose));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int exported = noteTransferService.exportMarkdownZip("user-1", out);
+
+        assertEquals(2, exported);
+        List<String> names = new ArrayList<>();
+        String markdown = null;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                String content = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                if (entry.getName().startsWith("Work/")) {
+                    markdown = content;
+                }
+            }
+        }
+        assertEquals(List.of("Work/sprint-planning-note-1.md", "Uncategorized/loose-thought-note-2.md"), names);
+        assertNotNull(markdown);
+        assertTrue(markdown.startsWith("---\ntitle: \"Sprint: Planning\"\n"));
+        assertTrue(markdown.contains("created: 2024-01-15T10:30:00\n"));
+        assertTrue(markdown.contains("# Sprint: Planning"));
+        assertTrue(markdown.contains("- [ ] Draft agenda"));
+    }
+
+    @Test
+    @DisplayName("importNdjson() - Inserts notes, checklist items and tag links in JDBC batches")
+    void test_importNdjson_batches() throws Exception {
+        int count = AppConstants.NOTE_IMPORT_BATCH_SIZE + 1;
+        String input = IntStream.range(0, count)
+            .mapToObj(i -> "{\"title\":\"Note " + i + "\",\"body\":\"<p>Body</p>\",\"tags\":[\"work\",\"new\"],"
+                + "\"checklist\":[{\"text\":\"Step\",\"isChecked\":true}],\"createdAt\":\"2024-01-15T10:30:00\"}")
+            .collect(Collectors.joining("\n"));
+        when(tagRepository.findByNameIn(anyCollection())).thenReturn(List.of(tag("tag-work", "work")));
+        when(tagRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<Tag> created = new ArrayList<>();
+            for (Tag tag : invocation.<Iterable<Tag>>getArgument(0)) {
+                tag.setTagId("tag-" + tag.getName());
+                created.add(tag);
+            }
+            return created;
+        });
+
+        ImportResult result = noteTransferService.importNdjson("user-1", input(input));
+
+        assertEquals(count, result.getImported());
+        assertEquals(0, result.getSkipped());
+        List<Object[]> notes = capturedBatches(INSERT_NOTE_PREFIX);
+        assertEquals(count, notes.size());
+        Object[] first = notes.get(0);
+        assertEquals("user-1", first[1]);
+        assertEquals("Note 0", first[2]);
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 30), first[7]);
+        assertEquals(count, capturedBatches(INSERT_CHECKLIST_PREFIX).size());
+        List<Object[]> links = capturedBatches(INSERT_TAG_PREFIX);
+        assertEquals(count * 2, links.size());
+        assertTrue(links.stream().allMatch(link -> link[1].equals("tag-work") || link[1].equals("tag-new")));
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    @DisplayName("importNdjson() - Publishes a CREATE event for each imported note")
+    void test_importNdjson_publishesEvents() throws Exception {
+        String input = "{\"title\":\"First\"}\n{\"title\":\"Second\",\"category\":\"Work\"}\n";
+
+        noteTransferService.importNdjson("user-1", input(input));
+
+        ArgumentCaptor<Note> captor = ArgumentCaptor.forClass(Note.class);
+        verify(noteEventCoalescer, times(2)).publish(captor.capture(), eq("CREATE"));
+        List<Object[]> rows = capturedBatches(INSERT_NOTE_PREFIX);
+        Note second = captor.getAllValues().get(1);
+        assertEquals(rows.get(1)[0], second.getNoteId());
+        assertEquals("user-1", second.getUserId());
+        assertEquals("Second", second.getTitle());
+        assertEquals("Work", second.getCategory());
+    }
+
+    @Test
+    @DisplayName("importNdjson() - Skips lines longer than any valid record")
+    void test_importNdjson_lineTooLong() throws Exception {
+        String input = String.join("\r\n",
+            "{\"title\":\"Before\"}",
+            "{\"title\":\"Huge\",\"body\":\"" + "x".repeat(AppConstants.NOTE_IMPORT_MAX_LINE_LENGTH) + "\"}",
+            "{\"title\":\"After\"}");
+
+        ImportResult result = noteTransferService.importNdjson("user-1", input(input));
+
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getSkipped());
+        assertTrue(result.getErrors().get(0).startsWith("Line 2: Record exceeds"));
+        List<Object[]> rows = capturedBatches(INSERT_NOTE_PREFIX);
+        assertEquals("Before", rows.get(0)[2]);
+        assertEquals("After", rows.get(1)[2]);
+    }
+
+    @Test
+    @DisplayName("importNdjson() - Skips invalid lines and reports them by line number")
+    void test_importNdjson_skipsInvalidLines() throws Exception {
+        String input = String.join("\n",
+            "{\"title\":\"Valid\"}",
+            "not json",
+            "",
+            "{\"body\":\"missing title\"}",
+            "{\"title\":\"" + "x".repeat(AppConstants.NOTE_TITLE_MAX_LENGTH + 1) + "\"}",
+            "{\"title\":\"Bad date\",\"createdAt\":\"yesterday\"}",
+            "{\"title\":\"Also valid\",\"isPinned\":true}",
+            "{\"title\":\"Long color\",\"color\":\"" + "x".repeat(AppConstants.NOTE_COLOR_MAX_LENGTH + 1) + "\"}",
+            "{\"title\":\"Long category\",\"category\":\""
+                + "x".repeat(AppConstants.NOTE_CATEGORY_MAX_LENGTH + 1) + "\"}");
+
+        ImportResult result = noteTransferService.importNdjson("user-1", input(input));
+
+        assertEquals(2, result.getImported());
+        assertEquals(6, result.getSkipped());
+        assertEquals(6, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("Line 2: Invalid JSON"));
+        assertTrue(result.getErrors().get(1).startsWith("Line 4: "));
+        assertTrue(result.getErrors().get(2).startsWith("Line 5: title exceeds"));
+        assertTrue(result.getErrors().get(3).startsWith("Line 6: "));
+        assertTrue(result.getErrors().get(4).startsWith("Line 8: color exceeds"));
+        assertTrue(result.getErrors().get(5).startsWith("Line 9: category exceeds"));
+        verify(tagRepository, never()).findByNameIn(anyCollection());
+        verify(jdbcTemplate, never()).batchUpdate(startsWith(INSERT_TAG_PREFIX), anyList());
+    }
+
+    @Test
+    @DisplayName("importNdjson() - Reports a batch the database rejects and imports the rest")
+    void test_importNdjson_rejectedBatch() throws Exception {
+        int count = AppConstants.NOTE_IMPORT_BATCH_SIZE + 1;
+        String input = IntStream.range(0, count)
+            .mapToObj(i -> "{\"title\":\"Note " + i + "\"}")
+            .collect(Collectors.joining("\n"));
+        when(jdbcTemplate.batchUpdate(startsWith(INSERT_NOTE_PREFIX), anyList()))
+            .thenThrow(new DataIntegrityViolationException("Unique index violated"))
+            .thenReturn(new int[] {1});
+
+        ImportResult result = noteTransferService.importNdjson("user-1", input(input));
+
+        assertEquals(1, result.getImported());
+        assertEquals(AppConstants.NOTE_IMPORT_BATCH_SIZE, result.getSkipped());
+        assertEquals(List.of("Lines 1-" + AppConstants.NOTE_IMPORT_BATCH_SIZE
+            + ": Batch rejected by the database: Unique index violated"), result.getErrors());
+        verify(noteEventCoalescer, times(1)).publish(any(Note.class), eq("CREATE"));
+    }
+
+    @Test
+    @DisplayName("importNdjson() - Imports what an export wrote")
+    void test_importNdjson_roundTrip() throws Exception {
+        Note note = note("note-1", "Groceries");
+        note.setIsPinned(true);
+        note.getChecklist().add(item("Milk", false));
+        stubNotes(List.of(note));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        noteTransferService.exportNdjson("user-1", out);
+
+        ImportResult result = noteTransferService.importNdjson("user-2", input(out.toString(StandardCharsets.UTF_8)));
+
+        assertEquals(1, result.getImported());
+        Object[] row = capturedBatches(INSERT_NOTE_PREFIX).get(0);
+        assertNotEquals("note-1", row[0]);
+        assertEquals("user-2", row[1]);
+        assertEquals("Groceries", row[2]);
+        assertEquals(true, row[6]);
+        assertEquals(note.getCreatedAt(), row[7]);
+        assertEquals("Milk", capturedBatches(INSERT_CHECKLIST_PREFIX).get(0)[2]);
+    }
+
+    private void stubNotes(List<Note> notes) {
+        when(noteRepository.findNoteIdsByUserIdAfter(eq("user-1"), anyString(), any(Pageable.class)))
+            .thenAnswer(invocation -> {
+                String after = invocation.getArgument(1);
+                int size = invocation.<Pageable>getArgument(2).getPageSize();
+                return notes.stream()
+                    .map(Note::getNoteId)
+                    .filter(id -> id.compareTo(after) > 0)
+                    .limit(size)
+                    .toList();
+            });
+        when(noteRepository.findAllForExport(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            return notes.stream().filter(n -> ids.contains(n.getNoteId())).toList();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> capturedBatches(String sqlPrefix) {
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, atLeastOnce()).batchUpdate(startsWith(sqlPrefix), captor.capture());
+        return captor.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    private static ByteArrayInputStream input(String ndjson) {
+        return new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Note note(String noteId, String title) {
+        Note note = new Note();
+        note.setNoteId(noteId);
+        note.setUserId("user-1");
+        note.setTitle(title);
+        note.setBody("<p>" + title + "</p>");
+        note.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30));
+        note.setUpdatedAt(LocalDateTime.of(2024, 1, 16, 9, 0));
+        return note;
+    }
+
+    private static Tag tag(String tagId, String name) {
+        Tag tag = new Tag();
+        tag.setTagId(tagId);
+        tag.setName(name);
+        return tag;
+    }
+
+    private static ChecklistItem item(String text, boolean checked) {
+        ChecklistItem item = new ChecklistItem();
+        item.setText(text);
+        item.setIsChecked(checked);
+        return item;
+    }
+}
@@ -1,9 +1,12 @@
 package com.notesapp.services;
 
+import com.notesapp.config.AppConstants;
 import com.notesapp.entities.Reminder;
 import com.notesapp.entities.TodoItem;
 import com.notesapp.enums.NotificationChannel;
 import com.notesapp.enums.TaskStatus;
+import com.notesapp.mediator.NotificationMediator;
+import com.notesapp.repositories.NoteRepository;
 import com.notesapp.repositories.ReminderRepository;
 import com.notesapp.repositories.TaskRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,14 +16,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -34,6 +43,18 @@ class NotificationSchedulerTest {
     @Mock
     private TaskRepository taskRepository;
 
+    @Mock
+    private NoteRepository noteRepository;
+
+    @Mock
+    private NotificationMediator mediator;
+
+    @Mock
+    private LeaseCoordinator leaseCoordinator;
+
+    @Mock
+    private DueTaskDigestService dueTaskDigestService;
+
     @InjectMocks
     private NotificationScheduler notificationScheduler;
 
@@ -56,6 +77,10 @@ class NotificationSchedulerTest {
         testTask.setTitle("Test Task");
         testTask.setStatus(TaskStatus.PENDING);
         testTask.setDueDate(LocalDateTime.now().plusHours(1));
+
+        lenient().when(leaseCoordinator.getLiveNodes()).thenReturn(List.of("node-1"));
+        lenient().when(leaseCoordinator.getAssignedBuckets(anyList())).thenReturn(List.of(0, 1));
+        lenient().when(leaseCoordinator.tryClaimReminder(anyString())).thenReturn(true);
     }
 
     @Test
@@ -188,6 +213,7 @@ class NotificationSchedulerTest {
 
         assertTrue(testReminder.getIsDelivered());
         verify(reminderRepository).save(testReminder);
+        verify(noteRepository).touchByReminderId(eq("reminder-1"), any(LocalDateTime.class));
     }
 
     @Test
@@ -308,25 +334,25 @@ class NotificationSchedulerTest {
     @DisplayName("checkAndDeliverReminders() - Delivers pending reminders")
     void test_checkAndDeliverReminders_deliversPending() {
         List<Reminder> pendingReminders = Arrays.asList(testReminder);
-        when(reminderRepository.findPendingReminders(any(LocalDateTime.class)))
+        when(reminderRepository.findPendingReminders(any(LocalDateTime.class), anyCollection(), any(Pageable.class)))
             .thenReturn(pendingReminders);
         when(reminderRepository.save(any(Reminder.class))).thenReturn(testReminder);
 
         notificationScheduler.checkAndDeliverReminders();
 
-        verify(reminderRepository).findPendingReminders(any(LocalDateTime.class));
+        verify(reminderRepository).findPendingReminders(any(LocalDateTime.class), anyCollection(), any(Pageable.class));
         assertTrue(testReminder.getIsDelivered());
     }
 
     @Test
     @DisplayName("checkAndDeliverReminders() - Handles empty reminder list")
     void test_checkAndDeliverReminders_emptyList_noErrors() {
-        when(reminderRepository.findPendingReminders(any(LocalDateTime.class)))
+        when(reminderRepository.findPendingReminders(any(LocalDateTime.class), anyCollection(), any(Pageable.class)))
             .thenReturn(Arrays.asList());
 
         notificationScheduler.checkAndDeliverReminders();
 
-        verify(reminderRepository).findPendingReminders(any(LocalDateTime.class));
+        verify(reminderRepository).findPendingReminders(any(LocalDateTime.class), anyCollection(), any(Pageable.class));
         verify(reminderRepository, never()).save(any(Reminder.class));
     }
 
@@ -339,7 +365,7 @@ class NotificationSchedulerTest {
         failingReminder.setChannel(NotificationChannel.EMAIL);
 
         List<Reminder> reminders = Arrays.asList(testReminder, failingReminder);
-        when(reminderRepository.findPendingReminders(any(LocalDateTime.class)))
+        when(reminderRepository.findPendingReminders(any(LocalDateTime.class), anyCollection(), any(Pageable.class)))
             .thenReturn(reminders);
         when(reminderRepository.save(any(Reminder.class)))
             .thenReturn(testReminder)
@@ -347,7 +373,7 @@ class NotificationSchedulerTest {
 
         notificationScheduler.checkAndDeliverReminders();
 
-        verify(reminderRepository).findPendingReminders(any(LocalDateTime.class));
+        verify(reminderRepository).findPendingReminders(any(LocalDateTime.class), anyCollection(), any(Pageable.class));
     }
 
     @Test
@@ -360,7 +386,7 @@ class NotificationSchedulerTest {
         reminder2.setMessage("Second reminder");
 
         List<Reminder> reminders = Arrays.asList(testReminder, reminder2);
-        when(reminderRepository.findPendingReminders(any(LocalDateTime.class)))
+        when(reminderRepository.findPendingReminders(any(LocalDateTime.class), anyCollection(), any(Pageable.class)))
             .thenReturn(reminders);
         when(reminderRepository.save(any(Reminder.class)))
             .thenReturn(testReminder, reminder2);
@@ -370,6 +396,88 @@ class NotificationSchedulerTest {
         verify(reminderRepository, times(2)).save(any(Reminder.class));
     }
 
+    @Test
+    @DisplayName("checkAndDeliverReminders() - Node without buckets does not query reminders")
+    void test_checkAndDeliverReminders_noBuckets_skipsQuery() {
+        when(leaseCoordinator.getAssignedBuckets(anyList())).thenReturn(List.of());
+
+        notificationScheduler.checkAndDeliverReminders();
+
+        verify(reminderRepository, never()).findPendingReminders(any(LocalDateTime.class), anyCollection(), any(Pageable.class));
+        verify(mediator, never()).sendNotification(any(Reminder.class));
+    }
+
+    @Test
+    @DisplayName("checkAndDeliverReminders() - Queries only this node's buckets in bounded batches")
+    void test_checkAndDeliverReminders_fullBatch_fetchesNext() {
+        List<Reminder> fullBatch = IntStream.range(0, AppConstants.REMINDER_DELIVERY_BATCH_SIZE)
+            .mapToObj(i -> {
+                Reminder reminder = new Reminder();
+                reminder.setReminderId("batch-" + i);
+                reminder.setIsDelivered(false);
+                reminder.setChannel(NotificationChannel.PUSH);
+                return reminder;
+            })
+            .toList();
+        when(reminderRepository.findPendingReminders(any(LocalDateTime.class), eq(List.of(0, 1)), any(Pageable.class)))
+            .thenReturn(fullBatch, List.of(testReminder));
+
+        notificationScheduler.checkAndDeliverReminders();
+
+        verify(reminderRepository, times(2)).findPendingReminders(any(LocalDateTime.class), eq(List.of(0, 1)),
+            eq(PageRequest.of(0, AppConstants.REMINDER_DELIVERY_BATCH_SIZE)));
+        verify(mediator, times(AppConstants.REMINDER_DELIVERY_BATCH_SIZE + 1)).sendNotification(any(Reminder.class));
+    }
+
+    @Test
+    @DisplayName("checkAndDeliverReminders() - Stops when a full batch makes no progress")
+    void test_checkAndDeliverReminders_fullBatchAllClaimed_stops() {
+        List<Reminder> fullBatch = IntStream.range(0, AppConstants.REMINDER_DELIVERY_BATCH_SIZE)
+            .mapToObj(i -> testReminder)
+            .toList();
+        when(reminderRepository.findPendingReminders(any(LocalDateTime.class), anyCollection(), any(Pageable.class)))
+            .thenReturn(fullBatch);
+        when(leaseCoordinator.tryClaimReminder("reminder-1")).thenReturn(false);
+
+        notificationScheduler.checkAndDeliverReminders();
+
+        verify(reminderRepository, times(1)).findPendingReminders(any(LocalDateTime.class), anyCollection(), any(Pageable.class));
+        verify(mediator, never()).sendNotification(any(Reminder.class));
+    }
+
+    @Test
+    @DisplayName("checkAndDeliverReminders() - Skips reminders claimed by another node")
+    void test_checkAndDeliverReminders_claimLost_skips() {
+        when(reminderRepository.findPendingReminders(any(LocalDateTime.class), anyCollection(), any(Pageable.class)))
+            .thenReturn(Arrays.asList(testReminder));
+        when(leaseCoordinator.tryClaimReminder("reminder-1")).thenReturn(false);
+
+        notificationScheduler.checkAndDeliverReminders();
+
+        verify(mediator, never()).sendNotification(any(Reminder.class));
+        verify(reminderRepository, never()).save(any(Reminder.class));
+    }
+
+    @Test
+    @DisplayName("checkAndNotifyDueTasks() - Does nothing when job lease is held elsewhere")
+    void test_checkAndNotifyDueTasks_leaseHeldElsewhere_skips() {
+        when(leaseCoordinator.tryAcquireJob(anyString(), any())).thenReturn(false);
+
+        notificationScheduler.checkAndNotifyDueTasks();
+
+        verify(dueTaskDigestService, never()).sendDueTaskDigests(any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("checkAndNotifyDueTasks() - Sends digests when job lease is acquired")
+    void test_checkAndNotifyDueTasks_leaseAcquired_sendsDigests() {
+        when(leaseCoordinator.tryAcquireJob(anyString(), any())).thenReturn(true);
+
+        notificationScheduler.checkAndNotifyDueTasks();
+
+        verify(dueTaskDigestService).sendDueTaskDigests(any(LocalDateTime.class));
+    }
+
     @Test
     @DisplayName("Integration - Schedule and deliver reminder workflow")
     void test_integration_scheduleAndDeliver() {
@@ -0,0 +1,452 @@
+package com.notesapp.services;
+
+import com.notesapp.config.AppConstants;
+import com.notesapp.entities.Note;
+import com.notesapp.entities.TodoItem;
+import com.notesapp.enums.ImageVariantSize;
+import com.notesapp.repositories.NoteRepository;
+import com.notesapp.repositories.TaskRepository;
+import com.notesapp.services.PdfRenditionCache.Rendition;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PDFExportService Tests")
+class PDFExportServiceTest {
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private PDFExportService pdfExportService;
+
+    @TempDir
+    Path cacheDir;
+
+    @TempDir
+    Path uploadDir;
+
+    private Note note;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+            .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        note = note("note-1", "Meeting Notes", "<p>Discussion about project requirements</p>");
+        PdfRenditionCache renditionCache = new PdfRenditionCache(cacheDir.toString(), 16);
+        renditionCache.loadCacheIndex();
+        ReflectionTestUtils.setField(pdfExportService, "renditionCache", renditionCache);
+        ImageVariantService imageVariantService = new ImageVariantService(uploadDir.toString(), 16);
+        ReflectionTestUtils.setField(imageVariantService, "fileStorageService", fileStorageService);
+        imageVariantService.loadCacheIndex();
+        ReflectionTestUtils.setField(pdfExportService, "imageVariantService", imageVariantService);
+    }
+
+    @Test
+    @DisplayName("exportNoteToPDF() - Writes the document to the stream and leaves it open")
+    void test_exportNoteToPDF_streams() throws Exception {
+        when(noteRepository.findById("note-1")).thenReturn(Optional.of(note));
+        TrackingOutputStream out = new TrackingOutputStream();
+
+        pdfExportService.exportNoteToPDF("note-1", true, out);
+
+        assertFalse(out.closed);
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            assertEquals(1, document.getNumberOfPages());
+        }
+    }
+
+    @Test
+    @DisplayName("exportNoteToPDF() - Exports text the PDF font cannot encode")
+    void test_exportNoteToPDF_unencodableText() throws Exception {
+        note.setTitle("Trip 🌴");
+        note.setBody("<p>Packed " + "✓".repeat(3) + " and ready</p>");
+        when(noteRepository.findById("note-1")).thenReturn(Optional.of(note));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        pdfExportService.exportNoteToPDF("note-1", false, out);
+
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            String text = pageText(document, 1);
+            assertTrue(text.contains("Trip ?"));
+            assertTrue(text.contains("Packed ??? and ready"));
+        }
+    }
+
+    @Test
+    @DisplayName("exportNoteToPDF() - Renders HTML bodies as lines of decoded text")
+    void test_exportNoteToPDF_htmlBody() throws Exception {
+        note.setBody("<p>Salt &amp; pepper</p><ul><li>Caf&eacute;</li><li>Cr&#232;me</li></ul>");
+        when(noteRepository.findById("note-1")).thenReturn(Optional.of(note));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        pdfExportService.exportNoteToPDF("note-1", false, out);
+
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            String text = pageText(document, 1);
+            assertTrue(text.contains("Salt & pepper\n• Café\n• Crème"), text);
+        }
+    }
+
+    @Test
+    @DisplayName("exportNoteToPDF() - Throws when the note does not exist")
+    void test_exportNoteToPDF_notFound() {
+        when(noteRepository.findById("missing")).thenReturn(Optional.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThrows(IllegalArgumentException.class, () -> pdfExportService.exportNoteToPDF("missing", true, out));
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    @DisplayName("exportNoteToPDF() - Continues a long body onto further pages instead of truncating it")
+    void test_exportNoteToPDF_paginatesLongBody() throws Exception {
+        String body = IntStream.rangeClosed(1, 200)
+            .mapToObj(i -> "Line " + i)
+            .collect(Collectors.joining("\n"));
+        note.setBody(body);
+        when(noteRepository.findById("note-1")).thenReturn(Optional.of(note));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        pdfExportService.exportNoteToPDF("note-1", true, out);
+
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            assertTrue(document.getNumberOfPages() > 1);
+            String text = new PDFTextStripper().getText(document);
+            assertTrue(text.contains("Line 1\n"));
+            assertTrue(pageText(document, document.getNumberOfPages()).contains("Line 200\n"));
+        }
+    }
+
+    @Test
+    @DisplayName("exportNoteToPDF() - Paginates to-do items and wraps long ones")
+    void test_exportNoteToPDF_paginatesTodos() throws Exception {
+        List<TodoItem> todos = IntStream.rangeClosed(1, 80)
+            .mapToObj(i -> {
+                TodoItem todo = new TodoItem();
+                todo.setNoteId("note-1");
+                todo.setTitle("Task " + i + (i == 80 ? " ending" : "") + " with a title that is long enough to need a second line when it is drawn across the page");
+                return todo;
+            })
+            .toList();
+        when(noteRepository.findById("note-1")).thenReturn(Optional.of(note));
+        when(taskRepository.findByNoteId("note-1")).thenReturn(todos);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        pdfExportService.exportNoteToPDF("note-1", false, out);
+
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            assertTrue(document.getNumberOfPages() > 2);
+            assertTrue(pageText(document, 1).contains("To-Do Items:"));
+            assertTrue(pageText(document, document.getNumberOfPages()).contains("Task 80 ending"));
+        }
+    }
+
+    @Test
+    @DisplayName("getNoteRendition() - Reuses the rendition while the note is unchanged")
+    void test_getNoteRendition_cached() throws Exception {
+        when(noteRepository.findById("note-1")).thenReturn(Optional.of(note));
+
+        Rendition first = pdfExportService.getNoteRendition("note-1", true);
+        Rendition second = pdfExportService.getNoteRendition("note-1", true);
+        Rendition withoutMetadata = pdfExportService.getNoteRendition("note-1", false);
+
+        assertSame(first, second);
+        assertNotEquals(first.getKey(), withoutMetadata.getKey());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        first.transferTo(out);
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            assertTrue(pageText(document, 1).contains("Meeting Notes"));
+        }
+    }
+
+    @Test
+    @DisplayName("getNoteRendition() - Renders again when the note or its to-dos change")
+    void test_getNoteRendition_changed() throws Exception {
+        TodoItem todo = new TodoItem();
+        todo.setNoteId("note-1");
+        todo.setTitle("Send the minutes");
+        when(noteRepository.findById("note-1")).thenReturn(Optional.of(note));
+        when(taskRepository.findByNoteId("note-1")).thenReturn(List.of(todo));
+
+        Rendition original = pdfExportService.getNoteRendition("note-1", false);
+        todo.setTitle("Send the agenda");
+        Rendition todoChanged = pdfExportService.getNoteRendition("note-1", false);
+        note.setTitle("Planning Notes");
+        Rendition titleChanged = pdfExportService.getNoteRendition("note-1", false);
+
+        assertNotEquals(original.getKey(), todoChanged.getKey());
+        assertNotEquals(todoChanged.getKey(), titleChanged.getKey());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        titleChanged.transferTo(out);
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            assertTrue(pageText(document, 1).contains("Planning Notes"));
+            assertTrue(pageText(document, 1).contains("Send the agenda"));
+        }
+    }
+
+    @Test
+    @DisplayName("getNoteRendition() - Throws when the note does not exist")
+    void test_getNoteRendition_notFound() {
+        when(noteRepository.findById("missing")).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> pdfExportService.getNoteRendition("missing", true));
+    }
+
+    @Test
+    @DisplayName("exportMultipleNotesToPDF() - Skips missing notes and reports the count")
+    void test_exportMultipleNotesToPDF_skipsMissing() throws Exception {
+        Note second = note("note-2", "Shopping List", "Buy groceries");
+        when(noteRepository.findAllForExport(List.of("note-1", "missing", "note-2"))).thenReturn(List.of(note, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int exported = pdfExportService.exportMultipleNotesToPDF(List.of("note-1", "missing", "note-2"), false, out);
+
+        assertEquals(2, exported);
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            assertEquals(2, document.getNumberOfPages());
+        }
+    }
+
+    @Test
+    @DisplayName("exportMultipleNotesToPDF() - Renders notes in the requested order with their to-dos")
+    void test_exportMultipleNotesToPDF_preservesOrder() throws Exception {
+        Note second = note("note-2", "Shopping List", "Buy groceries");
+        TodoItem todo = new TodoItem();
+        todo.setNoteId("note-1");
+        todo.setTitle("Send the minutes");
+        when(noteRepository.findAllForExport(List.of("note-2", "note-1"))).thenReturn(List.of(note, second));
+        when(taskRepository.findByNoteIdIn(anyCollection())).thenReturn(List.of(todo));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        pdfExportService.exportMultipleNotesToPDF(List.of("note-2", "note-1"), false, out);
+
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            assertTrue(pageText(document, 1).contains("Shopping List"));
+            assertTrue(pageText(document, 2).contains("Meeting Notes"));
+            assertTrue(pageText(document, 2).contains("Send the minutes"));
+        }
+        verify(taskRepository, never()).findByNoteId(anyString());
+    }
+
+    @Test
+    @DisplayName("exportMultipleNotesToPDF() - Loads each batch in its own transaction with a fixed number of queries")
+    void test_exportMultipleNotesToPDF_batches() throws Exception {
+        List<String> noteIds = IntStream.range(0, AppConstants.PDF_EXPORT_BATCH_SIZE + 1)
+            .mapToObj(i -> "note-" + i)
+            .toList();
+        when(noteRepository.findAllForExport(anyCollection()))
+            .thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0).stream()
+                .map(id -> note(id, "Title " + id, "Body"))
+                .toList());
+
+        int exported = pdfExportService.exportMultipleNotesToPDF(noteIds, false, new ByteArrayOutputStream());
+
+        assertEquals(noteIds.size(), exported);
+        verify(noteRepository, times(2)).findAllForExport(anyCollection());
+        verify(noteRepository, times(2)).fetchChecklists(anyCollection());
+        verify(noteRepository, times(2)).fetchImages(anyCollection());
+        verify(taskRepository, times(2)).findByNoteIdIn(anyCollection());
+        verify(noteRepository, never()).findById(anyString());
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    @DisplayName("exportMultipleNotesToPDF() - Merges chunks rendered in parallel back in order")
+    void test_exportMultipleNotesToPDF_mergesChunksInOrder() throws Exception {
+        int count = AppConstants.PDF_RENDER_CHUNK_SIZE * (AppConstants.PDF_RENDER_CHUNKS_IN_FLIGHT + 2) + 3;
+        List<String> noteIds = IntStream.range(0, count)
+            .mapToObj(i -> "note-" + i)
+            .toList();
+        when(noteRepository.findAllForExport(anyCollection()))
+            .thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0).stream()
+                .map(id -> note(id, "Title " + id, "Body of " + id))
+                .toList());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        pdfExportService.exportMultipleNotesToPDF(noteIds, false, out);
+
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            assertEquals(count, document.getNumberOfPages());
+            for (int i = 0; i < count; i += 7) {
+                assertTrue(pageText(document, i + 1).contains("Title note-" + i + "\n"), "page " + (i + 1));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("exportMultipleNotesToPDF() - Reports the notes rendered after each merged chunk")
+    void test_exportMultipleNotesToPDF_reportsProgress() throws Exception {
+        int count = AppConstants.PDF_RENDER_CHUNK_SIZE * 2 + 1;
+        List<String> noteIds = IntStream.range(0, count)
+            .mapToObj(i -> "note-" + i)
+            .toList();
+        when(noteRepository.findAllForExport(anyCollection()))
+            .thenAnswer(invocation -> invocation.<Collection<String>>getArgument(0).stream()
+                .map(id -> note(id, "Title " + id, "Body"))
+                .toList());
+        List<Integer> progress = new ArrayList<>();
+
+        pdfExportService.exportMultipleNotesToPDF(noteIds, false, new ByteArrayOutputStream(), progress::add);
+
+        int chunk = AppConstants.PDF_RENDER_CHUNK_SIZE;
+        assertEquals(List.of(chunk, chunk * 2, count), progress);
+    }
+
+    @Test
+    @DisplayName("exportNoteToPDF() - Embeds images downscaled to the PDF size, each file once")
+    void test_exportNoteToPDF_embedsImages() throws Exception {
+        stubImage("photo.jpg", "a".repeat(64), 2400, 1600, BufferedImage.TYPE_INT_RGB, "jpg");
+        stubImage("icon.png", "b".repeat(64), 200, 100, BufferedImage.TYPE_INT_ARGB, "png");
+        note.setImages(new ArrayList<>(List.of(
+            "/api/media/images/photo.jpg", "/api/media/images/icon.png", "/api/media/images/photo.jpg")));
+        when(noteRepository.findById("note-1")).thenReturn(Optional.of(note));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        pdfExportService.exportNoteToPDF("note-1", false, out);
+
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            List<PDImageXObject> images = images(document);
+            assertEquals(2, images.size());
+            PDImageXObject photo = images.stream().filter(image -> image.getWidth() > 200).findFirst().orElseThrow();
+            assertEquals(ImageVariantSize.PDF.getMaxDimension(), photo.getWidth());
+            assertEquals(COSName.DCT_DECODE, photo.getCOSObject().getItem(COSName.FILTER));
+            assertTrue(images.stream().anyMatch(image -> image.getWidth() == 200 && image.getHeight() == 100));
+        }
+        assertTrue(out.size() < 256 * 1024, "PDF is " + out.size() + " bytes");
+    }
+
+    @Test
+    @DisplayName("exportNoteToPDF() - Names images that cannot be embedded instead of failing")
+    void test_exportNoteToPDF_missingImage() throws Exception {
+        when(fileStorageService.storageKey("gone.jpg")).thenReturn("gone.jpg");
+        when(fileStorageService.getContentHash("gone.jpg")).thenThrow(new NoSuchFileException("gone.jpg"));
+        note.setImages(new ArrayList<>(List.of("/api/media/images/gone.jpg")));
+        when(noteRepository.findById("note-1")).thenReturn(Optional.of(note));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        pdfExportService.exportNoteToPDF("note-1", false, out);
+
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            assertTrue(pageText(document, 1).contains("[Image unavailable: gone.jpg]"));
+            assertTrue(images(document).isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("exportMultipleNotesToPDF() - Shares one image object between notes showing the same file")
+    void test_exportMultipleNotesToPDF_sharesImages() throws Exception {
+        stubImage("photo.jpg", "a".repeat(64), 1600, 1200, BufferedImage.TYPE_INT_RGB, "jpg");
+        Note second = note("note-2", "Shopping List", "Buy groceries");
+        note.setImages(new ArrayList<>(List.of("/api/media/images/photo.jpg")));
+        second.setImages(new ArrayList<>(List.of("/api/media/images/photo.jpg")));
+        when(noteRepository.findAllForExport(List.of("note-1", "note-2"))).thenReturn(List.of(note, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        pdfExportService.exportMultipleNotesToPDF(List.of("note-1", "note-2"), false, out);
+
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            assertEquals(2, document.getNumberOfPages());
+            PDResources first = document.getPage(0).getResources();
+            PDResources last = document.getPage(1).getResources();
+            assertSame(first.getXObject(first.getXObjectNames().iterator().next()).getCOSObject(),
+                last.getXObject(last.getXObjectNames().iterator().next()).getCOSObject());
+        }
+        verify(fileStorageService, times(1)).locateFile("photo.jpg");
+    }
+
+    private void stubImage(String filename, String hash, int width, int height, int type, String format) throws Exception {
+        Path path = uploadDir.resolve(filename);
+        ImageIO.write(new BufferedImage(width, height, type), format, path.toFile());
+        lenient().when(fileStorageService.storageKey(filename)).thenReturn(hash);
+        lenient().when(fileStorageService.getContentHash(filename)).thenReturn(hash);
+        lenient().when(fileStorageService.locateFile(filename)).thenReturn(path);
+    }
+
+    private List<PDImageXObject> images(PDDocument document) throws IOException {
+        List<PDImageXObject> images = new ArrayList<>();
+        List<Object> seen = new ArrayList<>();
+        for (var page : document.getPages()) {
+            PDResources resources = page.getResources();
+            for (COSName name : resources.getXObjectNames()) {
+                if (resources.getXObject(name) instanceof PDImageXObject image
+                        && seen.stream().noneMatch(cos -> cos == image.getCOSObject())) {
+                    seen.add(image.getCOSObject());
+                    images.add(image);
+                }
+            }
+        }
+        return images;
+    }
+
+    private String pageText(PDDocument document, int page) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(page);
+        stripper.setEndPage(page);
+        return stripper.getText(document);
+    }
+
+    private Note note(String noteId, String title, String body) {
+        Note note = new Note();
+        note.setNoteId(noteId);
+        note.setUserId("user-1");
+        note.setTitle(title);
+        note.setBody(body);
+        note.setCategory("Work");
+        note.setCreatedAt(LocalDateTime.now());
+        return note;
+    }
+
+    private static final class TrackingOutputStream extends ByteArrayOutputStream {
+        private boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.notesapp.services;
+
+import com.notesapp.services.PdfRenditionCache.Rendition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PdfRenditionCache Tests")
+class PdfRenditionCacheTest {
+
+    private static final int KB = 1024;
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    @DisplayName("getOrRender() - Renders once and serves repeats from disk")
+    void test_getOrRender_cached() throws Exception {
+        PdfRenditionCache cache = newCache(1);
+        AtomicInteger renders = new AtomicInteger();
+
+        Rendition first = cache.getOrRender("note-1", "v1", out -> {
+            renders.incrementAndGet();
+            out.write(bytes(10, 'a'));
+        });
+        Rendition second = cache.getOrRender("note-1", "v1", out -> renders.incrementAndGet());
+
+        assertEquals(1, renders.get());
+        assertSame(first, second);
+        assertEquals(10, second.getLength());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        second.transferTo(out);
+        assertArrayEquals(bytes(10, 'a'), out.toByteArray());
+    }
+
+    @Test
+    @DisplayName("getOrRender() - Renders again for a new version")
+    void test_getOrRender_newVersion() throws Exception {
+        PdfRenditionCache cache = newCache(1);
+        cache.getOrRender("note-1", "v1", out -> out.write(bytes(10, 'a')));
+
+        Rendition updated = cache.getOrRender("note-1", "v2", out -> out.write(bytes(20, 'b')));
+
+        assertEquals(20, updated.getLength());
+        assertEquals(2, cache.getCachedCount());
+    }
+
+    @Test
+    @DisplayName("getOrRender() - Evicts least recently used renditions beyond the size bound")
+    void test_getOrRender_evictsLru() throws Exception {
+        PdfRenditionCache cache = newCache(1);
+        Rendition a = cache.getOrRender("note-a", "v1", out -> out.write(bytes(400 * KB, 'a')));
+        Rendition b = cache.getOrRender("note-b", "v1", out -> out.write(bytes(400 * KB, 'b')));
+        cache.getOrRender("note-a", "v1", out -> fail("note-a should be cached"));
+
+        Rendition c = cache.getOrRender("note-c", "v1", out -> out.write(bytes(400 * KB, 'c')));
+
+        assertTrue(Files.exists(a.getPath()));
+        assertFalse(Files.exists(b.getPath()));
+        assertTrue(Files.exists(c.getPath()));
+        assertEquals(800 * KB, cache.getCachedBytes());
+    }
+
+    @Test
+    @DisplayName("getOrRender() - Leaves no file behind when rendering fails")
+    void test_getOrRender_failure() throws Exception {
+        PdfRenditionCache cache = newCache(1);
+
+        assertThrows(IOException.class, () -> cache.getOrRender("note-1", "v1", out -> {
+            out.write(bytes(10, 'a'));
+            throw new IOException("render failed");
+        }));
+
+        assertEquals(0, cache.getCachedCount());
+        try (var files = Files.list(cacheDir.resolve("note-1"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("getOrRender() - Rejects keys that are not plain path segments")
+    void test_getOrRender_rejectsUnsafeKey() {
+        PdfRenditionCache cache = newCache(1);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.getOrRender("../etc", "v1", out -> { }));
+        assertThrows(IllegalArgumentException.class, () -> cache.getOrRender("note-1", "v1/..", out -> { }));
+    }
+
+    @Test
+    @DisplayName("evictNote() - Drops every rendition of the note only")
+    void test_evictNote() throws Exception {
+        PdfRenditionCache cache = newCache(1);
+        Rendition plain = cache.getOrRender("note-1", "v1", out -> out.write(bytes(10, 'a')));
+        Rendition meta = cache.getOrRender("note-1", "v1-meta", out -> out.write(bytes(10, 'a')));
+        Rendition other = cache.getOrRender("note-2", "v1", out -> out.write(bytes(10, 'b')));
+
+        cache.evictNote("note-1");
+
+        assertFalse(Files.exists(plain.getPath()));
+        assertFalse(Files.exists(meta.getPath()));
+        assertTrue(Files.exists(other.getPath()));
+        assertEquals(1, cache.getCachedCount());
+        assertEquals(10, cache.getCachedBytes());
+    }
+
+    @Test
+    @DisplayName("loadCacheIndex() - Serves renditions written before a restart")
+    void test_loadCacheIndex() throws Exception {
+        newCache(1).getOrRender("note-1", "v1", out -> out.write(bytes(10, 'a')));
+
+        PdfRenditionCache restarted = newCache(1);
+        Rendition rendition = restarted.getOrRender("note-1", "v1", out -> fail("should be cached"));
+
+        assertEquals(10, rendition.getLength());
+        assertEquals(1, restarted.getCachedCount());
+    }
+
+    private PdfRenditionCache newCache(long maxCacheMb) {
+        PdfRenditionCache cache = new PdfRenditionCache(cacheDir.toString(), maxCacheMb);
+        cache.loadCacheIndex();
+        return cache;
+    }
+
+    private static byte[] bytes(int length, char fill) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) fill);
+        return bytes;
+    }
+}
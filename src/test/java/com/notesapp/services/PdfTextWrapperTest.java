@@ -0,0 +1,111 @@
+package com.notesapp.services;
+
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PdfTextWrapper Tests")
+class PdfTextWrapperTest {
+
+    private static final float FONT_SIZE = 12f;
+
+    private PDType1Font font;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        font = new PdfFonts().regular;
+    }
+
+    @Test
+    @DisplayName("wrap() - Breaks at spaces into lines that fit the width")
+    void test_wrap_fitsWidth() throws IOException {
+        String text = "The quick brown fox jumps over the lazy dog and keeps on running past the fence";
+        float maxWidth = 120f;
+
+        List<String> lines = PdfTextWrapper.wrap(text, maxWidth, font, FONT_SIZE);
+
+        assertTrue(lines.size() > 1);
+        for (String line : lines) {
+            assertTrue(measure(line) <= maxWidth, line);
+        }
+        assertEquals(text, String.join(" ", lines));
+    }
+
+    @Test
+    @DisplayName("wrap() - Matches PDFBox's own measurement of each line")
+    void test_wrap_matchesFontWidths() throws IOException {
+        String line = "Glyph widths, cached: “quotes” – €5";
+
+        assertEquals(measure(line), PdfTextWrapper.width(line, font, FONT_SIZE), 0.001f);
+        assertEquals(List.of(line), PdfTextWrapper.wrap(line, 1000f, font, FONT_SIZE));
+    }
+
+    @Test
+    @DisplayName("wrap() - Breaks a word wider than the line between characters")
+    void test_wrap_hardBreaksLongWord() throws IOException {
+        String word = "x".repeat(500);
+        float maxWidth = 100f;
+
+        List<String> lines = PdfTextWrapper.wrap("short " + word + " end", maxWidth, font, FONT_SIZE);
+
+        assertEquals("short", lines.get(0));
+        assertTrue(lines.get(lines.size() - 1).endsWith(" end"));
+        for (String line : lines) {
+            assertTrue(measure(line) <= maxWidth, line);
+        }
+        assertEquals(word.length(), lines.stream().mapToLong(line -> line.chars().filter(c -> c == 'x').count()).sum());
+    }
+
+    @Test
+    @DisplayName("wrap() - Starts a new line at line breaks and keeps empty paragraphs")
+    void test_wrap_lineBreaks() {
+        List<String> lines = PdfTextWrapper.wrap("first\r\nsecond\n\nfourth", 400f, font, FONT_SIZE);
+
+        assertEquals(List.of("first", "second", "", "fourth"), lines);
+        assertEquals(List.of(""), PdfTextWrapper.wrap("", 400f, font, FONT_SIZE));
+    }
+
+    @Test
+    @DisplayName("wrap() - Replaces characters the font cannot encode")
+    void test_wrap_replacesUnencodable() throws IOException {
+        List<String> lines = PdfTextWrapper.wrap("Done 😀 中文\tok", 400f, font, FONT_SIZE);
+
+        assertEquals(List.of("Done ? ?? ok"), lines);
+        font.encode(lines.get(0));
+    }
+
+    @Test
+    @DisplayName("wrap() - Wraps a 10k-character body without losing or reordering words")
+    void test_wrap_longBody() throws IOException {
+        Random random = new Random(42);
+        StringBuilder body = new StringBuilder();
+        while (body.length() < 10_000) {
+            int length = 1 + random.nextInt(random.nextInt(20) == 0 ? 120 : 10);
+            for (int i = 0; i < length; i++) {
+                body.append((char) ('a' + random.nextInt(26)));
+            }
+            body.append(' ');
+        }
+        float maxWidth = 495f;
+
+        List<String> lines = PdfTextWrapper.wrap(body.toString(), maxWidth, font, FONT_SIZE);
+
+        for (String line : lines) {
+            assertTrue(measure(line) <= maxWidth, line);
+        }
+        String joined = lines.stream().collect(Collectors.joining());
+        assertEquals(body.toString().replace(" ", ""), joined.replace(" ", ""));
+    }
+
+    private float measure(String line) throws IOException {
+        return font.getStringWidth(line) / 1000 * FONT_SIZE;
+    }
+}
@@ -0,0 +1,47 @@
+package com.notesapp.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ReferenceFilter Tests")
+class ReferenceFilterTest {
+
+    @Test
+    @DisplayName("mightContain() - Never misses a key that was added")
+    void test_mightContain_noFalseNegatives() {
+        ReferenceFilter filter = new ReferenceFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("key-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("key-" + i));
+        }
+    }
+
+    @Test
+    @DisplayName("mightContain() - Keeps false positives near the configured rate")
+    void test_mightContain_falsePositiveRate() {
+        ReferenceFilter filter = new ReferenceFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("key-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("ReferenceFilter() - Sizes the bit array from the expected key count")
+    void test_constructor_sizing() {
+        assertEquals(11_984, new ReferenceFilter(10_000, 0.01).sizeInBytes(), 8);
+        assertTrue(new ReferenceFilter(0, 0.01).sizeInBytes() > 0);
+    }
+}
@@ -172,6 +172,19 @@ class SearchServiceTest {
         assertTrue(results.isEmpty());
     }
 
+    @Test
+    @DisplayName("searchByText() - Drops notes whose body matched only in markup")
+    void test_searchByText_markupOnlyMatch_dropped() {
+        testNote1.setBody("<p class=\"strong\">Discussion about <strong>project</strong> requirements</p>");
+        testNote2.setBody("<p>Buy <em>strong</em> coffee &amp; supplies</p>");
+        when(noteRepository.searchByText("user-1", "Strong"))
+            .thenReturn(testNotes);
+
+        List<Note> results = searchService.searchByText("user-1", "Strong");
+
+        assertEquals(List.of(testNote2), results);
+    }
+
     @Test
     @DisplayName("filterByTags() - Null tag list throws IllegalArgumentException")
     void test_filterByTags_nullTagList_throwsException() {